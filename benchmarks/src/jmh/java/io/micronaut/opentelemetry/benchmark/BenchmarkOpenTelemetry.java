@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.benchmark;
+
+import io.micronaut.opentelemetry.trace.sampler.PrecomputedIdGenerator;
+import io.micronaut.opentelemetry.trace.sampler.PrecomputedSampler;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.baggage.propagation.W3CBaggagePropagator;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.trace.IdGenerator;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+
+/**
+ * Builds {@link OpenTelemetry} instances wired like the one of the module, exporting to a {@link NoopSpanExporter}.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public final class BenchmarkOpenTelemetry {
+
+    /**
+     * A W3C trace context header of a sampled remote parent.
+     */
+    public static final String TRACEPARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+    /**
+     * A W3C trace state header.
+     */
+    public static final String TRACESTATE = "congo=t61rcWkgMzE,rojo=00f067aa0ba902b7";
+
+    /**
+     * A W3C baggage header.
+     */
+    public static final String BAGGAGE = "userId=alice,serverNode=DF%2028,isProduction=false";
+
+    private BenchmarkOpenTelemetry() {
+    }
+
+    /**
+     * @param sampler The sampler
+     * @return An OpenTelemetry instance sampling with the given sampler
+     */
+    public static OpenTelemetry create(Sampler sampler) {
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(new NoopSpanExporter()))
+                .setSampler(new PrecomputedSampler(sampler))
+                .setIdGenerator(new PrecomputedIdGenerator(IdGenerator.random()))
+                .build();
+        return OpenTelemetrySdk.builder()
+                .setTracerProvider(tracerProvider)
+                .setPropagators(ContextPropagators.create(TextMapPropagator.composite(
+                        W3CTraceContextPropagator.getInstance(),
+                        W3CBaggagePropagator.getInstance())))
+                .build();
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.benchmark;
+
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * A subscriber that requests everything and hands all signals to a {@link Blackhole}.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public final class BlackholeSubscriber implements Subscriber<Object> {
+
+    private final Blackhole blackhole;
+
+    /**
+     * @param blackhole The blackhole signals are consumed by
+     */
+    public BlackholeSubscriber(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(Object value) {
+        blackhole.consume(value);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        blackhole.consume(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        blackhole.consume(true);
+    }
+
+}
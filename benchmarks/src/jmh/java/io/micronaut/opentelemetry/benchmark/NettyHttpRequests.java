@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.benchmark;
+
+import io.micronaut.core.convert.ConversionService;
+import io.micronaut.http.HttpMethod;
+import io.micronaut.http.MutableHttpHeaders;
+import io.micronaut.http.MutableHttpRequest;
+import io.micronaut.http.netty.NettyHttpHeaders;
+import io.micronaut.http.simple.SimpleHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+
+/**
+ * Creates requests backed by Netty headers, like the requests of the Netty HTTP server and client, without starting
+ * either of them.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public final class NettyHttpRequests {
+
+    private NettyHttpRequests() {
+    }
+
+    /**
+     * @param method The method
+     * @param uri    The URI
+     * @return A new request backed by Netty headers
+     */
+    public static MutableHttpRequest<Object> create(HttpMethod method, String uri) {
+        NettyHttpHeaders headers = new NettyHttpHeaders(new DefaultHttpHeaders(), ConversionService.SHARED);
+        return new SimpleHttpRequest<Object>(method, uri, null) {
+            @Override
+            public MutableHttpHeaders getHeaders() {
+                return headers;
+            }
+        };
+    }
+
+}
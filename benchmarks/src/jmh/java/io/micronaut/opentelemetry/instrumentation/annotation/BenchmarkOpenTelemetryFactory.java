@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.annotation;
+
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.opentelemetry.OpenTelemetryConfig;
+import io.micronaut.opentelemetry.benchmark.BenchmarkOpenTelemetry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import jakarta.inject.Singleton;
+
+/**
+ * Replaces the OpenTelemetry of the module with one exporting to a no-op exporter, for {@link WithSpanBenchmark}.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Factory
+public class BenchmarkOpenTelemetryFactory {
+
+    /**
+     * @return The OpenTelemetry
+     */
+    @Singleton
+    @Replaces(bean = OpenTelemetry.class, factory = OpenTelemetryConfig.class)
+    public OpenTelemetry openTelemetry() {
+        return BenchmarkOpenTelemetry.create(Sampler.alwaysOn());
+    }
+
+}
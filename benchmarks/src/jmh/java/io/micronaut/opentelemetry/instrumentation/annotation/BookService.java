@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.annotation;
+
+import io.opentelemetry.extension.annotations.SpanAttribute;
+import io.opentelemetry.extension.annotations.WithSpan;
+import jakarta.inject.Singleton;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A bean with the same methods with and without {@link WithSpan}, for {@link WithSpanBenchmark}.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Singleton
+public class BookService {
+
+    /**
+     * @param id The id of the book
+     * @return The title of the book
+     */
+    public String plain(long id) {
+        return title(id);
+    }
+
+    /**
+     * @param id The id of the book
+     * @return The title of the book
+     */
+    @WithSpan
+    public String withSpan(long id) {
+        return title(id);
+    }
+
+    /**
+     * @param id     The id of the book
+     * @param author The author of the book
+     * @return The title of the book
+     */
+    @WithSpan("find book")
+    public String withSpanAttributes(@SpanAttribute("book.id") long id, @SpanAttribute String author) {
+        return title(id);
+    }
+
+    /**
+     * @param id The id of the book
+     * @return The title of the book
+     */
+    public CompletableFuture<String> plainCompletionStage(long id) {
+        return CompletableFuture.completedFuture(title(id));
+    }
+
+    /**
+     * @param id The id of the book
+     * @return The title of the book
+     */
+    @WithSpan
+    public CompletableFuture<String> withSpanCompletionStage(long id) {
+        return CompletableFuture.completedFuture(title(id));
+    }
+
+    /**
+     * @param id The id of the book
+     * @return The title of the book
+     */
+    public Publisher<String> plainPublisher(long id) {
+        return Mono.just(title(id));
+    }
+
+    /**
+     * @param id The id of the book
+     * @return The title of the book
+     */
+    @WithSpan
+    public Publisher<String> withSpanPublisher(long id) {
+        return Mono.just(title(id));
+    }
+
+    private static String title(long id) {
+        return id == 42 ? "The Hitchhiker's Guide to the Galaxy" : "Unknown";
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.annotation;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.opentelemetry.benchmark.BlackholeSubscriber;
+import io.micronaut.opentelemetry.instrumentation.reactor.ReactorTracingConfiguration;
+import io.micronaut.opentelemetry.logs.LogsConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Measures invoking a bean method through the {@link WithSpanInterceptor} against invoking the same method without
+ * {@link io.opentelemetry.extension.annotations.WithSpan}, for a synchronous result, a completion stage and a
+ * publisher. Every span is sampled and exported to a no-op exporter.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class WithSpanBenchmark {
+
+    private static final long BOOK_ID = 42;
+
+    private ApplicationContext applicationContext;
+    private BookService bookService;
+
+    /**
+     * Starts the application context.
+     */
+    @Setup
+    public void setup() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(LogsConfiguration.ENABLED, StringUtils.FALSE);
+        properties.put(ReactorTracingConfiguration.ENABLED, StringUtils.FALSE);
+        applicationContext = ApplicationContext.run(properties);
+        bookService = applicationContext.getBean(BookService.class);
+    }
+
+    /**
+     * Stops the application context.
+     */
+    @TearDown
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    /**
+     * @return The title
+     */
+    @Benchmark
+    public String plain() {
+        return bookService.plain(BOOK_ID);
+    }
+
+    /**
+     * @return The title
+     */
+    @Benchmark
+    public String withSpan() {
+        return bookService.withSpan(BOOK_ID);
+    }
+
+    /**
+     * @return The title
+     */
+    @Benchmark
+    public String withSpanAttributes() {
+        return bookService.withSpanAttributes(BOOK_ID, "Douglas Adams");
+    }
+
+    /**
+     * @return The title
+     */
+    @Benchmark
+    public CompletableFuture<String> plainCompletionStage() {
+        return bookService.plainCompletionStage(BOOK_ID);
+    }
+
+    /**
+     * @return The title
+     */
+    @Benchmark
+    public CompletableFuture<String> withSpanCompletionStage() {
+        return bookService.withSpanCompletionStage(BOOK_ID);
+    }
+
+    /**
+     * @param blackhole The blackhole
+     */
+    @Benchmark
+    public void plainPublisher(Blackhole blackhole) {
+        bookService.plainPublisher(BOOK_ID).subscribe(new BlackholeSubscriber(blackhole));
+    }
+
+    /**
+     * @param blackhole The blackhole
+     */
+    @Benchmark
+    public void withSpanPublisher(Blackhole blackhole) {
+        bookService.withSpanPublisher(BOOK_ID).subscribe(new BlackholeSubscriber(blackhole));
+    }
+
+}
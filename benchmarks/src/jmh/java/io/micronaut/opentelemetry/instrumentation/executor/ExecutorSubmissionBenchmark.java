@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.executor;
+
+import io.micronaut.opentelemetry.benchmark.BenchmarkOpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures submitting a task to an executor with and without the context propagation of
+ * {@link ExecutorServiceContextPropagator}, with no context current and with the context of a span current. The
+ * tasks run on the submitting thread, so the numbers are the cost of the submission and of switching the context
+ * around the task, without any thread handoff.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class ExecutorSubmissionBenchmark {
+
+    @Param({"plain", "propagating"})
+    String executor;
+
+    @Param({"root", "span"})
+    String context;
+
+    private ExecutorService executorService;
+    private io.opentelemetry.context.Scope scope;
+
+    /**
+     * Creates the executor and makes the context current.
+     */
+    @Setup
+    public void setup() {
+        ExecutorService direct = new DirectExecutorService();
+        executorService = "propagating".equals(executor) ? new ContextPropagatingExecutorService(direct) : direct;
+        if ("span".equals(context)) {
+            String traceId = BenchmarkOpenTelemetry.TRACEPARENT.substring(3, 35);
+            String spanId = BenchmarkOpenTelemetry.TRACEPARENT.substring(36, 52);
+            scope = Context.root().with(Span.wrap(
+                    SpanContext.create(traceId, spanId, TraceFlags.getSampled(), TraceState.getDefault()))).makeCurrent();
+        }
+    }
+
+    /**
+     * Restores the context.
+     */
+    @TearDown
+    public void tearDown() {
+        if (scope != null) {
+            scope.close();
+        }
+    }
+
+    /**
+     * @param blackhole The blackhole
+     */
+    @Benchmark
+    public void execute(Blackhole blackhole) {
+        executorService.execute(() -> blackhole.consume(Span.current()));
+    }
+
+    /**
+     * @return The result of the task
+     * @throws ExecutionException   If the task fails
+     * @throws InterruptedException If the thread is interrupted
+     */
+    @Benchmark
+    public Object submit() throws ExecutionException, InterruptedException {
+        return executorService.submit(Span::current).get();
+    }
+
+    /**
+     * Runs every task on the submitting thread.
+     */
+    private static final class DirectExecutorService extends AbstractExecutorService {
+
+        private volatile boolean shutdown;
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+}
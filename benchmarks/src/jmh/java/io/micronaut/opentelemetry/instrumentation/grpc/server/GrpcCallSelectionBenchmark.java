@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.grpc.server;
+
+import com.google.protobuf.StringValue;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+import io.micronaut.opentelemetry.benchmark.BenchmarkOpenTelemetry;
+import io.micronaut.opentelemetry.trace.sampler.RuleBasedSampler;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+
+/**
+ * Measures a unary call through the server tracing interceptor when the method is traced, excluded, or sampled at a
+ * ratio of 0.1 by the sampler of the tracer provider. The call runs on the calling thread against a stub transport,
+ * and the sampled spans are exported to a no-op exporter.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class GrpcCallSelectionBenchmark {
+
+    private static final StringValue MESSAGE = StringValue.of("SERVING");
+
+    @Param({"TRACED", "EXCLUDED", "SAMPLED"})
+    String selection;
+
+    private ServerInterceptor interceptor;
+    private MethodDescriptor<StringValue, StringValue> method;
+
+    /**
+     * Creates the tracing interceptor.
+     */
+    @Setup
+    public void setup() {
+        GrpcServerMethodSamplingConfiguration sampling = new GrpcServerMethodSamplingConfiguration("books");
+        sampling.setMethod("books.BookService/*");
+        sampling.setRatio(0.1);
+        OpenTelemetry openTelemetry = BenchmarkOpenTelemetry.create(Sampler.parentBased(new RuleBasedSampler(
+                Collections.emptyList(), Collections.singletonList(sampling), Sampler.alwaysOn())));
+        GrpcServerTracingInterceptorConfiguration configuration = new GrpcServerTracingInterceptorConfiguration(openTelemetry);
+        switch (selection) {
+            case "TRACED":
+                configuration.setExcludedMethods(Collections.emptyList());
+                method = method("grpc.health.v1.Health", "Check");
+                break;
+            case "EXCLUDED":
+                method = method("grpc.health.v1.Health", "Check");
+                break;
+            default:
+                method = method("books.BookService", "Find");
+                break;
+        }
+        interceptor = new GrpcServerTracingInterceptorFactory().serverTracingInterceptor(configuration);
+    }
+
+    /**
+     * @return The number of responses sent
+     */
+    @Benchmark
+    public int unaryCall() {
+        StubServerCall call = new StubServerCall(method);
+        ServerCall.Listener<StringValue> listener = interceptor.interceptCall(call, new Metadata(), EchoHandler.INSTANCE);
+        listener.onReady();
+        listener.onMessage(MESSAGE);
+        listener.onHalfClose();
+        listener.onComplete();
+        return call.sent;
+    }
+
+    private static MethodDescriptor<StringValue, StringValue> method(String service, String name) {
+        return MethodDescriptor.<StringValue, StringValue>newBuilder()
+                .setType(MethodDescriptor.MethodType.UNARY)
+                .setFullMethodName(MethodDescriptor.generateFullMethodName(service, name))
+                .setRequestMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                .setResponseMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                .build();
+    }
+
+    /**
+     * Answers the request with the request itself.
+     */
+    private enum EchoHandler implements ServerCallHandler<StringValue, StringValue> {
+
+        INSTANCE;
+
+        @Override
+        public ServerCall.Listener<StringValue> startCall(ServerCall<StringValue, StringValue> call, Metadata headers) {
+            return new ServerCall.Listener<StringValue>() {
+                @Override
+                public void onMessage(StringValue message) {
+                    call.sendMessage(message);
+                }
+
+                @Override
+                public void onHalfClose() {
+                    call.close(Status.OK, new Metadata());
+                }
+            };
+        }
+    }
+
+    /**
+     * A server call that drops what it is sent.
+     */
+    private static final class StubServerCall extends ServerCall<StringValue, StringValue> {
+
+        private final MethodDescriptor<StringValue, StringValue> method;
+        int sent;
+
+        StubServerCall(MethodDescriptor<StringValue, StringValue> method) {
+            this.method = method;
+        }
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void sendHeaders(Metadata headers) {
+        }
+
+        @Override
+        public void sendMessage(StringValue message) {
+            sent++;
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public MethodDescriptor<StringValue, StringValue> getMethodDescriptor() {
+            return method;
+        }
+    }
+
+}
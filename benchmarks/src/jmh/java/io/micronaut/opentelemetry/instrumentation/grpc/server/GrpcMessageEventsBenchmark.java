@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.grpc.server;
+
+import com.google.protobuf.StringValue;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.grpc.protobuf.ProtoUtils;
+import io.micronaut.opentelemetry.benchmark.BenchmarkOpenTelemetry;
+import io.micronaut.opentelemetry.instrumentation.grpc.GrpcMessageEvents;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * Measures a bidirectional streaming call of {@value #MESSAGES} requests, each answered with a response, through the
+ * server tracing interceptor under each {@link GrpcMessageEvents} policy. The call runs on the calling thread against
+ * a stub transport, and its span is sampled and exported to a no-op exporter, so the numbers are the cost of the
+ * tracing of a call and of its message events.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class GrpcMessageEventsBenchmark {
+
+    private static final int MESSAGES = 1000;
+
+    private static final MethodDescriptor<StringValue, StringValue> METHOD = MethodDescriptor.<StringValue, StringValue>newBuilder()
+            .setType(MethodDescriptor.MethodType.BIDI_STREAMING)
+            .setFullMethodName(MethodDescriptor.generateFullMethodName("books.BookService", "Chat"))
+            .setRequestMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+            .setResponseMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+            .build();
+
+    private static final StringValue MESSAGE = StringValue.of("The Hitchhiker's Guide to the Galaxy");
+
+    @Param({"ALL", "SAMPLED", "AGGREGATED", "NONE"})
+    GrpcMessageEvents messageEvents;
+
+    private ServerInterceptor interceptor;
+
+    /**
+     * Creates the tracing interceptor.
+     */
+    @Setup
+    public void setup() {
+        OpenTelemetry openTelemetry = BenchmarkOpenTelemetry.create(Sampler.alwaysOn());
+        GrpcServerTracingInterceptorConfiguration configuration = new GrpcServerTracingInterceptorConfiguration(openTelemetry);
+        configuration.setMessageEvents(messageEvents);
+        interceptor = new GrpcServerTracingInterceptorFactory()
+                .serverTracingInterceptor(configuration);
+    }
+
+    /**
+     * @return The number of responses sent
+     */
+    @Benchmark
+    public int streamingCall() {
+        StubServerCall call = new StubServerCall();
+        ServerCall.Listener<StringValue> listener = interceptor.interceptCall(call, new Metadata(), EchoHandler.INSTANCE);
+        listener.onReady();
+        for (int i = 0; i < MESSAGES; i++) {
+            listener.onMessage(MESSAGE);
+        }
+        listener.onHalfClose();
+        listener.onComplete();
+        return call.sent;
+    }
+
+    /**
+     * Answers every request with the request itself.
+     */
+    private enum EchoHandler implements ServerCallHandler<StringValue, StringValue> {
+
+        INSTANCE;
+
+        @Override
+        public ServerCall.Listener<StringValue> startCall(ServerCall<StringValue, StringValue> call, Metadata headers) {
+            return new ServerCall.Listener<StringValue>() {
+                @Override
+                public void onMessage(StringValue message) {
+                    call.sendMessage(message);
+                }
+
+                @Override
+                public void onHalfClose() {
+                    call.close(Status.OK, new Metadata());
+                }
+            };
+        }
+    }
+
+    /**
+     * A server call that drops what it is sent.
+     */
+    private static final class StubServerCall extends ServerCall<StringValue, StringValue> {
+
+        int sent;
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void sendHeaders(Metadata headers) {
+        }
+
+        @Override
+        public void sendMessage(StringValue message) {
+            sent++;
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public MethodDescriptor<StringValue, StringValue> getMethodDescriptor() {
+            return METHOD;
+        }
+    }
+
+}
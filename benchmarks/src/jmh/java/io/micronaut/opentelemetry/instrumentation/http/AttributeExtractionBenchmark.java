@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http;
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.api.instrumenter.AttributesExtractor;
+import io.opentelemetry.instrumentation.api.instrumenter.http.HttpServerAttributesExtractor;
+import io.opentelemetry.instrumentation.api.instrumenter.net.NetServerAttributesExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures extracting the HTTP and network attributes of a server span through the attribute getters of the module.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class AttributeExtractionBenchmark {
+
+    private AttributesExtractor<HttpRequest, HttpResponse> httpExtractor;
+    private AttributesExtractor<HttpRequest, HttpResponse> netExtractor;
+    private HttpRequest<?> request;
+    private HttpResponse<?> response;
+
+    /**
+     * Creates the extractors and the exchange.
+     */
+    @Setup
+    public void setup() {
+        httpExtractor = HttpServerAttributesExtractor.create(MicronautHttpServerAttributesGetter.INSTANCE);
+        netExtractor = NetServerAttributesExtractor.create(new MicronautHttpNetServerAttributesGetter());
+        request = HttpRequest.GET("/books/42?format=json")
+                .header("User-Agent", "benchmark")
+                .header("Host", "localhost:8080");
+        response = HttpResponse.ok();
+    }
+
+    /**
+     * @return The attributes extracted when a span starts
+     */
+    @Benchmark
+    public Attributes onStart() {
+        AttributesBuilder attributes = Attributes.builder();
+        httpExtractor.onStart(attributes, Context.root(), request);
+        netExtractor.onStart(attributes, Context.root(), request);
+        return attributes.build();
+    }
+
+    /**
+     * @return The attributes extracted when a span starts and ends
+     */
+    @Benchmark
+    public Attributes onStartAndEnd() {
+        AttributesBuilder attributes = Attributes.builder();
+        httpExtractor.onStart(attributes, Context.root(), request);
+        netExtractor.onStart(attributes, Context.root(), request);
+        httpExtractor.onEnd(attributes, Context.root(), request, response, null);
+        netExtractor.onEnd(attributes, Context.root(), request, response, null);
+        return attributes.build();
+    }
+
+}
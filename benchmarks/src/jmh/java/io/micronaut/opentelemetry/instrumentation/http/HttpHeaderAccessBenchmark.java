@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http;
+
+import io.micronaut.http.HttpMethod;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.MutableHttpRequest;
+import io.micronaut.opentelemetry.benchmark.BenchmarkOpenTelemetry;
+import io.micronaut.opentelemetry.benchmark.NettyHttpRequests;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures reading and writing the {@code traceparent}, {@code tracestate} and {@code baggage} headers through
+ * {@link HttpRequestGetter} and {@link HttpRequestSetter}, on Netty-backed headers and on the generic headers of
+ * Micronaut. With the {@code gc} profiler, {@code gc.alloc.rate.norm} of {@code get} on Netty-backed headers is
+ * expected to be zero.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class HttpHeaderAccessBenchmark {
+
+    private static final String TRACEPARENT = "traceparent";
+    private static final String TRACESTATE = "tracestate";
+    private static final String BAGGAGE = "baggage";
+
+    @Param({"netty", "simple"})
+    String headers;
+
+    private HttpRequest<?> incoming;
+    private MutableHttpRequest<?> outgoing;
+
+    /**
+     * Creates the requests.
+     */
+    @Setup
+    public void setup() {
+        MutableHttpRequest<?> request = create(HttpMethod.GET, "/books/42");
+        request.header(TRACEPARENT, BenchmarkOpenTelemetry.TRACEPARENT)
+                .header(TRACESTATE, BenchmarkOpenTelemetry.TRACESTATE)
+                .header(BAGGAGE, BenchmarkOpenTelemetry.BAGGAGE)
+                .header("Accept", "application/json")
+                .header("User-Agent", "benchmark");
+        incoming = request;
+        outgoing = create(HttpMethod.GET, "http://localhost:8080/books/42");
+    }
+
+    /**
+     * Reads the propagation headers.
+     *
+     * @param blackhole The blackhole
+     */
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        blackhole.consume(HttpRequestGetter.INSTANCE.get(incoming, TRACEPARENT));
+        blackhole.consume(HttpRequestGetter.INSTANCE.get(incoming, TRACESTATE));
+        blackhole.consume(HttpRequestGetter.INSTANCE.get(incoming, BAGGAGE));
+    }
+
+    /**
+     * Iterates the header names.
+     *
+     * @param blackhole The blackhole
+     */
+    @Benchmark
+    public void keys(Blackhole blackhole) {
+        for (String key : HttpRequestGetter.INSTANCE.keys(incoming)) {
+            blackhole.consume(key);
+        }
+    }
+
+    /**
+     * @return The request the propagation headers were written to
+     */
+    @Benchmark
+    public MutableHttpRequest<?> set() {
+        HttpRequestSetter.INSTANCE.set(outgoing, TRACEPARENT, BenchmarkOpenTelemetry.TRACEPARENT);
+        HttpRequestSetter.INSTANCE.set(outgoing, TRACESTATE, BenchmarkOpenTelemetry.TRACESTATE);
+        HttpRequestSetter.INSTANCE.set(outgoing, BAGGAGE, BenchmarkOpenTelemetry.BAGGAGE);
+        return outgoing;
+    }
+
+    private MutableHttpRequest<?> create(HttpMethod method, String uri) {
+        if ("netty".equals(headers)) {
+            return NettyHttpRequests.create(method, uri);
+        }
+        return HttpRequest.create(method, uri);
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http;
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.MutableHttpRequest;
+import io.micronaut.opentelemetry.benchmark.BenchmarkOpenTelemetry;
+import io.opentelemetry.api.baggage.Baggage;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapPropagator;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures extracting the W3C trace context and baggage from a request with {@link HttpRequestGetter} and injecting
+ * them into a request with {@link HttpRequestSetter}.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class PropagationBenchmark {
+
+    private TextMapPropagator propagator;
+    private HttpRequest<?> incoming;
+    private MutableHttpRequest<?> outgoing;
+    private Context context;
+
+    /**
+     * Creates the requests and the context to inject.
+     */
+    @Setup
+    public void setup() {
+        propagator = BenchmarkOpenTelemetry.create(Sampler.alwaysOn()).getPropagators().getTextMapPropagator();
+        incoming = HttpRequest.GET("/books/42")
+                .header("traceparent", BenchmarkOpenTelemetry.TRACEPARENT)
+                .header("tracestate", BenchmarkOpenTelemetry.TRACESTATE)
+                .header("baggage", BenchmarkOpenTelemetry.BAGGAGE);
+        outgoing = HttpRequest.GET("http://localhost:8080/books/42");
+        context = Context.root()
+                .with(Span.wrap(SpanContext.create("4bf92f3577b34da6a3ce929d0e0e4736", "00f067aa0ba902b7",
+                        TraceFlags.getSampled(), TraceState.builder().put("congo", "t61rcWkgMzE").build())))
+                .with(Baggage.builder().put("userId", "alice").build());
+    }
+
+    /**
+     * @return The extracted context
+     */
+    @Benchmark
+    public Context extract() {
+        return propagator.extract(Context.root(), incoming, HttpRequestGetter.INSTANCE);
+    }
+
+    /**
+     * @return The request the context was injected into
+     */
+    @Benchmark
+    public MutableHttpRequest<?> inject() {
+        propagator.inject(context, outgoing, HttpRequestSetter.INSTANCE);
+        return outgoing;
+    }
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http;
+
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.opentelemetry.benchmark.BenchmarkOpenTelemetry;
+import io.micronaut.opentelemetry.benchmark.BlackholeSubscriber;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Measures relaying a single response in the context of a request, which the HTTP filters do for every traced
+ * request. {@link #scopePerSignal} relays it the way the filters used to, with a publisher lambda, an anonymous
+ * subscriber and a scope opened for every signal; {@link #tracingPublisher} relays it with a {@link TracingPublisher}.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class TracingPublisherBenchmark {
+
+    private Context context;
+    private Publisher<HttpResponse<?>> upstream;
+
+    /**
+     * Creates the context and the response.
+     */
+    @Setup
+    public void setup() {
+        String traceId = BenchmarkOpenTelemetry.TRACEPARENT.substring(3, 35);
+        String spanId = BenchmarkOpenTelemetry.TRACEPARENT.substring(36, 52);
+        context = Context.root().with(Span.wrap(
+                SpanContext.create(traceId, spanId, TraceFlags.getSampled(), TraceState.getDefault())));
+        upstream = Publishers.just(HttpResponse.ok());
+    }
+
+    /**
+     * @param blackhole The blackhole
+     */
+    @Benchmark
+    public void scopePerSignal(Blackhole blackhole) {
+        Publisher<HttpResponse<?>> upstream = this.upstream;
+        Context context = this.context;
+        Publisher<HttpResponse<?>> publisher = (Publishers.MicronautPublisher<HttpResponse<?>>) actual -> {
+            try (io.opentelemetry.context.Scope ignored = context.makeCurrent()) {
+                upstream.subscribe(new Subscriber<HttpResponse<?>>() {
+                    @Override
+                    public void onSubscribe(Subscription s) {
+                        try (io.opentelemetry.context.Scope ignored = context.makeCurrent()) {
+                            actual.onSubscribe(s);
+                        }
+                    }
+
+                    @Override
+                    public void onNext(HttpResponse<?> response) {
+                        try (io.opentelemetry.context.Scope ignored = context.makeCurrent()) {
+                            actual.onNext(response);
+                        }
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        try (io.opentelemetry.context.Scope ignored = context.makeCurrent()) {
+                            actual.onError(t);
+                        }
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        try (io.opentelemetry.context.Scope ignored = context.makeCurrent()) {
+                            actual.onComplete();
+                        }
+                    }
+                });
+            }
+        };
+        publisher.subscribe(new BlackholeSubscriber(blackhole));
+    }
+
+    /**
+     * @param blackhole The blackhole
+     */
+    @Benchmark
+    public void tracingPublisher(Blackhole blackhole) {
+        new RelayingPublisher(context, upstream).subscribe(new BlackholeSubscriber(blackhole));
+    }
+
+    /**
+     * Relays the response without tracing it.
+     */
+    private static final class RelayingPublisher extends TracingPublisher<HttpResponse<?>> {
+
+        private final Context context;
+
+        RelayingPublisher(Context context, Publisher<HttpResponse<?>> upstream) {
+            super(upstream);
+            this.context = context;
+        }
+
+        @Override
+        protected Context start() {
+            return context;
+        }
+
+        @Override
+        protected TracingPublisher<HttpResponse<?>> copy() {
+            return new RelayingPublisher(context, (Publisher<HttpResponse<?>>) upstream());
+        }
+
+        @Override
+        protected void doOnNext(HttpResponse<?> response) {
+        }
+
+        @Override
+        protected void doOnError(Throwable t) {
+        }
+
+        @Override
+        protected void doOnComplete() {
+        }
+
+        @Override
+        protected void doOnCancel() {
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http.client;
+
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.filter.ClientFilterChain;
+import io.micronaut.opentelemetry.benchmark.BenchmarkOpenTelemetry;
+import io.micronaut.opentelemetry.benchmark.BlackholeSubscriber;
+import io.micronaut.opentelemetry.instrumentation.reactor.ReactorTracingConfiguration;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures what {@link OpenTelemetryClientFilter} adds to an outgoing request, for sampled and unsampled requests.
+ * {@link #baseline} runs the same request through the chain without the filter.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class OpenTelemetryClientFilterBenchmark {
+
+    @Param({"sampled", "unsampled"})
+    String mode;
+
+    private OpenTelemetryClientFilter filter;
+    private ClientFilterChain chain;
+
+    /**
+     * Creates the filter.
+     */
+    @Setup
+    public void setup() {
+        Sampler sampler = "unsampled".equals(mode) ? Sampler.alwaysOff() : Sampler.alwaysOn();
+        OpenTelemetry openTelemetry = BenchmarkOpenTelemetry.create(sampler);
+        filter = new OpenTelemetryClientFilter(new HttpClientTracingInterceptorConfiguration(openTelemetry),
+                new ReactorTracingConfiguration());
+        HttpResponse<?> response = HttpResponse.ok();
+        chain = request -> Publishers.just(response);
+    }
+
+    /**
+     * @param blackhole The blackhole
+     */
+    @Benchmark
+    public void baseline(Blackhole blackhole) {
+        chain.proceed(HttpRequest.GET("http://localhost:8080/books/42")).subscribe(new BlackholeSubscriber(blackhole));
+    }
+
+    /**
+     * @param blackhole The blackhole
+     */
+    @Benchmark
+    public void filter(Blackhole blackhole) {
+        filter.doFilter(HttpRequest.GET("http://localhost:8080/books/42"), chain).subscribe(new BlackholeSubscriber(blackhole));
+    }
+
+}
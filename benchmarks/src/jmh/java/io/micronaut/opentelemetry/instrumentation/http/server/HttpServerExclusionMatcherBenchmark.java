@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http.server;
+
+import io.micronaut.core.util.PathMatcher;
+import io.micronaut.http.HttpMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Compares {@link HttpServerExclusionMatcher} against matching every exclusion pattern in turn, with more than a
+ * hundred path patterns and a few regular expressions configured.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class HttpServerExclusionMatcherBenchmark {
+
+    private static final int PATTERNS = 40;
+
+    @Param({"/api/v2/orders/42", "/service17/status", "/static23/js/app.js"})
+    String path;
+
+    private HttpServerExclusionMatcher matcher;
+    private List<String> paths;
+    private List<Pattern> regexes;
+
+    /**
+     * Creates the exclusions.
+     */
+    @Setup
+    public void setup() {
+        paths = new ArrayList<>();
+        for (int i = 0; i < PATTERNS; i++) {
+            paths.add("/health" + i);
+            paths.add("/service" + i + "/**");
+            paths.add("/static" + i + "/*/*.js");
+        }
+        List<String> regexPatterns = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            regexPatterns.add("^/internal" + i + "/.*$");
+        }
+        regexes = new ArrayList<>();
+        for (String regex : regexPatterns) {
+            regexes.add(Pattern.compile(regex));
+        }
+        HttpServerTracingInterceptorConfiguration.ExcludeConfiguration configuration =
+                new HttpServerTracingInterceptorConfiguration.ExcludeConfiguration();
+        configuration.setPaths(paths);
+        configuration.setRegexes(regexPatterns);
+        configuration.setMethods(Collections.singleton(HttpMethod.OPTIONS));
+        matcher = new HttpServerExclusionMatcher(configuration);
+    }
+
+    /**
+     * @return Whether the path is excluded
+     */
+    @Benchmark
+    public boolean matcher() {
+        return matcher.isExcluded(path);
+    }
+
+    /**
+     * @return Whether the path is excluded
+     */
+    @Benchmark
+    public boolean linearScan() {
+        for (String pattern : paths) {
+            if (PathMatcher.ANT.matches(pattern, path)) {
+                return true;
+            }
+        }
+        for (Pattern regex : regexes) {
+            if (regex.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
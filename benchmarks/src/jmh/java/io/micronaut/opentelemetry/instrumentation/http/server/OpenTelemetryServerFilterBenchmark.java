@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http.server;
+
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.filter.ServerFilterChain;
+import io.micronaut.opentelemetry.benchmark.BenchmarkOpenTelemetry;
+import io.micronaut.opentelemetry.benchmark.BlackholeSubscriber;
+import io.micronaut.opentelemetry.instrumentation.reactor.ReactorTracingConfiguration;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+
+/**
+ * Measures what {@link OpenTelemetryServerFilter} adds to a request that carries a W3C trace context, for sampled,
+ * unsampled and excluded requests. {@link #baseline} runs the same request through the chain without the filter,
+ * {@link #redispatch} runs it through the filter twice, the second time while the response of the first is
+ * subscribed to, that is while its server span is current.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class OpenTelemetryServerFilterBenchmark {
+
+    @Param({"sampled", "unsampled", "excluded"})
+    String mode;
+
+    private OpenTelemetryServerFilter filter;
+    private ServerFilterChain chain;
+    private ServerFilterChain redispatchChain;
+
+    /**
+     * Creates the filter.
+     */
+    @Setup
+    public void setup() {
+        Sampler sampler = "unsampled".equals(mode) ? Sampler.alwaysOff() : Sampler.alwaysOn();
+        OpenTelemetry openTelemetry = BenchmarkOpenTelemetry.create(sampler);
+        HttpServerTracingInterceptorConfiguration.ExcludeConfiguration excludeConfiguration =
+                new HttpServerTracingInterceptorConfiguration.ExcludeConfiguration();
+        if ("excluded".equals(mode)) {
+            excludeConfiguration.setPaths(Collections.singletonList("/books/**"));
+        }
+        filter = new OpenTelemetryServerFilter(new HttpServerTracingInterceptorConfiguration(openTelemetry),
+                excludeConfiguration, openTelemetry, sampler, new ReactorTracingConfiguration());
+        MutableHttpResponse<?> response = HttpResponse.ok();
+        chain = request -> Publishers.just(response);
+        redispatchChain = request -> (Publishers.MicronautPublisher<MutableHttpResponse<?>>) subscriber ->
+                filter.doFilter(request, chain).subscribe(subscriber);
+    }
+
+    /**
+     * @param blackhole The blackhole
+     */
+    @Benchmark
+    public void baseline(Blackhole blackhole) {
+        chain.proceed(request()).subscribe(new BlackholeSubscriber(blackhole));
+    }
+
+    /**
+     * @param blackhole The blackhole
+     */
+    @Benchmark
+    public void filter(Blackhole blackhole) {
+        filter.doFilter(request(), chain).subscribe(new BlackholeSubscriber(blackhole));
+    }
+
+    /**
+     * @param blackhole The blackhole
+     */
+    @Benchmark
+    public void redispatch(Blackhole blackhole) {
+        filter.doFilter(request(), redispatchChain).subscribe(new BlackholeSubscriber(blackhole));
+    }
+
+    private static HttpRequest<?> request() {
+        // the filter marks every request it has seen, so each operation needs a request of its own
+        return HttpRequest.GET("/books/42")
+                .header("traceparent", BenchmarkOpenTelemetry.TRACEPARENT)
+                .header("tracestate", BenchmarkOpenTelemetry.TRACESTATE);
+    }
+
+}
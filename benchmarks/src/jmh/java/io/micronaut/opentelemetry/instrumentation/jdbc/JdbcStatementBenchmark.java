@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.jdbc;
+
+import io.micronaut.opentelemetry.benchmark.BenchmarkOpenTelemetry;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+/**
+ * Measures the execution of a prepared query against an in-memory H2 database, on a connection that is kept open, as
+ * a pool would hand it out, without tracing, with a sampled parent span and with an unsampled one. The statement is
+ * prepared on every execution, as it is without a statement cache in the pool. Each mode runs in its own fork, where
+ * the OpenTelemetry instance is registered as the global one the traced data source uses.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class JdbcStatementBenchmark {
+
+    private static final String QUERY = "SELECT title FROM books WHERE id = ? AND author = ?";
+
+    @Param({"plain", "sampled", "unsampled"})
+    String mode;
+
+    private Connection connection;
+    private Span parent;
+    private int id;
+
+    /**
+     * Creates the database and opens the connection.
+     *
+     * @throws SQLException If the database cannot be created
+     */
+    @Setup
+    public void setup() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:books;DB_CLOSE_DELAY=-1");
+        DataSource dataSource = h2;
+        Sampler sampler = "unsampled".equals(mode) ? Sampler.alwaysOff() : Sampler.alwaysOn();
+        OpenTelemetry openTelemetry = BenchmarkOpenTelemetry.create(sampler);
+        GlobalOpenTelemetry.set(openTelemetry);
+        if (!"plain".equals(mode)) {
+            dataSource = new DataSourceTracingListener(openTelemetry, new JdbcTracingConfiguration()).wrap(h2);
+        }
+        connection = dataSource.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS books (id INT PRIMARY KEY, author VARCHAR(64), title VARCHAR(64))");
+            statement.execute("DELETE FROM books");
+            for (int i = 0; i < 100; i++) {
+                statement.execute("INSERT INTO books VALUES (" + i + ", 'author', 'title " + i + "')");
+            }
+        }
+        Tracer tracer = openTelemetry.getTracer("benchmark");
+        parent = tracer.spanBuilder("request").startSpan();
+    }
+
+    /**
+     * Closes the connection.
+     *
+     * @throws SQLException If the connection cannot be closed
+     */
+    @TearDown
+    public void tearDown() throws SQLException {
+        parent.end();
+        connection.close();
+        GlobalOpenTelemetry.resetForTest();
+    }
+
+    /**
+     * @return The title of a book
+     * @throws SQLException If the query fails
+     */
+    @Benchmark
+    public String preparedQuery() throws SQLException {
+        id = (id + 1) % 100;
+        try (io.opentelemetry.context.Scope ignored = parent.makeCurrent();
+             PreparedStatement statement = connection.prepareStatement(QUERY)) {
+            statement.setInt(1, id);
+            statement.setString(2, "author");
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString(1) : null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.reactor;
+
+import io.micronaut.opentelemetry.benchmark.BenchmarkOpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.reactor.ContextPropagationOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Measures a Reactor pipeline of a few operators and a {@code publishOn} under each {@link ReactorTracingMode}, and
+ * without context propagation. The pipeline runs with the context of a span current, on the immediate scheduler,
+ * so the numbers are the cost of the propagation without any thread handoff.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class ReactorPropagationBenchmark {
+
+    private static final int ELEMENTS = 64;
+
+    @Param({"none", "each_operator", "last_operator", "explicit"})
+    String mode;
+
+    private ContextPropagationOperator eachOperator;
+    private ReactorLastOperatorContextPropagation lastOperator;
+    private io.opentelemetry.context.Scope scope;
+
+    /**
+     * Enables the propagation and makes the context current.
+     */
+    @Setup
+    public void setup() {
+        if ("each_operator".equals(mode)) {
+            eachOperator = ContextPropagationOperator.create();
+            eachOperator.registerOnEachOperator();
+        } else if ("last_operator".equals(mode)) {
+            lastOperator = new ReactorLastOperatorContextPropagation();
+            lastOperator.enable();
+        }
+        String traceId = BenchmarkOpenTelemetry.TRACEPARENT.substring(3, 35);
+        String spanId = BenchmarkOpenTelemetry.TRACEPARENT.substring(36, 52);
+        scope = Context.root().with(Span.wrap(
+                SpanContext.create(traceId, spanId, TraceFlags.getSampled(), TraceState.getDefault()))).makeCurrent();
+    }
+
+    /**
+     * Disables the propagation and restores the context.
+     */
+    @TearDown
+    public void tearDown() {
+        scope.close();
+        if (eachOperator != null) {
+            eachOperator.resetOnEachOperator();
+        }
+        if (lastOperator != null) {
+            lastOperator.disable();
+        }
+    }
+
+    /**
+     * @return The sum of the pipeline
+     */
+    @Benchmark
+    public Integer pipeline() {
+        Flux<Integer> pipeline = Flux.range(0, ELEMENTS)
+                .map(i -> i * 2)
+                .filter(i -> (i & 3) == 0)
+                .publishOn(Schedulers.immediate())
+                .map(i -> i + 1);
+        if ("explicit".equals(mode)) {
+            pipeline = Flux.from(ExplicitContextPropagation.writeCurrentContext(pipeline));
+        }
+        return pipeline.reduce(0, Integer::sum).block();
+    }
+
+}
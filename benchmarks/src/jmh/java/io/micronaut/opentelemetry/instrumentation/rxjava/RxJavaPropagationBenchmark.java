@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.rxjava;
+
+import io.micronaut.opentelemetry.benchmark.BenchmarkOpenTelemetry;
+import io.micronaut.opentelemetry.instrumentation.rxjava.v3.RxJava3SchedulerContextPropagation;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.rxjava3.TracingAssembly;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures an RxJava 3 pipeline of a few operators and one scheduler hop under each {@link RxJavaTracingMode},
+ * and without context propagation. The pipeline runs with the context of a span current, on the trampoline
+ * scheduler, so the numbers are the cost of the propagation without any thread handoff.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class RxJavaPropagationBenchmark {
+
+    private static final int ELEMENTS = 64;
+
+    @Param({"none", "assembly", "scheduler"})
+    String mode;
+
+    private TracingAssembly tracingAssembly;
+    private RxJava3SchedulerContextPropagation schedulerPropagation;
+    private io.opentelemetry.context.Scope scope;
+
+    /**
+     * Enables the propagation and makes the context current.
+     */
+    @Setup
+    public void setup() {
+        if ("assembly".equals(mode)) {
+            tracingAssembly = TracingAssembly.create();
+            tracingAssembly.enable();
+        } else if ("scheduler".equals(mode)) {
+            schedulerPropagation = new RxJava3SchedulerContextPropagation();
+            schedulerPropagation.enable();
+        }
+        String traceId = BenchmarkOpenTelemetry.TRACEPARENT.substring(3, 35);
+        String spanId = BenchmarkOpenTelemetry.TRACEPARENT.substring(36, 52);
+        scope = Context.root().with(Span.wrap(
+                SpanContext.create(traceId, spanId, TraceFlags.getSampled(), TraceState.getDefault()))).makeCurrent();
+    }
+
+    /**
+     * Disables the propagation and restores the context.
+     */
+    @TearDown
+    public void tearDown() {
+        scope.close();
+        if (tracingAssembly != null) {
+            tracingAssembly.disable();
+        }
+        if (schedulerPropagation != null) {
+            schedulerPropagation.disable();
+        }
+    }
+
+    /**
+     * @return The sum of the pipeline
+     */
+    @Benchmark
+    public int pipeline() {
+        return Flowable.range(0, ELEMENTS)
+                .map(i -> i * 2)
+                .filter(i -> (i & 3) == 0)
+                .subscribeOn(Schedulers.trampoline())
+                .map(i -> i + 1)
+                .reduce(0, Integer::sum)
+                .blockingGet();
+    }
+
+}
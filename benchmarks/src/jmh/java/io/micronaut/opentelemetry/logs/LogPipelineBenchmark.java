@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.logs;
+
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.logs.LogEmitter;
+import io.opentelemetry.sdk.logs.SdkLogEmitterProvider;
+import io.opentelemetry.sdk.logs.data.LogData;
+import io.opentelemetry.sdk.logs.data.Severity;
+import io.opentelemetry.sdk.logs.export.LogExporter;
+import io.opentelemetry.sdk.resources.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures emitting a log record through the log pipeline of {@link LogsFactory}, set up with the defaults of
+ * {@link LogsConfiguration}, with 1 and 64 threads logging concurrently. With the {@code STALLED} exporter no export
+ * ever completes, so the queue stays full and every record is dropped: the cost must stay that of a full queue,
+ * without the logging threads waiting for the exporter.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class LogPipelineBenchmark {
+
+    @Param({"NOOP", "STALLED"})
+    String exporter;
+
+    private SdkLogEmitterProvider logEmitterProvider;
+    private LogEmitter logEmitter;
+
+    /**
+     * Creates the log pipeline.
+     */
+    @Setup
+    public void setup() {
+        LogExporter logExporter = "STALLED".equals(exporter) ? new StalledLogExporter() : new NoopLogExporter();
+        logEmitterProvider = new LogsFactory().otelSdkLogEmitterProvider(
+                logExporter, new LogsConfiguration(), Resource.getDefault(), MeterProvider.noop());
+        logEmitter = logEmitterProvider.get("benchmark");
+    }
+
+    /**
+     * Shuts the log pipeline down.
+     */
+    @TearDown
+    public void tearDown() {
+        logEmitterProvider.shutdown().join(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Emits a log record.
+     */
+    @Benchmark
+    @Threads(1)
+    public void oneThread() {
+        emit();
+    }
+
+    /**
+     * Emits a log record.
+     */
+    @Benchmark
+    @Threads(64)
+    public void sixtyFourThreads() {
+        emit();
+    }
+
+    private void emit() {
+        logEmitter.logBuilder()
+                .setSeverity(Severity.INFO)
+                .setSeverityText("INFO")
+                .setBody("Book 42 not found")
+                .emit();
+    }
+
+    private static final class NoopLogExporter implements LogExporter {
+
+        @Override
+        public CompletableResultCode export(Collection<LogData> logs) {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+    }
+
+    private static final class StalledLogExporter implements LogExporter {
+
+        @Override
+        public CompletableResultCode export(Collection<LogData> logs) {
+            return new CompletableResultCode();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+    }
+
+}
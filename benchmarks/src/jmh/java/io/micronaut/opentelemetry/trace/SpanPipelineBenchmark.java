@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace;
+
+import io.micronaut.opentelemetry.benchmark.NoopSpanExporter;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures starting and ending a span through the span processors of the module into a no-op exporter, with 1, 8
+ * and 64 threads ending spans concurrently. The processors are set up with the defaults of
+ * {@link SpanProcessorConfiguration}; spans dropped because a queue is full count as processed.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+public class SpanPipelineBenchmark {
+
+    @Param({"BATCH", "RING_BUFFER"})
+    SpanProcessorType processorType;
+
+    private SdkTracerProvider tracerProvider;
+    private Tracer tracer;
+
+    /**
+     * Creates the span pipeline.
+     */
+    @Setup
+    public void setup() {
+        SpanProcessorConfiguration configuration = new SpanProcessorConfiguration();
+        SpanExporter exporter = new ConcurrencyLimitingSpanExporter(
+                new NoopSpanExporter(), configuration.getMaxConcurrentExports(), MeterProvider.noop());
+        SpanProcessor processor;
+        if (processorType == SpanProcessorType.RING_BUFFER) {
+            processor = new RingBufferSpanProcessor(exporter,
+                    MeterProvider.noop(),
+                    configuration.getStripes(),
+                    configuration.getMaxQueueSize(),
+                    configuration.getMaxExportBatchSize(),
+                    configuration.getScheduleDelay(),
+                    configuration.getExportTimeout(),
+                    configuration.getBackPressure(),
+                    configuration.getBlockTimeout());
+        } else {
+            processor = BatchSpanProcessor.builder(exporter)
+                    .setMaxExportBatchSize(configuration.getMaxExportBatchSize())
+                    .setMaxQueueSize(configuration.getMaxQueueSize())
+                    .setScheduleDelay(configuration.getScheduleDelay())
+                    .setExporterTimeout(configuration.getExportTimeout())
+                    .build();
+        }
+        tracerProvider = SdkTracerProvider.builder().addSpanProcessor(processor).build();
+        tracer = tracerProvider.get("benchmark");
+    }
+
+    /**
+     * Shuts the span pipeline down.
+     */
+    @TearDown
+    public void tearDown() {
+        tracerProvider.shutdown().join(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return The ended span
+     */
+    @Benchmark
+    @Threads(1)
+    public Span oneThread() {
+        return startAndEnd();
+    }
+
+    /**
+     * @return The ended span
+     */
+    @Benchmark
+    @Threads(8)
+    public Span eightThreads() {
+        return startAndEnd();
+    }
+
+    /**
+     * @return The ended span
+     */
+    @Benchmark
+    @Threads(64)
+    public Span sixtyFourThreads() {
+        return startAndEnd();
+    }
+
+    private Span startAndEnd() {
+        Span span = tracer.spanBuilder("GET /books/{id}")
+                .setSpanKind(SpanKind.SERVER)
+                .setAttribute("http.method", "GET")
+                .setAttribute("http.route", "/books/{id}")
+                .startSpan();
+        span.setAttribute("http.status_code", 200L);
+        span.end();
+        return span;
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.annotation;
+
+import io.micronaut.aop.InterceptorBinding;
+import io.micronaut.aop.InterceptorKind;
+import io.micronaut.core.annotation.AnnotationValue;
+import io.micronaut.inject.annotation.TypedAnnotationMapper;
+import io.micronaut.inject.visitor.VisitorContext;
+import io.opentelemetry.extension.annotations.WithSpan;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Binds {@link WithSpan} to the around interceptor of the {@code micronaut-opentelemetry} module, so the beans with
+ * annotated methods are proxied at compile time.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public final class WithSpanAnnotationMapper implements TypedAnnotationMapper<WithSpan> {
+
+    @Override
+    public Class<WithSpan> annotationType() {
+        return WithSpan.class;
+    }
+
+    @Override
+    public List<AnnotationValue<?>> map(AnnotationValue<WithSpan> annotation, VisitorContext visitorContext) {
+        return Collections.singletonList(AnnotationValue.builder(InterceptorBinding.class)
+                .value(WithSpan.class)
+                .member("kind", InterceptorKind.AROUND)
+                .build());
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.annotation;
+
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.inject.ast.MethodElement;
+import io.micronaut.inject.ast.ParameterElement;
+import io.micronaut.inject.visitor.TypeElementVisitor;
+import io.micronaut.inject.visitor.VisitorContext;
+import io.opentelemetry.extension.annotations.SpanAttribute;
+import io.opentelemetry.extension.annotations.WithSpan;
+
+/**
+ * Computes the defaults of {@link WithSpan} and {@link SpanAttribute} at compile time and stores them in the
+ * annotation metadata of the method: the span name defaults to {@code ClassName.methodName} and the attribute key
+ * of a parameter to the name of the parameter.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public final class WithSpanVisitor implements TypeElementVisitor<Object, WithSpan> {
+
+    @Override
+    public void visitMethod(MethodElement element, VisitorContext context) {
+        if (!element.hasDeclaredAnnotation(WithSpan.class)) {
+            return;
+        }
+        if (!element.stringValue(WithSpan.class).filter(StringUtils::isNotEmpty).isPresent()) {
+            String spanName = element.getOwningType().getSimpleName() + "." + element.getName();
+            element.annotate(WithSpan.class, builder -> builder.value(spanName));
+        }
+        for (ParameterElement parameter : element.getParameters()) {
+            if (parameter.hasDeclaredAnnotation(SpanAttribute.class)
+                    && !parameter.stringValue(SpanAttribute.class).filter(StringUtils::isNotEmpty).isPresent()) {
+                parameter.annotate(SpanAttribute.class, builder -> builder.value(parameter.getName()));
+            }
+        }
+    }
+
+    @Override
+    public VisitorKind getVisitorKind() {
+        return VisitorKind.ISOLATING;
+    }
+
+}
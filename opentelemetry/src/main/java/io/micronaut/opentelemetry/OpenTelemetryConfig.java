@@ -19,32 +19,42 @@ import io.micronaut.context.ApplicationContext;
 import io.micronaut.context.annotation.Bean;
 import io.micronaut.context.annotation.Context;
 import io.micronaut.context.annotation.Factory;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.opentelemetry.metrics.CardinalityLimitingMeterProvider;
+import io.micronaut.opentelemetry.metrics.MeterProviderOverridingOpenTelemetry;
+import io.micronaut.opentelemetry.metrics.MetricsConfiguration;
+import io.micronaut.opentelemetry.trace.ConcurrencyLimitingSpanExporter;
+import io.micronaut.opentelemetry.trace.RetryingSpanExporter;
+import io.micronaut.opentelemetry.trace.RingBufferSpanProcessor;
+import io.micronaut.opentelemetry.trace.SpanExportRetryConfiguration;
+import io.micronaut.opentelemetry.trace.SpanProcessorConfiguration;
+import io.micronaut.opentelemetry.trace.SpanProcessorType;
+import io.micronaut.opentelemetry.trace.sampler.PrecomputedIdGenerator;
+import io.micronaut.opentelemetry.trace.sampler.PrecomputedSampler;
 import io.opentelemetry.api.GlobalOpenTelemetry;
 import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.api.baggage.propagation.W3CBaggagePropagator;
+import io.opentelemetry.api.metrics.MeterProvider;
 import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
 import io.opentelemetry.context.propagation.ContextPropagators;
 import io.opentelemetry.context.propagation.TextMapPropagator;
-import io.opentelemetry.exporter.otlp.trace.OtlpGrpcSpanExporter;
-import io.opentelemetry.instrumentation.reactor.ContextPropagationOperator;
 import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
 import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.IdGenerator;
 import io.opentelemetry.sdk.trace.SdkTracerProvider;
 import io.opentelemetry.sdk.trace.SpanProcessor;
 import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
 import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 
 import javax.annotation.PreDestroy;
-import java.time.Duration;
 
 import static io.opentelemetry.semconv.resource.attributes.ResourceAttributes.SERVICE_NAME;
 
-// TODO restore me later
-//import io.opentelemetry.instrumentation.rxjava2.TracingAssembly;
-
 // TODO REMOVE ME PLEASE
 
 /**
@@ -53,52 +63,69 @@ import static io.opentelemetry.semconv.resource.attributes.ResourceAttributes.SE
 @Factory
 public class OpenTelemetryConfig {
 
-    // TODO restore me later
-    /*
-    @Bean
-    @Context
-    public TracingAssembly tracingAssembly() {
-        TracingAssembly tracingAssembly = TracingAssembly.create();
-        tracingAssembly.enable();
-        return tracingAssembly;
-    }
-     */
-
-    @Bean
-    @Context
-    public ContextPropagationOperator contextPropagationOperator() {
-        ContextPropagationOperator contextPropagationOperator = ContextPropagationOperator.create();
-        contextPropagationOperator.registerOnEachOperator();
-        return contextPropagationOperator;
-    }
-
-    @Bean
-    @Singleton
-    public SpanExporter otelSpanExporter() {
-        return OtlpGrpcSpanExporter.builder()
-                .setTimeout(Duration.ZERO)
-                .build();
-    }
-
     @Bean(preDestroy = "close")
     @Singleton
-    public SpanProcessor otelSpanProcessor(SpanExporter spanExporter) {
-        return BatchSpanProcessor.builder(spanExporter)
-                .setScheduleDelay(Duration.ZERO)
-                .setMaxExportBatchSize(1)
+    public SpanProcessor otelSpanProcessor(SpanExporter spanExporter,
+                                           SpanProcessorConfiguration configuration,
+                                           SpanExportRetryConfiguration retryConfiguration,
+                                           @Nullable MeterProvider meterProvider) {
+        MeterProvider processorMeterProvider = meterProvider != null ? meterProvider : MeterProvider.noop();
+        // the limit applies to every attempt, so retries and replays cannot exceed it either
+        SpanExporter exporter = new ConcurrencyLimitingSpanExporter(
+                spanExporter, configuration.getMaxConcurrentExports(), processorMeterProvider);
+        if (retryConfiguration.isEnabled()) {
+            exporter = new RetryingSpanExporter(exporter,
+                    processorMeterProvider,
+                    retryConfiguration.getMaxAttempts(),
+                    retryConfiguration.getInitialBackoff(),
+                    retryConfiguration.getMaxBackoff(),
+                    retryConfiguration.getBackoffMultiplier(),
+                    retryConfiguration.getMaxPendingBatches(),
+                    retryConfiguration.getSpoolFile(),
+                    retryConfiguration.getSpoolMaxSize());
+        }
+
+        if (configuration.getType() == SpanProcessorType.RING_BUFFER) {
+            return new RingBufferSpanProcessor(exporter,
+                    processorMeterProvider,
+                    configuration.getStripes(),
+                    configuration.getMaxQueueSize(),
+                    configuration.getMaxExportBatchSize(),
+                    configuration.getScheduleDelay(),
+                    configuration.getExportTimeout(),
+                    configuration.getBackPressure(),
+                    configuration.getBlockTimeout());
+        }
+
+        return BatchSpanProcessor.builder(exporter)
+                .setMaxExportBatchSize(configuration.getMaxExportBatchSize())
+                .setMaxQueueSize(configuration.getMaxQueueSize())
+                .setScheduleDelay(configuration.getScheduleDelay())
+                .setExporterTimeout(configuration.getExportTimeout())
+                .setMeterProvider(processorMeterProvider)
                 .build();
     }
 
-    @Inject
     @Bean
     @Singleton
-    public SdkTracerProvider otelSdkTraceProvider(SpanProcessor spanProcessor, ApplicationContext applicationContext) {
+    public Resource otelResource(ApplicationContext applicationContext) {
         String applicationName = applicationContext.getProperty("micronaut.application.name", String.class)
                 .orElse(io.micronaut.context.env.Environment.DEFAULT_NAME);
 
+        return Resource.getDefault().toBuilder().put(SERVICE_NAME, applicationName).build();
+    }
+
+    @Inject
+    @Bean
+    @Singleton
+    public SdkTracerProvider otelSdkTraceProvider(SpanProcessor spanProcessor,
+                                                  Sampler sampler,
+                                                  Resource resource) {
         return SdkTracerProvider.builder()
                 .addSpanProcessor(spanProcessor)
-                .setResource(Resource.getDefault().toBuilder().put(SERVICE_NAME, applicationName).build())
+                .setSampler(new PrecomputedSampler(sampler))
+                .setIdGenerator(new PrecomputedIdGenerator(IdGenerator.random()))
+                .setResource(resource)
                 .build();
     }
 
@@ -106,16 +133,26 @@ public class OpenTelemetryConfig {
     // initialization
     @Bean
     @Context
-    public OpenTelemetry openTelemetry(SdkTracerProvider sdkTracerProvider) {
-        return OpenTelemetrySdk.builder()
+    public OpenTelemetry openTelemetry(SdkTracerProvider sdkTracerProvider,
+                                       SdkMeterProvider sdkMeterProvider,
+                                       MetricsConfiguration metricsConfiguration) {
+        OpenTelemetrySdk openTelemetrySdk = OpenTelemetrySdk.builder()
                 .setTracerProvider(sdkTracerProvider)
+                .setMeterProvider(sdkMeterProvider)
                 .setPropagators(ContextPropagators.create(
                         TextMapPropagator.composite(
                                 W3CTraceContextPropagator.getInstance(),
                                 W3CBaggagePropagator.getInstance()
                         )
                 ))
-                .buildAndRegisterGlobal();
+                .build();
+
+        // instrumentation libraries record through the meter provider of this instance, so that is where the
+        // cardinality of their attributes is bounded
+        OpenTelemetry openTelemetry = new MeterProviderOverridingOpenTelemetry(openTelemetrySdk,
+                new CardinalityLimitingMeterProvider(sdkMeterProvider, metricsConfiguration.getMaxCardinality()));
+        GlobalOpenTelemetry.set(openTelemetry);
+        return openTelemetry;
     }
 
     @Bean
@@ -125,16 +162,7 @@ public class OpenTelemetryConfig {
     }
 
     @PreDestroy
-    public void preDestroy(
-            ContextPropagationOperator contextPropagationOperator
-            // TODO restore me later
-            //TracingAssembly tracingAssembly
-    ) {
-        contextPropagationOperator.resetOnEachOperator();
-
-        // TODO restore me later
-        //tracingAssembly.disable();
-
+    public void preDestroy() {
         GlobalOpenTelemetry.resetForTest();
     }
 
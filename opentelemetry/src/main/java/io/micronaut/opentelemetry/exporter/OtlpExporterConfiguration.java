@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.exporter;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Configuration for the OTLP exporters of spans, metrics and logs, see also {@link OtlpLogExporterConfiguration}.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@ConfigurationProperties(OtlpExporterConfiguration.PREFIX)
+public class OtlpExporterConfiguration {
+
+    public static final String PREFIX = "otel.exporter.otlp";
+
+    /**
+     * The property that sets the transport used to send telemetry.
+     */
+    public static final String PROTOCOL = PREFIX + ".protocol";
+
+    /**
+     * The default maximum time an export request may take, in seconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final long DEFAULT_TIMEOUT_SECONDS = 10;
+
+    private OtlpProtocol protocol = OtlpProtocol.GRPC;
+    private String endpoint;
+    private Map<String, String> headers = Collections.emptyMap();
+    private OtlpCompression compression = OtlpCompression.GZIP;
+    private Duration timeout = Duration.ofSeconds(DEFAULT_TIMEOUT_SECONDS);
+
+    /**
+     * @return The transport used to send telemetry
+     */
+    @NonNull
+    public OtlpProtocol getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * Sets the transport used to send telemetry. Default value ({@code GRPC}).
+     *
+     * @param protocol The transport
+     */
+    public void setProtocol(@NonNull OtlpProtocol protocol) {
+        this.protocol = protocol;
+    }
+
+    /**
+     * @return The base URL of the collector
+     */
+    @Nullable
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Sets the base URL of the collector. With the {@code HTTP_PROTOBUF} protocol the path of the signal, for example
+     * {@code /v1/traces}, is appended. Default value ({@code http://localhost:4317} for gRPC and
+     * {@code http://localhost:4318} for HTTP).
+     *
+     * @param endpoint The base URL of the collector
+     */
+    public void setEndpoint(@Nullable String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * @return The headers sent with every export request
+     */
+    @NonNull
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Sets the headers sent with every export request, for example to authenticate against the collector.
+     *
+     * @param headers The headers
+     */
+    public void setHeaders(@NonNull Map<String, String> headers) {
+        this.headers = headers;
+    }
+
+    /**
+     * @return The compression applied to export requests
+     */
+    @NonNull
+    public OtlpCompression getCompression() {
+        return compression;
+    }
+
+    /**
+     * Sets the compression applied to export requests. Default value ({@code GZIP}).
+     *
+     * @param compression The compression
+     */
+    public void setCompression(@NonNull OtlpCompression compression) {
+        this.compression = compression;
+    }
+
+    /**
+     * @return The maximum time an export request may take
+     */
+    @NonNull
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Sets the maximum time an export request may take before it fails. Default value ({@value #DEFAULT_TIMEOUT_SECONDS} seconds).
+     *
+     * @param timeout The timeout
+     */
+    public void setTimeout(@NonNull Duration timeout) {
+        this.timeout = timeout;
+    }
+
+}
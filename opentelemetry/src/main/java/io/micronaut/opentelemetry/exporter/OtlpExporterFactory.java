@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.exporter;
+
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.opentelemetry.metrics.MetricsConfiguration;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.exporter.otlp.logs.OtlpGrpcLogExporter;
+import io.opentelemetry.exporter.otlp.logs.OtlpGrpcLogExporterBuilder;
+import io.opentelemetry.exporter.otlp.http.metrics.OtlpHttpMetricExporter;
+import io.opentelemetry.exporter.otlp.http.metrics.OtlpHttpMetricExporterBuilder;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporterBuilder;
+import io.opentelemetry.exporter.otlp.metrics.OtlpGrpcMetricExporter;
+import io.opentelemetry.exporter.otlp.metrics.OtlpGrpcMetricExporterBuilder;
+import io.opentelemetry.exporter.otlp.trace.OtlpGrpcSpanExporter;
+import io.opentelemetry.exporter.otlp.trace.OtlpGrpcSpanExporterBuilder;
+import io.opentelemetry.sdk.logs.export.LogExporter;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import jakarta.inject.Singleton;
+
+import java.util.Locale;
+
+/**
+ * Creates the OTLP exporters of spans, metrics and logs from the {@link OtlpExporterConfiguration}.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Factory
+public class OtlpExporterFactory {
+
+    private static final String DEFAULT_GRPC_ENDPOINT = "http://localhost:4317";
+    private static final String DEFAULT_HTTP_ENDPOINT = "http://localhost:4318";
+    private static final String TRACES_PATH = "/v1/traces";
+    private static final String METRICS_PATH = "/v1/metrics";
+
+    /**
+     * @param configuration The exporter configuration
+     * @param meterProvider The meter provider used to publish the exporter metrics
+     * @return The span exporter
+     */
+    @Bean
+    @Singleton
+    protected SpanExporter otelSpanExporter(OtlpExporterConfiguration configuration,
+                                            @Nullable MeterProvider meterProvider) {
+        MeterProvider exporterMeterProvider = meterProvider != null ? meterProvider : MeterProvider.noop();
+        String compression = compression(configuration);
+
+        if (configuration.getProtocol() == OtlpProtocol.HTTP_PROTOBUF) {
+            OtlpHttpSpanExporterBuilder builder = OtlpHttpSpanExporter.builder()
+                    .setEndpoint(endpoint(configuration, TRACES_PATH))
+                    .setCompression(compression)
+                    .setTimeout(configuration.getTimeout())
+                    .setMeterProvider(exporterMeterProvider);
+            configuration.getHeaders().forEach(builder::addHeader);
+            return builder.build();
+        }
+
+        OtlpGrpcSpanExporterBuilder builder = OtlpGrpcSpanExporter.builder()
+                .setEndpoint(endpoint(configuration, TRACES_PATH))
+                .setCompression(compression)
+                .setTimeout(configuration.getTimeout())
+                .setMeterProvider(exporterMeterProvider);
+        configuration.getHeaders().forEach(builder::addHeader);
+        return builder.build();
+    }
+
+    /**
+     * @param configuration        The exporter configuration
+     * @param metricsConfiguration The metrics configuration
+     * @return The metric exporter
+     */
+    @Bean
+    @Singleton
+    protected MetricExporter otelMetricExporter(OtlpExporterConfiguration configuration,
+                                                MetricsConfiguration metricsConfiguration) {
+        String compression = compression(configuration);
+
+        if (configuration.getProtocol() == OtlpProtocol.HTTP_PROTOBUF) {
+            OtlpHttpMetricExporterBuilder builder = OtlpHttpMetricExporter.builder()
+                    .setEndpoint(endpoint(configuration, METRICS_PATH))
+                    .setCompression(compression)
+                    .setTimeout(configuration.getTimeout())
+                    .setPreferredTemporality(metricsConfiguration.getTemporality());
+            configuration.getHeaders().forEach(builder::addHeader);
+            return builder.build();
+        }
+
+        OtlpGrpcMetricExporterBuilder builder = OtlpGrpcMetricExporter.builder()
+                .setEndpoint(endpoint(configuration, METRICS_PATH))
+                .setCompression(compression)
+                .setTimeout(configuration.getTimeout())
+                .setPreferredTemporality(metricsConfiguration.getTemporality());
+        configuration.getHeaders().forEach(builder::addHeader);
+        return builder.build();
+    }
+
+    /**
+     * The OTLP exporter of logs only supports gRPC. With the {@link OtlpProtocol#HTTP_PROTOBUF} protocol, the configured
+     * endpoint belongs to an HTTP receiver, so the logs are only exported to the endpoint set with
+     * {@link OtlpLogExporterConfiguration#setEndpoint(String)}, see {@link OtlpLogExporterCondition}.
+     *
+     * @param configuration     The exporter configuration
+     * @param logsConfiguration The log exporter configuration
+     * @param meterProvider     The meter provider used to publish the exporter metrics
+     * @return The log exporter
+     */
+    @Bean
+    @Singleton
+    @Requires(condition = OtlpLogExporterCondition.class)
+    protected LogExporter otelLogExporter(OtlpExporterConfiguration configuration,
+                                          OtlpLogExporterConfiguration logsConfiguration,
+                                          @Nullable MeterProvider meterProvider) {
+        String endpoint = logsConfiguration.getEndpoint();
+        OtlpGrpcLogExporterBuilder builder = OtlpGrpcLogExporter.builder()
+                .setEndpoint(endpoint != null ? endpoint : grpcEndpoint(configuration))
+                .setCompression(compression(configuration))
+                .setTimeout(configuration.getTimeout())
+                .setMeterProvider(meterProvider != null ? meterProvider : MeterProvider.noop());
+        configuration.getHeaders().forEach(builder::addHeader);
+        return builder.build();
+    }
+
+    private static String endpoint(OtlpExporterConfiguration configuration, String signalPath) {
+        if (configuration.getProtocol() == OtlpProtocol.GRPC) {
+            return grpcEndpoint(configuration);
+        }
+        String endpoint = configuration.getEndpoint();
+        if (endpoint == null) {
+            return DEFAULT_HTTP_ENDPOINT + signalPath;
+        }
+        return endpoint.endsWith("/")
+                ? endpoint.substring(0, endpoint.length() - 1) + signalPath
+                : endpoint + signalPath;
+    }
+
+    private static String grpcEndpoint(OtlpExporterConfiguration configuration) {
+        String endpoint = configuration.getEndpoint();
+        return endpoint != null ? endpoint : DEFAULT_GRPC_ENDPOINT;
+    }
+
+    private static String compression(OtlpExporterConfiguration configuration) {
+        return configuration.getCompression().name().toLowerCase(Locale.ENGLISH);
+    }
+
+}
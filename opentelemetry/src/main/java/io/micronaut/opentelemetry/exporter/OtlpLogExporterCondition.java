@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.exporter;
+
+import io.micronaut.context.condition.Condition;
+import io.micronaut.context.condition.ConditionContext;
+import io.micronaut.core.annotation.Internal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Disables the OTLP exporter of logs when the {@code HTTP_PROTOBUF} protocol is used without a gRPC endpoint for the
+ * logs, see {@link OtlpLogExporterConfiguration#setEndpoint(String)}.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Internal
+public final class OtlpLogExporterCondition implements Condition {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OtlpLogExporterCondition.class);
+
+    @Override
+    public boolean matches(ConditionContext context) {
+        OtlpProtocol protocol = context.getProperty(OtlpExporterConfiguration.PROTOCOL, OtlpProtocol.class)
+                .orElse(OtlpProtocol.GRPC);
+        if (protocol == OtlpProtocol.HTTP_PROTOBUF && !context.containsProperty(OtlpLogExporterConfiguration.ENDPOINT)) {
+            LOG.warn("The OTLP exporter of logs only supports gRPC, logs are not exported until {} is set",
+                    OtlpLogExporterConfiguration.ENDPOINT);
+            context.fail("The HTTP_PROTOBUF protocol requires " + OtlpLogExporterConfiguration.ENDPOINT);
+            return false;
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.exporter;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.annotation.Nullable;
+
+/**
+ * Configuration for the OTLP exporter of logs, which only supports gRPC.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@ConfigurationProperties(OtlpLogExporterConfiguration.PREFIX)
+public class OtlpLogExporterConfiguration {
+
+    public static final String PREFIX = OtlpExporterConfiguration.PREFIX + ".logs";
+
+    /**
+     * The property that sets the gRPC endpoint the logs are sent to.
+     */
+    public static final String ENDPOINT = PREFIX + ".endpoint";
+
+    private String endpoint;
+
+    /**
+     * @return The URL of the gRPC receiver of the collector
+     */
+    @Nullable
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Sets the URL of the gRPC receiver of the collector the logs are sent to. It is required with the
+     * {@code HTTP_PROTOBUF} protocol, whose endpoint belongs to an HTTP receiver. Default value (the endpoint of the
+     * {@link OtlpExporterConfiguration} with the {@code GRPC} protocol).
+     *
+     * @param endpoint The URL of the gRPC receiver of the collector
+     */
+    public void setEndpoint(@Nullable String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+}
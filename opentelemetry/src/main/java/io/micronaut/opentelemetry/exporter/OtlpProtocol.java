@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.exporter;
+
+/**
+ * The transport used to send telemetry to the collector.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public enum OtlpProtocol {
+
+    /**
+     * OTLP over gRPC, by default on port 4317.
+     */
+    GRPC,
+
+    /**
+     * Protobuf-encoded OTLP over HTTP, by default on port 4318.
+     */
+    HTTP_PROTOBUF
+
+}
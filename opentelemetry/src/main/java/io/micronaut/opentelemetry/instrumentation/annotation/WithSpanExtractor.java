@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.annotation;
+
+import io.micronaut.core.annotation.Nullable;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.api.instrumenter.AttributesExtractor;
+import io.opentelemetry.instrumentation.api.instrumenter.SpanNameExtractor;
+
+/**
+ * Names the span of a {@link WithSpanRequest} and records the attributes of its parameters.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+enum WithSpanExtractor implements SpanNameExtractor<WithSpanRequest>, AttributesExtractor<WithSpanRequest, Object> {
+
+    INSTANCE;
+
+    @Override
+    public String extract(WithSpanRequest request) {
+        return request.getMethod().getSpanName();
+    }
+
+    @Override
+    public void onStart(AttributesBuilder attributes, Context parentContext, WithSpanRequest request) {
+        request.getMethod().putAttributes(attributes, request.getParameterValues());
+    }
+
+    @Override
+    public void onEnd(AttributesBuilder attributes,
+                      Context context,
+                      WithSpanRequest request,
+                      @Nullable Object response,
+                      @Nullable Throwable error) {
+        // no-op
+    }
+
+}
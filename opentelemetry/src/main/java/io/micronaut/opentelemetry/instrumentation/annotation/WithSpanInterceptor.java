@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.annotation;
+
+import io.micronaut.aop.InterceptPhase;
+import io.micronaut.aop.InterceptedMethod;
+import io.micronaut.aop.InterceptorBean;
+import io.micronaut.aop.MethodInterceptor;
+import io.micronaut.aop.MethodInvocationContext;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.inject.ExecutableMethod;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.extension.annotations.WithSpan;
+import io.opentelemetry.instrumentation.api.instrumenter.Instrumenter;
+import jakarta.inject.Singleton;
+
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Traces the methods annotated with {@link WithSpan}, with a span per invocation. The {@code micronaut-opentelemetry-annotation}
+ * processor binds the annotation to this interceptor at compile time and stores the span name and the
+ * {@link io.opentelemetry.extension.annotations.SpanAttribute} keys in the bean metadata, so no reflection is involved;
+ * they are read once per method.
+ * <p>
+ * The span of a method returning a {@link CompletionStage} ends when the stage completes. The span of a method
+ * returning a publisher is started when the publisher is subscribed to and ends with the subscription.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Singleton
+@InterceptorBean(WithSpan.class)
+@Requires(beans = OpenTelemetry.class)
+public final class WithSpanInterceptor implements MethodInterceptor<Object, Object> {
+
+    private static final String INSTRUMENTATION_NAME = "io.micronaut.opentelemetry.annotation";
+
+    private final Instrumenter<WithSpanRequest, Object> instrumenter;
+    private final Map<ExecutableMethod<?, ?>, WithSpanMethod> methods = new ConcurrentHashMap<>();
+
+    /**
+     * @param openTelemetry The OpenTelemetry
+     */
+    public WithSpanInterceptor(OpenTelemetry openTelemetry) {
+        this.instrumenter = Instrumenter.<WithSpanRequest, Object>builder(openTelemetry, INSTRUMENTATION_NAME, WithSpanExtractor.INSTANCE)
+                .addAttributesExtractor(WithSpanExtractor.INSTANCE)
+                .newInstrumenter(WithSpanRequest::getSpanKind);
+    }
+
+    @Override
+    public int getOrder() {
+        return InterceptPhase.TRACE.getPosition();
+    }
+
+    @Nullable
+    @Override
+    public Object intercept(MethodInvocationContext<Object, Object> context) {
+        WithSpanRequest request = new WithSpanRequest(method(context.getExecutableMethod()), context.getParameterValues());
+        Context parentContext = Context.current();
+        if (!instrumenter.shouldStart(parentContext, request)) {
+            return context.proceed();
+        }
+
+        InterceptedMethod interceptedMethod = InterceptedMethod.of(context);
+        try {
+            switch (interceptedMethod.resultType()) {
+                case PUBLISHER:
+                    return interceptedMethod.handleResult(new WithSpanPublisher<>(
+                            interceptedMethod.interceptResultAsPublisher(), instrumenter, parentContext, request));
+                case COMPLETION_STAGE:
+                    Context stageContext = instrumenter.start(parentContext, request);
+                    CompletionStage<?> stage;
+                    try (Scope ignored = stageContext.makeCurrent()) {
+                        stage = interceptedMethod.interceptResultAsCompletionStage();
+                    } catch (Throwable t) {
+                        instrumenter.end(stageContext, request, null, t);
+                        throw t;
+                    }
+                    return interceptedMethod.handleResult(stage.whenComplete((result, t) ->
+                            instrumenter.end(stageContext, request, result, unwrap(t))));
+                case SYNCHRONOUS:
+                    Context spanContext = instrumenter.start(parentContext, request);
+                    Object result;
+                    try (Scope ignored = spanContext.makeCurrent()) {
+                        result = context.proceed();
+                    } catch (Throwable t) {
+                        instrumenter.end(spanContext, request, null, t);
+                        throw t;
+                    }
+                    instrumenter.end(spanContext, request, result, null);
+                    return result;
+                default:
+                    return interceptedMethod.unsupported();
+            }
+        } catch (Exception e) {
+            return interceptedMethod.handleException(e);
+        }
+    }
+
+    private WithSpanMethod method(ExecutableMethod<?, ?> executableMethod) {
+        WithSpanMethod method = methods.get(executableMethod);
+        if (method == null) {
+            method = methods.computeIfAbsent(executableMethod, WithSpanMethod::of);
+        }
+        return method;
+    }
+
+    @Nullable
+    private static Throwable unwrap(@Nullable Throwable t) {
+        return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.annotation;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.reflect.ReflectionUtils;
+import io.micronaut.core.type.Argument;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.inject.ExecutableMethod;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.extension.annotations.SpanAttribute;
+import io.opentelemetry.extension.annotations.WithSpan;
+
+/**
+ * The span of a method annotated with {@link WithSpan}: its name, its kind and the attribute keys of the parameters
+ * annotated with {@link SpanAttribute}. Everything is read from the annotation metadata generated at compile time,
+ * where the {@code micronaut-opentelemetry-annotation} processor has already filled in the default span name and
+ * attribute keys; a method compiled without the processor gets the same defaults computed here.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+final class WithSpanMethod {
+
+    private final String spanName;
+    private final SpanKind spanKind;
+    @Nullable
+    private final AttributeKey<?>[] attributeKeys;
+
+    private WithSpanMethod(String spanName, SpanKind spanKind, @Nullable AttributeKey<?>[] attributeKeys) {
+        this.spanName = spanName;
+        this.spanKind = spanKind;
+        this.attributeKeys = attributeKeys;
+    }
+
+    /**
+     * @param method The intercepted method
+     * @return The span of the method
+     */
+    static WithSpanMethod of(ExecutableMethod<?, ?> method) {
+        String spanName = method.stringValue(WithSpan.class)
+                .filter(StringUtils::isNotEmpty)
+                .orElseGet(() -> method.getDeclaringType().getSimpleName() + "." + method.getMethodName());
+        SpanKind spanKind = method.enumValue(WithSpan.class, "kind", SpanKind.class).orElse(SpanKind.INTERNAL);
+
+        Argument<?>[] arguments = method.getArguments();
+        AttributeKey<?>[] attributeKeys = null;
+        for (int i = 0; i < arguments.length; i++) {
+            Argument<?> argument = arguments[i];
+            if (!argument.getAnnotationMetadata().hasAnnotation(SpanAttribute.class)) {
+                continue;
+            }
+            String key = argument.getAnnotationMetadata().stringValue(SpanAttribute.class)
+                    .filter(StringUtils::isNotEmpty)
+                    .orElse(argument.getName());
+            if (attributeKeys == null) {
+                attributeKeys = new AttributeKey<?>[arguments.length];
+            }
+            attributeKeys[i] = attributeKey(key, argument.getType());
+        }
+        return new WithSpanMethod(spanName, spanKind, attributeKeys);
+    }
+
+    /**
+     * @return The name of the span
+     */
+    String getSpanName() {
+        return spanName;
+    }
+
+    /**
+     * @return The kind of the span
+     */
+    SpanKind getSpanKind() {
+        return spanKind;
+    }
+
+    /**
+     * Sets the attributes of the parameters annotated with {@link SpanAttribute}, skipping the {@code null} values.
+     *
+     * @param attributes      The attributes of the span
+     * @param parameterValues The values of the parameters
+     */
+    void putAttributes(AttributesBuilder attributes, Object[] parameterValues) {
+        AttributeKey<?>[] keys = attributeKeys;
+        if (keys == null) {
+            return;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            AttributeKey<?> key = keys[i];
+            Object value = parameterValues[i];
+            if (key != null && value != null) {
+                put(attributes, key, value);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(AttributesBuilder attributes, AttributeKey<?> key, Object value) {
+        switch (key.getType()) {
+            case BOOLEAN:
+                attributes.put((AttributeKey<Boolean>) key, (Boolean) value);
+                break;
+            case LONG:
+                attributes.put((AttributeKey<Long>) key, ((Number) value).longValue());
+                break;
+            case DOUBLE:
+                attributes.put((AttributeKey<Double>) key, ((Number) value).doubleValue());
+                break;
+            default:
+                attributes.put((AttributeKey<String>) key, value.toString());
+        }
+    }
+
+    private static AttributeKey<?> attributeKey(String key, Class<?> type) {
+        Class<?> wrapperType = ReflectionUtils.getWrapperType(type);
+        if (wrapperType == Boolean.class) {
+            return AttributeKey.booleanKey(key);
+        }
+        if (wrapperType == Long.class || wrapperType == Integer.class
+                || wrapperType == Short.class || wrapperType == Byte.class) {
+            return AttributeKey.longKey(key);
+        }
+        if (wrapperType == Double.class || wrapperType == Float.class) {
+            return AttributeKey.doubleKey(key);
+        }
+        return AttributeKey.stringKey(key);
+    }
+
+}
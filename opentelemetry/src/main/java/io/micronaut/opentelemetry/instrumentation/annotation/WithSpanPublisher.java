@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.annotation;
+
+import io.micronaut.opentelemetry.instrumentation.http.TracingPublisher;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.api.instrumenter.Instrumenter;
+import org.reactivestreams.Publisher;
+
+/**
+ * Traces a subscription to the publisher returned by a method annotated with
+ * {@link io.opentelemetry.extension.annotations.WithSpan}. The span starts when the publisher is subscribed to and
+ * ends with the completion, the error or the cancellation of the subscription.
+ *
+ * @param <T> The type of the elements
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+final class WithSpanPublisher<T> extends TracingPublisher<T> {
+
+    private final Publisher<? extends T> upstream;
+    private final Instrumenter<WithSpanRequest, Object> instrumenter;
+    private final Context parentContext;
+    private final WithSpanRequest request;
+    private Context context;
+
+    /**
+     * @param upstream      The publisher returned by the method
+     * @param instrumenter  The instrumenter
+     * @param parentContext The context the method was invoked in
+     * @param request       The invocation of the method
+     */
+    WithSpanPublisher(Publisher<? extends T> upstream,
+                      Instrumenter<WithSpanRequest, Object> instrumenter,
+                      Context parentContext,
+                      WithSpanRequest request) {
+        super(upstream);
+        this.upstream = upstream;
+        this.instrumenter = instrumenter;
+        this.parentContext = parentContext;
+        this.request = request;
+    }
+
+    @Override
+    protected Context start() {
+        context = instrumenter.start(parentContext, request);
+        return context;
+    }
+
+    @Override
+    protected TracingPublisher<T> copy() {
+        return new WithSpanPublisher<>(upstream, instrumenter, parentContext, request);
+    }
+
+    @Override
+    protected void doOnNext(T element) {
+        // the span ends with the subscription
+    }
+
+    @Override
+    protected void doOnError(Throwable t) {
+        if (tryEnd()) {
+            instrumenter.end(context, request, null, t);
+        }
+    }
+
+    @Override
+    protected void doOnComplete() {
+        if (tryEnd()) {
+            instrumenter.end(context, request, null, null);
+        }
+    }
+
+    @Override
+    protected void doOnCancel() {
+        if (tryEnd()) {
+            instrumenter.end(context, request, null, null);
+        }
+    }
+
+    @Override
+    protected void doOnCancelAfterSignal() {
+        // a subscriber taking the first elements only, such as a Mono built from a Flux
+        if (tryEnd()) {
+            instrumenter.end(context, request, null, null);
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.annotation;
+
+import io.opentelemetry.api.trace.SpanKind;
+
+/**
+ * An invocation of a method annotated with {@link io.opentelemetry.extension.annotations.WithSpan}.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+final class WithSpanRequest {
+
+    private final WithSpanMethod method;
+    private final Object[] parameterValues;
+
+    /**
+     * @param method          The span of the method
+     * @param parameterValues The values of the parameters
+     */
+    WithSpanRequest(WithSpanMethod method, Object[] parameterValues) {
+        this.method = method;
+        this.parameterValues = parameterValues;
+    }
+
+    /**
+     * @return The span of the method
+     */
+    WithSpanMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * @return The values of the parameters
+     */
+    Object[] getParameterValues() {
+        return parameterValues;
+    }
+
+    /**
+     * @return The kind of the span
+     */
+    SpanKind getSpanKind() {
+        return method.getSpanKind();
+    }
+
+}
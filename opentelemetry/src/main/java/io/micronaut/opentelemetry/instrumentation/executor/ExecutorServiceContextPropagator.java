@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.executor;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import io.micronaut.core.util.StringUtils;
+import io.opentelemetry.api.trace.Tracer;
+import jakarta.inject.Singleton;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Wraps the {@link ExecutorService} beans, such as the ones behind {@code @ExecuteOn} and {@code @Async}, so that
+ * tasks run in the context they were submitted in and spans started there keep their parent. Only beans declared as
+ * {@link ExecutorService} or {@link ScheduledExecutorService} are wrapped. Set
+ * {@value #ENABLED} to {@code false} to leave the executors alone.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Singleton
+@Requires(beans = Tracer.class)
+@Requires(property = ExecutorServiceContextPropagator.ENABLED, notEquals = StringUtils.FALSE)
+public class ExecutorServiceContextPropagator implements BeanCreatedEventListener<ExecutorService> {
+
+    /**
+     * The property that enables the context propagation of the executors.
+     */
+    public static final String ENABLED = "otel.instrumentation.executors.enabled";
+
+    @Override
+    public ExecutorService onCreated(BeanCreatedEvent<ExecutorService> event) {
+        ExecutorService executorService = event.getBean();
+        Class<?> beanType = event.getBeanDefinition().getBeanType();
+        // beans of a more specific type, such as the Netty event loop groups, could no longer be injected as such
+        if (beanType != ExecutorService.class && beanType != ScheduledExecutorService.class
+                || executorService instanceof ContextPropagatingExecutorService) {
+            return executorService;
+        }
+        if (executorService instanceof ScheduledExecutorService) {
+            return new ContextPropagatingScheduledExecutorService((ScheduledExecutorService) executorService);
+        }
+        return new ContextPropagatingExecutorService(executorService);
+    }
+
+}
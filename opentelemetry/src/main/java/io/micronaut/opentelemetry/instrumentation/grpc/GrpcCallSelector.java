@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.grpc;
+
+import io.grpc.MethodDescriptor;
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.util.PathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides which gRPC calls are excluded from tracing from the excluded method patterns of the configuration. The
+ * patterns are matched once per {@link MethodDescriptor} and the result is cached, so a call costs one map lookup.
+ * The calls that are traced are sampled by the sampler of the tracer provider, see {@link GrpcMethodSampling}.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Internal
+public final class GrpcCallSelector {
+
+    private static final int MAX_CACHED_METHODS = 1024;
+
+    private final List<String> excludedMethods;
+    private final Map<MethodDescriptor<?, ?>, Boolean> exclusionsByMethod = new ConcurrentHashMap<>();
+
+    /**
+     * @param excludedMethods The patterns of the methods whose calls are never traced
+     */
+    public GrpcCallSelector(@NonNull List<String> excludedMethods) {
+        this.excludedMethods = new ArrayList<>(excludedMethods);
+    }
+
+    /**
+     * @return Whether every call is traced, in which case the selector can be left out
+     */
+    public boolean isEmpty() {
+        return excludedMethods.isEmpty();
+    }
+
+    /**
+     * @param method The method of the call
+     * @return Whether the calls of the method are never traced
+     */
+    public boolean isExcluded(@NonNull MethodDescriptor<?, ?> method) {
+        Boolean excluded = exclusionsByMethod.get(method);
+        if (excluded == null) {
+            excluded = match(method.getFullMethodName());
+            if (exclusionsByMethod.size() < MAX_CACHED_METHODS) {
+                exclusionsByMethod.put(method, excluded);
+            }
+        }
+        return excluded;
+    }
+
+    private Boolean match(String fullMethodName) {
+        for (String pattern : excludedMethods) {
+            if (PathMatcher.ANT.matches(pattern, fullMethodName)) {
+                return Boolean.TRUE;
+            }
+        }
+        return Boolean.FALSE;
+    }
+
+}
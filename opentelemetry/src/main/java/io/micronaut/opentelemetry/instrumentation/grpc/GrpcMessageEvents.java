@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.grpc;
+
+/**
+ * What becomes of the span event the gRPC instrumentation records for every message of a call.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public enum GrpcMessageEvents {
+
+    /**
+     * An event per message.
+     */
+    ALL,
+
+    /**
+     * An event for the first message and then for one message out of
+     * {@link GrpcMessageEventsConfiguration#getMessageEventSamplingInterval()}.
+     */
+    SAMPLED,
+
+    /**
+     * No event; the span gets the number of messages sent and received, and their total size when the marshaller
+     * knows it, as attributes.
+     */
+    AGGREGATED,
+
+    /**
+     * No event.
+     */
+    NONE
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.grpc;
+
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.opentelemetry.api.trace.SpanKind;
+
+/**
+ * A sampling ratio applied to the gRPC calls of the methods matching a pattern. The ratio is applied by the sampler
+ * of the tracer provider to the trace id of the spans, so every hop of a trace takes the same decision.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public interface GrpcMethodSampling {
+
+    /**
+     * @return The pattern matched against the full method name of the calls, in the form {@code service/method}
+     */
+    @Nullable
+    String getMethod();
+
+    /**
+     * @return The ratio of the calls that are traced, between 0 and 1
+     */
+    double getRatio();
+
+    /**
+     * @return The kind of the spans the ratio applies to
+     */
+    @NonNull
+    SpanKind getSpanKind();
+
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.grpc;
+
+import com.google.protobuf.MessageLite;
+import io.micronaut.core.annotation.Internal;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * The span of a gRPC call, which keeps the message events the gRPC instrumentation adds to it according to a
+ * {@link GrpcMessageEvents} policy. Under {@link GrpcMessageEvents#AGGREGATED}, the messages are counted instead and
+ * the counts are set as attributes when the span ends.
+ * <p>
+ * The size of a message is the serialized size known to protobuf messages, which protobuf memoizes, so a message
+ * about to be sent is not serialized twice. Messages of other marshallers are counted without a size.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Internal
+public final class MessageEventSpan implements Span {
+
+    /**
+     * The number of messages sent during the call.
+     */
+    public static final AttributeKey<Long> SENT_MESSAGES = AttributeKey.longKey("rpc.grpc.sent_messages");
+
+    /**
+     * The number of messages received during the call.
+     */
+    public static final AttributeKey<Long> RECEIVED_MESSAGES = AttributeKey.longKey("rpc.grpc.received_messages");
+
+    /**
+     * The total serialized size of the messages sent during the call, in bytes.
+     */
+    public static final AttributeKey<Long> SENT_BYTES = AttributeKey.longKey("rpc.grpc.sent_bytes");
+
+    /**
+     * The total serialized size of the messages received during the call, in bytes.
+     */
+    public static final AttributeKey<Long> RECEIVED_BYTES = AttributeKey.longKey("rpc.grpc.received_bytes");
+
+    private static final String MESSAGE_EVENT = "message";
+    private static final AttributeKey<String> MESSAGE_TYPE = AttributeKey.stringKey("message.type");
+    private static final AttributeKey<Long> MESSAGE_ID = AttributeKey.longKey("message.id");
+    private static final String SENT = "SENT";
+
+    private static final AtomicLongFieldUpdater<MessageEventSpan> SENT_MESSAGES_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(MessageEventSpan.class, "sentMessages");
+    private static final AtomicLongFieldUpdater<MessageEventSpan> RECEIVED_MESSAGES_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(MessageEventSpan.class, "receivedMessages");
+    private static final AtomicLongFieldUpdater<MessageEventSpan> SENT_BYTES_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(MessageEventSpan.class, "sentBytes");
+    private static final AtomicLongFieldUpdater<MessageEventSpan> RECEIVED_BYTES_UPDATER =
+            AtomicLongFieldUpdater.newUpdater(MessageEventSpan.class, "receivedBytes");
+
+    private final Span delegate;
+    private final GrpcMessageEvents messageEvents;
+    private final int samplingInterval;
+
+    private volatile long sentMessages;
+    private volatile long receivedMessages;
+    private volatile long sentBytes;
+    private volatile long receivedBytes;
+    private volatile boolean sized;
+
+    /**
+     * @param delegate         The span of the call
+     * @param messageEvents    What becomes of the message events
+     * @param samplingInterval The interval between two sampled message events
+     */
+    MessageEventSpan(Span delegate, GrpcMessageEvents messageEvents, int samplingInterval) {
+        this.delegate = delegate;
+        this.messageEvents = messageEvents;
+        this.samplingInterval = Math.max(1, samplingInterval);
+    }
+
+    /**
+     * @return Whether the messages are counted instead of recorded as events
+     */
+    public boolean isAggregated() {
+        return messageEvents == GrpcMessageEvents.AGGREGATED;
+    }
+
+    /**
+     * Adds the size of a sent message, when known, to the total of the call.
+     *
+     * @param message The message
+     */
+    public void recordSentSize(Object message) {
+        long size = sizeOf(message);
+        if (size >= 0) {
+            SENT_BYTES_UPDATER.addAndGet(this, size);
+            if (!sized) {
+                sized = true;
+            }
+        }
+    }
+
+    /**
+     * Adds the size of a received message, when known, to the total of the call.
+     *
+     * @param message The message
+     */
+    public void recordReceivedSize(Object message) {
+        long size = sizeOf(message);
+        if (size >= 0) {
+            RECEIVED_BYTES_UPDATER.addAndGet(this, size);
+            if (!sized) {
+                sized = true;
+            }
+        }
+    }
+
+    @Override
+    public <T> Span setAttribute(AttributeKey<T> key, T value) {
+        delegate.setAttribute(key, value);
+        return this;
+    }
+
+    @Override
+    public Span setAllAttributes(Attributes attributes) {
+        delegate.setAllAttributes(attributes);
+        return this;
+    }
+
+    @Override
+    public Span addEvent(String name, Attributes attributes) {
+        if (keep(name, attributes)) {
+            delegate.addEvent(name, attributes);
+        }
+        return this;
+    }
+
+    @Override
+    public Span addEvent(String name, Attributes attributes, long timestamp, TimeUnit unit) {
+        if (keep(name, attributes)) {
+            delegate.addEvent(name, attributes, timestamp, unit);
+        }
+        return this;
+    }
+
+    @Override
+    public Span setStatus(StatusCode statusCode, String description) {
+        delegate.setStatus(statusCode, description);
+        return this;
+    }
+
+    @Override
+    public Span recordException(Throwable exception, Attributes additionalAttributes) {
+        delegate.recordException(exception, additionalAttributes);
+        return this;
+    }
+
+    @Override
+    public Span updateName(String name) {
+        delegate.updateName(name);
+        return this;
+    }
+
+    @Override
+    public void end() {
+        setCounts();
+        delegate.end();
+    }
+
+    @Override
+    public void end(long timestamp, TimeUnit unit) {
+        setCounts();
+        delegate.end(timestamp, unit);
+    }
+
+    @Override
+    public SpanContext getSpanContext() {
+        return delegate.getSpanContext();
+    }
+
+    @Override
+    public boolean isRecording() {
+        return delegate.isRecording();
+    }
+
+    @Override
+    public String toString() {
+        return "MessageEventSpan{delegate=" + delegate + ", messageEvents=" + messageEvents + '}';
+    }
+
+    private boolean keep(String name, Attributes attributes) {
+        if (!MESSAGE_EVENT.equals(name)) {
+            return true;
+        }
+        switch (messageEvents) {
+            case ALL:
+                return true;
+            case SAMPLED:
+                Long id = attributes.get(MESSAGE_ID);
+                return id == null || (id - 1) % samplingInterval == 0;
+            case AGGREGATED:
+                if (SENT.equals(attributes.get(MESSAGE_TYPE))) {
+                    SENT_MESSAGES_UPDATER.incrementAndGet(this);
+                } else {
+                    RECEIVED_MESSAGES_UPDATER.incrementAndGet(this);
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    private void setCounts() {
+        if (messageEvents != GrpcMessageEvents.AGGREGATED) {
+            return;
+        }
+        delegate.setAttribute(SENT_MESSAGES, sentMessages);
+        delegate.setAttribute(RECEIVED_MESSAGES, receivedMessages);
+        if (sized) {
+            delegate.setAttribute(SENT_BYTES, sentBytes);
+            delegate.setAttribute(RECEIVED_BYTES, receivedBytes);
+        }
+    }
+
+    private static long sizeOf(Object message) {
+        return message instanceof MessageLite ? ((MessageLite) message).getSerializedSize() : -1;
+    }
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.grpc;
+
+import io.micronaut.core.annotation.Internal;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.TracerBuilder;
+import io.opentelemetry.api.trace.TracerProvider;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.ContextPropagators;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link OpenTelemetry} for the gRPC instrumentation, whose recording spans are {@link MessageEventSpan}s applying
+ * the {@link GrpcMessageEvents} policy of the configuration. The policy is read when the tracer provider is obtained,
+ * that is when the instrumentation is built, and under {@link GrpcMessageEvents#ALL} the spans are not wrapped at all.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Internal
+public final class MessageEventsOpenTelemetry implements OpenTelemetry {
+
+    private final OpenTelemetry delegate;
+    private final GrpcMessageEventsConfiguration configuration;
+
+    /**
+     * @param delegate      The OpenTelemetry instance to delegate to
+     * @param configuration The message event settings
+     */
+    public MessageEventsOpenTelemetry(OpenTelemetry delegate, GrpcMessageEventsConfiguration configuration) {
+        this.delegate = delegate;
+        this.configuration = configuration;
+    }
+
+    @Override
+    public TracerProvider getTracerProvider() {
+        GrpcMessageEvents messageEvents = configuration.getMessageEvents();
+        if (messageEvents == GrpcMessageEvents.ALL) {
+            return delegate.getTracerProvider();
+        }
+        return new MessageEventsTracerProvider(delegate.getTracerProvider(),
+                messageEvents, configuration.getMessageEventSamplingInterval());
+    }
+
+    @Override
+    public MeterProvider getMeterProvider() {
+        return delegate.getMeterProvider();
+    }
+
+    @Override
+    public ContextPropagators getPropagators() {
+        return delegate.getPropagators();
+    }
+
+    @Override
+    public String toString() {
+        return "MessageEventsOpenTelemetry{delegate=" + delegate + '}';
+    }
+
+    private static final class MessageEventsTracerProvider implements TracerProvider {
+
+        private final TracerProvider delegate;
+        private final GrpcMessageEvents messageEvents;
+        private final int samplingInterval;
+
+        MessageEventsTracerProvider(TracerProvider delegate, GrpcMessageEvents messageEvents, int samplingInterval) {
+            this.delegate = delegate;
+            this.messageEvents = messageEvents;
+            this.samplingInterval = samplingInterval;
+        }
+
+        @Override
+        public Tracer get(String instrumentationName) {
+            return tracer(delegate.get(instrumentationName));
+        }
+
+        @Override
+        public Tracer get(String instrumentationName, String instrumentationVersion) {
+            return tracer(delegate.get(instrumentationName, instrumentationVersion));
+        }
+
+        @Override
+        public TracerBuilder tracerBuilder(String instrumentationName) {
+            TracerBuilder builder = delegate.tracerBuilder(instrumentationName);
+            return new TracerBuilder() {
+                @Override
+                public TracerBuilder setSchemaUrl(String schemaUrl) {
+                    builder.setSchemaUrl(schemaUrl);
+                    return this;
+                }
+
+                @Override
+                public TracerBuilder setInstrumentationVersion(String instrumentationVersion) {
+                    builder.setInstrumentationVersion(instrumentationVersion);
+                    return this;
+                }
+
+                @Override
+                public Tracer build() {
+                    return tracer(builder.build());
+                }
+            };
+        }
+
+        private Tracer tracer(Tracer tracer) {
+            return spanName -> new MessageEventsSpanBuilder(tracer.spanBuilder(spanName), messageEvents, samplingInterval);
+        }
+    }
+
+    private static final class MessageEventsSpanBuilder implements SpanBuilder {
+
+        private final SpanBuilder delegate;
+        private final GrpcMessageEvents messageEvents;
+        private final int samplingInterval;
+
+        MessageEventsSpanBuilder(SpanBuilder delegate, GrpcMessageEvents messageEvents, int samplingInterval) {
+            this.delegate = delegate;
+            this.messageEvents = messageEvents;
+            this.samplingInterval = samplingInterval;
+        }
+
+        @Override
+        public SpanBuilder setParent(Context context) {
+            delegate.setParent(context);
+            return this;
+        }
+
+        @Override
+        public SpanBuilder setNoParent() {
+            delegate.setNoParent();
+            return this;
+        }
+
+        @Override
+        public SpanBuilder addLink(SpanContext spanContext) {
+            delegate.addLink(spanContext);
+            return this;
+        }
+
+        @Override
+        public SpanBuilder addLink(SpanContext spanContext, Attributes attributes) {
+            delegate.addLink(spanContext, attributes);
+            return this;
+        }
+
+        @Override
+        public SpanBuilder setAttribute(String key, String value) {
+            delegate.setAttribute(key, value);
+            return this;
+        }
+
+        @Override
+        public SpanBuilder setAttribute(String key, long value) {
+            delegate.setAttribute(key, value);
+            return this;
+        }
+
+        @Override
+        public SpanBuilder setAttribute(String key, double value) {
+            delegate.setAttribute(key, value);
+            return this;
+        }
+
+        @Override
+        public SpanBuilder setAttribute(String key, boolean value) {
+            delegate.setAttribute(key, value);
+            return this;
+        }
+
+        @Override
+        public <T> SpanBuilder setAttribute(AttributeKey<T> key, T value) {
+            delegate.setAttribute(key, value);
+            return this;
+        }
+
+        @Override
+        public SpanBuilder setSpanKind(SpanKind spanKind) {
+            delegate.setSpanKind(spanKind);
+            return this;
+        }
+
+        @Override
+        public SpanBuilder setStartTimestamp(long startTimestamp, TimeUnit unit) {
+            delegate.setStartTimestamp(startTimestamp, unit);
+            return this;
+        }
+
+        @Override
+        public Span startSpan() {
+            Span span = delegate.startSpan();
+            // the events of a span that is not recorded are dropped anyway
+            return span.isRecording() ? new MessageEventSpan(span, messageEvents, samplingInterval) : span;
+        }
+    }
+
+}
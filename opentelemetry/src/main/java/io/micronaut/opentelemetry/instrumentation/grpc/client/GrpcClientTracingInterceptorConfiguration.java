@@ -19,10 +19,16 @@ import io.micronaut.context.annotation.ConfigurationBuilder;
 import io.micronaut.context.annotation.ConfigurationProperties;
 import io.micronaut.core.annotation.NonNull;
 import io.micronaut.grpc.channels.GrpcDefaultManagedChannelConfiguration;
+import io.micronaut.opentelemetry.instrumentation.grpc.GrpcMessageEvents;
+import io.micronaut.opentelemetry.instrumentation.grpc.GrpcMessageEventsConfiguration;
+import io.micronaut.opentelemetry.instrumentation.grpc.MessageEventsOpenTelemetry;
 import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.instrumentation.grpc.v1_6.GrpcTracing;
 import io.opentelemetry.instrumentation.grpc.v1_6.GrpcTracingBuilder;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Adds a TracingClientInterceptor when OpenTelemetry for GRPC is on the classpath.
  *
@@ -30,20 +36,24 @@ import io.opentelemetry.instrumentation.grpc.v1_6.GrpcTracingBuilder;
  * @since 1.0
  */
 @ConfigurationProperties(GrpcClientTracingInterceptorConfiguration.PREFIX)
-public class GrpcClientTracingInterceptorConfiguration {
+public class GrpcClientTracingInterceptorConfiguration implements GrpcMessageEventsConfiguration {
 
     public static final String PREFIX = GrpcDefaultManagedChannelConfiguration.PREFIX + ".tracing";
 
     @ConfigurationBuilder(allowZeroArgs = true)
     protected final GrpcTracingBuilder builder;
 
+    private GrpcMessageEvents messageEvents = GrpcMessageEvents.ALL;
+    private int messageEventSamplingInterval = DEFAULT_MESSAGE_EVENT_SAMPLING_INTERVAL;
+    private List<String> excludedMethods = Collections.emptyList();
+
     /**
      * Default constructor.
      *
      * @param openTelemetry OpenTelemetry
      */
     protected GrpcClientTracingInterceptorConfiguration(OpenTelemetry openTelemetry) {
-        this.builder = GrpcTracing.builder(openTelemetry);
+        this.builder = GrpcTracing.builder(new MessageEventsOpenTelemetry(openTelemetry, this));
     }
 
     /**
@@ -54,4 +64,54 @@ public class GrpcClientTracingInterceptorConfiguration {
         return builder;
     }
 
+    @Override
+    @NonNull
+    public GrpcMessageEvents getMessageEvents() {
+        return messageEvents;
+    }
+
+    /**
+     * Sets what becomes of the span event recorded for every message of a call. On long-lived streams, an event per
+     * message makes spans with as many events as messages. Default value ({@code ALL}).
+     *
+     * @param messageEvents What becomes of the message events
+     */
+    public void setMessageEvents(@NonNull GrpcMessageEvents messageEvents) {
+        this.messageEvents = messageEvents;
+    }
+
+    @Override
+    public int getMessageEventSamplingInterval() {
+        return messageEventSamplingInterval;
+    }
+
+    /**
+     * Sets the interval between two message events kept under {@link GrpcMessageEvents#SAMPLED}: the first message
+     * and then one message out of this interval get an event. Default value ({@value GrpcMessageEventsConfiguration#DEFAULT_MESSAGE_EVENT_SAMPLING_INTERVAL}).
+     *
+     * @param messageEventSamplingInterval The interval between two sampled message events
+     */
+    public void setMessageEventSamplingInterval(int messageEventSamplingInterval) {
+        this.messageEventSamplingInterval = messageEventSamplingInterval;
+    }
+
+    /**
+     * @return The patterns of the methods whose calls are not traced
+     */
+    @NonNull
+    public List<String> getExcludedMethods() {
+        return excludedMethods;
+    }
+
+    /**
+     * Sets the patterns matched against the full method name of the calls that are not traced, in the form
+     * {@code service/method}. Either part may be {@code *}, for example {@code grpc.health.v1.Health/*}. Excluded
+     * calls skip the tracing interceptor entirely: no span is started and no context is propagated.
+     *
+     * @param excludedMethods The method patterns
+     */
+    public void setExcludedMethods(@NonNull List<String> excludedMethods) {
+        this.excludedMethods = excludedMethods;
+    }
+
 }
@@ -19,6 +19,8 @@ import io.grpc.ClientInterceptor;
 import io.micronaut.context.annotation.Bean;
 import io.micronaut.context.annotation.Factory;
 import io.micronaut.context.annotation.Requires;
+import io.micronaut.opentelemetry.instrumentation.grpc.GrpcCallSelector;
+import io.micronaut.opentelemetry.instrumentation.grpc.GrpcMessageEvents;
 import jakarta.inject.Singleton;
 
 import javax.annotation.Nonnull;
@@ -43,7 +45,15 @@ public class GrpcClientTracingInterceptorFactory {
     @Singleton
     @Bean
     protected ClientInterceptor clientTracingInterceptor(@Nonnull GrpcClientTracingInterceptorConfiguration configuration) {
-        return configuration.getBuilder().build().newClientInterceptor();
+        ClientInterceptor interceptor = configuration.getBuilder().build().newClientInterceptor();
+        if (configuration.getMessageEvents() == GrpcMessageEvents.AGGREGATED) {
+            interceptor = new MessageSizeClientInterceptor(interceptor);
+        }
+        GrpcCallSelector selector = new GrpcCallSelector(configuration.getExcludedMethods());
+        if (!selector.isEmpty()) {
+            interceptor = new SelectiveTracingClientInterceptor(interceptor, selector);
+        }
+        return interceptor;
     }
 
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.grpc.client;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.micronaut.opentelemetry.instrumentation.grpc.MessageEventSpan;
+import io.opentelemetry.api.trace.Span;
+
+/**
+ * Wraps the tracing interceptor, so that the calls it traces with an aggregating {@link MessageEventSpan} add the size
+ * of their messages to the span.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+final class MessageSizeClientInterceptor implements ClientInterceptor {
+
+    private final ClientInterceptor tracingInterceptor;
+
+    /**
+     * @param tracingInterceptor The tracing interceptor
+     */
+    MessageSizeClientInterceptor(ClientInterceptor tracingInterceptor) {
+        this.tracingInterceptor = tracingInterceptor;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions,
+                                                               Channel next) {
+        return tracingInterceptor.interceptCall(method, callOptions, new SizeRecordingChannel(next));
+    }
+
+    /**
+     * The channel the tracing interceptor creates its calls with, while the context of its span is current.
+     */
+    private static final class SizeRecordingChannel extends Channel {
+
+        private final Channel delegate;
+
+        SizeRecordingChannel(Channel delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method,
+                                                             CallOptions callOptions) {
+            ClientCall<ReqT, RespT> call = delegate.newCall(method, callOptions);
+            Span span = Span.current();
+            if (!(span instanceof MessageEventSpan) || !((MessageEventSpan) span).isAggregated()) {
+                return call;
+            }
+            return new SizeRecordingClientCall<>(call, (MessageEventSpan) span);
+        }
+
+        @Override
+        public String authority() {
+            return delegate.authority();
+        }
+    }
+
+    private static final class SizeRecordingClientCall<ReqT, RespT>
+            extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+
+        private final MessageEventSpan span;
+
+        SizeRecordingClientCall(ClientCall<ReqT, RespT> delegate, MessageEventSpan span) {
+            super(delegate);
+            this.span = span;
+        }
+
+        @Override
+        public void start(Listener<RespT> responseListener, Metadata headers) {
+            super.start(new SizeRecordingListener<>(responseListener, span), headers);
+        }
+
+        @Override
+        public void sendMessage(ReqT message) {
+            span.recordSentSize(message);
+            super.sendMessage(message);
+        }
+    }
+
+    private static final class SizeRecordingListener<RespT>
+            extends ForwardingClientCallListener.SimpleForwardingClientCallListener<RespT> {
+
+        private final MessageEventSpan span;
+
+        SizeRecordingListener(ClientCall.Listener<RespT> delegate, MessageEventSpan span) {
+            super(delegate);
+            this.span = span;
+        }
+
+        @Override
+        public void onMessage(RespT message) {
+            span.recordReceivedSize(message);
+            super.onMessage(message);
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.grpc.client;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.MethodDescriptor;
+import io.micronaut.opentelemetry.instrumentation.grpc.GrpcCallSelector;
+
+/**
+ * Wraps the tracing interceptor, so that the calls of the methods excluded by the {@link GrpcCallSelector} skip it.
+ * Those calls are created directly, without starting a span or injecting the context into their headers. The other
+ * calls go through the tracing interceptor, which injects the context even when the sampler drops their span.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+final class SelectiveTracingClientInterceptor implements ClientInterceptor {
+
+    private final ClientInterceptor tracingInterceptor;
+    private final GrpcCallSelector selector;
+
+    /**
+     * @param tracingInterceptor The tracing interceptor
+     * @param selector           The selector of the excluded calls
+     */
+    SelectiveTracingClientInterceptor(ClientInterceptor tracingInterceptor, GrpcCallSelector selector) {
+        this.tracingInterceptor = tracingInterceptor;
+        this.selector = selector;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions,
+                                                               Channel next) {
+        if (selector.isExcluded(method)) {
+            return next.newCall(method, callOptions);
+        }
+        return tracingInterceptor.interceptCall(method, callOptions, next);
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.grpc.server;
+
+import io.micronaut.context.annotation.EachProperty;
+import io.micronaut.context.annotation.Parameter;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.opentelemetry.instrumentation.grpc.GrpcMethodSampling;
+import io.opentelemetry.api.trace.SpanKind;
+
+/**
+ * A sampling ratio applied to the server calls of the methods matching a pattern. For example:
+ *
+ * <pre>
+ * grpc.server.tracing.sampling.orders.method=example.OrderService/*
+ * grpc.server.tracing.sampling.orders.ratio=0.1
+ * </pre>
+ *
+ * The first sampling whose pattern matches applies. The ratio is applied by the sampler of the tracer provider to
+ * the trace id of the server spans, after the rate limits of the sampler. With the default parent-based sampler, it
+ * only applies to the calls that start a trace, and a call continuing a trace follows the decision of its parent.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@EachProperty(GrpcServerMethodSamplingConfiguration.PREFIX)
+public class GrpcServerMethodSamplingConfiguration implements GrpcMethodSampling {
+
+    public static final String PREFIX = GrpcServerTracingInterceptorConfiguration.PREFIX + ".sampling";
+
+    private final String name;
+    private String method;
+    private double ratio = 1;
+
+    /**
+     * @param name The name of the sampling
+     */
+    public GrpcServerMethodSamplingConfiguration(@Parameter String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return The name of the sampling
+     */
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    @Nullable
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Sets the pattern matched against the full method name of the calls, in the form {@code service/method}.
+     * Either part may be {@code *}, for example {@code example.OrderService/*}.
+     *
+     * @param method The method pattern
+     */
+    public void setMethod(@Nullable String method) {
+        this.method = method;
+    }
+
+    @Override
+    public double getRatio() {
+        return ratio;
+    }
+
+    /**
+     * Sets the ratio of the calls that are traced, between 0 and 1. Default value (1).
+     *
+     * @param ratio The ratio of the calls that are traced
+     */
+    public void setRatio(double ratio) {
+        this.ratio = ratio;
+    }
+
+    @Override
+    @NonNull
+    public SpanKind getSpanKind() {
+        return SpanKind.SERVER;
+    }
+
+}
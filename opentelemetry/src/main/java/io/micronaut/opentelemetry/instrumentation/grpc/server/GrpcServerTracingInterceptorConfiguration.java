@@ -18,11 +18,17 @@ package io.micronaut.opentelemetry.instrumentation.grpc.server;
 import io.micronaut.context.annotation.ConfigurationBuilder;
 import io.micronaut.context.annotation.ConfigurationProperties;
 import io.micronaut.grpc.server.GrpcServerConfiguration;
+import io.micronaut.opentelemetry.instrumentation.grpc.GrpcMessageEvents;
+import io.micronaut.opentelemetry.instrumentation.grpc.GrpcMessageEventsConfiguration;
+import io.micronaut.opentelemetry.instrumentation.grpc.MessageEventsOpenTelemetry;
 import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.instrumentation.grpc.v1_6.GrpcTracing;
 import io.opentelemetry.instrumentation.grpc.v1_6.GrpcTracingBuilder;
 
 import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Adds a TracingServerInterceptor when OpenTelemetry for GRPC is on the classpath.
@@ -31,20 +37,34 @@ import javax.annotation.Nonnull;
  * @since 1.0
  */
 @ConfigurationProperties(GrpcServerTracingInterceptorConfiguration.PREFIX)
-public class GrpcServerTracingInterceptorConfiguration {
+public class GrpcServerTracingInterceptorConfiguration implements GrpcMessageEventsConfiguration {
 
     public static final String PREFIX = GrpcServerConfiguration.PREFIX + ".tracing";
 
+    /**
+     * The default patterns of the methods whose calls are not traced: health checks and server reflection.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final List<String> DEFAULT_EXCLUDED_METHODS = Collections.unmodifiableList(Arrays.asList(
+            "grpc.health.v1.Health/*",
+            "grpc.reflection.v1alpha.ServerReflection/*",
+            "grpc.reflection.v1.ServerReflection/*"
+    ));
+
     @ConfigurationBuilder(allowZeroArgs = true)
     protected final GrpcTracingBuilder builder;
 
+    private GrpcMessageEvents messageEvents = GrpcMessageEvents.ALL;
+    private int messageEventSamplingInterval = DEFAULT_MESSAGE_EVENT_SAMPLING_INTERVAL;
+    private List<String> excludedMethods = DEFAULT_EXCLUDED_METHODS;
+
     /**
      * Default constructor.
      *
      * @param openTelemetry OpenTelemetry
      */
     protected GrpcServerTracingInterceptorConfiguration(OpenTelemetry openTelemetry) {
-        this.builder = GrpcTracing.builder(openTelemetry);
+        this.builder = GrpcTracing.builder(new MessageEventsOpenTelemetry(openTelemetry, this));
     }
 
     /**
@@ -55,4 +75,54 @@ public class GrpcServerTracingInterceptorConfiguration {
         return builder;
     }
 
+    @Override
+    @Nonnull
+    public GrpcMessageEvents getMessageEvents() {
+        return messageEvents;
+    }
+
+    /**
+     * Sets what becomes of the span event recorded for every message of a call. On long-lived streams, an event per
+     * message makes spans with as many events as messages. Default value ({@code ALL}).
+     *
+     * @param messageEvents What becomes of the message events
+     */
+    public void setMessageEvents(@Nonnull GrpcMessageEvents messageEvents) {
+        this.messageEvents = messageEvents;
+    }
+
+    @Override
+    public int getMessageEventSamplingInterval() {
+        return messageEventSamplingInterval;
+    }
+
+    /**
+     * Sets the interval between two message events kept under {@link GrpcMessageEvents#SAMPLED}: the first message
+     * and then one message out of this interval get an event. Default value ({@value GrpcMessageEventsConfiguration#DEFAULT_MESSAGE_EVENT_SAMPLING_INTERVAL}).
+     *
+     * @param messageEventSamplingInterval The interval between two sampled message events
+     */
+    public void setMessageEventSamplingInterval(int messageEventSamplingInterval) {
+        this.messageEventSamplingInterval = messageEventSamplingInterval;
+    }
+
+    /**
+     * @return The patterns of the methods whose calls are not traced
+     */
+    @Nonnull
+    public List<String> getExcludedMethods() {
+        return excludedMethods;
+    }
+
+    /**
+     * Sets the patterns matched against the full method name of the calls that are not traced, in the form
+     * {@code service/method}. Either part may be {@code *}, for example {@code grpc.health.v1.Health/*}. Excluded
+     * calls skip the tracing interceptor entirely: no span is started and no context is propagated. Default value (health checks and server reflection).
+     *
+     * @param excludedMethods The method patterns
+     */
+    public void setExcludedMethods(@Nonnull List<String> excludedMethods) {
+        this.excludedMethods = excludedMethods;
+    }
+
 }
@@ -19,6 +19,8 @@ import io.grpc.ServerInterceptor;
 import io.micronaut.context.annotation.Bean;
 import io.micronaut.context.annotation.Factory;
 import io.micronaut.context.annotation.Requires;
+import io.micronaut.opentelemetry.instrumentation.grpc.GrpcCallSelector;
+import io.micronaut.opentelemetry.instrumentation.grpc.GrpcMessageEvents;
 import jakarta.inject.Singleton;
 
 import javax.annotation.Nonnull;
@@ -43,7 +45,15 @@ public class GrpcServerTracingInterceptorFactory {
     @Singleton
     @Bean
     protected ServerInterceptor serverTracingInterceptor(@Nonnull GrpcServerTracingInterceptorConfiguration configuration) {
-        return configuration.getBuilder().build().newServerInterceptor();
+        ServerInterceptor interceptor = configuration.getBuilder().build().newServerInterceptor();
+        if (configuration.getMessageEvents() == GrpcMessageEvents.AGGREGATED) {
+            interceptor = new MessageSizeServerInterceptor(interceptor);
+        }
+        GrpcCallSelector selector = new GrpcCallSelector(configuration.getExcludedMethods());
+        if (!selector.isEmpty()) {
+            interceptor = new SelectiveTracingServerInterceptor(interceptor, selector);
+        }
+        return interceptor;
     }
 
 }
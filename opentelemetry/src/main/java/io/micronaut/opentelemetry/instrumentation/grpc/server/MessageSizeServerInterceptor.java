@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.grpc.server;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.micronaut.opentelemetry.instrumentation.grpc.MessageEventSpan;
+import io.opentelemetry.api.trace.Span;
+
+/**
+ * Wraps the tracing interceptor, so that the calls it traces with an aggregating {@link MessageEventSpan} add the size
+ * of their messages to the span.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+final class MessageSizeServerInterceptor implements ServerInterceptor {
+
+    private final ServerInterceptor tracingInterceptor;
+
+    /**
+     * @param tracingInterceptor The tracing interceptor
+     */
+    MessageSizeServerInterceptor(ServerInterceptor tracingInterceptor) {
+        this.tracingInterceptor = tracingInterceptor;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        // the tracing interceptor starts the call with the context of its span current
+        return tracingInterceptor.interceptCall(call, headers, (tracedCall, tracedHeaders) -> {
+            Span span = Span.current();
+            if (!(span instanceof MessageEventSpan) || !((MessageEventSpan) span).isAggregated()) {
+                return next.startCall(tracedCall, tracedHeaders);
+            }
+            MessageEventSpan messageEventSpan = (MessageEventSpan) span;
+            ServerCall.Listener<ReqT> listener =
+                    next.startCall(new SizeRecordingServerCall<>(tracedCall, messageEventSpan), tracedHeaders);
+            return new SizeRecordingListener<>(listener, messageEventSpan);
+        });
+    }
+
+    private static final class SizeRecordingServerCall<ReqT, RespT>
+            extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+
+        private final MessageEventSpan span;
+
+        SizeRecordingServerCall(ServerCall<ReqT, RespT> delegate, MessageEventSpan span) {
+            super(delegate);
+            this.span = span;
+        }
+
+        @Override
+        public void sendMessage(RespT message) {
+            span.recordSentSize(message);
+            super.sendMessage(message);
+        }
+    }
+
+    private static final class SizeRecordingListener<ReqT>
+            extends ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT> {
+
+        private final MessageEventSpan span;
+
+        SizeRecordingListener(ServerCall.Listener<ReqT> delegate, MessageEventSpan span) {
+            super(delegate);
+            this.span = span;
+        }
+
+        @Override
+        public void onMessage(ReqT message) {
+            span.recordReceivedSize(message);
+            super.onMessage(message);
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.grpc.server;
+
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.micronaut.opentelemetry.instrumentation.grpc.GrpcCallSelector;
+
+/**
+ * Wraps the tracing interceptor, so that the calls of the methods excluded by the {@link GrpcCallSelector} skip it.
+ * Those calls are started directly, without extracting a context or starting a span. The other calls go through the
+ * tracing interceptor, which extracts the context of the caller and leaves the sampling decision to the sampler.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+final class SelectiveTracingServerInterceptor implements ServerInterceptor {
+
+    private final ServerInterceptor tracingInterceptor;
+    private final GrpcCallSelector selector;
+
+    /**
+     * @param tracingInterceptor The tracing interceptor
+     * @param selector           The selector of the excluded calls
+     */
+    SelectiveTracingServerInterceptor(ServerInterceptor tracingInterceptor, GrpcCallSelector selector) {
+        this.tracingInterceptor = tracingInterceptor;
+        this.selector = selector;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call,
+                                                                 Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        if (selector.isExcluded(call.getMethodDescriptor())) {
+            return next.startCall(call, headers);
+        }
+        return tracingInterceptor.interceptCall(call, headers, next);
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http;
+
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.Nullable;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.ImplicitContextKeyed;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The body sizes of one HTTP exchange, counted as the bodies stream through the server pipeline: on the wire and,
+ * when the body is compressed, before compression. The counters are only written by the event loop of the
+ * connection; {@link #complete()} publishes them to the thread running the completion callback. The server filter
+ * stores them in the context of the server span, where the span attributes are read from when the span ends.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Internal
+public final class HttpContentLengths implements ImplicitContextKeyed {
+
+    private static final ContextKey<HttpContentLengths> CONTEXT_KEY = ContextKey.named("micronaut-http-content-lengths");
+
+    private static final Runnable COMPLETED = () -> {
+    };
+
+    private final AtomicReference<Runnable> onComplete = new AtomicReference<>();
+    private long requestWireBytes;
+    private long requestBodyBytes;
+    private long responseWireBytes;
+    private long responseBodyBytes;
+    private boolean requestCompressed;
+    private boolean requestComplete;
+    private boolean responseCompressed;
+
+    /**
+     * @param context The context of a server span
+     * @return The content lengths counted for the request of the span, or {@code null} if its bytes are not counted
+     */
+    @Nullable
+    public static HttpContentLengths fromContext(Context context) {
+        return context.get(CONTEXT_KEY);
+    }
+
+    @Override
+    public Context storeInContext(Context context) {
+        return context.with(CONTEXT_KEY, this);
+    }
+
+    /**
+     * @param bytes The number of request body bytes received on the wire
+     */
+    public void addRequestWireBytes(long bytes) {
+        requestWireBytes += bytes;
+    }
+
+    /**
+     * @param bytes The number of request body bytes after decompression
+     */
+    public void addRequestBodyBytes(long bytes) {
+        requestBodyBytes += bytes;
+    }
+
+    /**
+     * @param bytes The number of response body bytes sent on the wire
+     */
+    public void addResponseWireBytes(long bytes) {
+        responseWireBytes += bytes;
+    }
+
+    /**
+     * @param bytes The number of response body bytes before compression
+     */
+    public void addResponseBodyBytes(long bytes) {
+        responseBodyBytes += bytes;
+    }
+
+    /**
+     * Marks the request body as compressed.
+     */
+    public void requestCompressed() {
+        requestCompressed = true;
+    }
+
+    /**
+     * Marks the request body as fully received.
+     */
+    public void requestComplete() {
+        requestComplete = true;
+    }
+
+    /**
+     * Marks the response body as compressed.
+     */
+    public void responseCompressed() {
+        responseCompressed = true;
+    }
+
+    /**
+     * Marks the response as fully written and runs the completion callback, once.
+     */
+    public void complete() {
+        Runnable callback = onComplete.getAndSet(COMPLETED);
+        if (callback != null && callback != COMPLETED) {
+            callback.run();
+        }
+    }
+
+    /**
+     * Runs the callback once the response is fully written, or right away if it already is. Only one callback
+     * is supported.
+     *
+     * @param callback The callback
+     */
+    public void whenComplete(Runnable callback) {
+        if (!onComplete.compareAndSet(null, callback)) {
+            callback.run();
+        }
+    }
+
+    /**
+     * @return The number of request body bytes received on the wire, or {@code null} if the body is still streaming
+     */
+    @Nullable
+    public Long requestContentLength() {
+        return requestComplete ? requestWireBytes : null;
+    }
+
+    /**
+     * @return The number of request body bytes after decompression, or {@code null} if the body is not compressed
+     * or still streaming
+     */
+    @Nullable
+    public Long requestContentLengthUncompressed() {
+        return requestComplete && requestCompressed ? requestBodyBytes : null;
+    }
+
+    /**
+     * @return The number of response body bytes sent on the wire, or {@code null} if the response is not fully written
+     */
+    @Nullable
+    public Long responseContentLength() {
+        return onComplete.get() == COMPLETED ? responseWireBytes : null;
+    }
+
+    /**
+     * @return The number of response body bytes before compression, or {@code null} if the body is not compressed or
+     * the response is not fully written
+     */
+    @Nullable
+    public Long responseContentLengthUncompressed() {
+        return responseCompressed && onComplete.get() == COMPLETED ? responseBodyBytes : null;
+    }
+
+}
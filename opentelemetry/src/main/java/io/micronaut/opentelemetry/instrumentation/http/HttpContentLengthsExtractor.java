@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http;
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.api.instrumenter.AttributesExtractor;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+
+import javax.annotation.Nullable;
+
+/**
+ * Sets the body sizes counted while the bodies streamed through the Netty pipeline, see {@link HttpContentLengths},
+ * on server spans. The counted sizes are read from the context of the span and replace the declared
+ * {@code Content-Length} extracted by the HTTP attributes extractor, so this extractor is added after it.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+enum HttpContentLengthsExtractor implements AttributesExtractor<HttpRequest, HttpResponse> {
+
+    INSTANCE;
+
+    @Override
+    public void onStart(AttributesBuilder attributes, Context parentContext, HttpRequest request) {
+    }
+
+    @Override
+    public void onEnd(AttributesBuilder attributes,
+                      Context context,
+                      HttpRequest request,
+                      @Nullable HttpResponse response,
+                      @Nullable Throwable error) {
+        HttpContentLengths contentLengths = HttpContentLengths.fromContext(context);
+        if (contentLengths == null) {
+            return;
+        }
+        put(attributes, SemanticAttributes.HTTP_REQUEST_CONTENT_LENGTH, contentLengths.requestContentLength());
+        put(attributes, SemanticAttributes.HTTP_REQUEST_CONTENT_LENGTH_UNCOMPRESSED,
+                contentLengths.requestContentLengthUncompressed());
+        if (response != null) {
+            put(attributes, SemanticAttributes.HTTP_RESPONSE_CONTENT_LENGTH, contentLengths.responseContentLength());
+            put(attributes, SemanticAttributes.HTTP_RESPONSE_CONTENT_LENGTH_UNCOMPRESSED,
+                    contentLengths.responseContentLengthUncompressed());
+        }
+    }
+
+    private static void put(AttributesBuilder attributes, AttributeKey<Long> key, @Nullable Long value) {
+        if (value != null) {
+            attributes.put(key, value);
+        }
+    }
+
+}
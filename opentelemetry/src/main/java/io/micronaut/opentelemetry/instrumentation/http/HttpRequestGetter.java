@@ -1,16 +1,27 @@
 package io.micronaut.opentelemetry.instrumentation.http;
 
+import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpRequest;
 import io.opentelemetry.context.propagation.TextMapGetter;
 
 import javax.annotation.Nullable;
 
-enum HttpRequestGetter implements TextMapGetter<HttpRequest> {
+/**
+ * Reads propagated context from the headers of an incoming {@link HttpRequest}. Values are looked up with
+ * {@link HttpHeaders#get(CharSequence)}, which every header implementation answers without wrapping the value in an
+ * {@link java.util.Optional}, and the header names of a Netty-backed request are iterated without being copied.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public enum HttpRequestGetter implements TextMapGetter<HttpRequest> {
     INSTANCE;
 
     @Override
     public Iterable<String> keys(HttpRequest request) {
-        return request.getHeaders().names();
+        HttpHeaders headers = request.getHeaders();
+        Iterable<String> names = NettyHttpSupport.names(headers);
+        return names != null ? names : headers.names();
     }
 
     @Override
@@ -19,6 +30,6 @@ enum HttpRequestGetter implements TextMapGetter<HttpRequest> {
         if (request == null) {
             return null;
         }
-        return request.getHeaders().getFirst(key).orElse(null);
+        return request.getHeaders().get(key);
     }
 }
@@ -1,13 +1,25 @@
 package io.micronaut.opentelemetry.instrumentation.http;
 
+import io.micronaut.http.MutableHttpHeaders;
 import io.micronaut.http.MutableHttpRequest;
 import io.opentelemetry.context.propagation.TextMapSetter;
 
+/**
+ * Writes propagated context into the headers of an outgoing {@link MutableHttpRequest}. An existing value is replaced,
+ * so a request sent again on retry does not carry the context twice, and Netty-backed headers are written directly.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
 enum HttpRequestSetter implements TextMapSetter<MutableHttpRequest> {
     INSTANCE;
 
     @Override
     public void set(MutableHttpRequest httpRequest, String key, String value) {
-        httpRequest.header(key, value);
+        MutableHttpHeaders headers = httpRequest.getHeaders();
+        if (NettyHttpSupport.set(headers, key, value)) {
+            return;
+        }
+        headers.set(key, value);
     }
 }
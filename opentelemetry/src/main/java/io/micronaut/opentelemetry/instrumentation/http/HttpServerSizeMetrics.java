@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.instrumentation.api.instrumenter.RequestListener;
+import io.opentelemetry.instrumentation.api.instrumenter.RequestMetrics;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+
+/**
+ * Records the {@code http.server.request.size} and {@code http.server.response.size} histograms from the content
+ * lengths the server span ended with, see {@link HttpContentLengths}. Like the duration histogram, the sizes are
+ * only recorded with the low cardinality request attributes.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+final class HttpServerSizeMetrics implements RequestListener {
+
+    private static final ContextKey<Attributes> START_ATTRIBUTES = ContextKey.named("http-server-size-metrics-state");
+
+    @SuppressWarnings("rawtypes")
+    private static final AttributeKey[] START_VIEW = {
+            SemanticAttributes.HTTP_METHOD,
+            SemanticAttributes.HTTP_ROUTE,
+            SemanticAttributes.HTTP_SCHEME,
+            SemanticAttributes.HTTP_FLAVOR,
+            SemanticAttributes.HTTP_HOST,
+            SemanticAttributes.HTTP_SERVER_NAME,
+            SemanticAttributes.NET_HOST_NAME,
+            SemanticAttributes.NET_HOST_PORT
+    };
+
+    @SuppressWarnings("rawtypes")
+    private static final AttributeKey[] END_VIEW = {
+            SemanticAttributes.HTTP_ROUTE,
+            SemanticAttributes.HTTP_STATUS_CODE
+    };
+
+    private final LongHistogram requestSize;
+    private final LongHistogram responseSize;
+
+    private HttpServerSizeMetrics(Meter meter) {
+        this.requestSize = meter.histogramBuilder("http.server.request.size")
+                .ofLongs()
+                .setUnit("By")
+                .setDescription("The size of the inbound HTTP request bodies")
+                .build();
+        this.responseSize = meter.histogramBuilder("http.server.response.size")
+                .ofLongs()
+                .setUnit("By")
+                .setDescription("The size of the outbound HTTP response bodies")
+                .build();
+    }
+
+    /**
+     * @return The request metrics recording the HTTP server body sizes
+     */
+    static RequestMetrics get() {
+        return HttpServerSizeMetrics::new;
+    }
+
+    @Override
+    public Context start(Context context, Attributes startAttributes, long startNanos) {
+        return context.with(START_ATTRIBUTES, startAttributes);
+    }
+
+    @Override
+    public void end(Context context, Attributes endAttributes, long endNanos) {
+        Attributes startAttributes = context.get(START_ATTRIBUTES);
+        if (startAttributes == null) {
+            return;
+        }
+        Long requestLength = endAttributes.get(SemanticAttributes.HTTP_REQUEST_CONTENT_LENGTH);
+        Long responseLength = endAttributes.get(SemanticAttributes.HTTP_RESPONSE_CONTENT_LENGTH);
+        if (requestLength == null && responseLength == null) {
+            return;
+        }
+        Attributes attributes = view(startAttributes, endAttributes);
+        if (requestLength != null) {
+            requestSize.record(requestLength, attributes, context);
+        }
+        if (responseLength != null) {
+            responseSize.record(responseLength, attributes, context);
+        }
+    }
+
+    private static Attributes view(Attributes startAttributes, Attributes endAttributes) {
+        AttributesBuilder builder = Attributes.builder();
+        copy(startAttributes, START_VIEW, builder);
+        copy(endAttributes, END_VIEW, builder);
+        return builder.build();
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static void copy(Attributes attributes, AttributeKey[] keys, AttributesBuilder builder) {
+        for (AttributeKey key : keys) {
+            Object value = attributes.get(key);
+            if (value != null) {
+                builder.put(key, value);
+            }
+        }
+    }
+
+}
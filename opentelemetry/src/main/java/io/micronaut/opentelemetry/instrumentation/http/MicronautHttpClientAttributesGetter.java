@@ -6,11 +6,26 @@ import io.opentelemetry.instrumentation.api.instrumenter.http.HttpClientAttribut
 import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
 
 import javax.annotation.Nullable;
+import java.net.URI;
 import java.util.List;
 
 enum MicronautHttpClientAttributesGetter implements HttpClientAttributesGetter<HttpRequest, HttpResponse> {
 
-    INSTANCE;
+    /**
+     * Captures the query string in the {@code http.url} attribute.
+     */
+    INSTANCE(true),
+
+    /**
+     * Drops the query string from the {@code http.url} attribute.
+     */
+    WITHOUT_QUERY_STRING(false);
+
+    private final boolean captureQueryString;
+
+    MicronautHttpClientAttributesGetter(boolean captureQueryString) {
+        this.captureQueryString = captureQueryString;
+    }
 
     @Override
     public String method(HttpRequest request) {
@@ -19,7 +34,19 @@ enum MicronautHttpClientAttributesGetter implements HttpClientAttributesGetter<H
 
     @Override
     public String url(HttpRequest request) {
-        return request.getUri().toString();
+        // URI caches its string form, so only dropping the query string builds a new one
+        URI uri = request.getUri();
+        if (captureQueryString || uri.getRawQuery() == null) {
+            return uri.toString();
+        }
+        StringBuilder url = new StringBuilder();
+        if (uri.getScheme() != null) {
+            url.append(uri.getScheme()).append(':');
+        }
+        if (uri.getRawAuthority() != null) {
+            url.append("//").append(uri.getRawAuthority());
+        }
+        return url.append(uri.getRawPath()).toString();
     }
 
     @Override
@@ -28,8 +55,9 @@ enum MicronautHttpClientAttributesGetter implements HttpClientAttributesGetter<H
     }
 
     @Override
+    @Nullable
     public Long requestContentLength(HttpRequest request, @Nullable HttpResponse response) {
-        return request.getContentLength();
+        return declaredContentLength(request.getContentLength());
     }
 
     @Override
@@ -60,8 +88,9 @@ enum MicronautHttpClientAttributesGetter implements HttpClientAttributesGetter<H
     }
 
     @Override
+    @Nullable
     public Long responseContentLength(HttpRequest request, HttpResponse response) {
-        return response.getContentLength();
+        return declaredContentLength(response.getContentLength());
     }
 
     @Override
@@ -75,4 +104,9 @@ enum MicronautHttpClientAttributesGetter implements HttpClientAttributesGetter<H
         return response.getHeaders().getAll(name);
     }
 
+    @Nullable
+    private static Long declaredContentLength(long contentLength) {
+        return contentLength < 0 ? null : contentLength;
+    }
+
 }
@@ -1,6 +1,5 @@
 package io.micronaut.opentelemetry.instrumentation.http;
 
-import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.MutableHttpRequest;
 import io.opentelemetry.api.OpenTelemetry;
@@ -8,12 +7,12 @@ import io.opentelemetry.instrumentation.api.instrumenter.Instrumenter;
 import io.opentelemetry.instrumentation.api.instrumenter.InstrumenterBuilder;
 import io.opentelemetry.instrumentation.api.instrumenter.PeerServiceAttributesExtractor;
 import io.opentelemetry.instrumentation.api.instrumenter.http.HttpClientAttributesExtractor;
-import io.opentelemetry.instrumentation.api.instrumenter.http.HttpClientAttributesExtractorBuilder;
 import io.opentelemetry.instrumentation.api.instrumenter.http.HttpClientMetrics;
 import io.opentelemetry.instrumentation.api.instrumenter.http.HttpSpanNameExtractor;
 import io.opentelemetry.instrumentation.api.instrumenter.http.HttpSpanStatusExtractor;
 import io.opentelemetry.instrumentation.api.instrumenter.net.NetClientAttributesExtractor;
 
+import java.util.Collections;
 import java.util.List;
 
 public final class MicronautHttpClientTelemetryBuilder {
@@ -21,9 +20,9 @@ public final class MicronautHttpClientTelemetryBuilder {
     private static final String INSTRUMENTATION_NAME = "io.micronaut.http.client";
 
     private final OpenTelemetry openTelemetry;
-    private final HttpClientAttributesExtractorBuilder<HttpRequest, HttpResponse>
-            httpAttributesExtractorBuilder =
-            HttpClientAttributesExtractor.builder(MicronautHttpClientAttributesGetter.INSTANCE);
+    private List<String> capturedRequestHeaders = Collections.emptyList();
+    private List<String> capturedResponseHeaders = Collections.emptyList();
+    private boolean captureQueryString = true;
 
     public MicronautHttpClientTelemetryBuilder(OpenTelemetry openTelemetry) {
         this.openTelemetry = openTelemetry;
@@ -35,7 +34,7 @@ public final class MicronautHttpClientTelemetryBuilder {
      * @param requestHeaders A list of HTTP header names.
      */
     public MicronautHttpClientTelemetryBuilder setCapturedRequestHeaders(List<String> requestHeaders) {
-        httpAttributesExtractorBuilder.setCapturedRequestHeaders(requestHeaders);
+        this.capturedRequestHeaders = requestHeaders;
         return this;
     }
 
@@ -45,19 +44,36 @@ public final class MicronautHttpClientTelemetryBuilder {
      * @param responseHeaders A list of HTTP header names.
      */
     public MicronautHttpClientTelemetryBuilder setCapturedResponseHeaders(List<String> responseHeaders) {
-        httpAttributesExtractorBuilder.setCapturedResponseHeaders(responseHeaders);
+        this.capturedResponseHeaders = responseHeaders;
+        return this;
+    }
+
+    /**
+     * Configures whether the query string is captured in the {@code http.url} attribute. Dropping it keeps
+     * parameters out of the telemetry and saves bytes. Default value ({@code true}).
+     *
+     * @param captureQueryString Whether to capture the query string
+     * @return This builder
+     */
+    public MicronautHttpClientTelemetryBuilder setCaptureQueryString(boolean captureQueryString) {
+        this.captureQueryString = captureQueryString;
         return this;
     }
 
     public Instrumenter<MutableHttpRequest, HttpResponse> build() {
-        MicronautHttpClientAttributesGetter httpAttributesGetter = MicronautHttpClientAttributesGetter.INSTANCE;
+        MicronautHttpClientAttributesGetter httpAttributesGetter = captureQueryString
+                ? MicronautHttpClientAttributesGetter.INSTANCE
+                : MicronautHttpClientAttributesGetter.WITHOUT_QUERY_STRING;
         MicronautHttpNetClientAttributesGetter netAttributesGetter = new MicronautHttpNetClientAttributesGetter();
 
         InstrumenterBuilder<MutableHttpRequest, HttpResponse> builder =
                 Instrumenter.builder(openTelemetry, INSTRUMENTATION_NAME, HttpSpanNameExtractor.create(httpAttributesGetter));
 
         return builder.setSpanStatusExtractor(HttpSpanStatusExtractor.create(httpAttributesGetter))
-                .addAttributesExtractor(httpAttributesExtractorBuilder.build())
+                .addAttributesExtractor(HttpClientAttributesExtractor.builder(httpAttributesGetter)
+                        .setCapturedRequestHeaders(capturedRequestHeaders)
+                        .setCapturedResponseHeaders(capturedResponseHeaders)
+                        .build())
                 .addAttributesExtractor(NetClientAttributesExtractor.create(netAttributesGetter))
                 .addAttributesExtractor(PeerServiceAttributesExtractor.create(netAttributesGetter))
                 .addRequestMetrics(HttpClientMetrics.get())
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http;
+
+import io.micronaut.http.HttpAttributes;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.uri.UriMatchTemplate;
+import io.micronaut.web.router.UriRouteMatch;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.api.instrumenter.http.HttpRouteGetter;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the {@code http.route} of a request from the {@link UriRouteMatch} Micronaut stores in the request
+ * attributes, for example {@code /books/{id}} rather than {@code /books/42}. The template string is computed once
+ * per route and cached, so nothing is rebuilt per request.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public enum MicronautHttpRouteGetter implements HttpRouteGetter<HttpRequest> {
+
+    INSTANCE;
+
+    private static final Map<UriMatchTemplate, String> ROUTES = new ConcurrentHashMap<>();
+
+    @Override
+    @Nullable
+    public String get(Context context, HttpRequest request) {
+        return route(request);
+    }
+
+    /**
+     * @param request The request
+     * @return The template of the route matched for the request or {@code null} if no route matched
+     */
+    @Nullable
+    public String route(HttpRequest<?> request) {
+        Object routeMatch = request.getAttribute(HttpAttributes.ROUTE_MATCH).orElse(null);
+        if (!(routeMatch instanceof UriRouteMatch)) {
+            return null;
+        }
+        UriMatchTemplate template = ((UriRouteMatch<?, ?>) routeMatch).getRoute().getUriMatchTemplate();
+        String route = ROUTES.get(template);
+        if (route == null) {
+            route = ROUTES.computeIfAbsent(template, UriMatchTemplate::toPathString);
+        }
+        return route;
+    }
+
+}
@@ -6,11 +6,39 @@ import io.opentelemetry.instrumentation.api.instrumenter.http.HttpServerAttribut
 import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
 
 import javax.annotation.Nullable;
+import java.net.URI;
 import java.util.List;
 
-enum MicronautHttpServerAttributesGetter implements HttpServerAttributesGetter<HttpRequest, HttpResponse> {
-
-    INSTANCE;
+/**
+ * Extracts the HTTP attributes of server spans from Micronaut requests and responses. The target and the scheme reuse
+ * the strings the request already holds: the request line of a Netty-backed request, or the string the {@link URI}
+ * was parsed from, so no string is built unless the query string has to be dropped. The body sizes are the
+ * declared {@code Content-Length}; the sizes counted on the Netty pipeline replace them when the span ends, see
+ * {@link HttpContentLengthsExtractor}.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public enum MicronautHttpServerAttributesGetter implements HttpServerAttributesGetter<HttpRequest, HttpResponse> {
+
+    /**
+     * Captures the query string in the {@code http.target} attribute.
+     */
+    INSTANCE(true),
+
+    /**
+     * Drops the query string from the {@code http.target} attribute.
+     */
+    WITHOUT_QUERY_STRING(false);
+
+    private static final String HTTP = "http";
+    private static final String HTTPS = "https";
+
+    private final boolean captureQueryString;
+
+    MicronautHttpServerAttributesGetter(boolean captureQueryString) {
+        this.captureQueryString = captureQueryString;
+    }
 
     @Override
     public String method(HttpRequest request) {
@@ -23,8 +51,9 @@ enum MicronautHttpServerAttributesGetter implements HttpServerAttributesGetter<H
     }
 
     @Override
+    @Nullable
     public Long requestContentLength(HttpRequest request, @Nullable HttpResponse response) {
-        return request.getContentLength();
+        return declaredContentLength(request.getContentLength());
     }
 
     @Override
@@ -41,7 +70,7 @@ enum MicronautHttpServerAttributesGetter implements HttpServerAttributesGetter<H
     @Override
     @Nullable
     public Long responseContentLength(HttpRequest request, HttpResponse response) {
-        return null;
+        return declaredContentLength(response.getContentLength());
     }
 
     @Override
@@ -73,29 +102,61 @@ enum MicronautHttpServerAttributesGetter implements HttpServerAttributesGetter<H
 
     @Override
     public String target(HttpRequest request) {
-        String requestPath = request.getPath();
-        String queryString = request.getUri().getRawQuery();
-        if (queryString != null && !queryString.isEmpty()) {
-            return requestPath + "?" + queryString;
+        String target = NettyHttpSupport.requestTarget(request);
+        if (target == null) {
+            URI uri = request.getUri();
+            if (!captureQueryString) {
+                return uri.getRawPath();
+            }
+            target = rawTarget(uri);
         }
-        return requestPath;
+        if (!captureQueryString) {
+            int query = target.indexOf('?');
+            return query < 0 ? target : target.substring(0, query);
+        }
+        return target;
     }
 
     @Override
     @Nullable
     public String route(HttpRequest request) {
-        return null;
+        return MicronautHttpRouteGetter.INSTANCE.route(request);
     }
 
     @Override
     public String scheme(HttpRequest request) {
-        return request.getUri().getScheme();
+        String scheme = request.getUri().getScheme();
+        if (scheme != null) {
+            return scheme;
+        }
+        return request.isSecure() ? HTTPS : HTTP;
     }
 
+    /**
+     * The server name is configured rather than taken from the request, see
+     * {@link MicronautHttpServerTelemetryBuilder#setServerName(String)}.
+     *
+     * @param request The request
+     * @return {@code null}
+     */
     @Override
     @Nullable
     public String serverName(HttpRequest request) {
         return null;
     }
 
+    @Nullable
+    private static Long declaredContentLength(long contentLength) {
+        return contentLength < 0 ? null : contentLength;
+    }
+
+    private static String rawTarget(URI uri) {
+        if (uri.getScheme() == null && uri.getRawAuthority() == null && uri.getRawFragment() == null) {
+            // the string a relative URI was parsed from is exactly the request target
+            return uri.toString();
+        }
+        String rawQuery = uri.getRawQuery();
+        return rawQuery == null ? uri.getRawPath() : uri.getRawPath() + '?' + rawQuery;
+    }
+
 }
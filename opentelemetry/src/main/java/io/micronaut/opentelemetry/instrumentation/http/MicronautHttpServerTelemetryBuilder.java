@@ -2,17 +2,21 @@ package io.micronaut.opentelemetry.instrumentation.http;
 
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
+import io.micronaut.core.annotation.Nullable;
 import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.instrumentation.api.instrumenter.AttributesExtractor;
 import io.opentelemetry.instrumentation.api.instrumenter.Instrumenter;
 import io.opentelemetry.instrumentation.api.instrumenter.InstrumenterBuilder;
+import io.opentelemetry.instrumentation.api.instrumenter.SpanKindExtractor;
 import io.opentelemetry.instrumentation.api.instrumenter.http.HttpRouteHolder;
 import io.opentelemetry.instrumentation.api.instrumenter.http.HttpServerAttributesExtractor;
-import io.opentelemetry.instrumentation.api.instrumenter.http.HttpServerAttributesExtractorBuilder;
 import io.opentelemetry.instrumentation.api.instrumenter.http.HttpServerMetrics;
 import io.opentelemetry.instrumentation.api.instrumenter.http.HttpSpanNameExtractor;
 import io.opentelemetry.instrumentation.api.instrumenter.http.HttpSpanStatusExtractor;
 import io.opentelemetry.instrumentation.api.instrumenter.net.NetServerAttributesExtractor;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
 
+import java.util.Collections;
 import java.util.List;
 
 public final class MicronautHttpServerTelemetryBuilder {
@@ -20,9 +24,11 @@ public final class MicronautHttpServerTelemetryBuilder {
     private static final String INSTRUMENTATION_NAME = "io.micronaut.http.server";
 
     private final OpenTelemetry openTelemetry;
-    private final HttpServerAttributesExtractorBuilder<HttpRequest, HttpResponse>
-            httpAttributesExtractorBuilder =
-            HttpServerAttributesExtractor.builder(MicronautHttpServerAttributesGetter.INSTANCE);
+    private List<String> capturedRequestHeaders = Collections.emptyList();
+    private List<String> capturedResponseHeaders = Collections.emptyList();
+    private boolean captureQueryString = true;
+    @Nullable
+    private String serverName;
 
     public MicronautHttpServerTelemetryBuilder(OpenTelemetry openTelemetry) {
         this.openTelemetry = openTelemetry;
@@ -34,7 +40,7 @@ public final class MicronautHttpServerTelemetryBuilder {
      * @param requestHeaders A list of HTTP header names.
      */
     public MicronautHttpServerTelemetryBuilder setCapturedRequestHeaders(List<String> requestHeaders) {
-        httpAttributesExtractorBuilder.setCapturedRequestHeaders(requestHeaders);
+        this.capturedRequestHeaders = requestHeaders;
         return this;
     }
 
@@ -44,25 +50,81 @@ public final class MicronautHttpServerTelemetryBuilder {
      * @param responseHeaders A list of HTTP header names.
      */
     public MicronautHttpServerTelemetryBuilder setCapturedResponseHeaders(List<String> responseHeaders) {
-        httpAttributesExtractorBuilder.setCapturedResponseHeaders(responseHeaders);
+        this.capturedResponseHeaders = responseHeaders;
         return this;
     }
 
+    /**
+     * Configures whether the query string is captured in the {@code http.target} attribute. Dropping it keeps
+     * parameters out of the telemetry and saves bytes. Default value ({@code true}).
+     *
+     * @param captureQueryString Whether to capture the query string
+     * @return This builder
+     */
+    public MicronautHttpServerTelemetryBuilder setCaptureQueryString(boolean captureQueryString) {
+        this.captureQueryString = captureQueryString;
+        return this;
+    }
+
+    /**
+     * Configures the {@code http.server_name} attribute, the name the server is reachable under, for example the
+     * virtual host. It is configured rather than resolved from the request, which would cost a reverse DNS lookup.
+     * Default value (not set).
+     *
+     * @param serverName The server name
+     * @return This builder
+     */
+    public MicronautHttpServerTelemetryBuilder setServerName(@Nullable String serverName) {
+        this.serverName = serverName;
+        return this;
+    }
+
+    /**
+     * Builds the server instrumenter. The instrumenter extracts the propagated context from the request headers
+     * with {@link HttpRequestGetter}.
+     *
+     * @return The server instrumenter
+     */
     public Instrumenter<HttpRequest, HttpResponse> build() {
-        MicronautHttpServerAttributesGetter httpAttributesGetter = MicronautHttpServerAttributesGetter.INSTANCE;
+        return instrumenterBuilder().newServerInstrumenter(HttpRequestGetter.INSTANCE);
+    }
+
+    /**
+     * Builds a server instrumenter that does not extract the propagated context itself. Callers extract it with
+     * {@link HttpRequestGetter} and pass it to {@link Instrumenter#start}, which lets them take the sampling
+     * decision before any attribute is extracted.
+     *
+     * @return The server instrumenter
+     */
+    public Instrumenter<HttpRequest, HttpResponse> buildWithoutContextExtraction() {
+        return instrumenterBuilder().newInstrumenter(SpanKindExtractor.alwaysServer());
+    }
+
+    private InstrumenterBuilder<HttpRequest, HttpResponse> instrumenterBuilder() {
+        MicronautHttpServerAttributesGetter httpAttributesGetter = captureQueryString
+                ? MicronautHttpServerAttributesGetter.INSTANCE
+                : MicronautHttpServerAttributesGetter.WITHOUT_QUERY_STRING;
 
         InstrumenterBuilder<HttpRequest, HttpResponse> builder =
                 Instrumenter.builder(openTelemetry, INSTRUMENTATION_NAME,
                         HttpSpanNameExtractor.create(httpAttributesGetter));
 
+        if (serverName != null && !serverName.isEmpty()) {
+            builder.addAttributesExtractor(AttributesExtractor.constant(SemanticAttributes.HTTP_SERVER_NAME, serverName));
+        }
+
         return builder
                 .setSpanStatusExtractor(HttpSpanStatusExtractor.create(httpAttributesGetter))
-                .addAttributesExtractor(httpAttributesExtractorBuilder.build())
+                .addAttributesExtractor(HttpServerAttributesExtractor.builder(httpAttributesGetter)
+                        .setCapturedRequestHeaders(capturedRequestHeaders)
+                        .setCapturedResponseHeaders(capturedResponseHeaders)
+                        .build())
+                .addAttributesExtractor(HttpContentLengthsExtractor.INSTANCE)
                 .addAttributesExtractor(
                         NetServerAttributesExtractor.create(new MicronautHttpNetServerAttributesGetter()))
                 .addRequestMetrics(HttpServerMetrics.get())
-                .addContextCustomizer(HttpRouteHolder.get())
-                .newServerInstrumenter(HttpRequestGetter.INSTANCE);
+                .addRequestMetrics(HttpServerSizeMetrics.get())
+                .addContextCustomizer(HttpRouteHolder.get());
     }
 
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http;
+
+import io.micronaut.core.reflect.ClassUtils;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.netty.AbstractNettyHttpRequest;
+import io.micronaut.http.netty.NettyHttpHeaders;
+
+import javax.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Direct access to the Netty request and headers behind a Netty-backed request, used by the getters and setters of
+ * this package when the request is Netty-backed. The code touching the Netty types lives in a nested class that is
+ * only loaded once {@link #PRESENT} is known to be {@code true}, so this class can be used without Netty on the
+ * classpath.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+final class NettyHttpSupport {
+
+    /**
+     * Whether the Netty HTTP support of Micronaut is on the classpath.
+     */
+    static final boolean PRESENT = ClassUtils.isPresent("io.micronaut.http.netty.NettyHttpHeaders",
+            NettyHttpSupport.class.getClassLoader());
+
+    private NettyHttpSupport() {
+    }
+
+    /**
+     * @param request The request
+     * @return The request target exactly as received in the request line, or {@code null} if the request is not
+     * Netty-backed
+     */
+    @Nullable
+    static String requestTarget(HttpRequest<?> request) {
+        return PRESENT ? Netty.requestTarget(request) : null;
+    }
+
+    /**
+     * @param headers The headers
+     * @return The names of the headers, iterated straight from the Netty headers instead of being copied into a set,
+     * or {@code null} if the headers are not Netty-backed. A name is returned once per value.
+     */
+    @Nullable
+    static Iterable<String> names(HttpHeaders headers) {
+        return PRESENT ? Netty.names(headers) : null;
+    }
+
+    /**
+     * Sets a header, replacing any existing value, on the Netty headers directly.
+     *
+     * @param headers The headers
+     * @param name    The header name
+     * @param value   The header value
+     * @return Whether the headers were Netty-backed
+     */
+    static boolean set(HttpHeaders headers, String name, String value) {
+        return PRESENT && Netty.set(headers, name, value);
+    }
+
+    /**
+     * The code touching the Netty types, loaded on first use only.
+     */
+    private static final class Netty {
+
+        @Nullable
+        static String requestTarget(HttpRequest<?> request) {
+            if (!(request instanceof AbstractNettyHttpRequest)) {
+                return null;
+            }
+            return ((AbstractNettyHttpRequest<?>) request).getNettyRequest().uri();
+        }
+
+        @Nullable
+        static Iterable<String> names(HttpHeaders headers) {
+            if (!(headers instanceof NettyHttpHeaders)) {
+                return null;
+            }
+            io.netty.handler.codec.http.HttpHeaders nettyHeaders = ((NettyHttpHeaders) headers).getNettyHeaders();
+            return () -> new NameIterator(nettyHeaders.iteratorCharSequence());
+        }
+
+        static boolean set(HttpHeaders headers, String name, String value) {
+            if (!(headers instanceof NettyHttpHeaders)) {
+                return false;
+            }
+            ((NettyHttpHeaders) headers).getNettyHeaders().set(name, value);
+            return true;
+        }
+    }
+
+    /**
+     * Iterates the names of the header entries.
+     */
+    private static final class NameIterator implements Iterator<String> {
+
+        private final Iterator<Map.Entry<CharSequence, CharSequence>> entries;
+
+        NameIterator(Iterator<Map.Entry<CharSequence, CharSequence>> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        @Override
+        public String next() {
+            return entries.next().getKey().toString();
+        }
+    }
+
+}
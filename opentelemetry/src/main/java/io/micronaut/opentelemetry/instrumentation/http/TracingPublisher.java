@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http;
+
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.async.publisher.Publishers;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A publisher that traces one request. It starts the context of the request when it is subscribed to and relays the
+ * signals of the upstream publisher with that context current. It subscribes to the upstream publisher itself, so
+ * tracing a request costs a single object, and it only switches the current context when a signal arrives on a
+ * thread where the context is not current already.
+ * <p>
+ * It also stands between its subscriber and the upstream subscription, so it sees a request being abandoned: when
+ * the subscription is cancelled before any response or terminal signal was relayed, {@link #doOnCancel()} is called.
+ * The span of a request must be ended once, whichever signal comes first; subclasses guard their end with
+ * {@link #tryEnd()}.
+ *
+ * @param <T> The type of the responses
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Internal
+public abstract class TracingPublisher<T> implements Publishers.MicronautPublisher<T>, Subscriber<T>, Subscription {
+
+    /**
+     * The attribute set on the span of a request abandoned before it was answered.
+     */
+    public static final AttributeKey<Boolean> CANCELLED = AttributeKey.booleanKey("micronaut.http.cancelled");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<TracingPublisher> ENDED =
+            AtomicIntegerFieldUpdater.newUpdater(TracingPublisher.class, "ended");
+
+    private final Publisher<? extends T> upstream;
+    private Subscriber<? super T> actual;
+    private Context context;
+    private Subscription subscription;
+    private volatile boolean signalled;
+    private volatile int ended;
+
+    /**
+     * @param upstream The publisher of the responses
+     */
+    protected TracingPublisher(Publisher<? extends T> upstream) {
+        this.upstream = upstream;
+    }
+
+    @Override
+    public final void subscribe(Subscriber<? super T> subscriber) {
+        if (actual != null) {
+            // every subscription is a request of its own
+            copy().subscribe(subscriber);
+            return;
+        }
+        actual = subscriber;
+        context = start();
+        Scope scope = makeCurrent();
+        try {
+            upstream.subscribe(this);
+        } finally {
+            close(scope);
+        }
+    }
+
+    @Override
+    public final void onSubscribe(Subscription subscription) {
+        this.subscription = subscription;
+        Scope scope = makeCurrent();
+        try {
+            actual.onSubscribe(this);
+        } finally {
+            close(scope);
+        }
+    }
+
+    @Override
+    public final void onNext(T response) {
+        // set before relaying, the subscriber may cancel as soon as it has the response
+        signalled = true;
+        Scope scope = makeCurrent();
+        try {
+            actual.onNext(response);
+        } finally {
+            close(scope);
+            doOnNext(response);
+        }
+    }
+
+    @Override
+    public final void onError(Throwable t) {
+        signalled = true;
+        Scope scope = makeCurrent();
+        try {
+            actual.onError(t);
+        } finally {
+            close(scope);
+            doOnError(t);
+        }
+    }
+
+    @Override
+    public final void onComplete() {
+        signalled = true;
+        Scope scope = makeCurrent();
+        try {
+            actual.onComplete();
+        } finally {
+            close(scope);
+            doOnComplete();
+        }
+    }
+
+    @Override
+    public final void request(long n) {
+        subscription.request(n);
+    }
+
+    @Override
+    public final void cancel() {
+        subscription.cancel();
+        if (!signalled) {
+            doOnCancel();
+        } else {
+            doOnCancelAfterSignal();
+        }
+    }
+
+    /**
+     * Starts tracing the request, called once when the publisher is subscribed to.
+     *
+     * @return The context the signals are relayed in
+     */
+    protected abstract Context start();
+
+    /**
+     * @return A publisher tracing the same request for another subscription
+     */
+    protected abstract TracingPublisher<T> copy();
+
+    /**
+     * Called after a response has been relayed.
+     *
+     * @param response The response
+     */
+    protected abstract void doOnNext(T response);
+
+    /**
+     * Called after an error has been relayed.
+     *
+     * @param t The error
+     */
+    protected abstract void doOnError(Throwable t);
+
+    /**
+     * Called after the completion has been relayed.
+     */
+    protected abstract void doOnComplete();
+
+    /**
+     * Called after the subscription was cancelled before any response or terminal signal was relayed.
+     */
+    protected abstract void doOnCancel();
+
+    /**
+     * Called after the subscription was cancelled once a response or terminal signal was relayed. Does nothing by
+     * default.
+     */
+    protected void doOnCancelAfterSignal() {
+    }
+
+    /**
+     * Claims the end of the span, so that it is ended once even when signals race.
+     *
+     * @return Whether the caller is the first to end the span and must end it
+     */
+    protected final boolean tryEnd() {
+        return ENDED.compareAndSet(this, 0, 1);
+    }
+
+    /**
+     * Marks the span of the request with {@link #CANCELLED}.
+     */
+    protected final void markCancelled() {
+        Span.fromContext(context).setAttribute(CANCELLED, true);
+    }
+
+    /**
+     * @return The publisher of the responses
+     */
+    protected final Publisher<? extends T> upstream() {
+        return upstream;
+    }
+
+    /**
+     * @return The context of the request, once {@link #start()} returned it
+     */
+    protected final Context context() {
+        return context;
+    }
+
+    @Nullable
+    private Scope makeCurrent() {
+        return Context.current() == context ? null : context.makeCurrent();
+    }
+
+    private static void close(@Nullable Scope scope) {
+        if (scope != null) {
+            scope.close();
+        }
+    }
+
+}
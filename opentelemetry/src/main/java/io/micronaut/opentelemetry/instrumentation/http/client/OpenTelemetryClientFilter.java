@@ -16,19 +16,19 @@
 package io.micronaut.opentelemetry.instrumentation.http.client;
 
 import io.micronaut.context.annotation.Requires;
-import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.MutableHttpRequest;
 import io.micronaut.http.annotation.Filter;
 import io.micronaut.http.filter.ClientFilterChain;
 import io.micronaut.http.filter.HttpClientFilter;
+import io.micronaut.opentelemetry.instrumentation.http.TracingPublisher;
+import io.micronaut.opentelemetry.instrumentation.reactor.ExplicitContextPropagation;
+import io.micronaut.opentelemetry.instrumentation.reactor.ReactorTracingConfiguration;
 import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.context.Context;
-import io.opentelemetry.context.Scope;
 import io.opentelemetry.instrumentation.api.instrumenter.Instrumenter;
 import org.reactivestreams.Publisher;
-import org.reactivestreams.Subscriber;
-import org.reactivestreams.Subscription;
 
 /**
  * An HTTP client instrumentation filter that uses Open Telemetry.
@@ -41,61 +41,99 @@ import org.reactivestreams.Subscription;
 public class OpenTelemetryClientFilter implements HttpClientFilter {
 
     private final Instrumenter<MutableHttpRequest, HttpResponse> instrumenter;
+    private final boolean explicitContextPropagation;
 
-    public OpenTelemetryClientFilter(HttpClientTracingInterceptorConfiguration configuration) {
+    /**
+     * Creates an HTTP client instrumentation filter.
+     *
+     * @param configuration        The configuration
+     * @param reactorConfiguration The configuration of the context propagation through Reactor
+     */
+    public OpenTelemetryClientFilter(HttpClientTracingInterceptorConfiguration configuration,
+                                     ReactorTracingConfiguration reactorConfiguration) {
         instrumenter = configuration.getBuilder().build();
+        explicitContextPropagation = reactorConfiguration.isExplicit();
     }
 
     @Override
     public Publisher<? extends HttpResponse<?>> doFilter(MutableHttpRequest<?> request, ClientFilterChain chain) {
         Publisher<? extends HttpResponse<?>> requestPublisher = chain.proceed(request);
 
-        Context parentContext = Context.current();
+        if (explicitContextPropagation) {
+            // a client called from a reactive pipeline without a current context finds its parent in the Reactor context
+            return ExplicitContextPropagation.<HttpResponse<?>>withContext(Context.current(),
+                    parentContext -> trace(parentContext, request, requestPublisher));
+        }
+        return trace(Context.current(), request, requestPublisher);
+    }
+
+    private Publisher<? extends HttpResponse<?>> trace(Context parentContext,
+                                                       MutableHttpRequest<?> request,
+                                                       Publisher<? extends HttpResponse<?>> requestPublisher) {
         if (!instrumenter.shouldStart(parentContext, request)) {
             return requestPublisher;
         }
+        if (explicitContextPropagation) {
+            requestPublisher = ExplicitContextPropagation.writeCurrentContext(requestPublisher);
+        }
+        return new ClientTracingPublisher(parentContext, request, requestPublisher);
+    }
+
+    /**
+     * Traces one request: starts the client span when the response is subscribed to and ends it once, with the
+     * response, the error or the completion, or when the request is abandoned.
+     */
+    private final class ClientTracingPublisher extends TracingPublisher<HttpResponse<?>> {
+
+        private final Context parentContext;
+        private final MutableHttpRequest<?> request;
+
+        ClientTracingPublisher(Context parentContext,
+                               MutableHttpRequest<?> request,
+                               Publisher<? extends HttpResponse<?>> upstream) {
+            super(upstream);
+            this.parentContext = parentContext;
+            this.request = request;
+        }
 
-        return (Publishers.MicronautPublisher<HttpResponse<?>>) actual -> {
-            Context context = instrumenter.start(parentContext, request);
-
-            try (Scope ignored = context.makeCurrent()) {
-                requestPublisher.subscribe(new Subscriber<HttpResponse<?>>() {
-                    @Override
-                    public void onSubscribe(Subscription s) {
-                        try (Scope ignored = context.makeCurrent()) {
-                            actual.onSubscribe(s);
-                        }
-                    }
-
-                    @Override
-                    public void onNext(HttpResponse<?> response) {
-                        try (Scope ignored = context.makeCurrent()) {
-                            actual.onNext(response);
-                        } finally {
-                            instrumenter.end(context, request, response, null);
-                        }
-                    }
-
-                    @Override
-                    public void onError(Throwable t) {
-                        try (Scope ignored = context.makeCurrent()) {
-                            actual.onError(t);
-                        } finally {
-                            instrumenter.end(context, request, null, t);
-                        }
-                    }
-
-                    @Override
-                    public void onComplete() {
-                        try (Scope ignored = context.makeCurrent()) {
-                            actual.onComplete();
-                        } finally {
-                            instrumenter.end(context, request, null, null);
-                        }
-                    }
-                });
+        @Override
+        protected Context start() {
+            return instrumenter.start(parentContext, request);
+        }
+
+        @Override
+        protected TracingPublisher<HttpResponse<?>> copy() {
+            return new ClientTracingPublisher(parentContext, request, upstream());
+        }
+
+        @Override
+        protected void doOnNext(HttpResponse<?> response) {
+            end(response, null);
+        }
+
+        @Override
+        protected void doOnError(Throwable t) {
+            end(null, t);
+        }
+
+        @Override
+        protected void doOnComplete() {
+            end(null, null);
+        }
+
+        @Override
+        protected void doOnCancel() {
+            if (tryEnd()) {
+                markCancelled();
+                instrumenter.end(context(), request, null, null);
             }
-        };
+        }
+
+        private void end(@Nullable HttpResponse<?> response, @Nullable Throwable t) {
+            if (tryEnd()) {
+                instrumenter.end(context(), request, response, t);
+            }
+        }
     }
 
 }
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http.server;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.server.netty.NettyHttpRequest;
+import io.micronaut.opentelemetry.instrumentation.http.HttpContentLengths;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpStatusClass;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.AttributeKey;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Counts the body bytes of the HTTP/1.x exchanges of one server connection with two handlers: one next to the HTTP
+ * codec, which sees the bytes as they travel on the wire, and one in front of the Micronaut handlers, which sees them
+ * before compression and after decompression. Responses leave a connection in the order of their requests, so the
+ * exchanges are kept in a queue: a request opens an exchange at the tail and a response completes the one at the
+ * head once its last content is written. This class must only be loaded when the Netty HTTP server is on the
+ * classpath.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+final class HttpExchangeTracker {
+
+    private static final AttributeKey<HttpExchangeTracker> TRACKER =
+            AttributeKey.valueOf(HttpExchangeTracker.class.getName());
+
+    private final Deque<Exchange> exchanges = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Installs a tracker on a connection.
+     *
+     * @param channel The connection
+     * @return The tracker
+     */
+    static HttpExchangeTracker install(Channel channel) {
+        HttpExchangeTracker tracker = new HttpExchangeTracker();
+        channel.attr(TRACKER).set(tracker);
+        return tracker;
+    }
+
+    /**
+     * @param request The request
+     * @return The content lengths counted for the request, or {@code null} if the request is not served by a
+     * connection with a tracker
+     */
+    @Nullable
+    static HttpContentLengths contentLengths(io.micronaut.http.HttpRequest<?> request) {
+        if (!(request instanceof NettyHttpRequest)) {
+            return null;
+        }
+        NettyHttpRequest<?> nettyRequest = (NettyHttpRequest<?>) request;
+        HttpExchangeTracker tracker = nettyRequest.getChannelHandlerContext().channel().attr(TRACKER).get();
+        if (tracker == null) {
+            return null;
+        }
+        // the Micronaut request wraps the Netty request seen by the body handler and shares its headers
+        HttpHeaders headers = nettyRequest.getNettyRequest().headers();
+        for (Exchange exchange : tracker.exchanges) {
+            if (exchange.headers == headers) {
+                return exchange.contentLengths;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The handler counting the bytes on the wire, to be placed next to the HTTP codec
+     */
+    ChannelHandler wireHandler() {
+        return new WireHandler();
+    }
+
+    /**
+     * @return The handler counting the uncompressed bytes, to be placed in front of the Micronaut handlers
+     */
+    ChannelHandler bodyHandler() {
+        return new BodyHandler();
+    }
+
+    private void completeAll() {
+        Exchange exchange;
+        while ((exchange = exchanges.pollFirst()) != null) {
+            exchange.contentLengths.complete();
+        }
+    }
+
+    /**
+     * @param response The response
+     * @return Whether the response is an interim response that is followed by the final one, such as
+     * {@code 100 Continue}
+     */
+    private static boolean isInterim(HttpResponse response) {
+        HttpResponseStatus status = response.status();
+        return status.codeClass() == HttpStatusClass.INFORMATIONAL && !isSwitchingProtocols(response);
+    }
+
+    private static boolean isSwitchingProtocols(HttpResponse response) {
+        return response.status().code() == HttpResponseStatus.SWITCHING_PROTOCOLS.code();
+    }
+
+    /**
+     * One request and its response.
+     */
+    private static final class Exchange {
+
+        final HttpContentLengths contentLengths = new HttpContentLengths();
+        volatile HttpHeaders headers;
+    }
+
+    /**
+     * Counts the bytes on the wire, opens the exchanges and completes them once their response is written.
+     */
+    private final class WireHandler extends ChannelDuplexHandler {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (msg instanceof HttpRequest) {
+                Exchange exchange = new Exchange();
+                if (((HttpRequest) msg).headers().contains(HttpHeaderNames.CONTENT_ENCODING)) {
+                    exchange.contentLengths.requestCompressed();
+                }
+                exchanges.addLast(exchange);
+            }
+            if (msg instanceof HttpContent) {
+                Exchange exchange = exchanges.peekLast();
+                if (exchange != null) {
+                    exchange.contentLengths.addRequestWireBytes(((HttpContent) msg).content().readableBytes());
+                }
+            }
+            super.channelRead(ctx, msg);
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            if (msg instanceof HttpResponse && isInterim((HttpResponse) msg)) {
+                super.write(ctx, msg, promise);
+                return;
+            }
+            Exchange exchange = exchanges.peekFirst();
+            if (exchange == null) {
+                super.write(ctx, msg, promise);
+                return;
+            }
+            HttpContentLengths contentLengths = exchange.contentLengths;
+            if (msg instanceof HttpResponse && ((HttpResponse) msg).headers().contains(HttpHeaderNames.CONTENT_ENCODING)) {
+                contentLengths.responseCompressed();
+            }
+            if (msg instanceof HttpContent) {
+                contentLengths.addResponseWireBytes(((HttpContent) msg).content().readableBytes());
+            }
+            // the exchange ends with the last content, or with the upgrade when the connection switches protocols
+            if (msg instanceof LastHttpContent || msg instanceof HttpResponse && isSwitchingProtocols((HttpResponse) msg)) {
+                exchanges.pollFirst();
+                ChannelPromise completion = promise.unvoid();
+                completion.addListener(future -> contentLengths.complete());
+                super.write(ctx, msg, completion);
+                return;
+            }
+            super.write(ctx, msg, promise);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            completeAll();
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void handlerRemoved(ChannelHandlerContext ctx) {
+            completeAll();
+        }
+    }
+
+    /**
+     * Counts the uncompressed bytes and records the headers the Micronaut request is looked up by.
+     */
+    private final class BodyHandler extends ChannelDuplexHandler {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            Exchange exchange = exchanges.peekLast();
+            if (exchange != null) {
+                if (msg instanceof HttpRequest) {
+                    exchange.headers = ((HttpRequest) msg).headers();
+                }
+                if (msg instanceof HttpContent) {
+                    exchange.contentLengths.addRequestBodyBytes(((HttpContent) msg).content().readableBytes());
+                }
+                if (msg instanceof LastHttpContent) {
+                    exchange.contentLengths.requestComplete();
+                }
+            }
+            super.channelRead(ctx, msg);
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            if (msg instanceof HttpContent) {
+                Exchange exchange = exchanges.peekFirst();
+                if (exchange != null) {
+                    exchange.contentLengths.addResponseBodyBytes(((HttpContent) msg).content().readableBytes());
+                }
+            }
+            super.write(ctx, msg, promise);
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http.server;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import io.micronaut.http.netty.channel.ChannelPipelineCustomizer;
+import io.micronaut.http.server.netty.NettyHttpServer;
+import io.netty.channel.ChannelPipeline;
+import io.opentelemetry.api.trace.Tracer;
+import jakarta.inject.Singleton;
+
+/**
+ * Installs the handlers of an {@link HttpExchangeTracker} on every HTTP/1.x connection of the Netty HTTP server,
+ * so the server spans carry the request and response body sizes. HTTP/2 connections multiplex their exchanges
+ * over one channel and are left alone; their spans fall back to the {@code Content-Length} headers.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Singleton
+@Requires(classes = NettyHttpServer.class)
+@Requires(beans = Tracer.class)
+public class HttpExchangeTrackerInstaller implements BeanCreatedEventListener<ChannelPipelineCustomizer> {
+
+    private static final String WIRE_HANDLER = "otel-content-length-wire";
+    private static final String BODY_HANDLER = "otel-content-length-body";
+
+    @Override
+    public ChannelPipelineCustomizer onCreated(BeanCreatedEvent<ChannelPipelineCustomizer> event) {
+        ChannelPipelineCustomizer customizer = event.getBean();
+        if (customizer.isServerChannel()) {
+            customizer.doOnConnect(this::install);
+        }
+        return customizer;
+    }
+
+    private ChannelPipeline install(ChannelPipeline pipeline) {
+        if (pipeline.get(ChannelPipelineCustomizer.HANDLER_HTTP_SERVER_CODEC) == null
+                || pipeline.get(ChannelPipelineCustomizer.HANDLER_HTTP_STREAM) == null
+                || pipeline.get(ChannelPipelineCustomizer.HANDLER_HTTP2_CONNECTION) != null) {
+            return pipeline;
+        }
+        HttpExchangeTracker tracker = HttpExchangeTracker.install(pipeline.channel());
+        pipeline.addAfter(ChannelPipelineCustomizer.HANDLER_HTTP_SERVER_CODEC, WIRE_HANDLER, tracker.wireHandler());
+        pipeline.addBefore(ChannelPipelineCustomizer.HANDLER_HTTP_STREAM, BODY_HANDLER, tracker.bodyHandler());
+        return pipeline;
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http.server;
+
+import io.micronaut.core.util.PathMatcher;
+import io.micronaut.http.HttpMethod;
+import io.micronaut.http.HttpRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether a request is excluded from tracing. Ant patterns are compiled into a prefix trie keyed by their
+ * literal prefix: exact paths and patterns of the form {@code /prefix/**} are answered by the trie walk alone, and
+ * the remaining patterns are only evaluated when the path starts with their literal prefix. A lookup therefore costs
+ * O(path length) no matter how many patterns are configured.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+final class HttpServerExclusionMatcher {
+
+    private static final String ANY_PATH_SUFFIX = "/**";
+
+    private final Node root = new Node();
+    private final Pattern[] regexes;
+    private final EnumSet<HttpMethod> methods;
+    private final boolean empty;
+
+    /**
+     * @param configuration The exclusion configuration
+     */
+    HttpServerExclusionMatcher(HttpServerTracingInterceptorConfiguration.ExcludeConfiguration configuration) {
+        for (String path : configuration.getPaths()) {
+            addAntPattern(path);
+        }
+        List<Pattern> compiled = new ArrayList<>(configuration.getRegexes().size());
+        for (String regex : configuration.getRegexes()) {
+            compiled.add(Pattern.compile(regex));
+        }
+        this.regexes = compiled.toArray(new Pattern[0]);
+        this.methods = configuration.getMethods().isEmpty()
+                ? EnumSet.noneOf(HttpMethod.class)
+                : EnumSet.copyOf(configuration.getMethods());
+        this.empty = configuration.getPaths().isEmpty() && regexes.length == 0 && methods.isEmpty();
+    }
+
+    /**
+     * @param request The request
+     * @return Whether the request is excluded from tracing
+     */
+    boolean isExcluded(HttpRequest<?> request) {
+        if (empty) {
+            return false;
+        }
+        if (!methods.isEmpty() && methods.contains(request.getMethod())) {
+            return true;
+        }
+        return isExcluded(request.getPath());
+    }
+
+    /**
+     * @param path The request path
+     * @return Whether the path is excluded from tracing
+     */
+    boolean isExcluded(String path) {
+        if (matchesAntPattern(path)) {
+            return true;
+        }
+        for (Pattern regex : regexes) {
+            if (regex.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesAntPattern(String path) {
+        Node node = root;
+        int length = path.length();
+        for (int i = 0; ; i++) {
+            if (node.anySuffix) {
+                return true;
+            }
+            for (String pattern : node.patterns) {
+                if (PathMatcher.ANT.matches(pattern, path)) {
+                    return true;
+                }
+            }
+            if (i == length) {
+                return node.exact;
+            }
+            node = node.child(path.charAt(i));
+            if (node == null) {
+                return false;
+            }
+        }
+    }
+
+    private void addAntPattern(String pattern) {
+        int wildcard = firstWildcard(pattern);
+        if (wildcard == -1) {
+            root.insert(pattern).exact = true;
+        } else if (pattern.endsWith(ANY_PATH_SUFFIX) && wildcard == pattern.length() - 2) {
+            String prefix = pattern.substring(0, pattern.length() - ANY_PATH_SUFFIX.length());
+            root.insert(prefix).exact = true;
+            root.insert(prefix + '/').anySuffix = true;
+        } else {
+            Node node = root.insert(pattern.substring(0, wildcard));
+            node.patterns = Arrays.copyOf(node.patterns, node.patterns.length + 1);
+            node.patterns[node.patterns.length - 1] = pattern;
+        }
+    }
+
+    private static int firstWildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?' || c == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A node of the prefix trie.
+     */
+    private static final class Node {
+
+        private static final String[] NO_PATTERNS = new String[0];
+
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private boolean exact;
+        private boolean anySuffix;
+        private String[] patterns = NO_PATTERNS;
+
+        Node child(char c) {
+            char[] k = keys;
+            for (int i = 0; i < k.length; i++) {
+                if (k[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node insert(String prefix) {
+            Node node = this;
+            for (int i = 0; i < prefix.length(); i++) {
+                char c = prefix.charAt(i);
+                Node next = node.child(c);
+                if (next == null) {
+                    next = new Node();
+                    node.keys = Arrays.copyOf(node.keys, node.keys.length + 1);
+                    node.keys[node.keys.length - 1] = c;
+                    node.children = Arrays.copyOf(node.children, node.children.length + 1);
+                    node.children[node.children.length - 1] = next;
+                }
+                node = next;
+            }
+            return node;
+        }
+    }
+
+}
@@ -17,10 +17,15 @@ package io.micronaut.opentelemetry.instrumentation.http.server;
 
 import io.micronaut.context.annotation.ConfigurationBuilder;
 import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.http.HttpMethod;
 import io.micronaut.opentelemetry.instrumentation.http.MicronautHttpServerTelemetryBuilder;
 import io.opentelemetry.api.OpenTelemetry;
 
 import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Adds a TracingServerInterceptor when OpenTelemetry for GRPC is on the classpath.
@@ -53,4 +58,67 @@ public class HttpServerTracingInterceptorConfiguration {
         return builder;
     }
 
+    /**
+     * Requests excluded from tracing, for example health, metrics and readiness probes. A request is excluded
+     * when its path matches one of the ant patterns or regular expressions, or when its method is listed.
+     */
+    @ConfigurationProperties("exclude")
+    public static class ExcludeConfiguration {
+
+        private List<String> paths = Collections.emptyList();
+        private List<String> regexes = Collections.emptyList();
+        private Set<HttpMethod> methods = Collections.emptySet();
+
+        /**
+         * @return The ant patterns of excluded paths
+         */
+        @NonNull
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        /**
+         * Sets the ant patterns of excluded paths, for example {@code /health/**}.
+         *
+         * @param paths The ant patterns
+         */
+        public void setPaths(@NonNull List<String> paths) {
+            this.paths = paths;
+        }
+
+        /**
+         * @return The regular expressions of excluded paths
+         */
+        @NonNull
+        public List<String> getRegexes() {
+            return regexes;
+        }
+
+        /**
+         * Sets the regular expressions of excluded paths. A path is excluded when the whole path matches.
+         *
+         * @param regexes The regular expressions
+         */
+        public void setRegexes(@NonNull List<String> regexes) {
+            this.regexes = regexes;
+        }
+
+        /**
+         * @return The excluded HTTP methods
+         */
+        @NonNull
+        public Set<HttpMethod> getMethods() {
+            return methods;
+        }
+
+        /**
+         * Sets the excluded HTTP methods, for example {@code OPTIONS}.
+         *
+         * @param methods The HTTP methods
+         */
+        public void setMethods(@NonNull Set<HttpMethod> methods) {
+            this.methods = methods;
+        }
+    }
+
 }
@@ -16,20 +16,45 @@
 package io.micronaut.opentelemetry.instrumentation.http.server;
 
 import io.micronaut.context.annotation.Requires;
-import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.reflect.ClassUtils;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.Filter;
 import io.micronaut.http.filter.HttpServerFilter;
 import io.micronaut.http.filter.ServerFilterChain;
+import io.micronaut.opentelemetry.instrumentation.http.HttpContentLengths;
+import io.micronaut.opentelemetry.instrumentation.http.HttpRequestGetter;
+import io.micronaut.opentelemetry.instrumentation.http.MicronautHttpRouteGetter;
+import io.micronaut.opentelemetry.instrumentation.http.MicronautHttpServerAttributesGetter;
+import io.micronaut.opentelemetry.instrumentation.http.TracingPublisher;
+import io.micronaut.opentelemetry.instrumentation.reactor.ExplicitContextPropagation;
+import io.micronaut.opentelemetry.instrumentation.reactor.ReactorTracingConfiguration;
+import io.micronaut.opentelemetry.trace.sampler.PrecomputedSampler;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceFlags;
 import io.opentelemetry.api.trace.Tracer;
 import io.opentelemetry.context.Context;
 import io.opentelemetry.context.Scope;
+import io.opentelemetry.context.propagation.TextMapPropagator;
 import io.opentelemetry.instrumentation.api.instrumenter.Instrumenter;
+import io.opentelemetry.instrumentation.api.instrumenter.SpanNameExtractor;
+import io.opentelemetry.instrumentation.api.instrumenter.http.HttpRouteHolder;
+import io.opentelemetry.instrumentation.api.instrumenter.http.HttpRouteSource;
+import io.opentelemetry.instrumentation.api.instrumenter.http.HttpSpanNameExtractor;
+import io.opentelemetry.instrumentation.api.server.ServerSpan;
+import io.opentelemetry.sdk.trace.IdGenerator;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
 import org.reactivestreams.Publisher;
-import org.reactivestreams.Subscriber;
-import org.reactivestreams.Subscription;
+
+import java.util.Collections;
 
 /**
  * An HTTP server instrumentation filter that uses Open Telemetry.
@@ -41,71 +66,185 @@ import org.reactivestreams.Subscription;
 @Requires(beans = Tracer.class)
 public class OpenTelemetryServerFilter implements HttpServerFilter {
 
-    private static final CharSequence APPLIED = OpenTelemetryServerFilter.class.getName() + "-applied";
+    private static final boolean NETTY_SERVER_PRESENT = ClassUtils.isPresent(
+            "io.micronaut.http.server.netty.NettyHttpRequest", OpenTelemetryServerFilter.class.getClassLoader());
 
     private final Instrumenter<HttpRequest, HttpResponse> instrumenter;
+    private final HttpServerExclusionMatcher exclusionMatcher;
+    private final TextMapPropagator propagator;
+    private final SpanNameExtractor<HttpRequest> spanNameExtractor;
+    private final IdGenerator idGenerator = IdGenerator.random();
+    @Nullable
+    private final Sampler sampler;
+    private final boolean explicitContextPropagation;
 
     /**
-     * Creates an HTTP server instrumentation filter.
+     * Creates an HTTP server instrumentation filter. When a {@link Sampler} is available the sampling decision is
+     * taken before the span is started, and requests that are not sampled only propagate the context: no
+     * attribute is extracted, no header is captured and no request metric is recorded for them.
+     *
+     * @param configuration        The configuration
+     * @param excludeConfiguration The configuration of requests excluded from tracing
+     * @param openTelemetry        The OpenTelemetry
+     * @param sampler              The sampler
+     * @param reactorConfiguration The configuration of the context propagation through Reactor
      */
-    public OpenTelemetryServerFilter(HttpServerTracingInterceptorConfiguration configuration) {
-        instrumenter = configuration.builder.build();
+    public OpenTelemetryServerFilter(HttpServerTracingInterceptorConfiguration configuration,
+                                     HttpServerTracingInterceptorConfiguration.ExcludeConfiguration excludeConfiguration,
+                                     OpenTelemetry openTelemetry,
+                                     @Nullable Sampler sampler,
+                                     ReactorTracingConfiguration reactorConfiguration) {
+        this.instrumenter = configuration.builder.buildWithoutContextExtraction();
+        this.exclusionMatcher = new HttpServerExclusionMatcher(excludeConfiguration);
+        this.propagator = openTelemetry.getPropagators().getTextMapPropagator();
+        this.spanNameExtractor = HttpSpanNameExtractor.create(MicronautHttpServerAttributesGetter.INSTANCE);
+        this.sampler = sampler;
+        this.explicitContextPropagation = reactorConfiguration.isExplicit();
     }
 
     @Override
     public Publisher<MutableHttpResponse<?>> doFilter(final HttpRequest<?> request, ServerFilterChain chain) {
-        boolean applied = request.getAttribute(APPLIED, Boolean.class).orElse(false);
-
-        if (applied) {
+        // Micronaut resolves error routes inside the filter chain, so each request passes through this filter once;
+        // shouldStart only suppresses the span of a request dispatched while another server span is current
+        if (exclusionMatcher.isExcluded(request) || !instrumenter.shouldStart(Context.current(), request)) {
             return chain.proceed(request);
         }
 
-        request.setAttribute(APPLIED, true);
-
-        Publisher<MutableHttpResponse<?>> requestPublisher = chain.proceed(request);
-
-        return (Publishers.MicronautPublisher<MutableHttpResponse<?>>) actual -> {
-            Context parentContext = Context.current();
-            Context context = instrumenter.start(parentContext, request);
-
-            try (Scope ignored = context.makeCurrent()) {
-                requestPublisher.subscribe(new Subscriber<MutableHttpResponse<?>>() {
-                    @Override
-                    public void onSubscribe(Subscription s) {
-                        try (Scope ignored = context.makeCurrent()) {
-                            actual.onSubscribe(s);
-                        }
-                    }
-
-                    @Override
-                    public void onNext(MutableHttpResponse<?> response) {
-                        try (Scope ignored = context.makeCurrent()) {
-                            actual.onNext(response);
-                        } finally {
-                            instrumenter.end(context, request, response, null);
-                        }
-                    }
-
-                    @Override
-                    public void onError(Throwable t) {
-                        try (Scope ignored = context.makeCurrent()) {
-                            actual.onError(t);
-                        } finally {
-                            instrumenter.end(context, request, null, t);
-                        }
-                    }
-
-                    @Override
-                    public void onComplete() {
-                        try (Scope ignored = context.makeCurrent()) {
-                            actual.onComplete();
-                        } finally {
-                            instrumenter.end(context, request, null, null);
-                        }
-                    }
-                });
+        Publisher<MutableHttpResponse<?>> responsePublisher = chain.proceed(request);
+        if (explicitContextPropagation) {
+            // the server span is current when the tracing publisher subscribes, that is the context written
+            responsePublisher = ExplicitContextPropagation.writeCurrentContext(responsePublisher);
+        }
+        return new ServerTracingPublisher(request, responsePublisher);
+    }
+
+    @Nullable
+    private HttpContentLengths contentLengths(HttpRequest<?> request) {
+        if (!NETTY_SERVER_PRESENT) {
+            return null;
+        }
+        return HttpExchangeTracker.contentLengths(request);
+    }
+
+    private SamplingResult preSample(Context parentContext, String traceId, HttpRequest<?> request) {
+        return sampler.shouldSample(parentContext, traceId, spanNameExtractor.extract(request), SpanKind.SERVER,
+                Attributes.empty(), Collections.emptyList());
+    }
+
+    private Span nonRecordingSpan(Context parentContext, String traceId, SamplingResult samplingResult) {
+        return Span.wrap(SpanContext.create(
+                traceId,
+                idGenerator.generateSpanId(),
+                TraceFlags.getDefault(),
+                samplingResult.getUpdatedTraceState(Span.fromContext(parentContext).getSpanContext().getTraceState())));
+    }
+
+    private void end(Context context, HttpRequest<?> request, @Nullable HttpResponse<?> response, @Nullable Throwable t) {
+        HttpRouteHolder.updateHttpRoute(context, HttpRouteSource.CONTROLLER, MicronautHttpRouteGetter.INSTANCE, request);
+        instrumenter.end(context, request, response, t);
+    }
+
+    /**
+     * Traces one request: starts the server span when the response is subscribed to and ends it once, with the
+     * response, or once the response body is written when its size is counted, or when the request is abandoned.
+     */
+    private final class ServerTracingPublisher extends TracingPublisher<MutableHttpResponse<?>> implements Runnable {
+
+        private final HttpRequest<?> request;
+        private boolean recording;
+        @Nullable
+        private HttpContentLengths contentLengths;
+        @Nullable
+        private MutableHttpResponse<?> response;
+
+        ServerTracingPublisher(HttpRequest<?> request, Publisher<? extends MutableHttpResponse<?>> upstream) {
+            super(upstream);
+            this.request = request;
+        }
+
+        @Override
+        protected Context start() {
+            Context parentContext = propagator.extract(Context.current(), request, HttpRequestGetter.INSTANCE);
+            if (sampler == null) {
+                recording = true;
+                return withContentLengths(instrumenter.start(parentContext, request));
+            }
+            SpanContext parentSpanContext = Span.fromContext(parentContext).getSpanContext();
+            boolean root = !parentSpanContext.isValid();
+            // the decision is taken on the trace id the span carries, so that it can be reproduced from that id
+            String traceId = root ? idGenerator.generateTraceId() : parentSpanContext.getTraceId();
+            SamplingResult samplingResult = preSample(parentContext, traceId, request);
+            recording = samplingResult.getDecision() != SamplingDecision.DROP;
+            if (!recording) {
+                // marked as the server span as well, so an error route does not take a second sampling decision
+                Span span = nonRecordingSpan(parentContext, traceId, samplingResult);
+                return ServerSpan.with(parentContext.with(span), span);
+            }
+            // the decision travels with the parent context, the sampler of the tracer provider returns it as is
+            Context decisionContext = PrecomputedSampler.withDecision(parentContext, traceId, samplingResult);
+            if (!root) {
+                return withContentLengths(instrumenter.start(decisionContext, request));
+            }
+            Context context;
+            // a root span takes its trace id from the current context, see PrecomputedIdGenerator
+            try (Scope ignored = decisionContext.makeCurrent()) {
+                context = instrumenter.start(decisionContext, request);
+            }
+            return withContentLengths(context);
+        }
+
+        private Context withContentLengths(Context context) {
+            contentLengths = contentLengths(request);
+            // read by the attributes extractor when the span ends, without going through the request attributes
+            return contentLengths != null ? context.with(contentLengths) : context;
+        }
+
+        @Override
+        protected TracingPublisher<MutableHttpResponse<?>> copy() {
+            return new ServerTracingPublisher(request, upstream());
+        }
+
+        @Override
+        protected void doOnNext(MutableHttpResponse<?> response) {
+            this.response = response;
+            if (contentLengths != null) {
+                // the body is written after the response is emitted, the span ends once it is sent
+                contentLengths.whenComplete(this);
+            } else {
+                end(response, null);
+            }
+        }
+
+        @Override
+        protected void doOnError(Throwable t) {
+            end(null, t);
+        }
+
+        @Override
+        protected void doOnComplete() {
+            if (response == null) {
+                end(null, null);
+            }
+        }
+
+        @Override
+        protected void doOnCancel() {
+            if (recording && tryEnd()) {
+                markCancelled();
+                OpenTelemetryServerFilter.this.end(context(), request, null, null);
             }
-        };
+        }
+
+        @Override
+        public void run() {
+            end(response, null);
+        }
+
+        private void end(@Nullable MutableHttpResponse<?> response, @Nullable Throwable t) {
+            if (recording && tryEnd()) {
+                OpenTelemetryServerFilter.this.end(context(), request, response, t);
+            }
+        }
     }
 
 }
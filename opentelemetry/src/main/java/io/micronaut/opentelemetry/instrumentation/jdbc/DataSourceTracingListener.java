@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.jdbc;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.BeanCreatedEvent;
+import io.micronaut.context.event.BeanCreatedEventListener;
+import io.micronaut.core.util.StringUtils;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.instrumentation.jdbc.datasource.OpenTelemetryDataSource;
+import jakarta.inject.Singleton;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the {@link DataSource} beans in the {@link OpenTelemetryDataSource} of the OpenTelemetry JDBC
+ * instrumentation, so the statements executed against them are traced with a client span per execution. The spans
+ * are created through the {@link io.opentelemetry.api.GlobalOpenTelemetry}, which the OpenTelemetry bean is
+ * registered as.
+ * <p>
+ * Only the beans declared as {@link DataSource} are wrapped, a bean declared as its pool type, for example
+ * {@code HikariDataSource}, is left untraced so it can still be injected as such. The pool behind a traced data
+ * source is reached through {@link DataSource#unwrap(Class)}.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Singleton
+@Requires(beans = OpenTelemetry.class)
+@Requires(property = JdbcTracingConfiguration.ENABLED, notEquals = StringUtils.FALSE)
+public class DataSourceTracingListener implements BeanCreatedEventListener<DataSource> {
+
+    private final JdbcTracingConfiguration configuration;
+
+    /**
+     * @param openTelemetry The OpenTelemetry, created before the data sources so it is the global instance they
+     *                      trace with
+     * @param configuration The configuration
+     */
+    public DataSourceTracingListener(OpenTelemetry openTelemetry, JdbcTracingConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public DataSource onCreated(BeanCreatedEvent<DataSource> event) {
+        DataSource dataSource = event.getBean();
+        // the wrapper only implements DataSource, beans of a more specific type could no longer be injected as such
+        if (event.getBeanDefinition().getBeanType() != DataSource.class
+                || configuration.getExcludedDatasources().contains(event.getBeanIdentifier().getName())) {
+            return dataSource;
+        }
+        return wrap(dataSource);
+    }
+
+    /**
+     * @param dataSource The data source
+     * @return The data source tracing its statements
+     */
+    DataSource wrap(DataSource dataSource) {
+        if (dataSource instanceof OpenTelemetryDataSource) {
+            return dataSource;
+        }
+        return new OpenTelemetryDataSource(dataSource);
+    }
+
+}
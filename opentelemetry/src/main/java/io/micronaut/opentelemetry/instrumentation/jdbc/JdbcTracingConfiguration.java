@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.jdbc;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Configuration for the tracing of JDBC data sources.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@ConfigurationProperties(JdbcTracingConfiguration.PREFIX)
+public class JdbcTracingConfiguration {
+
+    public static final String PREFIX = "otel.instrumentation.jdbc";
+
+    /**
+     * The property that enables the tracing of JDBC data sources.
+     */
+    public static final String ENABLED = PREFIX + ".enabled";
+
+    private boolean enabled = true;
+    private List<String> excludedDatasources = Collections.emptyList();
+
+    /**
+     * @return Whether the data sources are traced
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether the data sources are traced. Default value ({@code true}).
+     *
+     * @param enabled Whether the data sources are traced
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return The names of the data sources that are not traced
+     */
+    @NonNull
+    public List<String> getExcludedDatasources() {
+        return excludedDatasources;
+    }
+
+    /**
+     * Sets the names of the data sources that are not traced, for example {@code default}. Default value (none).
+     *
+     * @param excludedDatasources The names of the data sources that are not traced
+     */
+    public void setExcludedDatasources(@NonNull List<String> excludedDatasources) {
+        this.excludedDatasources = excludedDatasources;
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.reactor;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.instrumentation.reactor.ContextPropagationOperator;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+
+/**
+ * A subscriber that receives its signals with a context current, and exposes that context in its Reactor context.
+ *
+ * @param <T> The type of the elements
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+final class ContextSubscriber<T> implements CoreSubscriber<T> {
+
+    private final CoreSubscriber<? super T> actual;
+    private final Context context;
+    private final reactor.util.context.Context reactorContext;
+
+    ContextSubscriber(CoreSubscriber<? super T> actual, Context context) {
+        this.actual = actual;
+        this.context = context;
+        this.reactorContext = ContextPropagationOperator.storeOpenTelemetryContext(actual.currentContext(), context);
+    }
+
+    @Override
+    public reactor.util.context.Context currentContext() {
+        return reactorContext;
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        try (Scope ignored = context.makeCurrent()) {
+            actual.onSubscribe(subscription);
+        }
+    }
+
+    @Override
+    public void onNext(T t) {
+        try (Scope ignored = context.makeCurrent()) {
+            actual.onNext(t);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        try (Scope ignored = context.makeCurrent()) {
+            actual.onError(t);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        try (Scope ignored = context.makeCurrent()) {
+            actual.onComplete();
+        }
+    }
+
+}
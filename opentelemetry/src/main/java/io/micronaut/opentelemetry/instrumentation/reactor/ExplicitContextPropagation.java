@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.reactor;
+
+import io.micronaut.core.annotation.Internal;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.instrumentation.reactor.ContextPropagationOperator;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+
+import java.util.function.Function;
+
+/**
+ * Propagates the context through the Reactor context of a pipeline, for the {@link ReactorTracingMode#EXPLICIT} mode.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Internal
+public final class ExplicitContextPropagation {
+
+    private ExplicitContextPropagation() {
+    }
+
+    /**
+     * Writes the context that is current when the returned publisher is subscribed to into the Reactor context of
+     * the given publisher.
+     *
+     * @param publisher The publisher
+     * @param <T>       The type of the elements
+     * @return The publisher with the context written
+     */
+    public static <T> Publisher<T> writeCurrentContext(Publisher<? extends T> publisher) {
+        return Flux.<T>from(publisher).contextWrite(reactorContext ->
+                ContextPropagationOperator.storeOpenTelemetryContext(reactorContext, Context.current()));
+    }
+
+    /**
+     * Creates a publisher for the context that is current, or, when no context is current, defers its creation to
+     * its subscription, where the context is read from the Reactor context of the subscriber. A context current on
+     * the thread, for example the one of a span started inside the request, therefore wins over the context the
+     * server filter wrote into the Reactor context.
+     *
+     * @param currentContext The context current when the publisher is created
+     * @param factory        Creates the publisher for the context
+     * @param <T>            The type of the elements
+     * @return The publisher
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Publisher<T> withContext(Context currentContext,
+                                               Function<Context, Publisher<? extends T>> factory) {
+        if (currentContext != Context.root()) {
+            return (Publisher<T>) factory.apply(currentContext);
+        }
+        return Flux.deferContextual(contextView -> Flux.<T>from(factory.apply(
+                ContextPropagationOperator.getOpenTelemetryContext(
+                        reactor.util.context.Context.of(contextView), Context.root()))));
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.reactor;
+
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.util.StringUtils;
+import org.reactivestreams.Publisher;
+import reactor.core.CoreSubscriber;
+import reactor.core.Scannable;
+import reactor.core.publisher.Hooks;
+import reactor.core.publisher.Operators;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.function.Function;
+
+/**
+ * Propagates the context through Reactor at the last operator of each pipeline only: the subscriber at the end of a
+ * pipeline receives its signals in the context the pipeline was subscribed in, and finds that context in its
+ * Reactor context.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Context
+@Requires(property = ReactorTracingConfiguration.ENABLED, notEquals = StringUtils.FALSE)
+@Requires(condition = ReactorTracingModeCondition.LastOperator.class)
+public final class ReactorLastOperatorContextPropagation {
+
+    private static final String HOOK_KEY = ReactorLastOperatorContextPropagation.class.getName();
+
+    /**
+     * Installs the last operator hook.
+     */
+    @PostConstruct
+    public void enable() {
+        Function<? super Publisher<Object>, ? extends Publisher<Object>> lift =
+                Operators.<Object, Object>lift(ReactorLastOperatorContextPropagation::decorate);
+        Hooks.onLastOperator(HOOK_KEY, lift);
+    }
+
+    /**
+     * Removes the last operator hook.
+     */
+    @PreDestroy
+    public void disable() {
+        Hooks.resetOnLastOperator(HOOK_KEY);
+    }
+
+    private static CoreSubscriber<? super Object> decorate(Scannable publisher, CoreSubscriber<? super Object> subscriber) {
+        io.opentelemetry.context.Context context = io.opentelemetry.context.Context.current();
+        if (context == io.opentelemetry.context.Context.root()) {
+            return subscriber;
+        }
+        return new ContextSubscriber<>(subscriber, context);
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.reactor;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.annotation.NonNull;
+
+/**
+ * Configuration for the context propagation through Project Reactor.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@ConfigurationProperties(ReactorTracingConfiguration.PREFIX)
+public class ReactorTracingConfiguration {
+
+    public static final String PREFIX = "otel.instrumentation.reactor";
+
+    /**
+     * The property that enables the context propagation of Reactor.
+     */
+    public static final String ENABLED = PREFIX + ".enabled";
+
+    /**
+     * The property that selects the {@link ReactorTracingMode}.
+     */
+    public static final String MODE = PREFIX + ".mode";
+
+    private boolean enabled = true;
+    private ReactorTracingMode mode = ReactorTracingMode.EACH_OPERATOR;
+
+    /**
+     * @return Whether the context is propagated through Reactor
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether the context is propagated through Reactor. Default value ({@code true}).
+     *
+     * @param enabled Whether the context is propagated
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return How the context is propagated
+     */
+    @NonNull
+    public ReactorTracingMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets how the context is propagated. Default value ({@code EACH_OPERATOR}).
+     *
+     * @param mode How the context is propagated
+     */
+    public void setMode(@NonNull ReactorTracingMode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * @return Whether the HTTP filters write the context of their spans to the Reactor context
+     */
+    public boolean isExplicit() {
+        return enabled && mode == ReactorTracingMode.EXPLICIT;
+    }
+
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.reactor;
+
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.util.StringUtils;
+import io.opentelemetry.instrumentation.reactor.ContextPropagationOperator;
+
+/**
+ * Creates the operator that propagates the context through every Reactor operator.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Factory
+public class ReactorTracingFactory {
+
+    /**
+     * @return The operator decorating every Reactor operator
+     */
+    @Context
+    @Bean(preDestroy = "resetOnEachOperator")
+    @Requires(property = ReactorTracingConfiguration.ENABLED, notEquals = StringUtils.FALSE)
+    @Requires(condition = ReactorTracingModeCondition.EachOperator.class)
+    public ContextPropagationOperator contextPropagationOperator() {
+        ContextPropagationOperator contextPropagationOperator = ContextPropagationOperator.create();
+        contextPropagationOperator.registerOnEachOperator();
+        return contextPropagationOperator;
+    }
+
+}
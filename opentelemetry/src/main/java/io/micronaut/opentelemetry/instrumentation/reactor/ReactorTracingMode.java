@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.reactor;
+
+/**
+ * How the context is propagated through Project Reactor.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public enum ReactorTracingMode {
+
+    /**
+     * Every operator of every pipeline in the JVM is decorated to capture the context and restore it for its
+     * signals, with the {@code ContextPropagationOperator} of the OpenTelemetry Reactor instrumentation. The
+     * context is current in every operator, whichever thread it runs on, at a cost paid by all reactive code.
+     */
+    EACH_OPERATOR,
+
+    /**
+     * Only the subscriber at the end of a pipeline is decorated, once per subscription. It restores the context the
+     * pipeline was subscribed in for the signals it receives, and writes that context to the Reactor context, where
+     * operators of the pipeline find it with {@code ContextPropagationOperator.getOpenTelemetryContext}. Operators
+     * running on another thread do not have the context current.
+     */
+    LAST_OPERATOR,
+
+    /**
+     * No operator is decorated. The HTTP server and client filters write the context of their spans to the Reactor
+     * context of the response pipeline, and the client filter takes its parent from the Reactor context when none is
+     * current. Reactive code reads the context with {@code ContextPropagationOperator.getOpenTelemetryContext}.
+     */
+    EXPLICIT
+
+}
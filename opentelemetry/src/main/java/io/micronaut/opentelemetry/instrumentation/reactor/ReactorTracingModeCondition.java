@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.reactor;
+
+import io.micronaut.context.condition.Condition;
+import io.micronaut.context.condition.ConditionContext;
+import io.micronaut.core.annotation.Internal;
+
+/**
+ * Matches when the {@link ReactorTracingMode} configured with {@link ReactorTracingConfiguration#MODE} is the mode of
+ * the condition. The value is converted like the configuration binds it, so {@code last-operator} selects
+ * {@link ReactorTracingMode#LAST_OPERATOR} as well.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Internal
+public abstract class ReactorTracingModeCondition implements Condition {
+
+    private final ReactorTracingMode mode;
+
+    /**
+     * @param mode The mode the condition matches
+     */
+    ReactorTracingModeCondition(ReactorTracingMode mode) {
+        this.mode = mode;
+    }
+
+    @Override
+    public boolean matches(ConditionContext context) {
+        ReactorTracingMode configured = context.getProperty(ReactorTracingConfiguration.MODE, ReactorTracingMode.class)
+                .orElse(ReactorTracingMode.EACH_OPERATOR);
+        if (configured != mode) {
+            context.fail("The Reactor tracing mode is " + configured);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Matches the {@link ReactorTracingMode#EACH_OPERATOR} mode, which is the default.
+     */
+    @Internal
+    public static final class EachOperator extends ReactorTracingModeCondition {
+
+        /**
+         * Creates the condition.
+         */
+        public EachOperator() {
+            super(ReactorTracingMode.EACH_OPERATOR);
+        }
+    }
+
+    /**
+     * Matches the {@link ReactorTracingMode#LAST_OPERATOR} mode.
+     */
+    @Internal
+    public static final class LastOperator extends ReactorTracingModeCondition {
+
+        /**
+         * Creates the condition.
+         */
+        public LastOperator() {
+            super(ReactorTracingMode.LAST_OPERATOR);
+        }
+    }
+
+}
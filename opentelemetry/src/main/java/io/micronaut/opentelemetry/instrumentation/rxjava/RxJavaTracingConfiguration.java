@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.rxjava;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.annotation.NonNull;
+
+/**
+ * Configuration for the context propagation of RxJava 2 and RxJava 3.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@ConfigurationProperties(RxJavaTracingConfiguration.PREFIX)
+public class RxJavaTracingConfiguration {
+
+    public static final String PREFIX = "otel.instrumentation.rxjava";
+
+    /**
+     * The property that enables the context propagation of RxJava.
+     */
+    public static final String ENABLED = PREFIX + ".enabled";
+
+    /**
+     * The property that selects the {@link RxJavaTracingMode}.
+     */
+    public static final String MODE = PREFIX + ".mode";
+
+    private boolean enabled = true;
+    private RxJavaTracingMode mode = RxJavaTracingMode.ASSEMBLY;
+
+    /**
+     * @return Whether the context is propagated through RxJava
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether the context is propagated through RxJava 2 and RxJava 3, when they are on the classpath.
+     * Default value ({@code true}).
+     *
+     * @param enabled Whether the context is propagated
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return How the context is propagated
+     */
+    @NonNull
+    public RxJavaTracingMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets how the context is propagated. Default value ({@code ASSEMBLY}).
+     *
+     * @param mode How the context is propagated
+     */
+    public void setMode(@NonNull RxJavaTracingMode mode) {
+        this.mode = mode;
+    }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.rxjava;
+
+/**
+ * How the context is propagated through RxJava.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public enum RxJavaTracingMode {
+
+    /**
+     * Every operator captures the context it was subscribed in and restores it for its signals, with the
+     * {@code TracingAssembly} of the OpenTelemetry RxJava instrumentation. This is the default. When
+     * {@code io.opentelemetry.instrumentation:opentelemetry-rxjava-2.0} or {@code opentelemetry-rxjava-3.0} is
+     * excluded from the classpath, {@link #SCHEDULER} is used for that RxJava version instead.
+     */
+    ASSEMBLY,
+
+    /**
+     * Only the tasks handed to schedulers capture the context they were scheduled in, which is where a pipeline
+     * moves to another thread, for example with {@code subscribeOn} and {@code observeOn}. Operators are not
+     * wrapped, so a pipeline costs the same as without tracing until it changes threads. A source that emits
+     * from a thread of its own emits in the context of that thread.
+     */
+    SCHEDULER
+
+}
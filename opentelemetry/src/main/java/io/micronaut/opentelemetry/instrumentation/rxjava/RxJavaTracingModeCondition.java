@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.rxjava;
+
+import io.micronaut.context.condition.Condition;
+import io.micronaut.context.condition.ConditionContext;
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.reflect.ClassUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Matches when the {@link RxJavaTracingMode} configured with {@link RxJavaTracingConfiguration#MODE} is the mode of
+ * the condition for one RxJava version. The value is converted like the configuration binds it, so
+ * {@code scheduler} selects {@link RxJavaTracingMode#SCHEDULER} as well. When {@link RxJavaTracingMode#ASSEMBLY} is
+ * configured but the {@code TracingAssembly} of that version is not on the classpath, the
+ * {@link RxJavaTracingMode#SCHEDULER} mode is used instead.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Internal
+public abstract class RxJavaTracingModeCondition implements Condition {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RxJavaTracingModeCondition.class);
+    private static final String RXJAVA2_TRACING_ASSEMBLY = "io.opentelemetry.instrumentation.rxjava2.TracingAssembly";
+    private static final String RXJAVA3_TRACING_ASSEMBLY = "io.opentelemetry.instrumentation.rxjava3.TracingAssembly";
+
+    private final RxJavaTracingMode mode;
+    private final String tracingAssemblyClassName;
+
+    /**
+     * @param mode                     The mode the condition matches
+     * @param tracingAssemblyClassName The name of the {@code TracingAssembly} class of the RxJava version
+     */
+    RxJavaTracingModeCondition(RxJavaTracingMode mode, String tracingAssemblyClassName) {
+        this.mode = mode;
+        this.tracingAssemblyClassName = tracingAssemblyClassName;
+    }
+
+    @Override
+    public boolean matches(ConditionContext context) {
+        RxJavaTracingMode configured = context.getProperty(RxJavaTracingConfiguration.MODE, RxJavaTracingMode.class)
+                .orElse(RxJavaTracingMode.ASSEMBLY);
+        if (configured == RxJavaTracingMode.ASSEMBLY
+                && !ClassUtils.isPresent(tracingAssemblyClassName, RxJavaTracingModeCondition.class.getClassLoader())) {
+            if (mode == RxJavaTracingMode.SCHEDULER) {
+                LOG.warn("The RxJava tracing mode is ASSEMBLY but {} is not on the classpath, falling back to SCHEDULER",
+                        tracingAssemblyClassName);
+            }
+            configured = RxJavaTracingMode.SCHEDULER;
+        }
+        if (configured != mode) {
+            context.fail("The RxJava tracing mode is " + configured);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Matches the {@link RxJavaTracingMode#ASSEMBLY} mode of RxJava 2, which is the default.
+     */
+    @Internal
+    public static final class RxJava2Assembly extends RxJavaTracingModeCondition {
+
+        /**
+         * Creates the condition.
+         */
+        public RxJava2Assembly() {
+            super(RxJavaTracingMode.ASSEMBLY, RXJAVA2_TRACING_ASSEMBLY);
+        }
+    }
+
+    /**
+     * Matches the {@link RxJavaTracingMode#SCHEDULER} mode of RxJava 2.
+     */
+    @Internal
+    public static final class RxJava2Scheduler extends RxJavaTracingModeCondition {
+
+        /**
+         * Creates the condition.
+         */
+        public RxJava2Scheduler() {
+            super(RxJavaTracingMode.SCHEDULER, RXJAVA2_TRACING_ASSEMBLY);
+        }
+    }
+
+    /**
+     * Matches the {@link RxJavaTracingMode#ASSEMBLY} mode of RxJava 3, which is the default.
+     */
+    @Internal
+    public static final class RxJava3Assembly extends RxJavaTracingModeCondition {
+
+        /**
+         * Creates the condition.
+         */
+        public RxJava3Assembly() {
+            super(RxJavaTracingMode.ASSEMBLY, RXJAVA3_TRACING_ASSEMBLY);
+        }
+    }
+
+    /**
+     * Matches the {@link RxJavaTracingMode#SCHEDULER} mode of RxJava 3.
+     */
+    @Internal
+    public static final class RxJava3Scheduler extends RxJavaTracingModeCondition {
+
+        /**
+         * Creates the condition.
+         */
+        public RxJava3Scheduler() {
+            super(RxJavaTracingMode.SCHEDULER, RXJAVA3_TRACING_ASSEMBLY);
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.rxjava.v3;
+
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.opentelemetry.instrumentation.rxjava.RxJavaTracingModeCondition;
+import io.reactivex.rxjava3.functions.Function;
+import io.reactivex.rxjava3.plugins.RxJavaPlugins;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+/**
+ * Propagates the context through RxJava 3 at scheduler boundaries only: the tasks handed to schedulers run in the
+ * context they were scheduled in. A schedule handler installed before is kept and applied first.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Context
+@Requires(condition = RxJavaTracingModeCondition.RxJava3Scheduler.class)
+public final class RxJava3SchedulerContextPropagation {
+
+    @Nullable
+    private Function<? super Runnable, ? extends Runnable> previous;
+
+    /**
+     * Installs the schedule handler.
+     */
+    @PostConstruct
+    public void enable() {
+        Function<? super Runnable, ? extends Runnable> previous = RxJavaPlugins.getScheduleHandler();
+        this.previous = previous;
+        if (previous == null) {
+            RxJavaPlugins.setScheduleHandler(RxJava3SchedulerContextPropagation::wrap);
+        } else {
+            RxJavaPlugins.setScheduleHandler(task -> wrap(previous.apply(task)));
+        }
+    }
+
+    /**
+     * Restores the schedule handler installed before.
+     */
+    @PreDestroy
+    public void disable() {
+        RxJavaPlugins.setScheduleHandler(previous);
+    }
+
+    private static Runnable wrap(Runnable task) {
+        io.opentelemetry.context.Context context = io.opentelemetry.context.Context.current();
+        return context == io.opentelemetry.context.Context.root() ? task : context.wrap(task);
+    }
+
+}
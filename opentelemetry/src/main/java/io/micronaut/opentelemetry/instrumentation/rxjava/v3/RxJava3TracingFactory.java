@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.rxjava.v3;
+
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.opentelemetry.instrumentation.rxjava.RxJavaTracingModeCondition;
+import io.opentelemetry.instrumentation.rxjava3.TracingAssembly;
+
+/**
+ * Enables the {@link io.micronaut.opentelemetry.instrumentation.rxjava.RxJavaTracingMode#ASSEMBLY} context
+ * propagation of RxJava 3 when the application context starts, and disables it when it stops.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Factory
+public class RxJava3TracingFactory {
+
+    /**
+     * @return The tracing assembly wrapping every operator
+     */
+    @Context
+    @Bean(preDestroy = "disable")
+    @Requires(classes = TracingAssembly.class)
+    @Requires(condition = RxJavaTracingModeCondition.RxJava3Assembly.class)
+    public TracingAssembly rxJava3TracingAssembly() {
+        TracingAssembly tracingAssembly = TracingAssembly.create();
+        tracingAssembly.enable();
+        return tracingAssembly;
+    }
+
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+/**
+ * Context propagation for RxJava 3.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Configuration
+@Requires(classes = Flowable.class)
+@Requires(property = RxJavaTracingConfiguration.ENABLED, notEquals = StringUtils.FALSE)
+package io.micronaut.opentelemetry.instrumentation.rxjava.v3;
+
+import io.micronaut.context.annotation.Configuration;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.util.StringUtils;
+import io.micronaut.opentelemetry.instrumentation.rxjava.RxJavaTracingConfiguration;
+import io.reactivex.rxjava3.core.Flowable;
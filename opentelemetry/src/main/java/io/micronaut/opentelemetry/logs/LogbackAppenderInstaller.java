@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.logs;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.util.StringUtils;
+import io.opentelemetry.instrumentation.api.appender.internal.GlobalLogEmitterProvider;
+import io.opentelemetry.instrumentation.logback.appender.v1_0.OpenTelemetryAppender;
+import io.opentelemetry.instrumentation.sdk.appender.internal.DelegatingLogEmitterProvider;
+import io.opentelemetry.sdk.logs.SdkLogEmitterProvider;
+import org.slf4j.ILoggerFactory;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Attaches the OpenTelemetry appenders to the logback root logger, unless the logback configuration already declares
+ * them.
+ * <p>
+ * The exporting appender runs on the logging thread, where the current span is known, and only offers the record to
+ * the bounded queue of the log processor, see {@link LogsConfiguration#setMaxQueueSize(int)}. When
+ * {@link LogsConfiguration#isMdcEnabled()}, the appenders of the root logger are moved behind the MDC appender, which
+ * adds the trace and span ids to the events before handing them over. Appenders attached to other loggers are left
+ * as they are.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Context
+@Requires(classes = LoggerContext.class)
+@Requires(property = LogsConfiguration.ENABLED, notEquals = StringUtils.FALSE)
+@Requires(beans = SdkLogEmitterProvider.class)
+public final class LogbackAppenderInstaller {
+
+    private static final String APPENDER_NAME = "OPENTELEMETRY";
+    private static final String MDC_APPENDER_NAME = "OPENTELEMETRY_MDC";
+
+    private final SdkLogEmitterProvider logEmitterProvider;
+    private final LogsConfiguration configuration;
+    private final List<Appender<ILoggingEvent>> wrappedAppenders = new ArrayList<>();
+
+    @Nullable
+    private Logger rootLogger;
+    @Nullable
+    private OpenTelemetryAppender appender;
+    @Nullable
+    private io.opentelemetry.instrumentation.logback.mdc.v1_0.OpenTelemetryAppender mdcAppender;
+
+    /**
+     * @param logEmitterProvider The log emitter provider
+     * @param configuration      The logs configuration
+     */
+    public LogbackAppenderInstaller(SdkLogEmitterProvider logEmitterProvider, LogsConfiguration configuration) {
+        this.logEmitterProvider = logEmitterProvider;
+        this.configuration = configuration;
+    }
+
+    /**
+     * Registers the log emitter provider and attaches the appenders.
+     */
+    @PostConstruct
+    public void install() {
+        GlobalLogEmitterProvider.set(DelegatingLogEmitterProvider.from(logEmitterProvider));
+
+        ILoggerFactory loggerFactory = LoggerFactory.getILoggerFactory();
+        if (!(loggerFactory instanceof LoggerContext)) {
+            return;
+        }
+        LoggerContext loggerContext = (LoggerContext) loggerFactory;
+        Logger root = loggerContext.getLogger(Logger.ROOT_LOGGER_NAME);
+        rootLogger = root;
+
+        List<Appender<ILoggingEvent>> appenders = new ArrayList<>();
+        Iterator<Appender<ILoggingEvent>> iterator = root.iteratorForAppenders();
+        while (iterator.hasNext()) {
+            appenders.add(iterator.next());
+        }
+
+        if (configuration.isMdcEnabled() && appenders.stream().noneMatch(
+                io.opentelemetry.instrumentation.logback.mdc.v1_0.OpenTelemetryAppender.class::isInstance)) {
+            io.opentelemetry.instrumentation.logback.mdc.v1_0.OpenTelemetryAppender mdc =
+                    new io.opentelemetry.instrumentation.logback.mdc.v1_0.OpenTelemetryAppender();
+            mdc.setContext(loggerContext);
+            mdc.setName(MDC_APPENDER_NAME);
+            for (Appender<ILoggingEvent> wrapped : appenders) {
+                if (!(wrapped instanceof OpenTelemetryAppender)) {
+                    root.detachAppender(wrapped);
+                    mdc.addAppender(wrapped);
+                    wrappedAppenders.add(wrapped);
+                }
+            }
+            mdc.start();
+            root.addAppender(mdc);
+            mdcAppender = mdc;
+        }
+
+        if (appenders.stream().noneMatch(OpenTelemetryAppender.class::isInstance)) {
+            OpenTelemetryAppender otel = new OpenTelemetryAppender();
+            otel.setContext(loggerContext);
+            otel.setName(APPENDER_NAME);
+            otel.start();
+            root.addAppender(otel);
+            appender = otel;
+        }
+    }
+
+    /**
+     * Detaches the appenders attached by {@link #install()} and gives the wrapped appenders back to the root logger.
+     */
+    @PreDestroy
+    public void uninstall() {
+        Logger root = rootLogger;
+        if (root != null) {
+            if (appender != null) {
+                root.detachAppender(appender);
+                appender.stop();
+                appender = null;
+            }
+            if (mdcAppender != null) {
+                root.detachAppender(mdcAppender);
+                for (Appender<ILoggingEvent> wrapped : wrappedAppenders) {
+                    mdcAppender.detachAppender(wrapped);
+                    root.addAppender(wrapped);
+                }
+                wrappedAppenders.clear();
+                mdcAppender.stop();
+                mdcAppender = null;
+            }
+            rootLogger = null;
+        }
+        GlobalLogEmitterProvider.resetForTest();
+    }
+
+}
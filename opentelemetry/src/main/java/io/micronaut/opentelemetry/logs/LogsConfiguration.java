@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.logs;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.annotation.NonNull;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the export of log records and the logback instrumentation that produces them.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@ConfigurationProperties(LogsConfiguration.PREFIX)
+public class LogsConfiguration {
+
+    public static final String PREFIX = "otel.logs";
+
+    /**
+     * The property that enables the export of log records.
+     */
+    public static final String ENABLED = PREFIX + ".enabled";
+
+    /**
+     * The default maximum number of log records exported in one batch.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_MAX_EXPORT_BATCH_SIZE = 512;
+
+    /**
+     * The default maximum number of log records buffered before new records are dropped.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_MAX_QUEUE_SIZE = 2048;
+
+    /**
+     * The default delay between two consecutive exports, in milliseconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final long DEFAULT_SCHEDULE_DELAY_MILLIS = 1000;
+
+    /**
+     * The default maximum time an export may take, in milliseconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final long DEFAULT_EXPORT_TIMEOUT_MILLIS = 30000;
+
+    private boolean enabled = true;
+    private boolean mdcEnabled = true;
+    private int maxExportBatchSize = DEFAULT_MAX_EXPORT_BATCH_SIZE;
+    private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+    private Duration scheduleDelay = Duration.ofMillis(DEFAULT_SCHEDULE_DELAY_MILLIS);
+    private Duration exportTimeout = Duration.ofMillis(DEFAULT_EXPORT_TIMEOUT_MILLIS);
+
+    /**
+     * @return Whether the log records are exported
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether the log records of the root logger are exported. Default value ({@code true}).
+     *
+     * @param enabled Whether the log records are exported
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return Whether the trace and span ids are added to the MDC of the logged events
+     */
+    public boolean isMdcEnabled() {
+        return mdcEnabled;
+    }
+
+    /**
+     * Sets whether the {@code trace_id}, {@code span_id} and {@code trace_flags} of the current span are added to the MDC
+     * of the events written by the appenders of the root logger. Default value ({@code true}).
+     *
+     * @param mdcEnabled Whether the trace and span ids are added to the MDC
+     */
+    public void setMdcEnabled(boolean mdcEnabled) {
+        this.mdcEnabled = mdcEnabled;
+    }
+
+    /**
+     * @return The maximum number of log records exported in one batch
+     */
+    public int getMaxExportBatchSize() {
+        return maxExportBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of log records exported in one batch. Default value ({@value #DEFAULT_MAX_EXPORT_BATCH_SIZE}).
+     *
+     * @param maxExportBatchSize The maximum batch size
+     */
+    public void setMaxExportBatchSize(int maxExportBatchSize) {
+        this.maxExportBatchSize = maxExportBatchSize;
+    }
+
+    /**
+     * @return The maximum number of log records buffered before new records are dropped
+     */
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    /**
+     * Sets the maximum number of log records buffered before new records are dropped. The logging thread never waits
+     * for the exporter, a record that does not fit in the queue is dropped instead. Default value ({@value #DEFAULT_MAX_QUEUE_SIZE}).
+     *
+     * @param maxQueueSize The maximum queue size
+     */
+    public void setMaxQueueSize(int maxQueueSize) {
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    /**
+     * @return The delay between two consecutive exports
+     */
+    @NonNull
+    public Duration getScheduleDelay() {
+        return scheduleDelay;
+    }
+
+    /**
+     * Sets the delay between two consecutive exports. A full batch is exported right away regardless
+     * of this delay. Default value ({@value #DEFAULT_SCHEDULE_DELAY_MILLIS} milliseconds).
+     *
+     * @param scheduleDelay The schedule delay
+     */
+    public void setScheduleDelay(@NonNull Duration scheduleDelay) {
+        this.scheduleDelay = scheduleDelay;
+    }
+
+    /**
+     * @return The maximum time an export may take
+     */
+    @NonNull
+    public Duration getExportTimeout() {
+        return exportTimeout;
+    }
+
+    /**
+     * Sets the maximum time an export may take before it is abandoned. Default value ({@value #DEFAULT_EXPORT_TIMEOUT_MILLIS} milliseconds).
+     *
+     * @param exportTimeout The export timeout
+     */
+    public void setExportTimeout(@NonNull Duration exportTimeout) {
+        this.exportTimeout = exportTimeout;
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.logs;
+
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.util.StringUtils;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.sdk.logs.SdkLogEmitterProvider;
+import io.opentelemetry.sdk.logs.export.BatchLogProcessor;
+import io.opentelemetry.sdk.logs.export.LogExporter;
+import io.opentelemetry.sdk.resources.Resource;
+import jakarta.inject.Singleton;
+
+/**
+ * Creates the log emitter provider that batches the log records and hands them to the log exporter.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Factory
+@Requires(property = LogsConfiguration.ENABLED, notEquals = StringUtils.FALSE)
+@Requires(beans = LogExporter.class)
+public class LogsFactory {
+
+    /**
+     * @param logExporter   The log exporter
+     * @param configuration The logs configuration
+     * @param resource      The resource describing the application
+     * @param meterProvider The meter provider used to publish the processor metrics
+     * @return The log emitter provider
+     */
+    @Bean(preDestroy = "close")
+    @Singleton
+    protected SdkLogEmitterProvider otelSdkLogEmitterProvider(LogExporter logExporter,
+                                                              LogsConfiguration configuration,
+                                                              Resource resource,
+                                                              @Nullable MeterProvider meterProvider) {
+        // the processor offers the records to a bounded queue without waiting, the records that do not fit are
+        // dropped and counted, so the logging threads never wait for the exporter
+        BatchLogProcessor processor = BatchLogProcessor.builder(logExporter)
+                .setMaxExportBatchSize(configuration.getMaxExportBatchSize())
+                .setMaxQueueSize(configuration.getMaxQueueSize())
+                .setScheduleDelay(configuration.getScheduleDelay())
+                .setExporterTimeout(configuration.getExportTimeout())
+                .setMeterProvider(meterProvider != null ? meterProvider : MeterProvider.noop())
+                .build();
+
+        return SdkLogEmitterProvider.builder()
+                .setResource(resource)
+                .addLogProcessor(processor)
+                .build();
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.metrics;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds the number of distinct attribute sets recorded by one instrument. Once the limit is reached every
+ * attribute set that was not seen before is collapsed into a single overflow series, so an unbounded label
+ * value costs one series instead of one per value.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+final class CardinalityLimiter {
+
+    /**
+     * The attributes of the series overflowing attribute sets are collapsed into.
+     */
+    static final Attributes OVERFLOW = Attributes.of(AttributeKey.booleanKey("otel.metric.overflow"), true);
+
+    private final Map<Attributes, Boolean> seen = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int maxCardinality;
+
+    /**
+     * @param maxCardinality The maximum number of distinct attribute sets
+     */
+    CardinalityLimiter(int maxCardinality) {
+        this.maxCardinality = maxCardinality;
+    }
+
+    /**
+     * @param attributes The attributes of a measurement
+     * @return The given attributes or {@link #OVERFLOW} if the limit is reached and they were not seen before
+     */
+    Attributes limit(Attributes attributes) {
+        if (attributes.isEmpty() || seen.containsKey(attributes)) {
+            return attributes;
+        }
+        int current = size.get();
+        while (true) {
+            if (current >= maxCardinality) {
+                return OVERFLOW;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                break;
+            }
+            current = size.get();
+        }
+        if (seen.putIfAbsent(attributes, Boolean.TRUE) != null) {
+            size.decrementAndGet();
+        }
+        return attributes;
+    }
+
+}
@@ -0,0 +1,573 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.metrics;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleCounter;
+import io.opentelemetry.api.metrics.DoubleCounterBuilder;
+import io.opentelemetry.api.metrics.DoubleGaugeBuilder;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.DoubleHistogramBuilder;
+import io.opentelemetry.api.metrics.DoubleUpDownCounter;
+import io.opentelemetry.api.metrics.DoubleUpDownCounterBuilder;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongCounterBuilder;
+import io.opentelemetry.api.metrics.LongGaugeBuilder;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.LongHistogramBuilder;
+import io.opentelemetry.api.metrics.LongUpDownCounter;
+import io.opentelemetry.api.metrics.LongUpDownCounterBuilder;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.ObservableDoubleCounter;
+import io.opentelemetry.api.metrics.ObservableDoubleGauge;
+import io.opentelemetry.api.metrics.ObservableDoubleMeasurement;
+import io.opentelemetry.api.metrics.ObservableDoubleUpDownCounter;
+import io.opentelemetry.api.metrics.ObservableLongCounter;
+import io.opentelemetry.api.metrics.ObservableLongGauge;
+import io.opentelemetry.api.metrics.ObservableLongMeasurement;
+import io.opentelemetry.api.metrics.ObservableLongUpDownCounter;
+import io.opentelemetry.context.Context;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A {@link Meter} whose instruments pass the attributes of every measurement through a {@link CardinalityLimiter}
+ * before recording it with the delegate. Instruments are created by the delegate, so aggregation, views and export
+ * are left untouched.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+final class CardinalityLimitingMeter implements Meter {
+
+    private final Meter delegate;
+    private final Function<String, CardinalityLimiter> limiters;
+
+    /**
+     * @param delegate The meter to delegate to
+     * @param limiters Resolves the limiter of an instrument by its name
+     */
+    CardinalityLimitingMeter(Meter delegate, Function<String, CardinalityLimiter> limiters) {
+        this.delegate = delegate;
+        this.limiters = limiters;
+    }
+
+    @Override
+    public LongCounterBuilder counterBuilder(String name) {
+        return new LimitingLongCounterBuilder(delegate.counterBuilder(name), name, limiters);
+    }
+
+    @Override
+    public LongUpDownCounterBuilder upDownCounterBuilder(String name) {
+        return new LimitingLongUpDownCounterBuilder(delegate.upDownCounterBuilder(name), name, limiters);
+    }
+
+    @Override
+    public DoubleHistogramBuilder histogramBuilder(String name) {
+        return new LimitingDoubleHistogramBuilder(delegate.histogramBuilder(name), name, limiters);
+    }
+
+    @Override
+    public DoubleGaugeBuilder gaugeBuilder(String name) {
+        return new LimitingDoubleGaugeBuilder(delegate.gaugeBuilder(name), name, limiters);
+    }
+
+    private static Consumer<ObservableLongMeasurement> limitLongCallback(Consumer<ObservableLongMeasurement> callback,
+                                                                         CardinalityLimiter limiter,
+                                                                         boolean additive) {
+        return measurement -> {
+            LimitingLongMeasurement limiting = new LimitingLongMeasurement(measurement, limiter, additive);
+            callback.accept(limiting);
+            limiting.recordOverflow();
+        };
+    }
+
+    private static Consumer<ObservableDoubleMeasurement> limitDoubleCallback(Consumer<ObservableDoubleMeasurement> callback,
+                                                                             CardinalityLimiter limiter,
+                                                                             boolean additive) {
+        return measurement -> {
+            LimitingDoubleMeasurement limiting = new LimitingDoubleMeasurement(measurement, limiter, additive);
+            callback.accept(limiting);
+            limiting.recordOverflow();
+        };
+    }
+
+    /**
+     * Limits the attributes of the measurements of one callback invocation. An asynchronous counter reports the
+     * current total of every attribute set and the SDK keeps the last value recorded for a set, so the totals of the
+     * sets collapsed into the overflow series are summed up and recorded once the callback returns.
+     */
+    private static final class LimitingLongMeasurement implements ObservableLongMeasurement {
+
+        private final ObservableLongMeasurement delegate;
+        private final CardinalityLimiter limiter;
+        private final boolean additive;
+        private boolean overflowed;
+        private long overflow;
+
+        LimitingLongMeasurement(ObservableLongMeasurement delegate, CardinalityLimiter limiter, boolean additive) {
+            this.delegate = delegate;
+            this.limiter = limiter;
+            this.additive = additive;
+        }
+
+        @Override
+        public void record(long value) {
+            delegate.record(value);
+        }
+
+        @Override
+        public void record(long value, Attributes attributes) {
+            Attributes limited = limiter.limit(attributes);
+            if (additive && limited == CardinalityLimiter.OVERFLOW) {
+                overflowed = true;
+                overflow += value;
+            } else {
+                delegate.record(value, limited);
+            }
+        }
+
+        void recordOverflow() {
+            if (overflowed) {
+                delegate.record(overflow, CardinalityLimiter.OVERFLOW);
+            }
+        }
+    }
+
+    /**
+     * The double counterpart of {@link LimitingLongMeasurement}.
+     */
+    private static final class LimitingDoubleMeasurement implements ObservableDoubleMeasurement {
+
+        private final ObservableDoubleMeasurement delegate;
+        private final CardinalityLimiter limiter;
+        private final boolean additive;
+        private boolean overflowed;
+        private double overflow;
+
+        LimitingDoubleMeasurement(ObservableDoubleMeasurement delegate, CardinalityLimiter limiter, boolean additive) {
+            this.delegate = delegate;
+            this.limiter = limiter;
+            this.additive = additive;
+        }
+
+        @Override
+        public void record(double value) {
+            delegate.record(value);
+        }
+
+        @Override
+        public void record(double value, Attributes attributes) {
+            Attributes limited = limiter.limit(attributes);
+            if (additive && limited == CardinalityLimiter.OVERFLOW) {
+                overflowed = true;
+                overflow += value;
+            } else {
+                delegate.record(value, limited);
+            }
+        }
+
+        void recordOverflow() {
+            if (overflowed) {
+                delegate.record(overflow, CardinalityLimiter.OVERFLOW);
+            }
+        }
+    }
+
+    private static final class LimitingLongCounterBuilder implements LongCounterBuilder {
+
+        private final LongCounterBuilder delegate;
+        private final String name;
+        private final Function<String, CardinalityLimiter> limiters;
+
+        LimitingLongCounterBuilder(LongCounterBuilder delegate, String name, Function<String, CardinalityLimiter> limiters) {
+            this.delegate = delegate;
+            this.name = name;
+            this.limiters = limiters;
+        }
+
+        @Override
+        public LongCounterBuilder setDescription(String description) {
+            delegate.setDescription(description);
+            return this;
+        }
+
+        @Override
+        public LongCounterBuilder setUnit(String unit) {
+            delegate.setUnit(unit);
+            return this;
+        }
+
+        @Override
+        public DoubleCounterBuilder ofDoubles() {
+            return new LimitingDoubleCounterBuilder(delegate.ofDoubles(), name, limiters);
+        }
+
+        @Override
+        public LongCounter build() {
+            LongCounter counter = delegate.build();
+            CardinalityLimiter limiter = limiters.apply(name);
+            return new LongCounter() {
+                @Override
+                public void add(long value) {
+                    counter.add(value);
+                }
+
+                @Override
+                public void add(long value, Attributes attributes) {
+                    counter.add(value, limiter.limit(attributes));
+                }
+
+                @Override
+                public void add(long value, Attributes attributes, Context context) {
+                    counter.add(value, limiter.limit(attributes), context);
+                }
+            };
+        }
+
+        @Override
+        public ObservableLongCounter buildWithCallback(Consumer<ObservableLongMeasurement> callback) {
+            return delegate.buildWithCallback(limitLongCallback(callback, limiters.apply(name), true));
+        }
+    }
+
+    private static final class LimitingDoubleCounterBuilder implements DoubleCounterBuilder {
+
+        private final DoubleCounterBuilder delegate;
+        private final String name;
+        private final Function<String, CardinalityLimiter> limiters;
+
+        LimitingDoubleCounterBuilder(DoubleCounterBuilder delegate, String name, Function<String, CardinalityLimiter> limiters) {
+            this.delegate = delegate;
+            this.name = name;
+            this.limiters = limiters;
+        }
+
+        @Override
+        public DoubleCounterBuilder setDescription(String description) {
+            delegate.setDescription(description);
+            return this;
+        }
+
+        @Override
+        public DoubleCounterBuilder setUnit(String unit) {
+            delegate.setUnit(unit);
+            return this;
+        }
+
+        @Override
+        public DoubleCounter build() {
+            DoubleCounter counter = delegate.build();
+            CardinalityLimiter limiter = limiters.apply(name);
+            return new DoubleCounter() {
+                @Override
+                public void add(double value) {
+                    counter.add(value);
+                }
+
+                @Override
+                public void add(double value, Attributes attributes) {
+                    counter.add(value, limiter.limit(attributes));
+                }
+
+                @Override
+                public void add(double value, Attributes attributes, Context context) {
+                    counter.add(value, limiter.limit(attributes), context);
+                }
+            };
+        }
+
+        @Override
+        public ObservableDoubleCounter buildWithCallback(Consumer<ObservableDoubleMeasurement> callback) {
+            return delegate.buildWithCallback(limitDoubleCallback(callback, limiters.apply(name), true));
+        }
+    }
+
+    private static final class LimitingLongUpDownCounterBuilder implements LongUpDownCounterBuilder {
+
+        private final LongUpDownCounterBuilder delegate;
+        private final String name;
+        private final Function<String, CardinalityLimiter> limiters;
+
+        LimitingLongUpDownCounterBuilder(LongUpDownCounterBuilder delegate, String name, Function<String, CardinalityLimiter> limiters) {
+            this.delegate = delegate;
+            this.name = name;
+            this.limiters = limiters;
+        }
+
+        @Override
+        public LongUpDownCounterBuilder setDescription(String description) {
+            delegate.setDescription(description);
+            return this;
+        }
+
+        @Override
+        public LongUpDownCounterBuilder setUnit(String unit) {
+            delegate.setUnit(unit);
+            return this;
+        }
+
+        @Override
+        public DoubleUpDownCounterBuilder ofDoubles() {
+            return new LimitingDoubleUpDownCounterBuilder(delegate.ofDoubles(), name, limiters);
+        }
+
+        @Override
+        public LongUpDownCounter build() {
+            LongUpDownCounter counter = delegate.build();
+            CardinalityLimiter limiter = limiters.apply(name);
+            return new LongUpDownCounter() {
+                @Override
+                public void add(long value) {
+                    counter.add(value);
+                }
+
+                @Override
+                public void add(long value, Attributes attributes) {
+                    counter.add(value, limiter.limit(attributes));
+                }
+
+                @Override
+                public void add(long value, Attributes attributes, Context context) {
+                    counter.add(value, limiter.limit(attributes), context);
+                }
+            };
+        }
+
+        @Override
+        public ObservableLongUpDownCounter buildWithCallback(Consumer<ObservableLongMeasurement> callback) {
+            return delegate.buildWithCallback(limitLongCallback(callback, limiters.apply(name), true));
+        }
+    }
+
+    private static final class LimitingDoubleUpDownCounterBuilder implements DoubleUpDownCounterBuilder {
+
+        private final DoubleUpDownCounterBuilder delegate;
+        private final String name;
+        private final Function<String, CardinalityLimiter> limiters;
+
+        LimitingDoubleUpDownCounterBuilder(DoubleUpDownCounterBuilder delegate, String name, Function<String, CardinalityLimiter> limiters) {
+            this.delegate = delegate;
+            this.name = name;
+            this.limiters = limiters;
+        }
+
+        @Override
+        public DoubleUpDownCounterBuilder setDescription(String description) {
+            delegate.setDescription(description);
+            return this;
+        }
+
+        @Override
+        public DoubleUpDownCounterBuilder setUnit(String unit) {
+            delegate.setUnit(unit);
+            return this;
+        }
+
+        @Override
+        public DoubleUpDownCounter build() {
+            DoubleUpDownCounter counter = delegate.build();
+            CardinalityLimiter limiter = limiters.apply(name);
+            return new DoubleUpDownCounter() {
+                @Override
+                public void add(double value) {
+                    counter.add(value);
+                }
+
+                @Override
+                public void add(double value, Attributes attributes) {
+                    counter.add(value, limiter.limit(attributes));
+                }
+
+                @Override
+                public void add(double value, Attributes attributes, Context context) {
+                    counter.add(value, limiter.limit(attributes), context);
+                }
+            };
+        }
+
+        @Override
+        public ObservableDoubleUpDownCounter buildWithCallback(Consumer<ObservableDoubleMeasurement> callback) {
+            return delegate.buildWithCallback(limitDoubleCallback(callback, limiters.apply(name), true));
+        }
+    }
+
+    private static final class LimitingDoubleHistogramBuilder implements DoubleHistogramBuilder {
+
+        private final DoubleHistogramBuilder delegate;
+        private final String name;
+        private final Function<String, CardinalityLimiter> limiters;
+
+        LimitingDoubleHistogramBuilder(DoubleHistogramBuilder delegate, String name, Function<String, CardinalityLimiter> limiters) {
+            this.delegate = delegate;
+            this.name = name;
+            this.limiters = limiters;
+        }
+
+        @Override
+        public DoubleHistogramBuilder setDescription(String description) {
+            delegate.setDescription(description);
+            return this;
+        }
+
+        @Override
+        public DoubleHistogramBuilder setUnit(String unit) {
+            delegate.setUnit(unit);
+            return this;
+        }
+
+        @Override
+        public LongHistogramBuilder ofLongs() {
+            return new LimitingLongHistogramBuilder(delegate.ofLongs(), name, limiters);
+        }
+
+        @Override
+        public DoubleHistogram build() {
+            DoubleHistogram histogram = delegate.build();
+            CardinalityLimiter limiter = limiters.apply(name);
+            return new DoubleHistogram() {
+                @Override
+                public void record(double value) {
+                    histogram.record(value);
+                }
+
+                @Override
+                public void record(double value, Attributes attributes) {
+                    histogram.record(value, limiter.limit(attributes));
+                }
+
+                @Override
+                public void record(double value, Attributes attributes, Context context) {
+                    histogram.record(value, limiter.limit(attributes), context);
+                }
+            };
+        }
+    }
+
+    private static final class LimitingLongHistogramBuilder implements LongHistogramBuilder {
+
+        private final LongHistogramBuilder delegate;
+        private final String name;
+        private final Function<String, CardinalityLimiter> limiters;
+
+        LimitingLongHistogramBuilder(LongHistogramBuilder delegate, String name, Function<String, CardinalityLimiter> limiters) {
+            this.delegate = delegate;
+            this.name = name;
+            this.limiters = limiters;
+        }
+
+        @Override
+        public LongHistogramBuilder setDescription(String description) {
+            delegate.setDescription(description);
+            return this;
+        }
+
+        @Override
+        public LongHistogramBuilder setUnit(String unit) {
+            delegate.setUnit(unit);
+            return this;
+        }
+
+        @Override
+        public LongHistogram build() {
+            LongHistogram histogram = delegate.build();
+            CardinalityLimiter limiter = limiters.apply(name);
+            return new LongHistogram() {
+                @Override
+                public void record(long value) {
+                    histogram.record(value);
+                }
+
+                @Override
+                public void record(long value, Attributes attributes) {
+                    histogram.record(value, limiter.limit(attributes));
+                }
+
+                @Override
+                public void record(long value, Attributes attributes, Context context) {
+                    histogram.record(value, limiter.limit(attributes), context);
+                }
+            };
+        }
+    }
+
+    private static final class LimitingDoubleGaugeBuilder implements DoubleGaugeBuilder {
+
+        private final DoubleGaugeBuilder delegate;
+        private final String name;
+        private final Function<String, CardinalityLimiter> limiters;
+
+        LimitingDoubleGaugeBuilder(DoubleGaugeBuilder delegate, String name, Function<String, CardinalityLimiter> limiters) {
+            this.delegate = delegate;
+            this.name = name;
+            this.limiters = limiters;
+        }
+
+        @Override
+        public DoubleGaugeBuilder setDescription(String description) {
+            delegate.setDescription(description);
+            return this;
+        }
+
+        @Override
+        public DoubleGaugeBuilder setUnit(String unit) {
+            delegate.setUnit(unit);
+            return this;
+        }
+
+        @Override
+        public LongGaugeBuilder ofLongs() {
+            return new LimitingLongGaugeBuilder(delegate.ofLongs(), name, limiters);
+        }
+
+        @Override
+        public ObservableDoubleGauge buildWithCallback(Consumer<ObservableDoubleMeasurement> callback) {
+            return delegate.buildWithCallback(limitDoubleCallback(callback, limiters.apply(name), false));
+        }
+    }
+
+    private static final class LimitingLongGaugeBuilder implements LongGaugeBuilder {
+
+        private final LongGaugeBuilder delegate;
+        private final String name;
+        private final Function<String, CardinalityLimiter> limiters;
+
+        LimitingLongGaugeBuilder(LongGaugeBuilder delegate, String name, Function<String, CardinalityLimiter> limiters) {
+            this.delegate = delegate;
+            this.name = name;
+            this.limiters = limiters;
+        }
+
+        @Override
+        public LongGaugeBuilder setDescription(String description) {
+            delegate.setDescription(description);
+            return this;
+        }
+
+        @Override
+        public LongGaugeBuilder setUnit(String unit) {
+            delegate.setUnit(unit);
+            return this;
+        }
+
+        @Override
+        public ObservableLongGauge buildWithCallback(Consumer<ObservableLongMeasurement> callback) {
+            return delegate.buildWithCallback(limitLongCallback(callback, limiters.apply(name), false));
+        }
+    }
+
+}
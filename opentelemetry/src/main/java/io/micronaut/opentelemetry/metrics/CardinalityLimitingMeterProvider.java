@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.metrics;
+
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.MeterBuilder;
+import io.opentelemetry.api.metrics.MeterProvider;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link MeterProvider} that bounds the number of distinct attribute sets every instrument may record. Attribute
+ * sets beyond the limit are collapsed into a single overflow series, so a label carrying unbounded values such as
+ * user ids or raw paths cannot grow the metric storage without limit.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public final class CardinalityLimitingMeterProvider implements MeterProvider {
+
+    private final MeterProvider delegate;
+    private final int maxCardinality;
+    private final Map<String, CardinalityLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new meter provider.
+     *
+     * @param delegate       The meter provider to delegate to
+     * @param maxCardinality The maximum number of distinct attribute sets per instrument
+     */
+    public CardinalityLimitingMeterProvider(MeterProvider delegate, int maxCardinality) {
+        this.delegate = delegate;
+        this.maxCardinality = Math.max(1, maxCardinality);
+    }
+
+    @Override
+    public MeterBuilder meterBuilder(String instrumentationName) {
+        MeterBuilder builder = delegate.meterBuilder(instrumentationName);
+        return new MeterBuilder() {
+            @Override
+            public MeterBuilder setSchemaUrl(String schemaUrl) {
+                builder.setSchemaUrl(schemaUrl);
+                return this;
+            }
+
+            @Override
+            public MeterBuilder setInstrumentationVersion(String instrumentationVersion) {
+                builder.setInstrumentationVersion(instrumentationVersion);
+                return this;
+            }
+
+            @Override
+            public Meter build() {
+                return new CardinalityLimitingMeter(builder.build(),
+                        instrumentName -> limiter(instrumentationName, instrumentName));
+            }
+        };
+    }
+
+    private CardinalityLimiter limiter(String instrumentationName, String instrumentName) {
+        return limiters.computeIfAbsent(instrumentationName + ':' + instrumentName,
+                key -> new CardinalityLimiter(maxCardinality));
+    }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.metrics;
+
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.api.trace.TracerProvider;
+import io.opentelemetry.context.propagation.ContextPropagators;
+
+/**
+ * An {@link OpenTelemetry} that hands out its own {@link MeterProvider} in place of the one of the delegate, so
+ * instrumentation libraries obtaining their meters from the {@link OpenTelemetry} instance record through it.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public final class MeterProviderOverridingOpenTelemetry implements OpenTelemetry {
+
+    private final OpenTelemetry delegate;
+    private final MeterProvider meterProvider;
+
+    /**
+     * @param delegate      The OpenTelemetry instance to delegate to
+     * @param meterProvider The meter provider to hand out
+     */
+    public MeterProviderOverridingOpenTelemetry(OpenTelemetry delegate, MeterProvider meterProvider) {
+        this.delegate = delegate;
+        this.meterProvider = meterProvider;
+    }
+
+    @Override
+    public TracerProvider getTracerProvider() {
+        return delegate.getTracerProvider();
+    }
+
+    @Override
+    public MeterProvider getMeterProvider() {
+        return meterProvider;
+    }
+
+    @Override
+    public ContextPropagators getPropagators() {
+        return delegate.getPropagators();
+    }
+
+    @Override
+    public String toString() {
+        return "MeterProviderOverridingOpenTelemetry{"
+                + "delegate=" + delegate
+                + ", meterProvider=" + meterProvider
+                + '}';
+    }
+
+}
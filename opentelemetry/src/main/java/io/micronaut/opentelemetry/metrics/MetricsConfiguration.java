@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.metrics;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.annotation.NonNull;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Configuration for the collection and export of metrics.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@ConfigurationProperties(MetricsConfiguration.PREFIX)
+public class MetricsConfiguration {
+
+    public static final String PREFIX = "otel.metrics";
+
+    /**
+     * The default interval between two consecutive exports, in seconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final long DEFAULT_EXPORT_INTERVAL_SECONDS = 60;
+
+    /**
+     * The default maximum number of distinct attribute sets per instrument.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_MAX_CARDINALITY = 1000;
+
+    private Duration exportInterval = Duration.ofSeconds(DEFAULT_EXPORT_INTERVAL_SECONDS);
+    private AggregationTemporality temporality = AggregationTemporality.CUMULATIVE;
+    private List<Double> histogramBuckets = Collections.emptyList();
+    private int maxCardinality = DEFAULT_MAX_CARDINALITY;
+
+    /**
+     * @return The interval between two consecutive exports
+     */
+    @NonNull
+    public Duration getExportInterval() {
+        return exportInterval;
+    }
+
+    /**
+     * Sets the interval between two consecutive exports. Default value ({@value #DEFAULT_EXPORT_INTERVAL_SECONDS} seconds).
+     *
+     * @param exportInterval The export interval
+     */
+    public void setExportInterval(@NonNull Duration exportInterval) {
+        this.exportInterval = exportInterval;
+    }
+
+    /**
+     * @return The aggregation temporality requested from the exporter
+     */
+    @NonNull
+    public AggregationTemporality getTemporality() {
+        return temporality;
+    }
+
+    /**
+     * Sets whether sums and histograms are exported as deltas since the previous export or as totals since the
+     * start of the application. Default value ({@code CUMULATIVE}).
+     *
+     * @param temporality The aggregation temporality
+     */
+    public void setTemporality(@NonNull AggregationTemporality temporality) {
+        this.temporality = temporality;
+    }
+
+    /**
+     * @return The upper bounds of the histogram buckets
+     */
+    @NonNull
+    public List<Double> getHistogramBuckets() {
+        return histogramBuckets;
+    }
+
+    /**
+     * Sets the upper bounds of the buckets used by all histograms, in ascending order. When empty the SDK default
+     * boundaries are used. Default value (empty).
+     *
+     * @param histogramBuckets The bucket boundaries
+     */
+    public void setHistogramBuckets(@NonNull List<Double> histogramBuckets) {
+        this.histogramBuckets = histogramBuckets;
+    }
+
+    /**
+     * @return The maximum number of distinct attribute sets per instrument
+     */
+    public int getMaxCardinality() {
+        return maxCardinality;
+    }
+
+    /**
+     * Sets the maximum number of distinct attribute sets a single instrument may record. Measurements with
+     * attribute sets beyond the limit are recorded in one series carrying {@code otel.metric.overflow=true}.
+     * Keep it below 2000, where the SDK starts dropping measurements on its own.
+     * Default value ({@value #DEFAULT_MAX_CARDINALITY}).
+     *
+     * @param maxCardinality The maximum cardinality
+     */
+    public void setMaxCardinality(int maxCardinality) {
+        this.maxCardinality = maxCardinality;
+    }
+
+}
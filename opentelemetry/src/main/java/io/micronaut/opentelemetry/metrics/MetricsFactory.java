@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.metrics;
+
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Factory;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.SdkMeterProviderBuilder;
+import io.opentelemetry.sdk.metrics.common.InstrumentType;
+import io.opentelemetry.sdk.metrics.export.MetricExporter;
+import io.opentelemetry.sdk.metrics.export.PeriodicMetricReader;
+import io.opentelemetry.sdk.metrics.view.Aggregation;
+import io.opentelemetry.sdk.metrics.view.InstrumentSelector;
+import io.opentelemetry.sdk.metrics.view.View;
+import io.opentelemetry.sdk.resources.Resource;
+import jakarta.inject.Singleton;
+
+/**
+ * Creates the meter provider that aggregates the measurements of the HTTP and gRPC instrumentation and periodically
+ * hands them to the metric exporter.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Factory
+public class MetricsFactory {
+
+    /**
+     * @param metricExporter The metric exporter
+     * @param configuration  The metrics configuration
+     * @param resource       The resource describing the application
+     * @return The meter provider
+     */
+    @Bean(preDestroy = "close")
+    @Singleton
+    protected SdkMeterProvider otelSdkMeterProvider(MetricExporter metricExporter,
+                                                    MetricsConfiguration configuration,
+                                                    Resource resource) {
+        SdkMeterProviderBuilder builder = SdkMeterProvider.builder()
+                .setResource(resource)
+                .registerMetricReader(PeriodicMetricReader.builder(metricExporter)
+                        .setInterval(configuration.getExportInterval())
+                        .newMetricReaderFactory());
+
+        if (!configuration.getHistogramBuckets().isEmpty()) {
+            builder.registerView(
+                    InstrumentSelector.builder().setType(InstrumentType.HISTOGRAM).build(),
+                    View.builder().setAggregation(Aggregation.explicitBucketHistogram(configuration.getHistogramBuckets())).build());
+        }
+
+        return builder.build();
+    }
+
+}
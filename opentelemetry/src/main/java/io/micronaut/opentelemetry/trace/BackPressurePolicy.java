@@ -0,0 +1,42 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace;
+
+/**
+ * What the {@link RingBufferSpanProcessor} does with an ended span when its ring buffer is full.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public enum BackPressurePolicy {
+
+    /**
+     * Drop the span that was just ended.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Evict the oldest buffered span to make room for the span that was just ended.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Wait for the drain thread to free a slot, dropping the span that was just ended if
+     * none is freed within the configured block timeout.
+     */
+    BLOCK
+
+}
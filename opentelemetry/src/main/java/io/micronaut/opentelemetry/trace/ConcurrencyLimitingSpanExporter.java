@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.util.Collection;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A {@link SpanExporter} that bounds the number of exports in flight. Batches arriving while all slots are
+ * taken are rejected with a failed result and counted instead of being queued behind a slow exporter. When wrapped
+ * by a {@link RetryingSpanExporter}, a rejected batch is retried like any other failed export.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public final class ConcurrencyLimitingSpanExporter implements SpanExporter {
+
+    private static final AttributeKey<String> EXPORTER_TYPE = AttributeKey.stringKey("exporterType");
+
+    private final SpanExporter delegate;
+    private final Semaphore permits;
+    private final LongCounter droppedSpans;
+    private final Attributes attributes;
+
+    /**
+     * Creates a new exporter.
+     *
+     * @param delegate             The exporter to delegate to
+     * @param maxConcurrentExports The maximum number of exports in flight
+     * @param meterProvider        The meter provider used to publish the dropped span counter
+     */
+    public ConcurrencyLimitingSpanExporter(SpanExporter delegate, int maxConcurrentExports, MeterProvider meterProvider) {
+        this.delegate = delegate;
+        this.permits = new Semaphore(Math.max(1, maxConcurrentExports));
+        this.droppedSpans = meterProvider.get("io.micronaut.opentelemetry")
+                .counterBuilder("droppedSpans")
+                .setUnit("1")
+                .setDescription("The number of spans rejected because the maximum number of concurrent exports was reached")
+                .build();
+        this.attributes = Attributes.of(EXPORTER_TYPE, delegate.getClass().getSimpleName());
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        if (!permits.tryAcquire()) {
+            droppedSpans.add(spans.size(), attributes);
+            return CompletableResultCode.ofFailure();
+        }
+        CompletableResultCode result;
+        try {
+            result = delegate.export(spans);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        result.whenComplete(permits::release);
+        return result;
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return delegate.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return delegate.shutdown();
+    }
+
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace;
+
+import io.micronaut.core.annotation.Nullable;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link SpanExporter} that retries failed batches with jittered exponential backoff. Batches that still fail
+ * after the last attempt are written to an optional {@link SpanSpool} on disk and replayed once an export succeeds
+ * again. A failed batch is taken over right away, so the span processor is never held up by retries, and all retry,
+ * spool and replay work happens on a dedicated thread.
+ *
+ * <p>The result of {@link #export(Collection)} is the result of the first attempt: a failed result means that the
+ * batch was handed over to the retries, the batches exported by a later attempt are counted separately. Retries and
+ * replays go through the same delegate as the first attempt, so a concurrency limit applied by the delegate covers
+ * them too.</p>
+ *
+ * <p>The exporter API reports failures without a cause, so every failure is treated as retryable.</p>
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public final class RetryingSpanExporter implements SpanExporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RetryingSpanExporter.class);
+
+    private static final String WORKER_THREAD_NAME = "otel-span-export-retry";
+
+    private final SpanExporter delegate;
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double backoffMultiplier;
+    private final int maxPendingBatches;
+    private final SpanSpool spool;
+    private final ScheduledExecutorService scheduler;
+    private final Set<PendingBatch> pendingBatches = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean replaying = new AtomicBoolean();
+    private final LongCounter retriedBatches;
+    private final LongCounter spooledBytes;
+    private final LongCounter replayedBatches;
+    private final LongCounter droppedBatches;
+    private volatile boolean shutdown;
+
+    /**
+     * Creates a new exporter.
+     *
+     * @param delegate          The exporter to delegate to
+     * @param meterProvider     The meter provider used to publish the retry and spool metrics
+     * @param maxAttempts       The maximum number of export attempts per batch
+     * @param initialBackoff    The upper bound of the delay before the first retry
+     * @param maxBackoff        The upper bound of the delay between two attempts
+     * @param backoffMultiplier The factor the delay bound grows by after every attempt
+     * @param maxPendingBatches The maximum number of batches waiting for a retry
+     * @param spoolFile         The file failed batches are spooled to or {@code null} to drop them
+     * @param spoolMaxSize      The size of the spool file in bytes
+     */
+    public RetryingSpanExporter(SpanExporter delegate,
+                                MeterProvider meterProvider,
+                                int maxAttempts,
+                                Duration initialBackoff,
+                                Duration maxBackoff,
+                                double backoffMultiplier,
+                                int maxPendingBatches,
+                                @Nullable Path spoolFile,
+                                long spoolMaxSize) {
+        this.delegate = delegate;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = Math.max(initialBackoffNanos, maxBackoff.toNanos());
+        this.backoffMultiplier = Math.max(1, backoffMultiplier);
+        this.maxPendingBatches = Math.max(0, maxPendingBatches);
+        this.spool = openSpool(spoolFile, spoolMaxSize);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, WORKER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Meter meter = meterProvider.get("io.micronaut.opentelemetry");
+        this.retriedBatches = meter.counterBuilder("retriedBatches")
+                .setUnit("1")
+                .setDescription("The number of span batches exported successfully after a failed attempt")
+                .build();
+        this.spooledBytes = meter.counterBuilder("spooledBytes")
+                .setUnit("By")
+                .setDescription("The number of bytes of span batches written to the spool")
+                .build();
+        this.replayedBatches = meter.counterBuilder("replayedBatches")
+                .setUnit("1")
+                .setDescription("The number of spooled span batches exported successfully")
+                .build();
+        this.droppedBatches = meter.counterBuilder("droppedBatches")
+                .setUnit("1")
+                .setDescription("The number of span batches dropped after retries were exhausted or evicted from the spool")
+                .build();
+        if (spool != null) {
+            meter.gaugeBuilder("spoolSize")
+                    .ofLongs()
+                    .setUnit("By")
+                    .setDescription("The number of bytes of span batches waiting in the spool")
+                    .buildWithCallback(measurement -> measurement.record(spool.size()));
+            // replays what was spooled before a restart and keeps draining the spool while the application is idle
+            long replayIntervalNanos = Math.max(TimeUnit.SECONDS.toNanos(1), maxBackoffNanos);
+            scheduler.scheduleWithFixedDelay(this::replaySpool, replayIntervalNanos, replayIntervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        if (shutdown) {
+            return CompletableResultCode.ofFailure();
+        }
+        // span processors may reuse the collection once the export completes
+        List<SpanData> batch = new ArrayList<>(spans);
+        CompletableResultCode export = exportToDelegate(batch);
+        export.whenComplete(() -> {
+            if (export.isSuccess()) {
+                replaySpool();
+            } else if (!execute(() -> retryLater(batch, 1))) {
+                droppedBatches.add(1);
+            }
+        });
+        return export;
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return delegate.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        shutdown = true;
+        scheduler.shutdownNow();
+        for (PendingBatch pending : pendingBatches) {
+            if (pendingBatches.remove(pending)) {
+                spool(pending.spans);
+            }
+        }
+        if (spool != null) {
+            try {
+                spool.close();
+            } catch (IOException e) {
+                LOG.warn("Failed to close the span spool", e);
+            }
+        }
+        return delegate.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "RetryingSpanExporter{"
+                + "delegate=" + delegate
+                + ", maxAttempts=" + maxAttempts
+                + ", maxBackoffNanos=" + maxBackoffNanos
+                + ", spool=" + (spool != null)
+                + '}';
+    }
+
+    private void retryLater(List<SpanData> spans, int attempt) {
+        if (shutdown || attempt >= maxAttempts || pendingBatches.size() >= maxPendingBatches) {
+            spool(spans);
+            return;
+        }
+        PendingBatch pending = new PendingBatch(spans);
+        pendingBatches.add(pending);
+        scheduler.schedule(() -> {
+            if (pendingBatches.remove(pending)) {
+                retry(spans, attempt + 1);
+            }
+        }, backoff(attempt), TimeUnit.NANOSECONDS);
+    }
+
+    private void retry(List<SpanData> spans, int attempt) {
+        CompletableResultCode export = exportToDelegate(spans);
+        export.whenComplete(() -> {
+            if (export.isSuccess()) {
+                retriedBatches.add(1);
+                replaySpool();
+            } else if (!execute(() -> retryLater(spans, attempt))) {
+                droppedBatches.add(1);
+            }
+        });
+    }
+
+    private CompletableResultCode exportToDelegate(List<SpanData> spans) {
+        try {
+            return delegate.export(spans);
+        } catch (RuntimeException e) {
+            LOG.warn("Exporter threw an exception while exporting {} spans", spans.size(), e);
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    /**
+     * @param attempt The number of attempts made so far
+     * @return A random delay between zero and the backoff bound of the attempt
+     */
+    private long backoff(int attempt) {
+        return ThreadLocalRandom.current().nextLong(backoffBound(attempt) + 1);
+    }
+
+    /**
+     * @param attempt The number of attempts made so far
+     * @return The upper bound of the delay before the next attempt, in nanoseconds
+     */
+    long backoffBound(int attempt) {
+        double bound = initialBackoffNanos * Math.pow(backoffMultiplier, attempt - 1);
+        return (long) Math.min(maxBackoffNanos, bound);
+    }
+
+    private void spool(List<SpanData> spans) {
+        if (spool == null) {
+            droppedBatches.add(1);
+            return;
+        }
+        byte[] record;
+        try {
+            record = SpanDataCodec.encode(spans);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Failed to encode {} spans for the spool, dropping them", spans.size(), e);
+            droppedBatches.add(1);
+            return;
+        }
+        int evicted = spool.append(record);
+        if (evicted < 0) {
+            droppedBatches.add(1);
+        } else {
+            spooledBytes.add(record.length);
+            if (evicted > 0) {
+                droppedBatches.add(evicted);
+            }
+        }
+    }
+
+    private void replaySpool() {
+        if (spool != null && !shutdown && spool.size() > 0 && replaying.compareAndSet(false, true)) {
+            if (!execute(this::replayNext)) {
+                replaying.set(false);
+            }
+        }
+    }
+
+    private void replayNext() {
+        SpanSpool.Record record = spool.peek();
+        if (record == null || shutdown) {
+            replaying.set(false);
+            return;
+        }
+        List<SpanData> spans;
+        try {
+            spans = SpanDataCodec.decode(record.data);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Failed to decode a spooled span batch, dropping it", e);
+            spool.remove(record);
+            droppedBatches.add(1);
+            if (!execute(this::replayNext)) {
+                replaying.set(false);
+            }
+            return;
+        }
+        CompletableResultCode export = exportToDelegate(spans);
+        export.whenComplete(() -> {
+            if (export.isSuccess()) {
+                spool.remove(record);
+                replayedBatches.add(1);
+                if (execute(this::replayNext)) {
+                    return;
+                }
+            }
+            replaying.set(false);
+        });
+    }
+
+    private boolean execute(Runnable task) {
+        if (shutdown) {
+            return false;
+        }
+        try {
+            scheduler.execute(task);
+            return true;
+        } catch (RuntimeException e) {
+            // rejected because the exporter is shutting down
+            return false;
+        }
+    }
+
+    @Nullable
+    private static SpanSpool openSpool(@Nullable Path spoolFile, long spoolMaxSize) {
+        if (spoolFile == null) {
+            return null;
+        }
+        try {
+            return new SpanSpool(spoolFile, spoolMaxSize);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Failed to open the span spool {}, failed batches will be dropped", spoolFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * A batch waiting for its next attempt, compared by identity.
+     */
+    private static final class PendingBatch {
+
+        private final List<SpanData> spans;
+
+        PendingBatch(List<SpanData> spans) {
+            this.spans = spans;
+        }
+    }
+
+}
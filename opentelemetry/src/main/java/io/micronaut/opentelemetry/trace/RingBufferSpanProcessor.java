@@ -0,0 +1,308 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link SpanProcessor} that buffers ended spans in per-thread-striped lock-free ring buffers, so request threads
+ * ending spans concurrently rarely touch the same memory. The stripe of a thread is picked by masking its thread id
+ * rather than by the core it runs on, which Java does not expose: a thread keeps its stripe when it migrates between
+ * cores, and two threads may share a stripe. A single drain thread collects the spans into batches and hands them to
+ * the exporter, either when a batch is full or when the schedule delay elapses.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public final class RingBufferSpanProcessor implements SpanProcessor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RingBufferSpanProcessor.class);
+
+    private static final String WORKER_THREAD_NAME = "otel-ring-buffer-span-processor";
+    private static final AttributeKey<String> SPAN_PROCESSOR_TYPE_LABEL = AttributeKey.stringKey("spanProcessorType");
+    private static final AttributeKey<Boolean> DROPPED_LABEL = AttributeKey.booleanKey("dropped");
+    private static final String SPAN_PROCESSOR_TYPE_VALUE = RingBufferSpanProcessor.class.getSimpleName();
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final SpanExporter spanExporter;
+    private final SpanRingBuffer[] stripes;
+    private final int stripeMask;
+    private final int maxExportBatchSize;
+    private final int drainThreshold;
+    private final long scheduleDelayNanos;
+    private final long exportTimeoutNanos;
+    private final BackPressurePolicy backPressurePolicy;
+    private final long blockTimeoutNanos;
+    private final LongCounter processedSpans;
+    private final Attributes droppedAttributes;
+    private final Attributes exportedAttributes;
+    private final AtomicBoolean drainRequested = new AtomicBoolean();
+    private final AtomicBoolean shutdownRequested = new AtomicBoolean();
+    private final AtomicReference<CompletableResultCode> pendingFlush = new AtomicReference<>();
+    private final CompletableResultCode shutdownResult = new CompletableResultCode();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private List<SpanData> batch;
+
+    /**
+     * Creates a new processor and starts its drain thread.
+     *
+     * @param spanExporter       The exporter batches are handed to
+     * @param meterProvider      The meter provider used to publish the queue size and processed span metrics
+     * @param stripes            The number of ring buffers, rounded up to the next power of two
+     * @param maxQueueSize       The total capacity of all ring buffers
+     * @param maxExportBatchSize The maximum number of spans exported in one batch
+     * @param scheduleDelay      The maximum time a span waits for its batch to fill up
+     * @param exportTimeout      The maximum time an export may take
+     * @param backPressurePolicy What to do with an ended span when its ring buffer is full
+     * @param blockTimeout       How long to wait for a free slot under the {@link BackPressurePolicy#BLOCK} policy
+     */
+    public RingBufferSpanProcessor(SpanExporter spanExporter,
+                                   MeterProvider meterProvider,
+                                   int stripes,
+                                   int maxQueueSize,
+                                   int maxExportBatchSize,
+                                   Duration scheduleDelay,
+                                   Duration exportTimeout,
+                                   BackPressurePolicy backPressurePolicy,
+                                   Duration blockTimeout) {
+        int stripeCount = SpanRingBuffer.ceilingPowerOfTwo(stripes);
+        int stripeCapacity = Math.max(1, maxQueueSize / stripeCount);
+        this.spanExporter = spanExporter;
+        this.stripes = new SpanRingBuffer[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new SpanRingBuffer(stripeCapacity);
+        }
+        this.stripeMask = stripeCount - 1;
+        this.maxExportBatchSize = Math.max(1, maxExportBatchSize);
+        this.drainThreshold = Math.max(1, Math.min(this.maxExportBatchSize / stripeCount, this.stripes[0].capacity() / 2));
+        this.scheduleDelayNanos = scheduleDelay.toNanos();
+        this.exportTimeoutNanos = exportTimeout.toNanos();
+        this.backPressurePolicy = backPressurePolicy;
+        this.blockTimeoutNanos = blockTimeout.toNanos();
+        this.batch = new ArrayList<>(this.maxExportBatchSize);
+
+        Meter meter = meterProvider.get("io.opentelemetry.sdk.trace");
+        meter.gaugeBuilder("queueSize")
+                .ofLongs()
+                .setDescription("The number of spans queued")
+                .setUnit("1")
+                .buildWithCallback(measurement -> measurement.record(size(),
+                        Attributes.of(SPAN_PROCESSOR_TYPE_LABEL, SPAN_PROCESSOR_TYPE_VALUE)));
+        this.processedSpans = meter.counterBuilder("processedSpans")
+                .setUnit("1")
+                .setDescription("The number of spans processed by the RingBufferSpanProcessor. "
+                        + "[dropped=true if they were dropped due to high throughput]")
+                .build();
+        this.droppedAttributes = Attributes.of(SPAN_PROCESSOR_TYPE_LABEL, SPAN_PROCESSOR_TYPE_VALUE, DROPPED_LABEL, true);
+        this.exportedAttributes = Attributes.of(SPAN_PROCESSOR_TYPE_LABEL, SPAN_PROCESSOR_TYPE_VALUE, DROPPED_LABEL, false);
+
+        this.worker = new Thread(this::drainLoop, WORKER_THREAD_NAME);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+        // no-op
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        if (!span.getSpanContext().isSampled() || !running) {
+            return;
+        }
+        SpanRingBuffer stripe = stripes[(int) Thread.currentThread().getId() & stripeMask];
+        if (!stripe.offer(span) && !offerUnderBackPressure(stripe, span)) {
+            processedSpans.add(1, droppedAttributes);
+            return;
+        }
+        if (stripe.size() >= drainThreshold) {
+            requestDrain();
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        if (!running) {
+            return CompletableResultCode.ofSuccess();
+        }
+        CompletableResultCode flush = new CompletableResultCode();
+        CompletableResultCode existing = pendingFlush.getAndSet(flush);
+        if (existing != null) {
+            flush.whenComplete(existing::succeed);
+        }
+        requestDrain();
+        return flush;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        if (shutdownRequested.compareAndSet(false, true)) {
+            running = false;
+            LockSupport.unpark(worker);
+        }
+        return shutdownResult;
+    }
+
+    @Override
+    public String toString() {
+        return "RingBufferSpanProcessor{"
+                + "spanExporter=" + spanExporter
+                + ", stripes=" + stripes.length
+                + ", maxExportBatchSize=" + maxExportBatchSize
+                + ", scheduleDelayNanos=" + scheduleDelayNanos
+                + ", backPressurePolicy=" + backPressurePolicy
+                + '}';
+    }
+
+    /**
+     * @return The approximate number of buffered spans
+     */
+    int size() {
+        int size = 0;
+        for (SpanRingBuffer stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private boolean offerUnderBackPressure(SpanRingBuffer stripe, ReadableSpan span) {
+        switch (backPressurePolicy) {
+            case DROP_OLDEST:
+                while (true) {
+                    if (stripe.poll() != null) {
+                        processedSpans.add(1, droppedAttributes);
+                    }
+                    if (stripe.offer(span)) {
+                        return true;
+                    }
+                }
+            case BLOCK:
+                long deadline = System.nanoTime() + blockTimeoutNanos;
+                do {
+                    requestDrain();
+                    LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                    if (stripe.offer(span)) {
+                        return true;
+                    }
+                } while (running && deadline - System.nanoTime() > 0);
+                return false;
+            case DROP_NEWEST:
+            default:
+                return false;
+        }
+    }
+
+    private void requestDrain() {
+        if (drainRequested.compareAndSet(false, true)) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void drainLoop() {
+        long nextExport = System.nanoTime() + scheduleDelayNanos;
+        while (running) {
+            drainRingBuffers();
+            CompletableResultCode flush = pendingFlush.getAndSet(null);
+            long now = System.nanoTime();
+            if (flush != null) {
+                drainRingBuffers();
+                exportBatch();
+                flush.succeed();
+                nextExport = now + scheduleDelayNanos;
+            } else if (now - nextExport >= 0) {
+                exportBatch();
+                nextExport = now + scheduleDelayNanos;
+            } else {
+                drainRequested.set(false);
+                if (running && pendingFlush.get() == null && size() < drainThreshold) {
+                    LockSupport.parkNanos(this, nextExport - now);
+                }
+            }
+        }
+        drainRingBuffers();
+        exportBatch();
+        CompletableResultCode flush = pendingFlush.getAndSet(null);
+        if (flush != null) {
+            flush.succeed();
+        }
+        spanExporter.shutdown().whenComplete(shutdownResult::succeed);
+    }
+
+    private void drainRingBuffers() {
+        for (SpanRingBuffer stripe : stripes) {
+            ReadableSpan span;
+            while ((span = stripe.poll()) != null) {
+                batch.add(span.toSpanData());
+                if (batch.size() >= maxExportBatchSize) {
+                    exportBatch();
+                }
+            }
+        }
+    }
+
+    private void exportBatch() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<SpanData> spans = batch;
+        batch = new ArrayList<>(maxExportBatchSize);
+        try {
+            CompletableResultCode result = spanExporter.export(spans);
+            result.join(exportTimeoutNanos, TimeUnit.NANOSECONDS);
+            if (result.isSuccess()) {
+                processedSpans.add(spans.size(), exportedAttributes);
+            } else if (LOG.isDebugEnabled()) {
+                LOG.debug("Exporter failed to export {} spans", spans.size());
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Exporter threw an exception while exporting {} spans", spans.size(), e);
+        }
+    }
+
+}
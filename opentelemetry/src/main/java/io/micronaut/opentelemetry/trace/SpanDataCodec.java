@@ -0,0 +1,492 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.AttributeType;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceId;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.TraceStateBuilder;
+import io.opentelemetry.sdk.common.InstrumentationLibraryInfo;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary encoding of span batches for the disk spool. Resources and instrumentation libraries are written
+ * once per batch and referenced by index from the spans, since all spans of a batch usually share them.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+final class SpanDataCodec {
+
+    private static final int VERSION = 1;
+    private static final AttributeType[] ATTRIBUTE_TYPES = AttributeType.values();
+    private static final SpanKind[] SPAN_KINDS = SpanKind.values();
+    private static final StatusCode[] STATUS_CODES = StatusCode.values();
+
+    private SpanDataCodec() {
+    }
+
+    /**
+     * @param spans The spans
+     * @return The encoded batch
+     * @throws IOException If a span cannot be encoded
+     */
+    static byte[] encode(Collection<SpanData> spans) throws IOException {
+        Map<Resource, Integer> resources = new HashMap<>();
+        Map<InstrumentationLibraryInfo, Integer> libraries = new HashMap<>();
+        for (SpanData span : spans) {
+            resources.putIfAbsent(span.getResource(), resources.size());
+            libraries.putIfAbsent(span.getInstrumentationLibraryInfo(), libraries.size());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 * spans.size());
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(VERSION);
+        out.writeInt(resources.size());
+        for (Resource resource : inIndexOrder(resources)) {
+            writeNullableString(out, resource.getSchemaUrl());
+            writeAttributes(out, resource.getAttributes());
+        }
+        out.writeInt(libraries.size());
+        for (InstrumentationLibraryInfo library : inIndexOrder(libraries)) {
+            writeString(out, library.getName());
+            writeNullableString(out, library.getVersion());
+            writeNullableString(out, library.getSchemaUrl());
+        }
+        out.writeInt(spans.size());
+        for (SpanData span : spans) {
+            out.writeInt(resources.get(span.getResource()));
+            out.writeInt(libraries.get(span.getInstrumentationLibraryInfo()));
+            writeSpanContext(out, span.getSpanContext());
+            writeSpanContext(out, span.getParentSpanContext());
+            writeString(out, span.getName());
+            out.writeByte(span.getKind().ordinal());
+            out.writeLong(span.getStartEpochNanos());
+            out.writeLong(span.getEndEpochNanos());
+            out.writeBoolean(span.hasEnded());
+            writeAttributes(out, span.getAttributes());
+            out.writeInt(span.getTotalAttributeCount());
+            out.writeInt(span.getEvents().size());
+            for (EventData event : span.getEvents()) {
+                out.writeLong(event.getEpochNanos());
+                writeString(out, event.getName());
+                writeAttributes(out, event.getAttributes());
+                out.writeInt(event.getTotalAttributeCount());
+            }
+            out.writeInt(span.getTotalRecordedEvents());
+            out.writeInt(span.getLinks().size());
+            for (LinkData link : span.getLinks()) {
+                writeSpanContext(out, link.getSpanContext());
+                writeAttributes(out, link.getAttributes());
+                out.writeInt(link.getTotalAttributeCount());
+            }
+            out.writeInt(span.getTotalRecordedLinks());
+            out.writeByte(span.getStatus().getStatusCode().ordinal());
+            writeString(out, span.getStatus().getDescription());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param batch The encoded batch
+     * @return The spans
+     * @throws IOException If the batch is truncated, corrupted or was written by another version
+     */
+    static List<SpanData> decode(byte[] batch) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(batch));
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported spool record version: " + version);
+        }
+        Resource[] resources = new Resource[readCount(in)];
+        for (int i = 0; i < resources.length; i++) {
+            String schemaUrl = readNullableString(in);
+            resources[i] = Resource.create(readAttributes(in), schemaUrl);
+        }
+        InstrumentationLibraryInfo[] libraries = new InstrumentationLibraryInfo[readCount(in)];
+        for (int i = 0; i < libraries.length; i++) {
+            libraries[i] = InstrumentationLibraryInfo.create(readString(in), readNullableString(in), readNullableString(in));
+        }
+        int spanCount = readCount(in);
+        List<SpanData> spans = new ArrayList<>(spanCount);
+        for (int i = 0; i < spanCount; i++) {
+            DecodedSpanData span = new DecodedSpanData();
+            span.resource = element(resources, in.readInt());
+            span.instrumentationLibraryInfo = element(libraries, in.readInt());
+            span.spanContext = readSpanContext(in);
+            span.parentSpanContext = readSpanContext(in);
+            span.name = readString(in);
+            span.kind = element(SPAN_KINDS, in.readUnsignedByte());
+            span.startEpochNanos = in.readLong();
+            span.endEpochNanos = in.readLong();
+            span.ended = in.readBoolean();
+            span.attributes = readAttributes(in);
+            span.totalAttributeCount = in.readInt();
+            int eventCount = readCount(in);
+            span.events = new ArrayList<>(eventCount);
+            for (int e = 0; e < eventCount; e++) {
+                long epochNanos = in.readLong();
+                String name = readString(in);
+                span.events.add(EventData.create(epochNanos, name, readAttributes(in), in.readInt()));
+            }
+            span.totalRecordedEvents = in.readInt();
+            int linkCount = readCount(in);
+            span.links = new ArrayList<>(linkCount);
+            for (int l = 0; l < linkCount; l++) {
+                SpanContext spanContext = readSpanContext(in);
+                span.links.add(LinkData.create(spanContext, readAttributes(in), in.readInt()));
+            }
+            span.totalRecordedLinks = in.readInt();
+            StatusCode statusCode = element(STATUS_CODES, in.readUnsignedByte());
+            span.status = StatusData.create(statusCode, readString(in));
+            spans.add(span);
+        }
+        return spans;
+    }
+
+    private static <T> List<T> inIndexOrder(Map<T, Integer> indexes) {
+        List<T> values = new ArrayList<>(indexes.size());
+        for (int i = 0; i < indexes.size(); i++) {
+            values.add(null);
+        }
+        indexes.forEach((value, index) -> values.set(index, value));
+        return values;
+    }
+
+    private static void writeSpanContext(DataOutputStream out, SpanContext spanContext) throws IOException {
+        out.writeBoolean(spanContext.isValid());
+        if (!spanContext.isValid()) {
+            return;
+        }
+        out.write(spanContext.getTraceIdBytes());
+        out.write(spanContext.getSpanIdBytes());
+        out.writeByte(spanContext.getTraceFlags().asByte());
+        out.writeBoolean(spanContext.isRemote());
+        Map<String, String> traceState = spanContext.getTraceState().asMap();
+        out.writeInt(traceState.size());
+        for (Map.Entry<String, String> entry : traceState.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static SpanContext readSpanContext(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return SpanContext.getInvalid();
+        }
+        byte[] traceId = new byte[TraceId.getLength() / 2];
+        in.readFully(traceId);
+        byte[] spanId = new byte[SpanId.getLength() / 2];
+        in.readFully(spanId);
+        TraceFlags traceFlags = TraceFlags.fromByte(in.readByte());
+        boolean remote = in.readBoolean();
+        int traceStateSize = readCount(in);
+        TraceState traceState = TraceState.getDefault();
+        if (traceStateSize > 0) {
+            String[] entries = new String[2 * traceStateSize];
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = readString(in);
+            }
+            // the builder puts every new entry first, so the entries are added last to first to keep their order
+            TraceStateBuilder builder = TraceState.builder();
+            for (int i = entries.length - 2; i >= 0; i -= 2) {
+                builder.put(entries[i], entries[i + 1]);
+            }
+            traceState = builder.build();
+        }
+        return remote
+                ? SpanContext.createFromRemoteParent(TraceId.fromBytes(traceId), SpanId.fromBytes(spanId), traceFlags, traceState)
+                : SpanContext.create(TraceId.fromBytes(traceId), SpanId.fromBytes(spanId), traceFlags, traceState);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeAttributes(DataOutputStream out, Attributes attributes) throws IOException {
+        out.writeInt(attributes.size());
+        for (Map.Entry<AttributeKey<?>, Object> entry : attributes.asMap().entrySet()) {
+            AttributeType type = entry.getKey().getType();
+            out.writeByte(type.ordinal());
+            writeString(out, entry.getKey().getKey());
+            switch (type) {
+                case STRING:
+                    writeString(out, (String) entry.getValue());
+                    break;
+                case BOOLEAN:
+                    out.writeBoolean((Boolean) entry.getValue());
+                    break;
+                case LONG:
+                    out.writeLong((Long) entry.getValue());
+                    break;
+                case DOUBLE:
+                    out.writeDouble((Double) entry.getValue());
+                    break;
+                case STRING_ARRAY:
+                    List<String> strings = (List<String>) entry.getValue();
+                    out.writeInt(strings.size());
+                    for (String value : strings) {
+                        writeString(out, value);
+                    }
+                    break;
+                case BOOLEAN_ARRAY:
+                    List<Boolean> booleans = (List<Boolean>) entry.getValue();
+                    out.writeInt(booleans.size());
+                    for (Boolean value : booleans) {
+                        out.writeBoolean(value);
+                    }
+                    break;
+                case LONG_ARRAY:
+                    List<Long> longs = (List<Long>) entry.getValue();
+                    out.writeInt(longs.size());
+                    for (Long value : longs) {
+                        out.writeLong(value);
+                    }
+                    break;
+                case DOUBLE_ARRAY:
+                    List<Double> doubles = (List<Double>) entry.getValue();
+                    out.writeInt(doubles.size());
+                    for (Double value : doubles) {
+                        out.writeDouble(value);
+                    }
+                    break;
+                default:
+                    throw new IOException("Unsupported attribute type: " + type);
+            }
+        }
+    }
+
+    private static Attributes readAttributes(DataInputStream in) throws IOException {
+        int size = readCount(in);
+        if (size == 0) {
+            return Attributes.empty();
+        }
+        AttributesBuilder builder = Attributes.builder();
+        for (int i = 0; i < size; i++) {
+            AttributeType type = element(ATTRIBUTE_TYPES, in.readUnsignedByte());
+            String key = readString(in);
+            switch (type) {
+                case STRING:
+                    builder.put(AttributeKey.stringKey(key), readString(in));
+                    break;
+                case BOOLEAN:
+                    builder.put(AttributeKey.booleanKey(key), in.readBoolean());
+                    break;
+                case LONG:
+                    builder.put(AttributeKey.longKey(key), in.readLong());
+                    break;
+                case DOUBLE:
+                    builder.put(AttributeKey.doubleKey(key), in.readDouble());
+                    break;
+                case STRING_ARRAY:
+                    List<String> strings = new ArrayList<>();
+                    for (int n = readCount(in); n > 0; n--) {
+                        strings.add(readString(in));
+                    }
+                    builder.put(AttributeKey.stringArrayKey(key), strings);
+                    break;
+                case BOOLEAN_ARRAY:
+                    List<Boolean> booleans = new ArrayList<>();
+                    for (int n = readCount(in); n > 0; n--) {
+                        booleans.add(in.readBoolean());
+                    }
+                    builder.put(AttributeKey.booleanArrayKey(key), booleans);
+                    break;
+                case LONG_ARRAY:
+                    List<Long> longs = new ArrayList<>();
+                    for (int n = readCount(in); n > 0; n--) {
+                        longs.add(in.readLong());
+                    }
+                    builder.put(AttributeKey.longArrayKey(key), longs);
+                    break;
+                case DOUBLE_ARRAY:
+                    List<Double> doubles = new ArrayList<>();
+                    for (int n = readCount(in); n > 0; n--) {
+                        doubles.add(in.readDouble());
+                    }
+                    builder.put(AttributeKey.doubleArrayKey(key), doubles);
+                    break;
+                default:
+                    throw new IOException("Unsupported attribute type: " + type);
+            }
+        }
+        return builder.build();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readCount(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(out, value);
+        }
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? readString(in) : null;
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > in.available()) {
+            throw new IOException("Corrupted spool record: invalid length " + count);
+        }
+        return count;
+    }
+
+    private static <T> T element(T[] values, int index) throws IOException {
+        if (index < 0 || index >= values.length) {
+            throw new IOException("Corrupted spool record: invalid index " + index);
+        }
+        return values[index];
+    }
+
+    /**
+     * A span read back from the spool.
+     */
+    private static final class DecodedSpanData implements SpanData {
+
+        private String name;
+        private SpanKind kind;
+        private SpanContext spanContext;
+        private SpanContext parentSpanContext;
+        private StatusData status;
+        private long startEpochNanos;
+        private long endEpochNanos;
+        private boolean ended;
+        private Attributes attributes;
+        private List<EventData> events;
+        private List<LinkData> links;
+        private int totalRecordedEvents;
+        private int totalRecordedLinks;
+        private int totalAttributeCount;
+        private InstrumentationLibraryInfo instrumentationLibraryInfo;
+        private Resource resource;
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public SpanKind getKind() {
+            return kind;
+        }
+
+        @Override
+        public SpanContext getSpanContext() {
+            return spanContext;
+        }
+
+        @Override
+        public SpanContext getParentSpanContext() {
+            return parentSpanContext;
+        }
+
+        @Override
+        public StatusData getStatus() {
+            return status;
+        }
+
+        @Override
+        public long getStartEpochNanos() {
+            return startEpochNanos;
+        }
+
+        @Override
+        public Attributes getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public List<EventData> getEvents() {
+            return events;
+        }
+
+        @Override
+        public List<LinkData> getLinks() {
+            return links;
+        }
+
+        @Override
+        public long getEndEpochNanos() {
+            return endEpochNanos;
+        }
+
+        @Override
+        public boolean hasEnded() {
+            return ended;
+        }
+
+        @Override
+        public int getTotalRecordedEvents() {
+            return totalRecordedEvents;
+        }
+
+        @Override
+        public int getTotalRecordedLinks() {
+            return totalRecordedLinks;
+        }
+
+        @Override
+        public int getTotalAttributeCount() {
+            return totalAttributeCount;
+        }
+
+        @Override
+        public InstrumentationLibraryInfo getInstrumentationLibraryInfo() {
+            return instrumentationLibraryInfo;
+        }
+
+        @Override
+        public Resource getResource() {
+            return resource;
+        }
+    }
+
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.core.convert.format.ReadableBytes;
+import io.micronaut.core.util.Toggleable;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration for retrying failed span exports and spooling the batches that still fail to disk.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@ConfigurationProperties(SpanExportRetryConfiguration.PREFIX)
+public class SpanExportRetryConfiguration implements Toggleable {
+
+    public static final String PREFIX = "otel.traces.retry";
+
+    /**
+     * The default maximum number of export attempts per batch.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    /**
+     * The default upper bound of the delay before the first retry, in milliseconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 1000;
+
+    /**
+     * The default upper bound of the delay between two attempts, in milliseconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 30000;
+
+    /**
+     * The default factor the delay bound grows by after every attempt.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final double DEFAULT_BACKOFF_MULTIPLIER = 2;
+
+    /**
+     * The default maximum number of batches waiting for a retry.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_MAX_PENDING_BATCHES = 32;
+
+    /**
+     * The default size of the spool file, in bytes.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final long DEFAULT_SPOOL_MAX_SIZE = 64 * 1024 * 1024;
+
+    private boolean enabled = true;
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private Duration initialBackoff = Duration.ofMillis(DEFAULT_INITIAL_BACKOFF_MILLIS);
+    private Duration maxBackoff = Duration.ofMillis(DEFAULT_MAX_BACKOFF_MILLIS);
+    private double backoffMultiplier = DEFAULT_BACKOFF_MULTIPLIER;
+    private int maxPendingBatches = DEFAULT_MAX_PENDING_BATCHES;
+    private Path spoolFile;
+    private long spoolMaxSize = DEFAULT_SPOOL_MAX_SIZE;
+
+    /**
+     * @return Whether failed exports are retried
+     */
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether failed exports are retried. Default value ({@code true}).
+     *
+     * @param enabled Whether failed exports are retried
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return The maximum number of export attempts per batch
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Sets the maximum number of export attempts per batch, including the first one.
+     * Default value ({@value #DEFAULT_MAX_ATTEMPTS}).
+     *
+     * @param maxAttempts The maximum number of attempts
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * @return The upper bound of the delay before the first retry
+     */
+    @NonNull
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    /**
+     * Sets the upper bound of the delay before the first retry. The actual delay is picked at random below the bound,
+     * so exporters of many instances do not retry in lockstep. Default value ({@value #DEFAULT_INITIAL_BACKOFF_MILLIS} milliseconds).
+     *
+     * @param initialBackoff The initial backoff
+     */
+    public void setInitialBackoff(@NonNull Duration initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    /**
+     * @return The upper bound of the delay between two attempts
+     */
+    @NonNull
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    /**
+     * Sets the upper bound of the delay between two attempts. It is also the interval at which the spool is replayed
+     * while no export succeeds. Default value ({@value #DEFAULT_MAX_BACKOFF_MILLIS} milliseconds).
+     *
+     * @param maxBackoff The maximum backoff
+     */
+    public void setMaxBackoff(@NonNull Duration maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * @return The factor the delay bound grows by after every attempt
+     */
+    public double getBackoffMultiplier() {
+        return backoffMultiplier;
+    }
+
+    /**
+     * Sets the factor the delay bound grows by after every attempt. Default value ({@value #DEFAULT_BACKOFF_MULTIPLIER}).
+     *
+     * @param backoffMultiplier The backoff multiplier
+     */
+    public void setBackoffMultiplier(double backoffMultiplier) {
+        this.backoffMultiplier = backoffMultiplier;
+    }
+
+    /**
+     * @return The maximum number of batches waiting for a retry
+     */
+    public int getMaxPendingBatches() {
+        return maxPendingBatches;
+    }
+
+    /**
+     * Sets the maximum number of batches held in memory while waiting for a retry. Further failed batches go to the
+     * spool right away. Default value ({@value #DEFAULT_MAX_PENDING_BATCHES}).
+     *
+     * @param maxPendingBatches The maximum number of pending batches
+     */
+    public void setMaxPendingBatches(int maxPendingBatches) {
+        this.maxPendingBatches = maxPendingBatches;
+    }
+
+    /**
+     * @return The file batches are spooled to once their retries are exhausted
+     */
+    @Nullable
+    public Path getSpoolFile() {
+        return spoolFile;
+    }
+
+    /**
+     * Sets the file batches are spooled to once their retries are exhausted. Spooled batches survive a restart and
+     * are replayed as soon as an export succeeds. When not set such batches are dropped.
+     *
+     * @param spoolFile The spool file
+     */
+    public void setSpoolFile(@Nullable Path spoolFile) {
+        this.spoolFile = spoolFile;
+    }
+
+    /**
+     * @return The size of the spool file in bytes
+     */
+    public long getSpoolMaxSize() {
+        return spoolMaxSize;
+    }
+
+    /**
+     * Sets the size of the spool file, for example {@code 64MB}. When it is full the oldest batches are evicted.
+     * Default value ({@value #DEFAULT_SPOOL_MAX_SIZE} bytes).
+     *
+     * @param spoolMaxSize The size of the spool file
+     */
+    public void setSpoolMaxSize(@ReadableBytes long spoolMaxSize) {
+        this.spoolMaxSize = spoolMaxSize;
+    }
+
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+import io.micronaut.core.annotation.NonNull;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the span processor that hands ended spans over to the exporter.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@ConfigurationProperties(SpanProcessorConfiguration.PREFIX)
+public class SpanProcessorConfiguration {
+
+    public static final String PREFIX = "otel.traces.processor";
+
+    /**
+     * The default maximum number of spans exported in one batch.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_MAX_EXPORT_BATCH_SIZE = 512;
+
+    /**
+     * The default maximum number of spans buffered before new spans are dropped.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_MAX_QUEUE_SIZE = 8192;
+
+    /**
+     * The default delay between two consecutive exports, in milliseconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final long DEFAULT_SCHEDULE_DELAY_MILLIS = 1000;
+
+    /**
+     * The default maximum time an export may take, in milliseconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final long DEFAULT_EXPORT_TIMEOUT_MILLIS = 10000;
+
+    /**
+     * The default maximum number of exports in flight at the same time.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final int DEFAULT_MAX_CONCURRENT_EXPORTS = 2;
+
+    /**
+     * The default maximum time to wait for a free ring buffer slot under the {@link BackPressurePolicy#BLOCK} policy,
+     * in milliseconds.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final long DEFAULT_BLOCK_TIMEOUT_MILLIS = 10;
+
+    private SpanProcessorType type = SpanProcessorType.BATCH;
+    private int maxExportBatchSize = DEFAULT_MAX_EXPORT_BATCH_SIZE;
+    private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+    private Duration scheduleDelay = Duration.ofMillis(DEFAULT_SCHEDULE_DELAY_MILLIS);
+    private Duration exportTimeout = Duration.ofMillis(DEFAULT_EXPORT_TIMEOUT_MILLIS);
+    private int maxConcurrentExports = DEFAULT_MAX_CONCURRENT_EXPORTS;
+    private int stripes = Runtime.getRuntime().availableProcessors();
+    private BackPressurePolicy backPressure = BackPressurePolicy.DROP_NEWEST;
+    private Duration blockTimeout = Duration.ofMillis(DEFAULT_BLOCK_TIMEOUT_MILLIS);
+
+    /**
+     * @return The span processor implementation
+     */
+    @NonNull
+    public SpanProcessorType getType() {
+        return type;
+    }
+
+    /**
+     * Sets the span processor implementation. Default value ({@code BATCH}).
+     *
+     * @param type The span processor implementation
+     */
+    public void setType(@NonNull SpanProcessorType type) {
+        this.type = type;
+    }
+
+    /**
+     * @return The maximum number of spans exported in one batch
+     */
+    public int getMaxExportBatchSize() {
+        return maxExportBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of spans exported in one batch. Default value ({@value #DEFAULT_MAX_EXPORT_BATCH_SIZE}).
+     *
+     * @param maxExportBatchSize The maximum batch size
+     */
+    public void setMaxExportBatchSize(int maxExportBatchSize) {
+        this.maxExportBatchSize = maxExportBatchSize;
+    }
+
+    /**
+     * @return The maximum number of spans buffered before new spans are dropped
+     */
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    /**
+     * Sets the maximum number of spans buffered before new spans are dropped. Default value ({@value #DEFAULT_MAX_QUEUE_SIZE}).
+     *
+     * @param maxQueueSize The maximum queue size
+     */
+    public void setMaxQueueSize(int maxQueueSize) {
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    /**
+     * @return The delay between two consecutive exports
+     */
+    @NonNull
+    public Duration getScheduleDelay() {
+        return scheduleDelay;
+    }
+
+    /**
+     * Sets the delay between two consecutive exports. A full batch is exported right away regardless
+     * of this delay. Default value ({@value #DEFAULT_SCHEDULE_DELAY_MILLIS} milliseconds).
+     *
+     * @param scheduleDelay The schedule delay
+     */
+    public void setScheduleDelay(@NonNull Duration scheduleDelay) {
+        this.scheduleDelay = scheduleDelay;
+    }
+
+    /**
+     * @return The maximum time an export may take
+     */
+    @NonNull
+    public Duration getExportTimeout() {
+        return exportTimeout;
+    }
+
+    /**
+     * Sets the maximum time an export may take before it is abandoned. Default value ({@value #DEFAULT_EXPORT_TIMEOUT_MILLIS} milliseconds).
+     *
+     * @param exportTimeout The export timeout
+     */
+    public void setExportTimeout(@NonNull Duration exportTimeout) {
+        this.exportTimeout = exportTimeout;
+    }
+
+    /**
+     * @return The maximum number of exports in flight at the same time
+     */
+    public int getMaxConcurrentExports() {
+        return maxConcurrentExports;
+    }
+
+    /**
+     * Sets the maximum number of exports in flight at the same time, retries and replays included. An export that
+     * exceeded the export timeout keeps its slot until the exporter completes it, so batches are rejected instead of
+     * piling up behind a stalled collector, and are then dropped or handed over to the retries when they are
+     * enabled. Default value ({@value #DEFAULT_MAX_CONCURRENT_EXPORTS}).
+     *
+     * @param maxConcurrentExports The maximum number of concurrent exports
+     */
+    public void setMaxConcurrentExports(int maxConcurrentExports) {
+        this.maxConcurrentExports = maxConcurrentExports;
+    }
+
+    /**
+     * @return The number of ring buffers used by the {@link SpanProcessorType#RING_BUFFER} processor
+     */
+    public int getStripes() {
+        return stripes;
+    }
+
+    /**
+     * Sets the number of ring buffers used by the {@link SpanProcessorType#RING_BUFFER} processor. The value is rounded
+     * up to the next power of two and the queue size is split evenly between the buffers. A thread always writes to
+     * the buffer picked by its thread id, Java does not expose the core a thread runs on. Default value (the number
+     * of available processors).
+     *
+     * @param stripes The number of ring buffers
+     */
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+
+    /**
+     * @return What the {@link SpanProcessorType#RING_BUFFER} processor does when a ring buffer is full
+     */
+    @NonNull
+    public BackPressurePolicy getBackPressure() {
+        return backPressure;
+    }
+
+    /**
+     * Sets what the {@link SpanProcessorType#RING_BUFFER} processor does when a ring buffer is full.
+     * Default value ({@code DROP_NEWEST}).
+     *
+     * @param backPressure The back-pressure policy
+     */
+    public void setBackPressure(@NonNull BackPressurePolicy backPressure) {
+        this.backPressure = backPressure;
+    }
+
+    /**
+     * @return How long to wait for a free slot under the {@link BackPressurePolicy#BLOCK} policy
+     */
+    @NonNull
+    public Duration getBlockTimeout() {
+        return blockTimeout;
+    }
+
+    /**
+     * Sets how long a thread ending a span waits for a free slot under the {@link BackPressurePolicy#BLOCK} policy
+     * before the span is dropped. Default value ({@value #DEFAULT_BLOCK_TIMEOUT_MILLIS} milliseconds).
+     *
+     * @param blockTimeout The block timeout
+     */
+    public void setBlockTimeout(@NonNull Duration blockTimeout) {
+        this.blockTimeout = blockTimeout;
+    }
+
+}
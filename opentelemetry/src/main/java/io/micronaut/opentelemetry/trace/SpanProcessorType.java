@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace;
+
+/**
+ * The span processor implementations that can be selected with {@code otel.traces.processor.type}.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public enum SpanProcessorType {
+
+    /**
+     * The SDK {@link io.opentelemetry.sdk.trace.export.BatchSpanProcessor}, backed by a single shared queue.
+     */
+    BATCH,
+
+    /**
+     * The {@link RingBufferSpanProcessor}, backed by striped lock-free ring buffers.
+     */
+    RING_BUFFER
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace;
+
+import io.opentelemetry.sdk.trace.ReadableSpan;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free ring buffer of ended spans. Every slot carries a sequence number that tells producers
+ * and consumers whether it is free to write or ready to read, so neither side ever takes a lock. Any thread
+ * may poll, which lets producers evict the oldest span under the {@link BackPressurePolicy#DROP_OLDEST} policy.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+final class SpanRingBuffer {
+
+    private final AtomicReferenceArray<ReadableSpan> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity The capacity, rounded up to the next power of two
+     */
+    SpanRingBuffer(int capacity) {
+        int size = ceilingPowerOfTwo(capacity);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return The number of slots
+     */
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return The approximate number of buffered spans
+     */
+    int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    /**
+     * Adds a span unless the buffer is full.
+     *
+     * @param span The span
+     * @return Whether the span was added
+     */
+    boolean offer(ReadableSpan span) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, span);
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+            position = tail.get();
+        }
+    }
+
+    /**
+     * Removes the oldest span.
+     *
+     * @return The oldest span or {@code null} if the buffer is empty
+     */
+    ReadableSpan poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    ReadableSpan span = slots.get(index);
+                    slots.lazySet(index, null);
+                    sequences.lazySet(index, position + mask + 1);
+                    return span;
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+            position = head.get();
+        }
+    }
+
+    /**
+     * @param value The value
+     * @return The smallest power of two that is greater than or equal to the value
+     */
+    static int ceilingPowerOfTwo(int value) {
+        if (value <= 1) {
+            return 1;
+        }
+        return Integer.highestOneBit(value - 1) << 1;
+    }
+
+}
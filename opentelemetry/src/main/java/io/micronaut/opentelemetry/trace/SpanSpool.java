@@ -0,0 +1,211 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A size-capped FIFO of byte records in a memory-mapped file, written as a ring: when a new record does not fit,
+ * the oldest records are evicted. Read and write positions are kept in the file header, so records spooled before
+ * a restart are still there afterwards.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+final class SpanSpool implements Closeable {
+
+    private static final int MAGIC = 0x4d4f5350;
+    private static final int VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int HEAD_OFFSET = 8;
+    private static final int TAIL_OFFSET = 16;
+    private static final int HEADER_SIZE = 32;
+    private static final int LENGTH_SIZE = 4;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long capacity;
+    private long head;
+    private long tail;
+    private boolean closed;
+
+    /**
+     * Opens the spool file, creating it if necessary. An existing file of another size or format is reset.
+     *
+     * @param path    The spool file
+     * @param maxSize The size of the spool file in bytes
+     * @throws IOException If the file cannot be opened or mapped
+     */
+    SpanSpool(Path path, long maxSize) throws IOException {
+        int size = (int) Math.min(Integer.MAX_VALUE, Math.max(HEADER_SIZE + LENGTH_SIZE + 1, maxSize));
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean reset = channel.size() != size;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        this.capacity = size - HEADER_SIZE;
+        if (!reset && buffer.getInt(MAGIC_OFFSET) == MAGIC && buffer.getInt(VERSION_OFFSET) == VERSION) {
+            this.head = buffer.getLong(HEAD_OFFSET);
+            this.tail = buffer.getLong(TAIL_OFFSET);
+            reset = head < 0 || tail < head || tail - head > capacity;
+        } else {
+            reset = true;
+        }
+        if (reset) {
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+            buffer.putInt(VERSION_OFFSET, VERSION);
+            this.head = 0;
+            this.tail = 0;
+            writePositions();
+        }
+    }
+
+    /**
+     * Appends a record, evicting the oldest records until it fits.
+     *
+     * @param record The record
+     * @return The number of evicted records or {@code -1} if the record is larger than the spool and was not added
+     */
+    synchronized int append(byte[] record) {
+        long required = LENGTH_SIZE + (long) record.length;
+        if (closed || required > capacity) {
+            return -1;
+        }
+        int evicted = 0;
+        while (capacity - (tail - head) < required) {
+            int length = readLength(head);
+            if (length < 0 || LENGTH_SIZE + (long) length > tail - head) {
+                head = tail;
+                break;
+            }
+            head += LENGTH_SIZE + length;
+            evicted++;
+        }
+        writeInt(tail, record.length);
+        write(tail + LENGTH_SIZE, record);
+        tail += required;
+        writePositions();
+        return evicted;
+    }
+
+    /**
+     * @return The oldest record or {@code null} if the spool is empty
+     */
+    synchronized Record peek() {
+        if (closed || head == tail) {
+            return null;
+        }
+        int length = readLength(head);
+        if (length < 0 || LENGTH_SIZE + (long) length > tail - head) {
+            // the file was corrupted, everything after the read position is unusable
+            head = tail;
+            writePositions();
+            return null;
+        }
+        byte[] data = new byte[length];
+        read(head + LENGTH_SIZE, data);
+        return new Record(head, data);
+    }
+
+    /**
+     * Removes the given record if it is still the oldest one, that is, if it was not evicted in the meantime.
+     *
+     * @param record A record returned by {@link #peek()}
+     */
+    synchronized void remove(Record record) {
+        if (!closed && head == record.position) {
+            head += LENGTH_SIZE + record.data.length;
+            writePositions();
+        }
+    }
+
+    /**
+     * @return The number of bytes used by spooled records
+     */
+    synchronized long size() {
+        return tail - head;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer.force();
+        channel.close();
+    }
+
+    private int readLength(long position) {
+        byte[] bytes = new byte[LENGTH_SIZE];
+        read(position, bytes);
+        return ((bytes[0] & 0xff) << 24) | ((bytes[1] & 0xff) << 16) | ((bytes[2] & 0xff) << 8) | (bytes[3] & 0xff);
+    }
+
+    private void writeInt(long position, int value) {
+        write(position, new byte[] {(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value});
+    }
+
+    private void write(long position, byte[] bytes) {
+        int offset = (int) (position % capacity);
+        int first = (int) Math.min(bytes.length, capacity - offset);
+        buffer.position(HEADER_SIZE + offset);
+        buffer.put(bytes, 0, first);
+        if (first < bytes.length) {
+            buffer.position(HEADER_SIZE);
+            buffer.put(bytes, first, bytes.length - first);
+        }
+    }
+
+    private void read(long position, byte[] bytes) {
+        int offset = (int) (position % capacity);
+        int first = (int) Math.min(bytes.length, capacity - offset);
+        buffer.position(HEADER_SIZE + offset);
+        buffer.get(bytes, 0, first);
+        if (first < bytes.length) {
+            buffer.position(HEADER_SIZE);
+            buffer.get(bytes, first, bytes.length - first);
+        }
+    }
+
+    private void writePositions() {
+        buffer.putLong(HEAD_OFFSET, head);
+        buffer.putLong(TAIL_OFFSET, tail);
+    }
+
+    /**
+     * A spooled record and its position in the spool.
+     */
+    static final class Record {
+
+        final long position;
+        final byte[] data;
+
+        Record(long position, byte[] data) {
+            this.position = position;
+            this.data = data;
+        }
+    }
+
+}
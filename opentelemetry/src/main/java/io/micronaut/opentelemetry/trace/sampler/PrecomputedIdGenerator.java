@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace.sampler;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.IdGenerator;
+
+/**
+ * An {@link IdGenerator} that hands out a trace id generated before the span was started. Instrumentation that takes
+ * the sampling decision of a root span in advance stores the trace id along with the decision, see
+ * {@link PrecomputedSampler#withDecision(io.opentelemetry.context.Context, String,
+ * io.opentelemetry.sdk.trace.samplers.SamplingResult)}, and makes that context current while it starts the span, so
+ * that the span carries the trace id the decision was taken on. The id is only handed out while the current context
+ * carries the decision of a root span and no span of its own, so the spans started later from that context, or
+ * from the context of the started span, get ids of their own.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public final class PrecomputedIdGenerator implements IdGenerator {
+
+    private final IdGenerator delegate;
+
+    /**
+     * @param delegate The generator used when no trace id was generated in advance
+     */
+    public PrecomputedIdGenerator(IdGenerator delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String generateSpanId() {
+        return delegate.generateSpanId();
+    }
+
+    @Override
+    public String generateTraceId() {
+        String traceId = PrecomputedSampler.rootTraceId(Context.current());
+        return traceId != null ? traceId : delegate.generateTraceId();
+    }
+
+    @Override
+    public String toString() {
+        return "PrecomputedIdGenerator{delegate=" + delegate + '}';
+    }
+
+}
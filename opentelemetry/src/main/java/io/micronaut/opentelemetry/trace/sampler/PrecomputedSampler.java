@@ -0,0 +1,127 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace.sampler;
+
+import io.micronaut.core.annotation.Nullable;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+import java.util.List;
+
+/**
+ * A {@link Sampler} that honours a sampling decision taken before the span was started. Instrumentation that
+ * consults the sampler itself, for example to skip attribute extraction for dropped requests, stores the decision
+ * and the trace id it was taken on in the parent context with {@link #withDecision(Context, String, SamplingResult)},
+ * so that the span started from that context is not sampled a second time. The stored decision is never modified:
+ * it only applies to a span whose trace id and parent match the ones it was taken for, which excludes the children
+ * of that span even though their contexts carry the decision too.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public final class PrecomputedSampler implements Sampler {
+
+    private static final ContextKey<Decision> DECISION_KEY = ContextKey.named("micronaut-precomputed-sampling-decision");
+
+    private final Sampler delegate;
+
+    /**
+     * @param delegate The sampler consulted when no decision was taken in advance
+     */
+    public PrecomputedSampler(Sampler delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Stores a sampling decision for the span started from the returned context. When the context has no valid
+     * parent span, the context must be current while the span is started, so that a {@link PrecomputedIdGenerator}
+     * hands out the trace id the decision was taken on.
+     *
+     * @param context The parent context
+     * @param traceId The trace id the decision was taken on
+     * @param result  The sampling decision, may be {@code null}
+     * @return The context carrying the decision
+     */
+    public static Context withDecision(Context context, String traceId, @Nullable SamplingResult result) {
+        if (result == null) {
+            return context;
+        }
+        return context.with(DECISION_KEY, new Decision(traceId, Span.fromContext(context).getSpanContext(), result));
+    }
+
+    /**
+     * @param context The current context
+     * @return The trace id of the root span about to be started from the context, or {@code null}
+     */
+    @Nullable
+    static String rootTraceId(Context context) {
+        Decision decision = context.get(DECISION_KEY);
+        if (decision == null || decision.parent.isValid() || Span.fromContext(context).getSpanContext().isValid()) {
+            return null;
+        }
+        return decision.traceId;
+    }
+
+    @Override
+    public SamplingResult shouldSample(Context parentContext,
+                                       String traceId,
+                                       String name,
+                                       SpanKind spanKind,
+                                       Attributes attributes,
+                                       List<LinkData> parentLinks) {
+        Decision decision = parentContext.get(DECISION_KEY);
+        if (decision != null
+                && decision.traceId.equals(traceId)
+                && decision.parent.equals(Span.fromContext(parentContext).getSpanContext())) {
+            return decision.result;
+        }
+        return delegate.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+    }
+
+    @Override
+    public String getDescription() {
+        return delegate.getDescription();
+    }
+
+    @Override
+    public String toString() {
+        return getDescription();
+    }
+
+    /**
+     * A sampling decision and the trace id and parent it was taken for.
+     */
+    private static final class Decision {
+
+        private final String traceId;
+        private final SpanContext parent;
+        private final SamplingResult result;
+
+        Decision(String traceId, SpanContext parent, SamplingResult result) {
+            this.traceId = traceId;
+            this.parent = parent;
+            this.result = result;
+        }
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace.sampler;
+
+import io.micronaut.context.annotation.EachProperty;
+import io.micronaut.context.annotation.Parameter;
+import io.micronaut.core.annotation.NonNull;
+import io.micronaut.core.annotation.Nullable;
+
+/**
+ * A rate limit applied to the spans of one HTTP route pattern or gRPC method pattern. For example:
+ *
+ * <pre>
+ * otel.traces.sampler.rate-limits.orders.http-route=/orders/**
+ * otel.traces.sampler.rate-limits.orders.spans-per-second=20
+ * otel.traces.sampler.rate-limits.health.grpc-method=grpc.health.v1.Health/*
+ * otel.traces.sampler.rate-limits.health.spans-per-second=0.1
+ * </pre>
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@EachProperty(RateLimitConfiguration.PREFIX)
+public class RateLimitConfiguration {
+
+    public static final String PREFIX = SamplerConfiguration.PREFIX + ".rate-limits";
+
+    private final String name;
+    private String httpRoute;
+    private String grpcMethod;
+    private double spansPerSecond;
+    private Double burst;
+
+    /**
+     * @param name The name of the rate limit
+     */
+    public RateLimitConfiguration(@Parameter String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return The name of the rate limit
+     */
+    @NonNull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The ant-style pattern matched against the route template of HTTP spans
+     */
+    @Nullable
+    public String getHttpRoute() {
+        return httpRoute;
+    }
+
+    /**
+     * Sets the ant-style pattern matched against the route template of HTTP spans, for example {@code /orders/**}.
+     *
+     * @param httpRoute The route pattern
+     */
+    public void setHttpRoute(@Nullable String httpRoute) {
+        this.httpRoute = httpRoute;
+    }
+
+    /**
+     * @return The pattern matched against the full method name of gRPC spans
+     */
+    @Nullable
+    public String getGrpcMethod() {
+        return grpcMethod;
+    }
+
+    /**
+     * Sets the pattern matched against the full method name of gRPC spans, in the form {@code service/method}.
+     * Either part may be {@code *}, for example {@code grpc.health.v1.Health/*}.
+     *
+     * @param grpcMethod The method pattern
+     */
+    public void setGrpcMethod(@Nullable String grpcMethod) {
+        this.grpcMethod = grpcMethod;
+    }
+
+    /**
+     * @return The number of spans sampled per second
+     */
+    public double getSpansPerSecond() {
+        return spansPerSecond;
+    }
+
+    /**
+     * Sets the number of spans sampled per second.
+     *
+     * @param spansPerSecond The number of spans sampled per second
+     */
+    public void setSpansPerSecond(double spansPerSecond) {
+        this.spansPerSecond = spansPerSecond;
+    }
+
+    /**
+     * @return The number of spans that may be sampled in a burst
+     */
+    public double getBurst() {
+        return burst != null ? burst : Math.max(1, spansPerSecond);
+    }
+
+    /**
+     * Sets the number of spans that may be sampled in a burst. Default value (one second worth of spans, at least one).
+     *
+     * @param burst The burst size
+     */
+    public void setBurst(double burst) {
+        this.burst = burst;
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace.sampler;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.Clock;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Sampler} that samples at most a fixed number of spans per second. The token bucket is kept as a single
+ * theoretical arrival time that is advanced with a compare-and-set, so the sampler never locks.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public final class RateLimitingSampler implements Sampler {
+
+    private static final SamplingResult SAMPLE = SamplingResult.recordAndSample();
+    private static final SamplingResult DROP = SamplingResult.drop();
+
+    private final Clock clock;
+    private final double spansPerSecond;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrivalTime;
+
+    /**
+     * @param spansPerSecond The number of spans sampled per second
+     * @param burst          The number of spans that may be sampled in a burst
+     */
+    public RateLimitingSampler(double spansPerSecond, double burst) {
+        this(spansPerSecond, burst, Clock.getDefault());
+    }
+
+    /**
+     * @param spansPerSecond The number of spans sampled per second
+     * @param burst          The number of spans that may be sampled in a burst
+     * @param clock          The clock the arrival times are read from
+     */
+    RateLimitingSampler(double spansPerSecond, double burst, Clock clock) {
+        this.clock = clock;
+        this.spansPerSecond = spansPerSecond;
+        this.intervalNanos = spansPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / spansPerSecond) : Long.MAX_VALUE;
+        this.toleranceNanos = spansPerSecond > 0 ? (long) (intervalNanos * (Math.max(1, burst) - 1)) : 0;
+        this.theoreticalArrivalTime = new AtomicLong(clock.nanoTime() - toleranceNanos);
+    }
+
+    @Override
+    public SamplingResult shouldSample(Context parentContext,
+                                       String traceId,
+                                       String name,
+                                       SpanKind spanKind,
+                                       Attributes attributes,
+                                       List<LinkData> parentLinks) {
+        return tryAcquire() ? SAMPLE : DROP;
+    }
+
+    @Override
+    public String getDescription() {
+        return "RateLimitingSampler{" + spansPerSecond + "}";
+    }
+
+    @Override
+    public String toString() {
+        return getDescription();
+    }
+
+    private boolean tryAcquire() {
+        if (intervalNanos == Long.MAX_VALUE) {
+            return false;
+        }
+        long now = clock.nanoTime();
+        while (true) {
+            long arrival = theoreticalArrivalTime.get();
+            long start = arrival - now > 0 ? arrival : now;
+            if (start - now > toleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrivalTime.compareAndSet(arrival, start + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+}
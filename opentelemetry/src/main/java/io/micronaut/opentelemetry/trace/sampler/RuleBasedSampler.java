@@ -0,0 +1,168 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace.sampler;
+
+import io.micronaut.core.util.PathMatcher;
+import io.micronaut.opentelemetry.instrumentation.grpc.GrpcMethodSampling;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link Sampler} that picks a {@link RateLimitingSampler} by matching the span name against the configured
+ * HTTP route and gRPC method patterns, then a trace id ratio sampler by matching the gRPC method patterns of the
+ * {@link GrpcMethodSampling sampling ratios} bound to the kind of the span, and falls back to another sampler for
+ * spans no rule applies to. HTTP span names are route templates such as {@code /orders/{id}} and gRPC span names
+ * are full method names such as {@code grpc.health.v1.Health/Check}, so the decision never depends on extracted
+ * span attributes. The sampler chosen for a span kind and name is cached, which keeps pattern matching off the hot
+ * path.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+public final class RuleBasedSampler implements Sampler {
+
+    private static final int MAX_CACHED_NAMES = 1024;
+
+    private final List<Rule> rules;
+    private final Sampler fallback;
+    private final Map<SpanKind, Map<String, Sampler>> samplersByKind = new EnumMap<>(SpanKind.class);
+
+    /**
+     * @param rateLimits The rate limits
+     * @param fallback   The sampler used for spans that no rate limit applies to
+     */
+    public RuleBasedSampler(List<RateLimitConfiguration> rateLimits, Sampler fallback) {
+        this(rateLimits, Collections.emptyList(), fallback);
+    }
+
+    /**
+     * @param rateLimits The rate limits
+     * @param samplings  The sampling ratios of the gRPC methods, matched after the rate limits
+     * @param fallback   The sampler used for spans that no rule applies to
+     */
+    public RuleBasedSampler(List<RateLimitConfiguration> rateLimits,
+                            List<? extends GrpcMethodSampling> samplings,
+                            Sampler fallback) {
+        this.rules = new ArrayList<>(rateLimits.size() + samplings.size());
+        for (RateLimitConfiguration rateLimit : rateLimits) {
+            Sampler sampler = new RateLimitingSampler(rateLimit.getSpansPerSecond(), rateLimit.getBurst());
+            if (rateLimit.getHttpRoute() != null) {
+                rules.add(new Rule(rateLimit.getHttpRoute(), true, null, sampler));
+            }
+            if (rateLimit.getGrpcMethod() != null) {
+                rules.add(new Rule(rateLimit.getGrpcMethod(), false, null, sampler));
+            }
+        }
+        for (GrpcMethodSampling sampling : samplings) {
+            if (sampling.getMethod() != null) {
+                Sampler sampler = Sampler.traceIdRatioBased(Math.max(0, Math.min(1, sampling.getRatio())));
+                rules.add(new Rule(sampling.getMethod(), false, sampling.getSpanKind(), sampler));
+            }
+        }
+        for (SpanKind spanKind : SpanKind.values()) {
+            samplersByKind.put(spanKind, new ConcurrentHashMap<>());
+        }
+        this.fallback = fallback;
+    }
+
+    @Override
+    public SamplingResult shouldSample(Context parentContext,
+                                       String traceId,
+                                       String name,
+                                       SpanKind spanKind,
+                                       Attributes attributes,
+                                       List<LinkData> parentLinks) {
+        return samplerFor(spanKind, name).shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+    }
+
+    @Override
+    public String getDescription() {
+        return "RuleBasedSampler{rules=" + rules.size() + ", fallback=" + fallback.getDescription() + "}";
+    }
+
+    @Override
+    public String toString() {
+        return getDescription();
+    }
+
+    /**
+     * @return The number of cached span names, over all span kinds
+     */
+    int cachedNames() {
+        int cachedNames = 0;
+        for (Map<String, Sampler> samplersByName : samplersByKind.values()) {
+            cachedNames += samplersByName.size();
+        }
+        return cachedNames;
+    }
+
+    private Sampler samplerFor(SpanKind spanKind, String name) {
+        if (rules.isEmpty()) {
+            return fallback;
+        }
+        Map<String, Sampler> samplersByName = samplersByKind.get(spanKind);
+        Sampler sampler = samplersByName.get(name);
+        if (sampler == null) {
+            sampler = match(spanKind, name);
+            if (samplersByName.size() < MAX_CACHED_NAMES) {
+                samplersByName.put(name, sampler);
+            }
+        }
+        return sampler;
+    }
+
+    private Sampler match(SpanKind spanKind, String name) {
+        boolean httpRoute = name.startsWith("/");
+        for (Rule rule : rules) {
+            if (rule.http == httpRoute
+                    && (rule.spanKind == null || rule.spanKind == spanKind)
+                    && PathMatcher.ANT.matches(rule.pattern, name)) {
+                return rule.sampler;
+            }
+        }
+        return fallback;
+    }
+
+    /**
+     * A sampler bound to a span name pattern and, optionally, a span kind.
+     */
+    private static final class Rule {
+
+        private final String pattern;
+        private final boolean http;
+        private final SpanKind spanKind;
+        private final Sampler sampler;
+
+        Rule(String pattern, boolean http, SpanKind spanKind, Sampler sampler) {
+            this.pattern = pattern;
+            this.http = http;
+            this.spanKind = spanKind;
+            this.sampler = sampler;
+        }
+    }
+
+}
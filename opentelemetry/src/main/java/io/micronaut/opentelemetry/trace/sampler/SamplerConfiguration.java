@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace.sampler;
+
+import io.micronaut.context.annotation.ConfigurationProperties;
+
+/**
+ * Configuration for the {@link io.opentelemetry.sdk.trace.samplers.Sampler} used by the tracer provider.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@ConfigurationProperties(SamplerConfiguration.PREFIX)
+public class SamplerConfiguration {
+
+    public static final String PREFIX = "otel.traces.sampler";
+
+    /**
+     * The default ratio of root spans that are sampled.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final double DEFAULT_RATIO = 1.0;
+
+    /**
+     * Whether spans follow the sampling decision of their parent by default.
+     */
+    @SuppressWarnings("WeakerAccess")
+    public static final boolean DEFAULT_PARENT_BASED = true;
+
+    private double ratio = DEFAULT_RATIO;
+    private boolean parentBased = DEFAULT_PARENT_BASED;
+
+    /**
+     * @return The ratio of root spans that are sampled
+     */
+    public double getRatio() {
+        return ratio;
+    }
+
+    /**
+     * Sets the ratio of root spans that are sampled when no rate limit matches the span. The decision is derived
+     * from the trace id. Default value ({@value #DEFAULT_RATIO}).
+     *
+     * @param ratio The ratio between 0 and 1
+     */
+    public void setRatio(double ratio) {
+        this.ratio = ratio;
+    }
+
+    /**
+     * @return Whether spans follow the sampling decision of their parent
+     */
+    public boolean isParentBased() {
+        return parentBased;
+    }
+
+    /**
+     * Sets whether spans with a parent follow the sampling decision of that parent, so that rate limits and the
+     * ratio only apply to root spans. Default value ({@value #DEFAULT_PARENT_BASED}).
+     *
+     * @param parentBased Whether spans follow the sampling decision of their parent
+     */
+    public void setParentBased(boolean parentBased) {
+        this.parentBased = parentBased;
+    }
+
+}
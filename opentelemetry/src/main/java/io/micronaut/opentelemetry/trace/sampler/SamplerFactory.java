@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace.sampler;
+
+import io.micronaut.context.annotation.Bean;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.opentelemetry.instrumentation.grpc.GrpcMethodSampling;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import jakarta.inject.Singleton;
+
+import java.util.List;
+
+/**
+ * Factory that builds the {@link Sampler} used by the tracer provider. Replace the bean to plug in a custom sampler.
+ *
+ * @author Alexey Zhokhov
+ * @since 1.0
+ */
+@Factory
+public class SamplerFactory {
+
+    /**
+     * The sampler.
+     *
+     * @param configuration The sampler configuration
+     * @param rateLimits    The rate limits
+     * @param samplings     The sampling ratios of the gRPC methods
+     * @return The sampler
+     */
+    @Singleton
+    @Bean
+    protected Sampler otelSampler(SamplerConfiguration configuration,
+                                  List<RateLimitConfiguration> rateLimits,
+                                  List<GrpcMethodSampling> samplings) {
+        Sampler root = configuration.getRatio() >= 1.0
+                ? Sampler.alwaysOn()
+                : Sampler.traceIdRatioBased(configuration.getRatio());
+        if (!rateLimits.isEmpty() || !samplings.isEmpty()) {
+            root = new RuleBasedSampler(rateLimits, samplings, root);
+        }
+        return configuration.isParentBased() ? Sampler.parentBased(root) : root;
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.exporter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micronaut.context.ApplicationContext;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exports the same spans to a fake OTLP/HTTP collector with and without compression, and compares the request body
+ * bytes received on the wire.
+ */
+class OtlpExporterCompressionTest {
+
+    private static final int SPANS = 200;
+
+    private HttpServer collector;
+    private final List<Request> requests = new ArrayList<>();
+
+    @BeforeEach
+    void startCollector() throws IOException {
+        collector = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        collector.createContext("/", this::receive);
+        collector.start();
+    }
+
+    @AfterEach
+    void stopCollector() {
+        collector.stop(0);
+    }
+
+    @Test
+    void gzipCompressionShrinksTheRequestsOnTheWire() throws IOException {
+        List<SpanData> spans = spans();
+
+        Request uncompressed = export(OtlpCompression.NONE, spans);
+        Request compressed = export(OtlpCompression.GZIP, spans);
+
+        assertNull(uncompressed.contentEncoding);
+        assertEquals("gzip", compressed.contentEncoding);
+        assertEquals(uncompressed.body.length, gunzip(compressed.body).length);
+        assertTrue(compressed.body.length * 2 < uncompressed.body.length,
+                "gzip: " + compressed.body.length + " bytes, none: " + uncompressed.body.length + " bytes");
+    }
+
+    private Request export(OtlpCompression compression, List<SpanData> spans) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("otel.exporter.otlp.protocol", "http_protobuf");
+        properties.put("otel.exporter.otlp.endpoint", "http://localhost:" + collector.getAddress().getPort());
+        properties.put("otel.exporter.otlp.compression", compression.name());
+        try (ApplicationContext context = ApplicationContext.run(properties)) {
+            SpanExporter exporter = context.getBean(SpanExporter.class);
+            CompletableResultCode result = exporter.export(spans).join(10, TimeUnit.SECONDS);
+            assertTrue(result.isSuccess());
+        }
+        synchronized (requests) {
+            Request request = requests.stream()
+                    .filter(r -> r.path.equals("/v1/traces"))
+                    .reduce((first, second) -> second)
+                    .orElseThrow(() -> new AssertionError("No span export received"));
+            requests.clear();
+            return request;
+        }
+    }
+
+    private static List<SpanData> spans() {
+        List<SpanData> spans = new ArrayList<>();
+        SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(new CollectingSpanExporter(spans)))
+                .build();
+        for (int i = 0; i < SPANS; i++) {
+            Span span = tracerProvider.get("test").spanBuilder("GET /books/{id}")
+                    .setAttribute(AttributeKey.stringKey("http.method"), "GET")
+                    .setAttribute(AttributeKey.stringKey("http.route"), "/books/{id}")
+                    .setAttribute(AttributeKey.longKey("http.status_code"), 200L)
+                    .startSpan();
+            span.end();
+        }
+        tracerProvider.close();
+        return spans;
+    }
+
+    private void receive(HttpExchange exchange) throws IOException {
+        Request request = new Request(exchange.getRequestURI().getPath(),
+                exchange.getRequestHeaders().getFirst("Content-Encoding"),
+                readAll(exchange.getRequestBody()));
+        synchronized (requests) {
+            requests.add(request);
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/x-protobuf");
+        exchange.sendResponseHeaders(200, -1);
+        exchange.close();
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        return readAll(new GZIPInputStream(new ByteArrayInputStream(body)));
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static final class Request {
+
+        private final String path;
+        private final String contentEncoding;
+        private final byte[] body;
+
+        Request(String path, String contentEncoding, byte[] body) {
+            this.path = path;
+            this.contentEncoding = contentEncoding;
+            this.body = body;
+        }
+    }
+
+    private static final class CollectingSpanExporter implements SpanExporter {
+
+        private final List<SpanData> spans;
+
+        CollectingSpanExporter(List<SpanData> spans) {
+            this.spans = spans;
+        }
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> batch) {
+            spans.addAll(batch);
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.exporter;
+
+import io.micronaut.context.ApplicationContext;
+import io.opentelemetry.sdk.logs.SdkLogEmitterProvider;
+import io.opentelemetry.sdk.logs.export.LogExporter;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks which protocol and endpoint settings create the log pipeline, whose exporter only supports gRPC.
+ */
+class OtlpLogExporterConditionTest {
+
+    @Test
+    void logsAreExportedWithTheGrpcProtocol() {
+        try (ApplicationContext context = ApplicationContext.run(properties(null, null))) {
+            assertTrue(context.containsBean(LogExporter.class));
+            assertTrue(context.containsBean(SdkLogEmitterProvider.class));
+        }
+    }
+
+    @Test
+    void logsAreNotExportedWithTheHttpProtocolAndNoLogsEndpoint() {
+        try (ApplicationContext context = ApplicationContext.run(properties("http_protobuf", null))) {
+            assertFalse(context.containsBean(LogExporter.class));
+            assertFalse(context.containsBean(SdkLogEmitterProvider.class));
+        }
+    }
+
+    @Test
+    void logsAreExportedWithTheHttpProtocolAndALogsEndpoint() {
+        try (ApplicationContext context = ApplicationContext.run(properties("http_protobuf", "http://collector:4317"))) {
+            assertTrue(context.containsBean(LogExporter.class));
+            assertTrue(context.containsBean(SdkLogEmitterProvider.class));
+        }
+    }
+
+    private static Map<String, Object> properties(String protocol, String logsEndpoint) {
+        Map<String, Object> properties = new HashMap<>();
+        if (protocol != null) {
+            properties.put(OtlpExporterConfiguration.PROTOCOL, protocol);
+        }
+        if (logsEndpoint != null) {
+            properties.put(OtlpLogExporterConfiguration.ENDPOINT, logsEndpoint);
+        }
+        return properties;
+    }
+
+}
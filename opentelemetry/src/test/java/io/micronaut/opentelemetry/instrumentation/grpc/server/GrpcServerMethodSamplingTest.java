@@ -0,0 +1,210 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.grpc.server;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.micronaut.opentelemetry.trace.sampler.RuleBasedSampler;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs server calls through the tracing interceptor with a sampling ratio of 0 on the called method, and checks
+ * that the context of the caller is still extracted and made current for the handler.
+ */
+class GrpcServerMethodSamplingTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final Metadata.Key<String> TRACEPARENT =
+            Metadata.Key.of("traceparent", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+    private ServerInterceptor interceptor;
+
+    @BeforeEach
+    void createInterceptor() {
+        GrpcServerMethodSamplingConfiguration sampling = new GrpcServerMethodSamplingConfiguration("books");
+        sampling.setMethod("books.BookService/*");
+        sampling.setRatio(0);
+        Sampler sampler = Sampler.parentBased(new RuleBasedSampler(
+                Collections.emptyList(), Collections.singletonList(sampling), Sampler.alwaysOn()));
+        OpenTelemetrySdk openTelemetry = OpenTelemetrySdk.builder()
+                .setTracerProvider(SdkTracerProvider.builder()
+                        .setSampler(sampler)
+                        .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                        .build())
+                .setPropagators(ContextPropagators.create(W3CTraceContextPropagator.getInstance()))
+                .build();
+        interceptor = new GrpcServerTracingInterceptorFactory()
+                .serverTracingInterceptor(new GrpcServerTracingInterceptorConfiguration(openTelemetry));
+    }
+
+    @Test
+    void sampledOutRootCallStillStartsATrace() {
+        SpanContext current = call("books.BookService", null);
+
+        assertTrue(current.isValid());
+        assertFalse(current.isSampled());
+        assertTrue(exporter.getFinishedSpanItems().isEmpty());
+    }
+
+    @Test
+    void callContinuingAnUnsampledTraceKeepsItsTraceId() {
+        SpanContext current = call("books.BookService", "00-" + TRACE_ID + "-00f067aa0ba902b7-00");
+
+        assertEquals(TRACE_ID, current.getTraceId());
+        assertFalse(current.isSampled());
+        assertTrue(exporter.getFinishedSpanItems().isEmpty());
+    }
+
+    @Test
+    void callContinuingASampledTraceIsTraced() {
+        SpanContext current = call("books.BookService", "00-" + TRACE_ID + "-00f067aa0ba902b7-01");
+
+        assertEquals(TRACE_ID, current.getTraceId());
+        assertTrue(current.isSampled());
+        List<SpanData> spans = exporter.getFinishedSpanItems();
+        assertEquals(1, spans.size());
+        assertEquals("books.BookService/Find", spans.get(0).getName());
+    }
+
+    @Test
+    void excludedCallSkipsTheTracingInterceptor() {
+        SpanContext current = call("grpc.health.v1.Health", "00-" + TRACE_ID + "-00f067aa0ba902b7-01");
+
+        assertFalse(current.isValid());
+        assertTrue(exporter.getFinishedSpanItems().isEmpty());
+    }
+
+    private SpanContext call(String service, String traceparent) {
+        Metadata headers = new Metadata();
+        if (traceparent != null) {
+            headers.put(TRACEPARENT, traceparent);
+        }
+        MethodDescriptor<String, String> method = MethodDescriptor.<String, String>newBuilder()
+                .setType(MethodDescriptor.MethodType.UNARY)
+                .setFullMethodName(MethodDescriptor.generateFullMethodName(service, "Find"))
+                .setRequestMarshaller(StringMarshaller.INSTANCE)
+                .setResponseMarshaller(StringMarshaller.INSTANCE)
+                .build();
+        CapturingHandler handler = new CapturingHandler();
+        ServerCall.Listener<String> listener = interceptor.interceptCall(new StubServerCall(method), headers, handler);
+        listener.onMessage("request");
+        listener.onHalfClose();
+        listener.onComplete();
+        return handler.current;
+    }
+
+    /**
+     * Records the span context current when the request is handled, and closes the call.
+     */
+    private static final class CapturingHandler implements ServerCallHandler<String, String> {
+
+        private SpanContext current;
+
+        @Override
+        public ServerCall.Listener<String> startCall(ServerCall<String, String> call, Metadata headers) {
+            return new ServerCall.Listener<String>() {
+                @Override
+                public void onHalfClose() {
+                    current = Span.current().getSpanContext();
+                    call.close(Status.OK, new Metadata());
+                }
+            };
+        }
+    }
+
+    /**
+     * A server call that drops what it is sent.
+     */
+    private static final class StubServerCall extends ServerCall<String, String> {
+
+        private final MethodDescriptor<String, String> method;
+
+        StubServerCall(MethodDescriptor<String, String> method) {
+            this.method = method;
+        }
+
+        @Override
+        public void request(int numMessages) {
+        }
+
+        @Override
+        public void sendHeaders(Metadata headers) {
+        }
+
+        @Override
+        public void sendMessage(String message) {
+        }
+
+        @Override
+        public void close(Status status, Metadata trailers) {
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public MethodDescriptor<String, String> getMethodDescriptor() {
+            return method;
+        }
+    }
+
+    /**
+     * Encodes the messages as UTF-8, the stub transport never parses them.
+     */
+    private enum StringMarshaller implements MethodDescriptor.Marshaller<String> {
+
+        INSTANCE;
+
+        @Override
+        public InputStream stream(String value) {
+            return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String parse(InputStream stream) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http.server;
+
+import io.micronaut.core.util.PathMatcher;
+import io.micronaut.http.HttpMethod;
+import io.micronaut.http.HttpRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpServerExclusionMatcherTest {
+
+    private static final List<String> PATTERNS = Arrays.asList(
+            "/health",
+            "/health/**",
+            "/metrics",
+            "/api/*/items",
+            "/static/**/*.js",
+            "/users/{id}",
+            "/files/?.txt");
+
+    @Test
+    void anExactPathDoesNotExcludeALongerPath() {
+        HttpServerExclusionMatcher matcher = matcher(Collections.singletonList("/metrics"), Collections.emptyList());
+
+        assertTrue(matcher.isExcluded("/metrics"));
+        assertFalse(matcher.isExcluded("/metricsz"));
+        assertFalse(matcher.isExcluded("/metrics/"));
+        assertFalse(matcher.isExcluded("/metric"));
+        assertFalse(matcher.isExcluded("/"));
+        assertFalse(matcher.isExcluded(""));
+    }
+
+    @Test
+    void aPrefixPatternStopsAtThePathSegmentBoundary() {
+        HttpServerExclusionMatcher matcher = matcher(Collections.singletonList("/health/**"), Collections.emptyList());
+
+        assertTrue(matcher.isExcluded("/health"));
+        assertTrue(matcher.isExcluded("/health/"));
+        assertTrue(matcher.isExcluded("/health/liveness"));
+        assertTrue(matcher.isExcluded("/health/a/b/c"));
+        assertFalse(matcher.isExcluded("/healthz"));
+        assertFalse(matcher.isExcluded("/healthz/liveness"));
+        assertFalse(matcher.isExcluded("/heal"));
+        assertFalse(matcher.isExcluded("/api/health"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/health", "/healthz", "/health/", "/health/liveness", "/metrics", "/metrics/x",
+            "/api/v1/items", "/api/v1/v2/items", "/api/items", "/apix/v1/items", "/api/v1/items/1",
+            "/static/app.js", "/static/js/app.js", "/static/js/app.css", "/staticx/app.js",
+            "/users/1", "/users/1/orders", "/users", "/files/a.txt", "/files/ab.txt", "/", ""})
+    void antPatternsMatchLikeThePathMatcher(String path) {
+        HttpServerExclusionMatcher matcher = matcher(PATTERNS, Collections.emptyList());
+
+        boolean expected = PATTERNS.stream().anyMatch(pattern -> PathMatcher.ANT.matches(pattern, path));
+        assertEquals(expected, matcher.isExcluded(path), path);
+    }
+
+    @Test
+    void aRegexMustMatchTheWholePath() {
+        HttpServerExclusionMatcher matcher = matcher(Collections.emptyList(),
+                Arrays.asList("/internal/[a-z]+", ".*\\.ico"));
+
+        assertTrue(matcher.isExcluded("/internal/status"));
+        assertFalse(matcher.isExcluded("/internal/status/1"));
+        assertFalse(matcher.isExcluded("/internal/Status"));
+        assertFalse(matcher.isExcluded("/api/internal/status"));
+        assertTrue(matcher.isExcluded("/favicon.ico"));
+        assertFalse(matcher.isExcluded("/favicon.icon"));
+    }
+
+    @Test
+    void pathsAndRegexesAreCombined() {
+        HttpServerExclusionMatcher matcher = matcher(Collections.singletonList("/health/**"),
+                Collections.singletonList("/internal/.*"));
+
+        assertTrue(matcher.isExcluded("/health/liveness"));
+        assertTrue(matcher.isExcluded("/internal/status"));
+        assertFalse(matcher.isExcluded("/orders"));
+    }
+
+    @Test
+    void anExcludedMethodExcludesEveryPath() {
+        HttpServerTracingInterceptorConfiguration.ExcludeConfiguration configuration =
+                configuration(Collections.singletonList("/health/**"), Collections.emptyList());
+        configuration.setMethods(EnumSet.of(HttpMethod.OPTIONS, HttpMethod.HEAD));
+        HttpServerExclusionMatcher matcher = new HttpServerExclusionMatcher(configuration);
+
+        assertTrue(matcher.isExcluded(HttpRequest.create(HttpMethod.OPTIONS, "/orders")));
+        assertTrue(matcher.isExcluded(HttpRequest.create(HttpMethod.HEAD, "/orders")));
+        assertFalse(matcher.isExcluded(HttpRequest.create(HttpMethod.GET, "/orders")));
+        assertTrue(matcher.isExcluded(HttpRequest.create(HttpMethod.GET, "/health")));
+        assertFalse(matcher.isExcluded(HttpRequest.create(HttpMethod.GET, "/healthz")));
+    }
+
+    @Test
+    void nothingIsExcludedByDefault() {
+        HttpServerExclusionMatcher matcher = matcher(Collections.emptyList(), Collections.emptyList());
+
+        assertFalse(matcher.isExcluded(HttpRequest.create(HttpMethod.OPTIONS, "/health")));
+        assertFalse(matcher.isExcluded("/"));
+    }
+
+    private static HttpServerExclusionMatcher matcher(List<String> paths, List<String> regexes) {
+        return new HttpServerExclusionMatcher(configuration(paths, regexes));
+    }
+
+    private static HttpServerTracingInterceptorConfiguration.ExcludeConfiguration configuration(List<String> paths,
+                                                                                               List<String> regexes) {
+        HttpServerTracingInterceptorConfiguration.ExcludeConfiguration configuration =
+                new HttpServerTracingInterceptorConfiguration.ExcludeConfiguration();
+        configuration.setPaths(paths);
+        configuration.setRegexes(regexes);
+        return configuration;
+    }
+
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http.server;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.convert.exceptions.ConversionErrorException;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Body;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Error;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Post;
+import io.micronaut.opentelemetry.exporter.OtlpExporterFactory;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+import jakarta.inject.Singleton;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that a request whose error is handled by an {@link Error} route is traced with exactly one server span,
+ * whether the error is thrown by the controller, emitted by its publisher or emitted on another thread, and whether
+ * the error route is local, global or bound to a status.
+ */
+class OpenTelemetryServerFilterErrorRouteTest {
+
+    private static final String SPEC_NAME = "OpenTelemetryServerFilterErrorRouteTest";
+    private static final int MAX_REQUEST_SIZE = 1024;
+
+    private static EmbeddedServer server;
+    private static InMemorySpanExporter exporter;
+
+    @BeforeAll
+    static void startServer() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spec.name", SPEC_NAME);
+        properties.put("micronaut.server.port", -1);
+        properties.put("otel.metrics.enabled", false);
+        properties.put("micronaut.server.max-request-size", MAX_REQUEST_SIZE);
+        server = ApplicationContext.run(EmbeddedServer.class, properties);
+        exporter = server.getApplicationContext().getBean(InMemorySpanExporter.class);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        if (server != null) {
+            server.getApplicationContext().close();
+        }
+    }
+
+    @BeforeEach
+    void reset() {
+        flush();
+        exporter.reset();
+    }
+
+    @Test
+    void syncErrorHandledByLocalErrorRoute() throws IOException {
+        assertSingleServerSpan("/errors/sync", HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void reactiveErrorHandledByLocalErrorRoute() throws IOException {
+        assertSingleServerSpan("/errors/reactive", HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void asyncErrorHandledByLocalErrorRoute() throws IOException {
+        assertSingleServerSpan("/errors/async", HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void syncErrorHandledByGlobalErrorRoute() throws IOException {
+        assertSingleServerSpan("/errors/global", HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void asyncErrorHandledByGlobalErrorRoute() throws IOException {
+        assertSingleServerSpan("/errors/global-async", HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void missingRouteHandledByGlobalStatusRoute() throws IOException {
+        assertSingleServerSpan("/errors/missing", HttpStatus.GONE);
+    }
+
+    @Test
+    void bindingErrorHandledByGlobalErrorRoute() throws IOException {
+        assertSingleServerSpan("/errors/books/abc", HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void requestBodyTooLarge() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(server.getURL(), "/errors/body").openConnection();
+        try {
+            connection.setDoOutput(true);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", MediaType.TEXT_PLAIN);
+            try (OutputStream body = connection.getOutputStream()) {
+                body.write(new byte[MAX_REQUEST_SIZE * 2]);
+            }
+            assertEquals(HttpStatus.REQUEST_ENTITY_TOO_LARGE.getCode(), connection.getResponseCode());
+        } finally {
+            connection.disconnect();
+        }
+        List<SpanData> serverSpans = awaitServerSpans(1);
+        assertEquals(1, serverSpans.size(), () -> "Server spans: " + serverSpans);
+    }
+
+    @Test
+    void repeatedErrorRequestsAreTracedIndependently() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            assertEquals(HttpStatus.NOT_FOUND.getCode(), get("/errors/async"));
+            assertEquals(HttpStatus.NOT_FOUND.getCode(), get("/errors/sync"));
+        }
+        assertEquals(40, awaitServerSpans(40).size());
+    }
+
+    private void assertSingleServerSpan(String path, HttpStatus status) throws IOException {
+        assertEquals(status.getCode(), get(path));
+        List<SpanData> serverSpans = awaitServerSpans(1);
+        assertEquals(1, serverSpans.size(), () -> "Server spans: " + serverSpans);
+        assertEquals(status.getCode(), serverSpans.get(0).getAttributes().get(SemanticAttributes.HTTP_STATUS_CODE));
+    }
+
+    private static List<SpanData> serverSpans() {
+        return exporter.getFinishedSpanItems().stream()
+                .filter(span -> span.getKind() == SpanKind.SERVER)
+                .collect(Collectors.toList());
+    }
+
+    private static int get(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(server.getURL(), path).openConnection();
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * The server span ends once the response is written, which may be after the client read it, so the spans are
+     * flushed until the expected number of server spans was exported or a timeout elapses.
+     */
+    private static List<SpanData> awaitServerSpans(int count) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        List<SpanData> serverSpans;
+        do {
+            flush();
+            serverSpans = serverSpans();
+        } while (serverSpans.size() < count && deadline - System.nanoTime() > 0);
+        return serverSpans;
+    }
+
+    private static void flush() {
+        server.getApplicationContext().getBean(SdkTracerProvider.class).forceFlush().join(10, TimeUnit.SECONDS);
+    }
+
+    @Factory
+    @Requires(property = "spec.name", value = SPEC_NAME)
+    static class InMemoryExporterFactory {
+
+        @Singleton
+        @Replaces(bean = SpanExporter.class, factory = OtlpExporterFactory.class)
+        InMemorySpanExporter otelSpanExporter() {
+            return InMemorySpanExporter.create();
+        }
+    }
+
+    @Controller("/errors")
+    @Requires(property = "spec.name", value = SPEC_NAME)
+    static class ErrorController {
+
+        @Get("/sync")
+        public String sync() {
+            throw new BookNotFoundException();
+        }
+
+        @Get("/reactive")
+        public Publisher<String> reactive() {
+            return Mono.error(new BookNotFoundException());
+        }
+
+        @Get("/async")
+        public Publisher<String> async() {
+            return Mono.<String>error(new BookNotFoundException()).delaySubscription(Duration.ofMillis(5));
+        }
+
+        @Get("/global")
+        public String global() {
+            throw new IllegalStateException("conflict");
+        }
+
+        @Get("/global-async")
+        public Publisher<String> globalAsync() {
+            return Mono.<String>error(new IllegalStateException("conflict")).delaySubscription(Duration.ofMillis(5));
+        }
+
+        @Post(value = "/body", consumes = MediaType.TEXT_PLAIN)
+        public String body(@Body String body) {
+            return body;
+        }
+
+        @Get("/books/{id}")
+        public String book(long id) {
+            return "book " + id;
+        }
+
+        @Error(exception = BookNotFoundException.class)
+        public HttpResponse<String> notFound() {
+            return HttpResponse.notFound("not found");
+        }
+    }
+
+    @Controller
+    @Requires(property = "spec.name", value = SPEC_NAME)
+    static class GlobalErrorController {
+
+        @Error(global = true, exception = IllegalStateException.class)
+        public HttpResponse<String> conflict() {
+            return HttpResponse.status(HttpStatus.CONFLICT);
+        }
+
+        @Error(global = true, status = HttpStatus.NOT_FOUND)
+        public HttpResponse<String> gone() {
+            return HttpResponse.status(HttpStatus.GONE);
+        }
+
+        @Error(global = true, exception = ConversionErrorException.class)
+        public HttpResponse<String> badRequest() {
+            return HttpResponse.badRequest("bad request");
+        }
+    }
+
+    static class BookNotFoundException extends RuntimeException {
+    }
+
+}
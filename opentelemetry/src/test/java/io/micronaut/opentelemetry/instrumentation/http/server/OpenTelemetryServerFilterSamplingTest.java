@@ -0,0 +1,264 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.http.server;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.opentelemetry.exporter.OtlpExporterFactory;
+import io.micronaut.opentelemetry.trace.sampler.SamplerFactory;
+import io.micronaut.runtime.server.EmbeddedServer;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import jakarta.inject.Singleton;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the sampling decision the filter takes before starting the server span is the one the span gets: an
+ * unsampled request records no span but still carries a trace id, and a sampled request keeps the trace id its
+ * decision was taken on, without leaking that trace id or decision into the other spans of the request.
+ */
+class OpenTelemetryServerFilterSamplingTest {
+
+    private static final String SPEC_NAME = "OpenTelemetryServerFilterSamplingTest";
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String PARENT_SPAN_ID = "00f067aa0ba902b7";
+
+    private static EmbeddedServer server;
+    private static InMemorySpanExporter exporter;
+    private static RecordingSampler sampler;
+
+    @BeforeAll
+    static void startServer() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spec.name", SPEC_NAME);
+        properties.put("micronaut.server.port", -1);
+        server = ApplicationContext.run(EmbeddedServer.class, properties);
+        exporter = server.getApplicationContext().getBean(InMemorySpanExporter.class);
+        sampler = server.getApplicationContext().getBean(RecordingSampler.class);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        if (server != null) {
+            server.getApplicationContext().close();
+        }
+    }
+
+    @BeforeEach
+    void reset() {
+        flush();
+        exporter.reset();
+        sampler.reset();
+    }
+
+    @Test
+    void unsampledRootRequestRecordsNoSpanButCarriesTheSampledTraceId() throws IOException {
+        sampler.decision = SamplingDecision.DROP;
+
+        String[] current = get("/sampling/current", null);
+
+        List<String> sampledTraceIds = sampler.traceIds(SpanKind.SERVER);
+        assertEquals(1, sampledTraceIds.size());
+        assertEquals(sampledTraceIds.get(0), current[0]);
+        assertEquals("false", current[1]);
+        assertTrue(serverSpans().isEmpty());
+    }
+
+    @Test
+    void unsampledRequestContinuesTheTraceOfItsCaller() throws IOException {
+        sampler.decision = SamplingDecision.DROP;
+
+        String[] current = get("/sampling/current", "00-" + TRACE_ID + "-" + PARENT_SPAN_ID + "-01");
+
+        assertEquals(TRACE_ID, current[0]);
+        assertEquals("false", current[1]);
+        assertTrue(serverSpans().isEmpty());
+    }
+
+    @Test
+    void sampledRootRequestKeepsTheTraceIdItsDecisionWasTakenOn() throws IOException {
+        sampler.decision = SamplingDecision.RECORD_AND_SAMPLE;
+
+        String[] current = get("/sampling/current", null);
+
+        List<String> sampledTraceIds = sampler.traceIds(SpanKind.SERVER);
+        assertEquals(1, sampledTraceIds.size(), "the server span is sampled once");
+        SpanData span = awaitServerSpan();
+        assertEquals(sampledTraceIds.get(0), span.getTraceId());
+        assertEquals(span.getTraceId(), current[0]);
+        assertEquals(span.getSpanId(), current[2]);
+        assertEquals("true", current[1]);
+        assertNotEquals(span.getTraceId(), current[3], "a new root span started by the handler has its own trace id");
+        assertEquals(2, sampler.traceIds(SpanKind.INTERNAL).size(), "the handler spans are sampled on their own");
+    }
+
+    @Test
+    void sampledRequestContinuesTheTraceOfItsCaller() throws IOException {
+        sampler.decision = SamplingDecision.RECORD_AND_SAMPLE;
+
+        get("/sampling/current", "00-" + TRACE_ID + "-" + PARENT_SPAN_ID + "-01");
+
+        SpanData span = awaitServerSpan();
+        assertEquals(TRACE_ID, span.getTraceId());
+        assertEquals(PARENT_SPAN_ID, span.getParentSpanId());
+        assertEquals(1, sampler.traceIds(SpanKind.SERVER).size());
+    }
+
+    private static SpanData awaitServerSpan() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        List<SpanData> spans;
+        do {
+            spans = serverSpans();
+        } while (spans.isEmpty() && deadline - System.nanoTime() > 0);
+        assertEquals(1, spans.size());
+        return spans.get(0);
+    }
+
+    private static List<SpanData> serverSpans() {
+        flush();
+        return exporter.getFinishedSpanItems().stream()
+                .filter(span -> span.getKind() == SpanKind.SERVER)
+                .collect(Collectors.toList());
+    }
+
+    private static String[] get(String path, String traceparent) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(server.getURL(), path).openConnection();
+        if (traceparent != null) {
+            connection.setRequestProperty("traceparent", traceparent);
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+            assertEquals(200, connection.getResponseCode());
+            return reader.readLine().split(",");
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static void flush() {
+        server.getApplicationContext().getBean(SdkTracerProvider.class).forceFlush().join(10, TimeUnit.SECONDS);
+    }
+
+    @Factory
+    @Requires(property = "spec.name", value = SPEC_NAME)
+    static class TestFactory {
+
+        @Singleton
+        @Replaces(bean = SpanExporter.class, factory = OtlpExporterFactory.class)
+        InMemorySpanExporter otelSpanExporter() {
+            return InMemorySpanExporter.create();
+        }
+
+        @Singleton
+        @Replaces(bean = Sampler.class, factory = SamplerFactory.class)
+        RecordingSampler otelSampler() {
+            return new RecordingSampler();
+        }
+    }
+
+    @Controller("/sampling")
+    @Requires(property = "spec.name", value = SPEC_NAME)
+    static class SamplingController {
+
+        private final Tracer tracer;
+
+        SamplingController(Tracer tracer) {
+            this.tracer = tracer;
+        }
+
+        @Get("/current")
+        public String current() {
+            SpanContext current = Span.current().getSpanContext();
+            tracer.spanBuilder("child").startSpan().end();
+            Span root = tracer.spanBuilder("root").setNoParent().startSpan();
+            root.end();
+            return current.getTraceId() + "," + current.isSampled() + "," + current.getSpanId() + ","
+                    + root.getSpanContext().getTraceId();
+        }
+    }
+
+    /**
+     * Takes the decision it is told to for the server spans, samples the other spans, and records the trace ids
+     * it is asked about.
+     */
+    static final class RecordingSampler implements Sampler {
+
+        private final List<Object[]> calls = new ArrayList<>();
+        volatile SamplingDecision decision = SamplingDecision.RECORD_AND_SAMPLE;
+
+        synchronized void reset() {
+            calls.clear();
+        }
+
+        synchronized List<String> traceIds(SpanKind spanKind) {
+            return calls.stream()
+                    .filter(call -> call[1] == spanKind)
+                    .map(call -> (String) call[0])
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+                                           Attributes attributes, List<LinkData> parentLinks) {
+            synchronized (this) {
+                calls.add(new Object[] {traceId, spanKind});
+            }
+            return SamplingResult.create(spanKind == SpanKind.SERVER ? decision : SamplingDecision.RECORD_AND_SAMPLE);
+        }
+
+        @Override
+        public String getDescription() {
+            return "RecordingSampler";
+        }
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.jdbc;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.annotation.Factory;
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.inject.qualifiers.Qualifiers;
+import io.micronaut.opentelemetry.exporter.OtlpExporterFactory;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.instrumentation.jdbc.datasource.OpenTelemetryDataSource;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the statements executed against a {@link DataSource} bean are traced with a client span. The
+ * OpenTelemetry JDBC instrumentation binds its instrumenter to the global OpenTelemetry the first time it is used, so
+ * all the checks share one application context.
+ */
+class DataSourceTracingListenerTest {
+
+    private static final String SPEC_NAME = "DataSourceTracingListenerTest";
+
+    private static ApplicationContext context;
+    private static InMemorySpanExporter exporter;
+
+    @BeforeAll
+    static void startContext() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spec.name", SPEC_NAME);
+        properties.put("otel.metrics.enabled", false);
+        properties.put("otel.instrumentation.jdbc.excluded-datasources", Collections.singletonList("excluded"));
+        context = ApplicationContext.run(properties);
+        exporter = context.getBean(InMemorySpanExporter.class);
+    }
+
+    @AfterAll
+    static void stopContext() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @BeforeEach
+    void reset() {
+        flush();
+        exporter.reset();
+    }
+
+    @Test
+    void aQueryIsTracedWithAClientSpan() throws SQLException {
+        DataSource dataSource = context.getBean(DataSource.class, Qualifiers.byName("default"));
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE IF NOT EXISTS books (id INT PRIMARY KEY, title VARCHAR(64))");
+                statement.execute("MERGE INTO books VALUES (1, 'title')");
+            }
+            flush();
+            exporter.reset();
+            try (PreparedStatement statement = connection.prepareStatement("SELECT title FROM books WHERE id = 1")) {
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    assertTrue(resultSet.next());
+                    assertEquals("title", resultSet.getString(1));
+                }
+            }
+        }
+
+        flush();
+        List<SpanData> clientSpans = clientSpans();
+        assertEquals(1, clientSpans.size());
+        SpanData span = clientSpans.get(0);
+        assertEquals("h2", span.getAttributes().get(SemanticAttributes.DB_SYSTEM));
+        assertEquals("SELECT", span.getAttributes().get(SemanticAttributes.DB_OPERATION));
+        assertEquals("books", span.getAttributes().get(SemanticAttributes.DB_SQL_TABLE));
+        assertEquals("SELECT title FROM books WHERE id = ?", span.getAttributes().get(SemanticAttributes.DB_STATEMENT));
+    }
+
+    @Test
+    void theDataSourceBeansAreWrappedUnlessExcluded() throws SQLException {
+        DataSource traced = context.getBean(DataSource.class, Qualifiers.byName("default"));
+        DataSource excluded = context.getBean(DataSource.class, Qualifiers.byName("excluded"));
+
+        assertTrue(traced instanceof OpenTelemetryDataSource);
+        assertTrue(traced.unwrap(JdbcDataSource.class) instanceof JdbcDataSource);
+        assertFalse(excluded instanceof OpenTelemetryDataSource);
+        try (Connection connection = excluded.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SELECT 1");
+        }
+        flush();
+        assertTrue(clientSpans().isEmpty());
+    }
+
+    @Test
+    void aBeanDeclaredAsItsOwnTypeIsNotWrapped() {
+        assertSame(JdbcDataSource.class, context.getBean(JdbcDataSource.class).getClass());
+    }
+
+    private static List<SpanData> clientSpans() {
+        return exporter.getFinishedSpanItems().stream()
+                .filter(span -> span.getKind() == SpanKind.CLIENT)
+                .collect(Collectors.toList());
+    }
+
+    private static void flush() {
+        context.getBean(SdkTracerProvider.class).forceFlush().join(10, TimeUnit.SECONDS);
+    }
+
+    @Factory
+    @Requires(property = "spec.name", value = SPEC_NAME)
+    static class DataSourceFactory {
+
+        @Singleton
+        @Named("default")
+        DataSource defaultDataSource() {
+            return h2("books");
+        }
+
+        @Singleton
+        @Named("excluded")
+        DataSource excludedDataSource() {
+            return h2("excluded");
+        }
+
+        @Singleton
+        @Named("typed")
+        JdbcDataSource typedDataSource() {
+            return h2("typed");
+        }
+
+        @Singleton
+        @Replaces(bean = SpanExporter.class, factory = OtlpExporterFactory.class)
+        InMemorySpanExporter otelSpanExporter() {
+            return InMemorySpanExporter.create();
+        }
+
+        private static JdbcDataSource h2(String database) {
+            JdbcDataSource dataSource = new JdbcDataSource();
+            dataSource.setURL("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1");
+            return dataSource;
+        }
+    }
+
+}
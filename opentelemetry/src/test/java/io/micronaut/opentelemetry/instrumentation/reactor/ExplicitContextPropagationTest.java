@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.reactor;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.instrumentation.reactor.ContextPropagationOperator;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExplicitContextPropagationTest {
+
+    private final Context serverContext = context("00f067aa0ba902b7");
+    private final Context innerContext = context("53162ca64e048eb4");
+
+    @Test
+    void currentContextWinsOverTheReactorContext() {
+        Context parent;
+        try (Scope ignored = innerContext.makeCurrent()) {
+            parent = parentSeenBySubscription(Context.current());
+        }
+        assertEquals(innerContext, parent);
+    }
+
+    @Test
+    void reactorContextIsUsedWhenNoContextIsCurrent() {
+        assertEquals(serverContext, parentSeenBySubscription(Context.current()));
+    }
+
+    private Context parentSeenBySubscription(Context currentContext) {
+        return Flux.from(ExplicitContextPropagation.<Context>withContext(currentContext, Mono::just))
+                .contextWrite(reactorContext ->
+                        ContextPropagationOperator.storeOpenTelemetryContext(reactorContext, serverContext))
+                .blockFirst();
+    }
+
+    private static Context context(String spanId) {
+        return Context.root().with(Span.wrap(SpanContext.create("4bf92f3577b34da6a3ce929d0e0e4736", spanId,
+                TraceFlags.getSampled(), TraceState.getDefault())));
+    }
+
+}
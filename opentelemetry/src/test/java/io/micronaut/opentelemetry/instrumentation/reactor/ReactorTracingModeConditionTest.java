@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.reactor;
+
+import io.micronaut.context.ApplicationContext;
+import io.opentelemetry.instrumentation.reactor.ContextPropagationOperator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReactorTracingModeConditionTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "EACH_OPERATOR, true, false",
+            "each-operator, true, false",
+            "each_operator, true, false",
+            "LAST_OPERATOR, false, true",
+            "last-operator, false, true",
+            "last_operator, false, true",
+            "EXPLICIT, false, false",
+            "explicit, false, false"})
+    void theModeIsMatchedLikeTheConfigurationBindsIt(String mode, boolean eachOperator, boolean lastOperator) {
+        try (ApplicationContext context = ApplicationContext.run(
+                Collections.singletonMap(ReactorTracingConfiguration.MODE, mode))) {
+            assertEquals(eachOperator, context.containsBean(ContextPropagationOperator.class));
+            assertEquals(lastOperator, context.containsBean(ReactorLastOperatorContextPropagation.class));
+            assertEquals(mode.toUpperCase().replace('-', '_'),
+                    context.getBean(ReactorTracingConfiguration.class).getMode().name());
+        }
+    }
+
+    @Test
+    void eachOperatorIsTheDefault() {
+        try (ApplicationContext context = ApplicationContext.run()) {
+            assertTrue(context.containsBean(ContextPropagationOperator.class));
+            assertFalse(context.containsBean(ReactorLastOperatorContextPropagation.class));
+        }
+    }
+
+    @Test
+    void nothingIsPropagatedWhenDisabled() {
+        try (ApplicationContext context = ApplicationContext.run(Collections.singletonMap(
+                ReactorTracingConfiguration.ENABLED, false))) {
+            assertFalse(context.containsBean(ContextPropagationOperator.class));
+            assertFalse(context.containsBean(ReactorLastOperatorContextPropagation.class));
+        }
+    }
+
+}
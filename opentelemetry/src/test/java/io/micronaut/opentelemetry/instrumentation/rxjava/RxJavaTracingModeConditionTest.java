@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.instrumentation.rxjava;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.opentelemetry.instrumentation.rxjava.v2.RxJava2SchedulerContextPropagation;
+import io.micronaut.opentelemetry.instrumentation.rxjava.v3.RxJava3SchedulerContextPropagation;
+import io.opentelemetry.instrumentation.rxjava2.TracingAssembly;
+import jakarta.inject.Singleton;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RxJavaTracingModeConditionTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "ASSEMBLY, true",
+            "assembly, true",
+            "SCHEDULER, false",
+            "scheduler, false",
+            "Scheduler, false"})
+    void theModeIsMatchedLikeTheConfigurationBindsIt(String mode, boolean assembly) {
+        try (ApplicationContext context = ApplicationContext.run(
+                Collections.singletonMap(RxJavaTracingConfiguration.MODE, mode))) {
+            assertEquals(assembly, context.containsBean(TracingAssembly.class));
+            assertEquals(assembly, context.containsBean(io.opentelemetry.instrumentation.rxjava3.TracingAssembly.class));
+            assertEquals(!assembly, context.containsBean(RxJava2SchedulerContextPropagation.class));
+            assertEquals(!assembly, context.containsBean(RxJava3SchedulerContextPropagation.class));
+            assertEquals(mode.toUpperCase(), context.getBean(RxJavaTracingConfiguration.class).getMode().name());
+        }
+    }
+
+    @Test
+    void assemblyIsTheDefault() {
+        try (ApplicationContext context = ApplicationContext.run()) {
+            assertTrue(context.containsBean(TracingAssembly.class));
+            assertTrue(context.containsBean(io.opentelemetry.instrumentation.rxjava3.TracingAssembly.class));
+            assertFalse(context.containsBean(RxJava2SchedulerContextPropagation.class));
+            assertFalse(context.containsBean(RxJava3SchedulerContextPropagation.class));
+        }
+    }
+
+    @Test
+    void theAssemblyModeFallsBackToTheSchedulerWithoutTheTracingAssembly() {
+        try (ApplicationContext context = ApplicationContext.run()) {
+            assertFalse(context.containsBean(MissingAssemblyBean.class));
+            assertTrue(context.containsBean(MissingAssemblySchedulerBean.class));
+        }
+    }
+
+    @Test
+    void nothingIsPropagatedWhenDisabled() {
+        try (ApplicationContext context = ApplicationContext.run(Collections.singletonMap(
+                RxJavaTracingConfiguration.ENABLED, false))) {
+            assertFalse(context.containsBean(TracingAssembly.class));
+            assertFalse(context.containsBean(RxJava2SchedulerContextPropagation.class));
+            assertFalse(context.containsBean(RxJava3SchedulerContextPropagation.class));
+        }
+    }
+
+    /**
+     * Matches the assembly mode of an RxJava version whose {@code TracingAssembly} is not on the classpath.
+     */
+    static final class MissingAssembly extends RxJavaTracingModeCondition {
+
+        public MissingAssembly() {
+            super(RxJavaTracingMode.ASSEMBLY, "io.opentelemetry.instrumentation.missing.TracingAssembly");
+        }
+    }
+
+    /**
+     * Matches the scheduler mode of an RxJava version whose {@code TracingAssembly} is not on the classpath.
+     */
+    static final class MissingAssemblyScheduler extends RxJavaTracingModeCondition {
+
+        public MissingAssemblyScheduler() {
+            super(RxJavaTracingMode.SCHEDULER, "io.opentelemetry.instrumentation.missing.TracingAssembly");
+        }
+    }
+
+    @Singleton
+    @Requires(condition = MissingAssembly.class)
+    static class MissingAssemblyBean {
+    }
+
+    @Singleton
+    @Requires(condition = MissingAssemblyScheduler.class)
+    static class MissingAssemblySchedulerBean {
+    }
+
+}
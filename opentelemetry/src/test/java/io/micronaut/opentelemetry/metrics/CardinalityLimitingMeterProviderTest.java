@@ -0,0 +1,254 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.metrics;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleCounter;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.DoubleUpDownCounter;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.LongUpDownCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.DoublePointData;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.PointData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CardinalityLimitingMeterProviderTest {
+
+    private static final int MAX_CARDINALITY = 3;
+    private static final int SERIES = 5;
+    private static final AttributeKey<String> USER = AttributeKey.stringKey("user");
+
+    private final InMemoryMetricReader reader = new InMemoryMetricReader();
+    private final SdkMeterProvider sdkMeterProvider = SdkMeterProvider.builder().registerMetricReader(reader).build();
+    private final Meter meter = new CardinalityLimitingMeterProvider(sdkMeterProvider, MAX_CARDINALITY).get("test");
+
+    @AfterEach
+    void shutdown() {
+        sdkMeterProvider.shutdown();
+    }
+
+    static Stream<Arguments> instruments() {
+        return Stream.of(
+                instrument("long counter", false, (meter, series) -> {
+                    LongCounter counter = meter.counterBuilder("instrument").build();
+                    series.forEach(attributes -> counter.add(1, attributes));
+                }),
+                instrument("double counter", false, (meter, series) -> {
+                    DoubleCounter counter = meter.counterBuilder("instrument").ofDoubles().build();
+                    series.forEach(attributes -> counter.add(1, attributes));
+                }),
+                instrument("long up down counter", false, (meter, series) -> {
+                    LongUpDownCounter counter = meter.upDownCounterBuilder("instrument").build();
+                    series.forEach(attributes -> counter.add(1, attributes));
+                }),
+                instrument("double up down counter", false, (meter, series) -> {
+                    DoubleUpDownCounter counter =
+                            meter.upDownCounterBuilder("instrument").ofDoubles().build();
+                    series.forEach(attributes -> counter.add(1, attributes));
+                }),
+                instrument("double histogram", false, (meter, series) -> {
+                    DoubleHistogram histogram = meter.histogramBuilder("instrument").build();
+                    series.forEach(attributes -> histogram.record(1, attributes));
+                }),
+                instrument("long histogram", false, (meter, series) -> {
+                    LongHistogram histogram =
+                            meter.histogramBuilder("instrument").ofLongs().build();
+                    series.forEach(attributes -> histogram.record(1, attributes));
+                }),
+                instrument("observable long counter", false, (meter, series) -> meter.counterBuilder("instrument")
+                        .buildWithCallback(measurement -> series.forEach(attributes -> measurement.record(1, attributes)))),
+                instrument("observable double counter", false, (meter, series) -> meter.counterBuilder("instrument")
+                        .ofDoubles()
+                        .buildWithCallback(measurement -> series.forEach(attributes -> measurement.record(1, attributes)))),
+                instrument("observable long up down counter", false, (meter, series) -> meter.upDownCounterBuilder("instrument")
+                        .buildWithCallback(measurement -> series.forEach(attributes -> measurement.record(1, attributes)))),
+                instrument("observable double up down counter", false, (meter, series) -> meter.upDownCounterBuilder("instrument")
+                        .ofDoubles()
+                        .buildWithCallback(measurement -> series.forEach(attributes -> measurement.record(1, attributes)))),
+                instrument("double gauge", true, (meter, series) -> meter.gaugeBuilder("instrument")
+                        .buildWithCallback(measurement -> series.forEach(attributes -> measurement.record(1, attributes)))),
+                instrument("long gauge", true, (meter, series) -> meter.gaugeBuilder("instrument")
+                        .ofLongs()
+                        .buildWithCallback(measurement -> series.forEach(attributes -> measurement.record(1, attributes))))
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("instruments")
+    void seriesBeyondTheLimitAreCollapsedIntoTheOverflowSeries(String instrument,
+                                                               boolean gauge,
+                                                               BiConsumer<Meter, List<Attributes>> recorder) {
+        List<Attributes> series = new ArrayList<>();
+        for (int i = 0; i < SERIES; i++) {
+            series.add(Attributes.of(USER, "user-" + i));
+        }
+
+        recorder.accept(meter, series);
+
+        Map<Attributes, Double> points = points("instrument");
+        assertEquals(MAX_CARDINALITY + 1, points.size(), points.toString());
+        for (int i = 0; i < MAX_CARDINALITY; i++) {
+            assertEquals(1d, points.get(series.get(i)));
+        }
+        // a gauge keeps the last value recorded into the overflow series, the other instruments add them up
+        assertEquals(gauge ? 1d : SERIES - MAX_CARDINALITY, points.get(CardinalityLimiter.OVERFLOW));
+    }
+
+    @Test
+    void aSeriesSeenBeforeTheLimitWasReachedIsStillRecorded() {
+        LongCounter counter = meter.counterBuilder("requests").build();
+        for (int i = 0; i < SERIES; i++) {
+            counter.add(1, Attributes.of(USER, "user-" + i));
+        }
+        counter.add(10, Attributes.of(USER, "user-0"));
+        counter.add(10, Attributes.empty());
+
+        assertEquals(11, reader.longSum("requests", Attributes.of(USER, "user-0")));
+        assertEquals(10, reader.longSum("requests", Attributes.empty()));
+        assertEquals(SERIES - MAX_CARDINALITY, reader.longSum("requests", CardinalityLimiter.OVERFLOW));
+    }
+
+    @Test
+    void everyInstrumentHasItsOwnLimit() {
+        LongCounter first = meter.counterBuilder("first").build();
+        LongCounter second = meter.counterBuilder("second").build();
+        for (int i = 0; i < MAX_CARDINALITY; i++) {
+            first.add(1, Attributes.of(USER, "user-" + i));
+            second.add(1, Attributes.of(USER, "other-" + i));
+        }
+
+        assertEquals(0, reader.longSum("first", CardinalityLimiter.OVERFLOW));
+        assertEquals(0, reader.longSum("second", CardinalityLimiter.OVERFLOW));
+        assertEquals(MAX_CARDINALITY, points("first").size());
+        assertEquals(MAX_CARDINALITY, points("second").size());
+    }
+
+    @Test
+    void concurrentNewSeriesNeverExceedTheLimit() throws InterruptedException {
+        CardinalityLimiter limiter = new CardinalityLimiter(MAX_CARDINALITY);
+        Set<Attributes> admitted = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    IntStream.range(0, 100).forEach(i -> {
+                        Attributes limited = limiter.limit(Attributes.of(USER, thread + "-" + i));
+                        if (limited != CardinalityLimiter.OVERFLOW) {
+                            admitted.add(limited);
+                        }
+                    });
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(MAX_CARDINALITY, admitted.size());
+        for (Attributes attributes : admitted) {
+            assertSame(attributes, limiter.limit(attributes));
+        }
+    }
+
+    private static Arguments instrument(String name, boolean gauge, BiConsumer<Meter, List<Attributes>> recorder) {
+        return Arguments.of(name, gauge, recorder);
+    }
+
+    private Map<Attributes, Double> points(String name) {
+        Map<Attributes, Double> points = new HashMap<>();
+        for (MetricData metric : reader.collect()) {
+            if (metric.getName().equals(name)) {
+                for (PointData point : points(metric)) {
+                    points.put(point.getAttributes(), value(metric, point));
+                }
+            }
+        }
+        return points;
+    }
+
+    private static Collection<? extends PointData> points(MetricData metric) {
+        switch (metric.getType()) {
+            case LONG_SUM:
+                return metric.getLongSumData().getPoints();
+            case DOUBLE_SUM:
+                return metric.getDoubleSumData().getPoints();
+            case LONG_GAUGE:
+                return metric.getLongGaugeData().getPoints();
+            case DOUBLE_GAUGE:
+                return metric.getDoubleGaugeData().getPoints();
+            case HISTOGRAM:
+                return metric.getHistogramData().getPoints();
+            default:
+                throw new IllegalStateException("Unexpected metric type " + metric.getType());
+        }
+    }
+
+    private static double value(MetricData metric, PointData point) {
+        switch (metric.getType()) {
+            case LONG_SUM:
+            case LONG_GAUGE:
+                return ((LongPointData) point).getValue();
+            case DOUBLE_SUM:
+            case DOUBLE_GAUGE:
+                return ((DoublePointData) point).getValue();
+            case HISTOGRAM:
+                return ((HistogramPointData) point).getCount();
+            default:
+                throw new IllegalStateException("Unexpected metric type " + metric.getType());
+        }
+    }
+
+}
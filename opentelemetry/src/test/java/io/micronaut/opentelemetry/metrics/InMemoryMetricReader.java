@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.metrics;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.MetricProducer;
+import io.opentelemetry.sdk.metrics.export.MetricReader;
+import io.opentelemetry.sdk.metrics.export.MetricReaderFactory;
+
+import java.util.Collection;
+
+/**
+ * A metric reader that collects the metrics of the meter provider it is registered with on demand.
+ */
+public final class InMemoryMetricReader implements MetricReader, MetricReaderFactory {
+
+    private volatile MetricProducer producer;
+
+    @Override
+    public MetricReader apply(MetricProducer producer) {
+        this.producer = producer;
+        return this;
+    }
+
+    /**
+     * @return The current value of every metric
+     */
+    public Collection<MetricData> collect() {
+        return producer.collectAllMetrics();
+    }
+
+    /**
+     * @param name       The name of a long sum
+     * @param attributes The attributes of the point
+     * @return The value of the point, 0 if it was never recorded
+     */
+    public long longSum(String name, Attributes attributes) {
+        return collect().stream()
+                .filter(metric -> metric.getName().equals(name))
+                .flatMap(metric -> metric.getLongSumData().getPoints().stream())
+                .filter(point -> point.getAttributes().equals(attributes))
+                .mapToLong(LongPointData::getValue)
+                .sum();
+    }
+
+    @Override
+    public AggregationTemporality getPreferredTemporality() {
+        return AggregationTemporality.CUMULATIVE;
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+}
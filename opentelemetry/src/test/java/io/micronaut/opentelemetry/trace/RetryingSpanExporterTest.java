@@ -0,0 +1,267 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace;
+
+import io.micronaut.opentelemetry.metrics.InMemoryMetricReader;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.testing.trace.TestSpanData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class RetryingSpanExporterTest {
+
+    private static final Duration BACKOFF = Duration.ofMillis(10);
+    private static final long SPOOL_SIZE = 64 * 1024;
+
+    private final InMemoryMetricReader metricReader = new InMemoryMetricReader();
+    private final SdkMeterProvider meterProvider = SdkMeterProvider.builder().registerMetricReader(metricReader).build();
+    private final List<SpanExporter> exporters = new ArrayList<>();
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void shutdown() {
+        exporters.forEach(SpanExporter::shutdown);
+        meterProvider.shutdown();
+    }
+
+    @Test
+    void theBackoffBoundGrowsByTheMultiplierUpToTheMaximum() {
+        RetryingSpanExporter exporter = exporter(new FakeExporter(), 10, Duration.ofMillis(100), Duration.ofSeconds(1),
+                10, null);
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), exporter.backoffBound(1));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), exporter.backoffBound(2));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(400), exporter.backoffBound(3));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(800), exporter.backoffBound(4));
+        assertEquals(TimeUnit.SECONDS.toNanos(1), exporter.backoffBound(5));
+        assertEquals(TimeUnit.SECONDS.toNanos(1), exporter.backoffBound(30));
+    }
+
+    @Test
+    void aFailedExportIsReportedAndRetriedUntilItSucceeds() {
+        FakeExporter delegate = new FakeExporter();
+        delegate.failuresLeft.set(2);
+        RetryingSpanExporter exporter = exporter(delegate, 5, BACKOFF, BACKOFF, 10, null);
+
+        CompletableResultCode result = exporter.export(Collections.singletonList(span("a")));
+
+        assertTrue(result.join(10, TimeUnit.SECONDS).isDone());
+        assertFalse(result.isSuccess(), "the result is the one of the first attempt");
+        await(() -> metricReader.longSum("retriedBatches", Attributes.empty()) == 1);
+        assertTrue(delegate.exported.contains("a"));
+        assertEquals(3, delegate.attempts.get());
+        assertEquals(0, metricReader.longSum("droppedBatches", Attributes.empty()));
+    }
+
+    @Test
+    void aSuccessfulExportIsReportedAsIs() {
+        FakeExporter delegate = new FakeExporter();
+        RetryingSpanExporter exporter = exporter(delegate, 5, BACKOFF, BACKOFF, 10, null);
+
+        assertTrue(exporter.export(Collections.singletonList(span("a"))).join(10, TimeUnit.SECONDS).isSuccess());
+        assertEquals(1, delegate.attempts.get());
+    }
+
+    @Test
+    void aBatchIsDroppedOnceTheAttemptsAreExhaustedWithoutASpool() {
+        FakeExporter delegate = new FakeExporter();
+        delegate.failing = true;
+        RetryingSpanExporter exporter = exporter(delegate, 3, BACKOFF, BACKOFF, 10, null);
+
+        exporter.export(Collections.singletonList(span("a")));
+
+        await(() -> metricReader.longSum("droppedBatches", Attributes.empty()) == 1);
+        assertEquals(3, delegate.attempts.get());
+        assertTrue(delegate.exported.isEmpty());
+    }
+
+    @Test
+    void aBatchIsSpooledRightAwayWhenTooManyBatchesWaitForARetry() {
+        FakeExporter delegate = new FakeExporter();
+        delegate.failing = true;
+        exporter(delegate, 5, BACKOFF, BACKOFF, 0, directory.resolve("spool"))
+                .export(Collections.singletonList(span("a")));
+
+        await(() -> metricReader.longSum("spooledBytes", Attributes.empty()) > 0);
+        assertEquals(1, delegate.attempts.get());
+    }
+
+    @Test
+    void spooledBatchesAreReplayedOnceAnExportSucceeds() {
+        FakeExporter delegate = new FakeExporter();
+        delegate.failing = true;
+        RetryingSpanExporter exporter = exporter(delegate, 2, BACKOFF, BACKOFF, 10, directory.resolve("spool"));
+        exporter.export(Collections.singletonList(span("a")));
+        await(() -> metricReader.longSum("spooledBytes", Attributes.empty()) > 0);
+        assertEquals(2, delegate.attempts.get());
+
+        delegate.failing = false;
+        assertTrue(exporter.export(Collections.singletonList(span("b"))).join(10, TimeUnit.SECONDS).isSuccess());
+
+        await(() -> metricReader.longSum("replayedBatches", Attributes.empty()) == 1);
+        assertTrue(delegate.exported.contains("a"));
+    }
+
+    @Test
+    void spooledBatchesAreReplayedAfterReopeningTheSpool() {
+        Path spool = directory.resolve("spool");
+        FakeExporter failing = new FakeExporter();
+        failing.failing = true;
+        RetryingSpanExporter before = exporter(failing, 1, BACKOFF, BACKOFF, 10, spool);
+        before.export(Collections.singletonList(span("a")));
+        await(() -> metricReader.longSum("spooledBytes", Attributes.empty()) > 0);
+        before.shutdown();
+
+        FakeExporter delegate = new FakeExporter();
+        exporter(delegate, 1, BACKOFF, BACKOFF, 10, spool);
+
+        // nothing else is exported, the spool is replayed on the schedule of the new exporter
+        await(() -> delegate.exported.contains("a"));
+    }
+
+    @Test
+    void retriesGoThroughTheConcurrencyLimitOfTheDelegate() {
+        FakeExporter delegate = new FakeExporter();
+        delegate.holding = true;
+        RetryingSpanExporter exporter = exporter(
+                new ConcurrencyLimitingSpanExporter(delegate, 1, MeterProvider.noop()), 5, BACKOFF, BACKOFF, 10, null);
+
+        CompletableResultCode first = exporter.export(Collections.singletonList(span("a")));
+        CompletableResultCode second = exporter.export(Collections.singletonList(span("b")));
+
+        assertFalse(second.isSuccess(), "the limit rejects the second batch");
+        assertEquals(1, delegate.attempts.get());
+        delegate.holding = false;
+        delegate.held.poll().succeed();
+        assertTrue(first.isSuccess());
+        await(() -> delegate.exported.contains("b"));
+        assertEquals(1, delegate.maxInFlight.get());
+    }
+
+    private RetryingSpanExporter exporter(SpanExporter delegate,
+                                          int maxAttempts,
+                                          Duration initialBackoff,
+                                          Duration maxBackoff,
+                                          int maxPendingBatches,
+                                          Path spoolFile) {
+        RetryingSpanExporter exporter = new RetryingSpanExporter(delegate, meterProvider, maxAttempts, initialBackoff,
+                maxBackoff, 2, maxPendingBatches, spoolFile, SPOOL_SIZE);
+        exporters.add(exporter);
+        return exporter;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            if (deadline - System.nanoTime() < 0) {
+                fail("Condition not met within 10 seconds");
+            }
+            Thread.yield();
+        }
+    }
+
+    private static SpanData span(String name) {
+        return TestSpanData.builder()
+                .setSpanContext(SpanContext.create("4bf92f3577b34da6a3ce929d0e0e4736", "00f067aa0ba902b7",
+                        TraceFlags.getSampled(), TraceState.getDefault()))
+                .setName(name)
+                .setKind(SpanKind.INTERNAL)
+                .setStartEpochNanos(1)
+                .setEndEpochNanos(2)
+                .setHasEnded(true)
+                .setStatus(StatusData.unset())
+                .setTotalRecordedEvents(0)
+                .setTotalRecordedLinks(0)
+                .build();
+    }
+
+    /**
+     * Fails, holds or completes the exports it is given and records the names of the spans exported successfully.
+     */
+    private static final class FakeExporter implements SpanExporter {
+
+        private final List<String> exported = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger attempts = new AtomicInteger();
+        private final AtomicInteger failuresLeft = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final BlockingQueue<CompletableResultCode> held = new LinkedBlockingQueue<>();
+        private volatile boolean failing;
+        private volatile boolean holding;
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> spans) {
+            attempts.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            CompletableResultCode result = new CompletableResultCode();
+            result.whenComplete(() -> {
+                inFlight.decrementAndGet();
+                if (result.isSuccess()) {
+                    spans.forEach(span -> exported.add(span.getName()));
+                }
+            });
+            if (holding) {
+                held.add(result);
+            } else if (failing || failuresLeft.getAndDecrement() > 0) {
+                result.fail();
+            } else {
+                result.succeed();
+            }
+            return result;
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace;
+
+import io.micronaut.opentelemetry.metrics.InMemoryMetricReader;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferSpanProcessorTest {
+
+    private static final Duration SCHEDULE_DELAY = Duration.ofSeconds(30);
+    private static final Attributes DROPPED = Attributes.of(
+            AttributeKey.stringKey("spanProcessorType"), RingBufferSpanProcessor.class.getSimpleName(),
+            AttributeKey.booleanKey("dropped"), true);
+
+    private final InMemoryMetricReader metricReader = new InMemoryMetricReader();
+    private final RecordingExporter exporter = new RecordingExporter();
+    private RingBufferSpanProcessor processor;
+    private SdkTracerProvider tracerProvider;
+    private Tracer tracer;
+
+    @AfterEach
+    void shutdown() {
+        exporter.release();
+        tracerProvider.shutdown().join(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void dropNewestKeepsTheBufferedSpans() {
+        fillWhileTheExporterIsBlocked(BackPressurePolicy.DROP_NEWEST, Duration.ZERO);
+
+        assertEquals(names(0, 1, 2, 3, 4), exporter.names());
+        assertEquals(2, metricReader.longSum("processedSpans", DROPPED));
+    }
+
+    @Test
+    void dropOldestEvictsTheBufferedSpans() {
+        fillWhileTheExporterIsBlocked(BackPressurePolicy.DROP_OLDEST, Duration.ZERO);
+
+        assertEquals(names(0, 3, 4, 5, 6), exporter.names());
+        assertEquals(2, metricReader.longSum("processedSpans", DROPPED));
+    }
+
+    @Test
+    void blockDropsTheNewSpanWhenTheTimeoutElapses() {
+        fillWhileTheExporterIsBlocked(BackPressurePolicy.BLOCK, Duration.ofMillis(10));
+
+        assertEquals(names(0, 1, 2, 3, 4), exporter.names());
+        assertEquals(2, metricReader.longSum("processedSpans", DROPPED));
+    }
+
+    @Test
+    void blockWaitsForTheExporterToFreeASlot() throws InterruptedException {
+        createProcessor(BackPressurePolicy.BLOCK, Duration.ofSeconds(30), 1, 4, 512);
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exporter.release();
+        });
+        blockExporter();
+        releaser.start();
+        IntStream.rangeClosed(1, 6).forEach(this::endSpan);
+        releaser.join();
+
+        assertTrue(processor.forceFlush().join(10, TimeUnit.SECONDS).isSuccess());
+        assertEquals(names(0, 1, 2, 3, 4, 5, 6), exporter.names());
+        assertEquals(0, metricReader.longSum("processedSpans", DROPPED));
+    }
+
+    @ParameterizedTest
+    @EnumSource(BackPressurePolicy.class)
+    void concurrentProducersLoseNoSpanUnaccounted(BackPressurePolicy policy) throws InterruptedException {
+        int producers = 4;
+        int spansPerProducer = 5_000;
+        createProcessor(policy, Duration.ofSeconds(30), 4, 64, 16);
+        exporter.release();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int first = p * spansPerProducer;
+            threads.add(new Thread(() -> IntStream.range(first, first + spansPerProducer).forEach(this::endSpan)));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(60));
+        }
+
+        assertTrue(processor.forceFlush().join(10, TimeUnit.SECONDS).isSuccess());
+        List<String> exported = exporter.names();
+        long dropped = metricReader.longSum("processedSpans", DROPPED);
+        assertEquals(exported.size(), new HashSet<>(exported).size());
+        assertEquals(producers * spansPerProducer, exported.size() + dropped);
+        if (policy == BackPressurePolicy.BLOCK) {
+            assertEquals(0, dropped);
+        }
+    }
+
+    @Test
+    void concurrentFlushesCompleteAndExportTheSpansEndedBeforeThem() throws InterruptedException {
+        int threadCount = 4;
+        int flushesPerThread = 50;
+        createProcessor(BackPressurePolicy.BLOCK, Duration.ofSeconds(30), 4, 1024, 512);
+        exporter.release();
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            int first = t * flushesPerThread;
+            threads.add(new Thread(() -> {
+                for (int i = first; i < first + flushesPerThread; i++) {
+                    endSpan(i);
+                    CompletableResultCode flush = processor.forceFlush().join(10, TimeUnit.SECONDS);
+                    if (!flush.isSuccess() || !exporter.names().contains("span-" + i)) {
+                        failed.set(true);
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(60));
+        }
+
+        assertTrue(!failed.get(), "a flush did not complete or did not export the span ended before it");
+        assertEquals(threadCount * flushesPerThread, exporter.names().size());
+    }
+
+    @Test
+    void shutdownExportsTheBufferedSpansAndShutsTheExporterDown() {
+        createProcessor(BackPressurePolicy.DROP_NEWEST, Duration.ZERO, 2, 64, 512);
+        exporter.release();
+        IntStream.range(0, 10).forEach(this::endSpan);
+
+        assertTrue(processor.shutdown().join(10, TimeUnit.SECONDS).isSuccess());
+        endSpan(10);
+
+        assertEquals(10, exporter.names().size());
+        assertTrue(exporter.shutdown);
+    }
+
+    /**
+     * Blocks the exporter on the batch of the first span, then ends six more spans into a single ring buffer of
+     * four slots, so two of them overflow.
+     */
+    private void fillWhileTheExporterIsBlocked(BackPressurePolicy policy, Duration blockTimeout) {
+        createProcessor(policy, blockTimeout, 1, 4, 512);
+        CompletableResultCode firstFlush = blockExporter();
+        IntStream.rangeClosed(1, 6).forEach(this::endSpan);
+        exporter.release();
+
+        assertTrue(firstFlush.join(10, TimeUnit.SECONDS).isSuccess());
+        assertTrue(processor.forceFlush().join(10, TimeUnit.SECONDS).isSuccess());
+    }
+
+    private CompletableResultCode blockExporter() {
+        endSpan(0);
+        CompletableResultCode flush = processor.forceFlush();
+        try {
+            assertTrue(exporter.entered.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return flush;
+    }
+
+    private void createProcessor(BackPressurePolicy policy, Duration blockTimeout, int stripes, int maxQueueSize,
+                                 int maxExportBatchSize) {
+        SdkMeterProvider meterProvider = SdkMeterProvider.builder().registerMetricReader(metricReader).build();
+        processor = new RingBufferSpanProcessor(exporter, meterProvider, stripes, maxQueueSize, maxExportBatchSize,
+                SCHEDULE_DELAY, Duration.ofSeconds(10), policy, blockTimeout);
+        tracerProvider = SdkTracerProvider.builder().addSpanProcessor(processor).build();
+        tracer = tracerProvider.get("test");
+    }
+
+    private void endSpan(int index) {
+        tracer.spanBuilder("span-" + index).startSpan().end();
+    }
+
+    private static List<String> names(int... indexes) {
+        return Arrays.stream(indexes).mapToObj(i -> "span-" + i).collect(Collectors.toList());
+    }
+
+    /**
+     * Records the names of the exported spans, and holds the exports until it is released.
+     */
+    private static final class RecordingExporter implements SpanExporter {
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final List<String> names = new ArrayList<>();
+        private volatile boolean shutdown;
+
+        void release() {
+            released.countDown();
+        }
+
+        synchronized List<String> names() {
+            return new ArrayList<>(names);
+        }
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> spans) {
+            entered.countDown();
+            try {
+                released.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CompletableResultCode.ofFailure();
+            }
+            synchronized (this) {
+                spans.forEach(span -> names.add(span.getName()));
+            }
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            shutdown = true;
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.sdk.common.InstrumentationLibraryInfo;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.testing.trace.TestSpanData;
+import io.opentelemetry.sdk.trace.data.EventData;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.data.StatusData;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SpanDataCodecTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final Attributes ALL_TYPES = Attributes.builder()
+            .put(AttributeKey.stringKey("string"), "value \u00e9\u6f22")
+            .put(AttributeKey.stringKey("empty"), "")
+            .put(AttributeKey.booleanKey("boolean"), true)
+            .put(AttributeKey.longKey("long"), Long.MIN_VALUE)
+            .put(AttributeKey.doubleKey("double"), -0.5)
+            .put(AttributeKey.stringArrayKey("strings"), Arrays.asList("a", "", "c"))
+            .put(AttributeKey.booleanArrayKey("booleans"), Arrays.asList(true, false))
+            .put(AttributeKey.longArrayKey("longs"), Arrays.asList(1L, Long.MAX_VALUE))
+            .put(AttributeKey.doubleArrayKey("doubles"), Arrays.asList(Double.NaN, Double.NEGATIVE_INFINITY, 1.5))
+            .put(AttributeKey.stringArrayKey("no.strings"), Collections.emptyList())
+            .build();
+
+    @Test
+    void everyFieldSurvivesARoundTrip() throws IOException {
+        Resource service = Resource.create(ALL_TYPES, "https://opentelemetry.io/schemas/1.9.0");
+        Resource other = Resource.create(Attributes.of(AttributeKey.stringKey("service.name"), "other"));
+        InstrumentationLibraryInfo library = InstrumentationLibraryInfo.create("io.micronaut.http", "3.4.1",
+                "https://opentelemetry.io/schemas/1.9.0");
+        InstrumentationLibraryInfo bare = InstrumentationLibraryInfo.create("bare", null);
+        SpanContext remoteParent = SpanContext.createFromRemoteParent(TRACE_ID, "00f067aa0ba902b7",
+                TraceFlags.getSampled(), TraceState.builder().put("vendor", "value").put("other", "1").build());
+        SpanContext linked = SpanContext.create("0af7651916cd43dd8448eb211c80319c", "b7ad6b7169203331",
+                TraceFlags.getDefault(), TraceState.getDefault());
+
+        List<SpanData> spans = Arrays.asList(
+                TestSpanData.builder()
+                        .setSpanContext(SpanContext.create(TRACE_ID, "53995c3f42cd8ad8", TraceFlags.getSampled(),
+                                TraceState.getDefault()))
+                        .setParentSpanContext(remoteParent)
+                        .setResource(service)
+                        .setInstrumentationLibraryInfo(library)
+                        .setName("GET /orders/{id}")
+                        .setKind(SpanKind.SERVER)
+                        .setStartEpochNanos(1_650_000_000_123_456_789L)
+                        .setEndEpochNanos(1_650_000_001_123_456_789L)
+                        .setHasEnded(true)
+                        .setAttributes(ALL_TYPES)
+                        .setTotalAttributeCount(42)
+                        .setEvents(Arrays.asList(
+                                EventData.create(1_650_000_000_200_000_000L, "exception", ALL_TYPES, 12),
+                                EventData.create(1_650_000_000_300_000_000L, "empty", Attributes.empty())))
+                        .setTotalRecordedEvents(5)
+                        .setLinks(Arrays.asList(
+                                LinkData.create(linked, Attributes.of(AttributeKey.longKey("index"), 1L), 3),
+                                LinkData.create(remoteParent)))
+                        .setTotalRecordedLinks(4)
+                        .setStatus(StatusData.create(StatusCode.ERROR, "failed"))
+                        .build(),
+                TestSpanData.builder()
+                        .setSpanContext(SpanContext.create(TRACE_ID, "a3ce929d0e0e4736", TraceFlags.getSampled(),
+                                TraceState.getDefault()))
+                        .setResource(other)
+                        .setInstrumentationLibraryInfo(bare)
+                        .setName("child")
+                        .setKind(SpanKind.INTERNAL)
+                        .setStartEpochNanos(1)
+                        .setEndEpochNanos(2)
+                        .setHasEnded(false)
+                        .setStatus(StatusData.unset())
+                        .setTotalRecordedEvents(0)
+                        .setTotalRecordedLinks(0)
+                        .build(),
+                TestSpanData.builder()
+                        .setSpanContext(SpanContext.create(TRACE_ID, "0e0e4736a3ce929d", TraceFlags.getSampled(),
+                                TraceState.getDefault()))
+                        .setResource(service)
+                        .setInstrumentationLibraryInfo(library)
+                        .setName("client")
+                        .setKind(SpanKind.CLIENT)
+                        .setStartEpochNanos(3)
+                        .setEndEpochNanos(4)
+                        .setHasEnded(true)
+                        .setStatus(StatusData.ok())
+                        .setTotalRecordedEvents(0)
+                        .setTotalRecordedLinks(0)
+                        .build());
+
+        List<SpanData> decoded = SpanDataCodec.decode(SpanDataCodec.encode(spans));
+
+        assertEquals(spans.size(), decoded.size());
+        for (int i = 0; i < spans.size(); i++) {
+            assertSpan(spans.get(i), decoded.get(i));
+        }
+        // resources and libraries are written once per batch and shared by the decoded spans
+        assertSame(decoded.get(0).getResource(), decoded.get(2).getResource());
+        assertSame(decoded.get(0).getInstrumentationLibraryInfo(), decoded.get(2).getInstrumentationLibraryInfo());
+    }
+
+    @Test
+    void anEmptyBatchSurvivesARoundTrip() throws IOException {
+        assertEquals(Collections.emptyList(), SpanDataCodec.decode(SpanDataCodec.encode(Collections.emptyList())));
+    }
+
+    @Test
+    void aTruncatedOrForeignRecordIsRejected() throws IOException {
+        byte[] record = SpanDataCodec.encode(Collections.singletonList(TestSpanData.builder()
+                .setSpanContext(SpanContext.create(TRACE_ID, "53995c3f42cd8ad8", TraceFlags.getSampled(),
+                        TraceState.getDefault()))
+                .setName("span")
+                .setKind(SpanKind.INTERNAL)
+                .setStartEpochNanos(1)
+                .setEndEpochNanos(2)
+                .setHasEnded(true)
+                .setAttributes(ALL_TYPES)
+                .setStatus(StatusData.unset())
+                .setTotalRecordedEvents(0)
+                .setTotalRecordedLinks(0)
+                .build()));
+
+        assertThrows(IOException.class, () -> SpanDataCodec.decode(Arrays.copyOf(record, record.length - 9)));
+        byte[] foreign = record.clone();
+        foreign[3] = 42;
+        assertThrows(IOException.class, () -> SpanDataCodec.decode(foreign));
+    }
+
+    private static void assertSpan(SpanData expected, SpanData actual) {
+        assertEquals(expected.getSpanContext(), actual.getSpanContext());
+        assertEquals(expected.getSpanContext().isRemote(), actual.getSpanContext().isRemote());
+        assertEquals(expected.getParentSpanContext(), actual.getParentSpanContext());
+        assertEquals(expected.getParentSpanContext().isRemote(), actual.getParentSpanContext().isRemote());
+        assertEquals(expected.getResource(), actual.getResource());
+        assertEquals(expected.getResource().getSchemaUrl(), actual.getResource().getSchemaUrl());
+        assertEquals(expected.getInstrumentationLibraryInfo(), actual.getInstrumentationLibraryInfo());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getKind(), actual.getKind());
+        assertEquals(expected.getStartEpochNanos(), actual.getStartEpochNanos());
+        assertEquals(expected.getEndEpochNanos(), actual.getEndEpochNanos());
+        assertEquals(expected.hasEnded(), actual.hasEnded());
+        assertEquals(expected.getAttributes(), actual.getAttributes());
+        assertEquals(expected.getTotalAttributeCount(), actual.getTotalAttributeCount());
+        assertEquals(expected.getEvents().size(), actual.getEvents().size());
+        for (int i = 0; i < expected.getEvents().size(); i++) {
+            EventData expectedEvent = expected.getEvents().get(i);
+            EventData actualEvent = actual.getEvents().get(i);
+            assertEquals(expectedEvent.getName(), actualEvent.getName());
+            assertEquals(expectedEvent.getEpochNanos(), actualEvent.getEpochNanos());
+            assertEquals(expectedEvent.getAttributes(), actualEvent.getAttributes());
+            assertEquals(expectedEvent.getTotalAttributeCount(), actualEvent.getTotalAttributeCount());
+        }
+        assertEquals(expected.getTotalRecordedEvents(), actual.getTotalRecordedEvents());
+        assertEquals(expected.getLinks().size(), actual.getLinks().size());
+        for (int i = 0; i < expected.getLinks().size(); i++) {
+            LinkData expectedLink = expected.getLinks().get(i);
+            LinkData actualLink = actual.getLinks().get(i);
+            assertEquals(expectedLink.getSpanContext(), actualLink.getSpanContext());
+            assertEquals(expectedLink.getSpanContext().isRemote(), actualLink.getSpanContext().isRemote());
+            assertEquals(expectedLink.getAttributes(), actualLink.getAttributes());
+            assertEquals(expectedLink.getTotalAttributeCount(), actualLink.getTotalAttributeCount());
+        }
+        assertEquals(expected.getTotalRecordedLinks(), actual.getTotalRecordedLinks());
+        assertEquals(expected.getStatus(), actual.getStatus());
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace;
+
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpanRingBufferTest {
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(1, new SpanRingBuffer(0).capacity());
+        assertEquals(1, new SpanRingBuffer(1).capacity());
+        assertEquals(8, new SpanRingBuffer(5).capacity());
+        assertEquals(8, new SpanRingBuffer(8).capacity());
+    }
+
+    @Test
+    void spansArePolledInTheOrderTheyWereOfferedAcrossWraparounds() {
+        SpanRingBuffer buffer = new SpanRingBuffer(4);
+        List<ReadableSpan> spans = spans(10);
+        for (int round = 0; round < 3; round++) {
+            for (ReadableSpan span : spans.subList(0, 4)) {
+                assertTrue(buffer.offer(span));
+            }
+            assertFalse(buffer.offer(spans.get(4)));
+            assertEquals(4, buffer.size());
+            for (ReadableSpan span : spans.subList(0, 4)) {
+                assertSame(span, buffer.poll());
+            }
+            assertNull(buffer.poll());
+            assertEquals(0, buffer.size());
+        }
+    }
+
+    @Test
+    void concurrentProducersAndConsumersHandOverEverySpanOnce() throws InterruptedException {
+        int producers = 4;
+        int consumers = 2;
+        int spansPerProducer = 20_000;
+        SpanRingBuffer buffer = new SpanRingBuffer(64);
+        Set<ReadableSpan> received = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicBoolean producing = new AtomicBoolean(true);
+        CountDownLatch producersDone = new CountDownLatch(producers);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            List<ReadableSpan> spans = spans(spansPerProducer);
+            threads.add(new Thread(() -> {
+                for (ReadableSpan span : spans) {
+                    while (!buffer.offer(span)) {
+                        Thread.yield();
+                    }
+                }
+                producersDone.countDown();
+            }));
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads.add(new Thread(() -> {
+                while (producing.get() || buffer.size() > 0) {
+                    ReadableSpan span = buffer.poll();
+                    if (span == null) {
+                        Thread.yield();
+                    } else if (!received.add(span)) {
+                        duplicates.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        assertTrue(producersDone.await(60, TimeUnit.SECONDS));
+        producing.set(false);
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(60));
+        }
+
+        assertEquals(0, duplicates.get());
+        assertEquals(producers * spansPerProducer, received.size());
+        assertNull(buffer.poll());
+    }
+
+    private static List<ReadableSpan> spans(int count) {
+        List<ReadableSpan> spans = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int id = i;
+            spans.add((ReadableSpan) Proxy.newProxyInstance(ReadableSpan.class.getClassLoader(),
+                    new Class<?>[] {ReadableSpan.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "toString":
+                                return "span-" + id;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    }));
+        }
+        return spans;
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SpanSpoolTest {
+
+    private static final int HEADER_SIZE = 32;
+    private static final int LENGTH_SIZE = 4;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordsAreReadInTheOrderTheyWereAppended() throws IOException {
+        try (SpanSpool spool = new SpanSpool(directory.resolve("spool"), 1024)) {
+            assertEquals(0, spool.append(record(1, 10)));
+            assertEquals(0, spool.append(record(2, 20)));
+            assertEquals(2 * LENGTH_SIZE + 30, spool.size());
+
+            assertRecord(record(1, 10), spool);
+            assertRecord(record(2, 20), spool);
+            assertNull(spool.peek());
+            assertEquals(0, spool.size());
+        }
+    }
+
+    @Test
+    void recordsWrappingAroundTheEndOfTheFileAreReadBackIntact() throws IOException {
+        // 7 + 4 bytes per record never divide the 64 byte ring, so the records keep crossing its end
+        try (SpanSpool spool = new SpanSpool(directory.resolve("spool"), HEADER_SIZE + 64)) {
+            for (int i = 0; i < 100; i++) {
+                assertEquals(0, spool.append(record(i, 7)));
+                assertEquals(0, spool.append(record(i + 1000, 7)));
+                assertRecord(record(i, 7), spool);
+                assertRecord(record(i + 1000, 7), spool);
+            }
+            assertNull(spool.peek());
+        }
+    }
+
+    @Test
+    void theOldestRecordsAreEvictedWhenTheSpoolIsFull() throws IOException {
+        try (SpanSpool spool = new SpanSpool(directory.resolve("spool"), HEADER_SIZE + 64)) {
+            for (int i = 0; i < 4; i++) {
+                assertEquals(0, spool.append(record(i, 12)));
+            }
+            assertEquals(64, spool.size());
+
+            assertEquals(1, spool.append(record(4, 12)), "one record makes room for a record of the same size");
+            assertEquals(2, spool.append(record(5, 20)), "a larger record evicts as many records as needed");
+
+            assertRecord(record(3, 12), spool);
+            assertRecord(record(4, 12), spool);
+            assertRecord(record(5, 20), spool);
+            assertNull(spool.peek());
+        }
+    }
+
+    @Test
+    void aRecordLargerThanTheSpoolIsRejected() throws IOException {
+        try (SpanSpool spool = new SpanSpool(directory.resolve("spool"), HEADER_SIZE + 64)) {
+            assertEquals(0, spool.append(record(1, 12)));
+            assertEquals(-1, spool.append(record(2, 64 - LENGTH_SIZE + 1)));
+
+            assertRecord(record(1, 12), spool);
+        }
+    }
+
+    @Test
+    void aRecordEvictedWhileBeingReplayedIsNotRemovedTwice() throws IOException {
+        try (SpanSpool spool = new SpanSpool(directory.resolve("spool"), HEADER_SIZE + 64)) {
+            for (int i = 0; i < 4; i++) {
+                spool.append(record(i, 12));
+            }
+            SpanSpool.Record replayed = spool.peek();
+            assertEquals(1, spool.append(record(4, 12)));
+
+            spool.remove(replayed);
+
+            assertRecord(record(1, 12), spool);
+        }
+    }
+
+    @Test
+    void recordsSurviveReopeningTheSpool() throws IOException {
+        Path file = directory.resolve("spool");
+        try (SpanSpool spool = new SpanSpool(file, HEADER_SIZE + 64)) {
+            for (int i = 0; i < 6; i++) {
+                spool.append(record(i, 12));
+            }
+            spool.remove(spool.peek());
+        }
+
+        try (SpanSpool spool = new SpanSpool(file, HEADER_SIZE + 64)) {
+            assertEquals(3 * (LENGTH_SIZE + 12), spool.size());
+            assertRecord(record(3, 12), spool);
+            assertRecord(record(4, 12), spool);
+            assertRecord(record(5, 12), spool);
+            assertNull(spool.peek());
+        }
+    }
+
+    @Test
+    void aSpoolOfAnotherSizeIsReset() throws IOException {
+        Path file = directory.resolve("spool");
+        try (SpanSpool spool = new SpanSpool(file, HEADER_SIZE + 64)) {
+            spool.append(record(1, 12));
+        }
+
+        try (SpanSpool spool = new SpanSpool(file, HEADER_SIZE + 128)) {
+            assertEquals(0, spool.size());
+            assertNull(spool.peek());
+        }
+    }
+
+    @Test
+    void aClosedSpoolAcceptsNothing() throws IOException {
+        SpanSpool spool = new SpanSpool(directory.resolve("spool"), HEADER_SIZE + 64);
+        spool.append(record(1, 12));
+        spool.close();
+
+        assertEquals(-1, spool.append(record(2, 12)));
+        assertNull(spool.peek());
+    }
+
+    private static void assertRecord(byte[] expected, SpanSpool spool) {
+        SpanSpool.Record record = spool.peek();
+        assertArrayEquals(expected, record.data);
+        spool.remove(record);
+    }
+
+    private static byte[] record(int id, int length) {
+        byte[] record = new byte[length];
+        Arrays.fill(record, (byte) id);
+        record[0] = (byte) (id >>> 8);
+        return record;
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace.sampler;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.trace.IdGenerator;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrecomputedSamplerTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String OTHER_TRACE_ID = "0af7651916cd43dd8448eb211c80319c";
+    private static final String PARENT_SPAN_ID = "00f067aa0ba902b7";
+
+    private final SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+            .setSampler(new PrecomputedSampler(Sampler.alwaysOn()))
+            .setIdGenerator(new PrecomputedIdGenerator(IdGenerator.random()))
+            .build();
+    private final Tracer tracer = tracerProvider.get("test");
+
+    @AfterEach
+    void shutdown() {
+        tracerProvider.shutdown();
+    }
+
+    @Test
+    void aRootSpanTakesTheDecisionAndTraceIdOnlyInsideTheScope() {
+        Context decisionContext = PrecomputedSampler.withDecision(Context.root(), TRACE_ID, SamplingResult.drop());
+
+        Span span;
+        try (Scope ignored = decisionContext.makeCurrent()) {
+            span = tracer.spanBuilder("server").setParent(decisionContext).startSpan();
+        }
+        assertEquals(TRACE_ID, span.getSpanContext().getTraceId());
+        assertFalse(span.getSpanContext().isSampled());
+
+        Span outside = tracer.spanBuilder("outside").setParent(decisionContext).startSpan();
+        assertNotEquals(TRACE_ID, outside.getSpanContext().getTraceId());
+        assertTrue(outside.getSpanContext().isSampled(), "the decision only applies to its own trace id");
+    }
+
+    @Test
+    void theChildrenOfTheSpanAreSampledOnTheirOwn() {
+        Context decisionContext = PrecomputedSampler.withDecision(Context.root(), TRACE_ID, SamplingResult.drop());
+        Context serverContext;
+        try (Scope ignored = decisionContext.makeCurrent()) {
+            serverContext = decisionContext.with(tracer.spanBuilder("server").setParent(decisionContext).startSpan());
+        }
+
+        try (Scope ignored = serverContext.makeCurrent()) {
+            assertNull(PrecomputedSampler.rootTraceId(Context.current()));
+            Span child = tracer.spanBuilder("child").startSpan();
+            assertEquals(TRACE_ID, child.getSpanContext().getTraceId());
+            assertTrue(child.getSpanContext().isSampled(), "the child is sampled by the delegate");
+
+            Span root = tracer.spanBuilder("root").setNoParent().startSpan();
+            assertNotEquals(TRACE_ID, root.getSpanContext().getTraceId());
+            assertTrue(root.getSpanContext().isSampled());
+        }
+    }
+
+    @Test
+    void aRemoteParentKeepsItsTraceIdAndTheDecisionAppliesToItsChildOnly() {
+        SpanContext remote = SpanContext.createFromRemoteParent(TRACE_ID, PARENT_SPAN_ID, TraceFlags.getSampled(),
+                TraceState.getDefault());
+        Context parentContext = Context.root().with(Span.wrap(remote));
+        Context decisionContext = PrecomputedSampler.withDecision(parentContext, TRACE_ID, SamplingResult.drop());
+
+        assertNull(PrecomputedSampler.rootTraceId(decisionContext));
+        Span span = tracer.spanBuilder("server").setParent(decisionContext).startSpan();
+        assertEquals(TRACE_ID, span.getSpanContext().getTraceId());
+        assertFalse(span.getSpanContext().isSampled());
+
+        Context otherParent = Context.root().with(Span.wrap(SpanContext.createFromRemoteParent(OTHER_TRACE_ID,
+                PARENT_SPAN_ID, TraceFlags.getSampled(), TraceState.getDefault())));
+        Span other = tracer.spanBuilder("other").setParent(decisionContext.with(Span.fromContext(otherParent)))
+                .startSpan();
+        assertTrue(other.getSpanContext().isSampled(), "the decision is bound to the parent it was taken for");
+    }
+
+    @Test
+    void withoutADecisionTheDelegateIsUsed() {
+        assertEquals(Context.root(), PrecomputedSampler.withDecision(Context.root(), TRACE_ID, null));
+        Span span = tracer.spanBuilder("plain").startSpan();
+        assertTrue(span.getSpanContext().isSampled());
+        assertNotEquals(TRACE_ID, span.getSpanContext().getTraceId());
+    }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace.sampler;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.Clock;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitingSamplerTest {
+
+    private final FakeClock clock = new FakeClock();
+
+    @Test
+    void samplesOneSpanPerInterval() {
+        RateLimitingSampler sampler = new RateLimitingSampler(10, 1, clock);
+
+        assertTrue(sample(sampler));
+        assertFalse(sample(sampler));
+        clock.advanceMillis(50);
+        assertFalse(sample(sampler));
+        clock.advanceMillis(50);
+        assertTrue(sample(sampler));
+        assertFalse(sample(sampler));
+    }
+
+    @Test
+    void samplesABurstThenRefillsAtTheRate() {
+        RateLimitingSampler sampler = new RateLimitingSampler(10, 5, clock);
+
+        assertEquals(5, sampleRepeatedly(sampler, 20));
+        clock.advanceMillis(200);
+        assertEquals(2, sampleRepeatedly(sampler, 20));
+        clock.advanceMillis(10_000);
+        assertEquals(5, sampleRepeatedly(sampler, 20));
+    }
+
+    @Test
+    void sustainedLoadIsLimitedToTheRate() {
+        RateLimitingSampler sampler = new RateLimitingSampler(10, 1, clock);
+
+        int sampled = 0;
+        for (int millis = 0; millis < 10_000; millis++) {
+            if (sample(sampler)) {
+                sampled++;
+            }
+            clock.advanceMillis(1);
+        }
+
+        assertEquals(100, sampled);
+    }
+
+    @Test
+    void zeroSpansPerSecondNeverSamples() {
+        RateLimitingSampler sampler = new RateLimitingSampler(0, 1, clock);
+
+        assertEquals(0, sampleRepeatedly(sampler, 10));
+        clock.advanceMillis(TimeUnit.HOURS.toMillis(1));
+        assertEquals(0, sampleRepeatedly(sampler, 10));
+    }
+
+    @Test
+    void concurrentCallersShareTheBurst() throws InterruptedException {
+        RateLimitingSampler sampler = new RateLimitingSampler(1, 100, clock);
+        AtomicInteger sampled = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> sampled.addAndGet(sampleRepeatedly(sampler, 1_000))));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(100, sampled.get());
+    }
+
+    private static int sampleRepeatedly(RateLimitingSampler sampler, int times) {
+        int sampled = 0;
+        for (int i = 0; i < times; i++) {
+            if (sample(sampler)) {
+                sampled++;
+            }
+        }
+        return sampled;
+    }
+
+    private static boolean sample(RateLimitingSampler sampler) {
+        return sampler.shouldSample(Context.root(), "4bf92f3577b34da6a3ce929d0e0e4736", "span", SpanKind.SERVER,
+                Attributes.empty(), Collections.emptyList()).getDecision() == SamplingDecision.RECORD_AND_SAMPLE;
+    }
+
+    /**
+     * A clock that only moves when it is told to.
+     */
+    private static final class FakeClock implements Clock {
+
+        private volatile long nanos = TimeUnit.DAYS.toNanos(1);
+
+        void advanceMillis(long millis) {
+            nanos += TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+
+        @Override
+        public long now() {
+            return nanos;
+        }
+
+        @Override
+        public long nanoTime() {
+            return nanos;
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017-2022 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.opentelemetry.trace.sampler;
+
+import io.micronaut.opentelemetry.instrumentation.grpc.client.GrpcClientMethodSamplingConfiguration;
+import io.micronaut.opentelemetry.instrumentation.grpc.server.GrpcServerMethodSamplingConfiguration;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.IdGenerator;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuleBasedSamplerTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final AttributeKey<String> FALLBACK = AttributeKey.stringKey("fallback");
+    private static final Sampler FALLBACK_SAMPLER = new Sampler() {
+        @Override
+        public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+                                           Attributes attributes, List<LinkData> parentLinks) {
+            return SamplingResult.create(SamplingDecision.RECORD_AND_SAMPLE, Attributes.of(FALLBACK, "true"));
+        }
+
+        @Override
+        public String getDescription() {
+            return "fallback";
+        }
+    };
+
+    @Test
+    void theFirstMatchingRuleDecides() {
+        RuleBasedSampler sampler = new RuleBasedSampler(
+                Arrays.asList(
+                        httpRateLimit("orders", "/orders/**", 0),
+                        httpRateLimit("all", "/**", 1000),
+                        grpcRateLimit("find", "books.BookService/Find", 0)),
+                Arrays.asList(
+                        serverSampling("books.BookService/*", 1),
+                        clientSampling("books.BookService/*", 0),
+                        serverSampling("**", 0)),
+                FALLBACK_SAMPLER);
+
+        Object[][] table = {
+                // span name, span kind, expected decision
+                {"/orders/1", SpanKind.SERVER, "dropped"},
+                {"/orders", SpanKind.SERVER, "dropped"},
+                {"/books/1", SpanKind.SERVER, "sampled"},
+                {"books.BookService/Find", SpanKind.SERVER, "dropped"},
+                {"books.BookService/Find", SpanKind.CLIENT, "dropped"},
+                {"books.BookService/List", SpanKind.SERVER, "sampled"},
+                {"books.BookService/List", SpanKind.CLIENT, "dropped"},
+                {"books.BookService/List", SpanKind.INTERNAL, "fallback"},
+                {"other.Service/List", SpanKind.SERVER, "dropped"},
+                {"other.Service/List", SpanKind.CLIENT, "fallback"},
+        };
+        for (Object[] row : table) {
+            // decide twice, the second decision comes from the cache
+            for (int i = 0; i < 2; i++) {
+                assertEquals(row[2], decide(sampler, (String) row[0], (SpanKind) row[1]), row[0] + " " + row[1]);
+            }
+        }
+    }
+
+    @Test
+    void withoutRulesEverySpanGoesToTheFallback() {
+        RuleBasedSampler sampler = new RuleBasedSampler(Collections.emptyList(), FALLBACK_SAMPLER);
+
+        assertEquals("fallback", decide(sampler, "/orders/1", SpanKind.SERVER));
+        assertEquals("fallback", decide(sampler, "books.BookService/Find", SpanKind.CLIENT));
+        assertEquals(0, sampler.cachedNames());
+    }
+
+    @Test
+    void theCacheIsCappedAndUncachedNamesAreStillMatched() {
+        RuleBasedSampler sampler = new RuleBasedSampler(
+                Collections.singletonList(httpRateLimit("odd", "/odd/**", 0)), FALLBACK_SAMPLER);
+
+        for (int i = 0; i < 3_000; i++) {
+            String name = (i % 2 == 0 ? "/even/" : "/odd/") + i;
+            assertEquals(i % 2 == 0 ? "fallback" : "dropped", decide(sampler, name, SpanKind.SERVER));
+        }
+        assertEquals(1024, sampler.cachedNames());
+        assertEquals("dropped", decide(sampler, "/odd/2999", SpanKind.SERVER));
+        assertEquals("fallback", decide(sampler, "/even/2998", SpanKind.SERVER));
+        decide(sampler, "/odd/1", SpanKind.CLIENT);
+        assertEquals(1025, sampler.cachedNames());
+    }
+
+    @Test
+    void grpcRatiosDecideOnTheTraceIdSoEveryHopAgrees() {
+        RuleBasedSampler sampler = new RuleBasedSampler(Collections.emptyList(),
+                Arrays.asList(serverSampling("books.BookService/*", 0.25), clientSampling("books.BookService/*", 0.25)),
+                FALLBACK_SAMPLER);
+
+        int sampled = 0;
+        int traces = 10_000;
+        for (int i = 0; i < traces; i++) {
+            String traceId = IdGenerator.random().generateTraceId();
+            SamplingDecision server = sampler.shouldSample(Context.root(), traceId, "books.BookService/Find",
+                    SpanKind.SERVER, Attributes.empty(), Collections.emptyList()).getDecision();
+            SamplingDecision client = sampler.shouldSample(Context.root(), traceId, "books.BookService/Find",
+                    SpanKind.CLIENT, Attributes.empty(), Collections.emptyList()).getDecision();
+            assertEquals(server, client, traceId);
+            if (server == SamplingDecision.RECORD_AND_SAMPLE) {
+                sampled++;
+            }
+        }
+        assertTrue(Math.abs(sampled - traces / 4) < traces / 20, "sampled " + sampled + " of " + traces);
+    }
+
+    private static String decide(Sampler sampler, String name, SpanKind spanKind) {
+        SamplingResult result = sampler.shouldSample(Context.root(), TRACE_ID, name, spanKind, Attributes.empty(),
+                Collections.emptyList());
+        if (result.getDecision() != SamplingDecision.RECORD_AND_SAMPLE) {
+            return "dropped";
+        }
+        return result.getAttributes().get(FALLBACK) != null ? "fallback" : "sampled";
+    }
+
+    private static RateLimitConfiguration httpRateLimit(String name, String route, double spansPerSecond) {
+        RateLimitConfiguration rateLimit = new RateLimitConfiguration(name);
+        rateLimit.setHttpRoute(route);
+        rateLimit.setSpansPerSecond(spansPerSecond);
+        return rateLimit;
+    }
+
+    private static RateLimitConfiguration grpcRateLimit(String name, String method, double spansPerSecond) {
+        RateLimitConfiguration rateLimit = new RateLimitConfiguration(name);
+        rateLimit.setGrpcMethod(method);
+        rateLimit.setSpansPerSecond(spansPerSecond);
+        return rateLimit;
+    }
+
+    private static GrpcServerMethodSamplingConfiguration serverSampling(String method, double ratio) {
+        GrpcServerMethodSamplingConfiguration sampling = new GrpcServerMethodSamplingConfiguration(method);
+        sampling.setMethod(method);
+        sampling.setRatio(ratio);
+        return sampling;
+    }
+
+    private static GrpcClientMethodSamplingConfiguration clientSampling(String method, double ratio) {
+        GrpcClientMethodSamplingConfiguration sampling = new GrpcClientMethodSamplingConfiguration(method);
+        sampling.setMethod(method);
+        sampling.setRatio(ratio);
+        return sampling;
+    }
+
+}